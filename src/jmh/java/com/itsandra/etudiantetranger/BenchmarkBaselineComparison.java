@@ -0,0 +1,92 @@
+package com.itsandra.etudiantetranger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares the JSON results of a JMH run with the committed baseline, and fails when benchmarks are slower than the
+ * baseline by more than a threshold. The scores of two machines are not comparable: the baseline is recorded on the
+ * reference machine, and the threshold is raised with {@code -Djmh.regression-threshold} elsewhere.
+ * <p>
+ * Arguments: the results file, the baseline file, and the threshold in percent.
+ */
+public final class BenchmarkBaselineComparison {
+
+    private BenchmarkBaselineComparison() {}
+
+    public static void main(String[] args) throws IOException {
+        File resultFile = new File(args[0]);
+        File baselineFile = new File(args[1]);
+        double threshold = Double.parseDouble(args[2]);
+        if (!resultFile.isFile()) {
+            System.out.println("No benchmark results in " + resultFile);
+            return;
+        }
+        Map<String, JsonNode> results = read(resultFile);
+        Map<String, JsonNode> baseline = baselineFile.isFile() ? read(baselineFile) : Map.of();
+        if (baseline.isEmpty()) {
+            System.out.println("No baseline in " + baselineFile + ": record it with -Djmh.result=" + baselineFile);
+        }
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Score", "Change");
+        for (Map.Entry<String, JsonNode> entry : results.entrySet()) {
+            JsonNode result = entry.getValue();
+            double score = result.path("primaryMetric").path("score").asDouble();
+            String unit = result.path("primaryMetric").path("scoreUnit").asText();
+            JsonNode previous = baseline.get(entry.getKey());
+            if (previous == null || !unit.equals(previous.path("primaryMetric").path("scoreUnit").asText())) {
+                System.out.printf("%-90s %14s %14.3f %9s  %s%n", entry.getKey(), "-", score, "-", unit);
+                continue;
+            }
+            double baselineScore = previous.path("primaryMetric").path("score").asDouble();
+            double change = baselineScore != 0 ? (score - baselineScore) * 100 / baselineScore : 0;
+            // A time per operation is worse when higher, a throughput when lower
+            boolean higherIsWorse = !"thrpt".equals(result.path("mode").asText());
+            boolean regression = higherIsWorse ? change > threshold : change < -threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf(
+                "%-90s %14.3f %14.3f %8.1f%%  %s%s%n",
+                entry.getKey(),
+                baselineScore,
+                score,
+                change,
+                unit,
+                regression ? "  REGRESSION" : ""
+            );
+        }
+        System.out.printf("%d benchmark(s) slower than the baseline by more than %.0f%%%n", regressions, threshold);
+        long missing = results.keySet().stream().filter(name -> !baseline.containsKey(name)).count();
+        if (missing > 0) {
+            System.out.printf("%d benchmark(s) without a baseline score, not compared%n", missing);
+        }
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return the results by benchmark name and parameters.
+     */
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> param = fields.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            String name = result.path("benchmark").asText();
+            results.put(params.isEmpty() ? name : name + " " + params, result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,88 @@
+package com.itsandra.etudiantetranger.repository;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.h2.H2ConnectionFactory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.query.UpdateMapper;
+import org.springframework.data.relational.core.dialect.RenderContextFactory;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.sql.Select;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
+import org.springframework.data.relational.core.sql.Table;
+import org.springframework.data.relational.core.sql.render.SqlRenderer;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.PreparedOperation;
+
+/**
+ * Measures {@link EntityManager#createSelect} for a filtered page of etudiants, as built for every listing request.
+ * <p>
+ * With a {@code selectCacheSize} of 0 every select is rendered again, as before the SQL was cached by shape. No
+ * connection is opened: the connection factory is only needed to build the template.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityManagerBenchmark {
+
+    private static final Table entityTable = Table.aliased("etudiant", EntityManager.ENTITY_ALIAS);
+
+    @Param({ "0", "500" })
+    private long selectCacheSize;
+
+    private EntityManager entityManager;
+    private Pageable pageable;
+    private Criteria criteria;
+
+    @Setup
+    public void setup() {
+        R2dbcEntityTemplate template = new R2dbcEntityTemplate(
+            DatabaseClient.create(H2ConnectionFactory.inMemory("benchmark")),
+            H2Dialect.INSTANCE
+        );
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getDatabase().setSelectCacheSize(selectCacheSize);
+        entityManager =
+            new EntityManager(
+                SqlRenderer.create(new RenderContextFactory(H2Dialect.INSTANCE).createRenderContext()),
+                new UpdateMapper(H2Dialect.INSTANCE, template.getConverter()),
+                template,
+                H2Dialect.INSTANCE,
+                new SimpleMeterRegistry(),
+                applicationProperties
+            );
+        pageable = PageRequest.of(3, 20, Sort.by("nom", "id"));
+        criteria = where("nom").like("Dia%").and("nomPaysId").is(4L);
+    }
+
+    @Benchmark
+    public PreparedOperation<String> createSelect() {
+        return entityManager.createSelect("etudiant", EntityManagerBenchmark::createSelectFrom, Etudiant.class, pageable, criteria);
+    }
+
+    private static SelectFromAndJoin createSelectFrom() {
+        return Select.builder().select(EtudiantSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS)).from(entityTable);
+    }
+}
@@ -0,0 +1,116 @@
+package com.itsandra.etudiantetranger.repository.rowmapper;
+
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import io.r2dbc.spi.Row;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.r2dbc.convert.MappingR2dbcConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.H2Dialect;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+
+/**
+ * Compares the {@link EtudiantRowMapper} with the mapping it replaced, which concatenated the column names for every
+ * row and first tried the driver conversion, falling back on an exception.
+ * <p>
+ * The row returns the matricule as an {@link Integer}, as drivers do for {@code INT} columns, so one column per row
+ * needs a conversion. Run with {@code -Djmh.args="-prof gc"} to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EtudiantRowMapperBenchmark {
+
+    /**
+     * A row backed by a map, whose typed getter only decodes the values already of the requested type, like a driver
+     * without a codec for the requested type.
+     */
+    static class MapRow implements Row {
+
+        private final Map<String, Object> values;
+
+        MapRow(Map<String, Object> values) {
+            this.values = values;
+        }
+
+        @Override
+        public <T> T get(int index, Class<T> type) {
+            throw new UnsupportedOperationException("Columns are only read by name");
+        }
+
+        @Override
+        public <T> T get(String name, Class<T> type) {
+            Object value = values.get(name);
+            if (value != null && !type.isInstance(value)) {
+                throw new IllegalArgumentException("Cannot decode " + value.getClass() + " as " + type);
+            }
+            return type.cast(value);
+        }
+    }
+
+    private ColumnConverter converter;
+    private EtudiantRowMapper rowMapper;
+    private Row row;
+
+    @Setup
+    public void setup() {
+        R2dbcCustomConversions conversions = R2dbcCustomConversions.of(H2Dialect.INSTANCE);
+        converter = new ColumnConverter(conversions, new MappingR2dbcConverter(new R2dbcMappingContext(), conversions));
+        rowMapper = new EtudiantRowMapper(converter);
+        Map<String, Object> values = new HashMap<>();
+        values.put("e_id", 1L);
+        values.put("e_nom", "Diallo");
+        values.put("e_prenom", "Aminata");
+        values.put("e_matricule", 20230042);
+        values.put("e_date", LocalDate.of(2023, 9, 1));
+        values.put("e_change_version", 7L);
+        values.put("e_nom_niveau_id", 2L);
+        values.put("e_nom_filiere_id", 3L);
+        values.put("e_nom_pays_id", 4L);
+        row = new MapRow(values);
+    }
+
+    @Benchmark
+    public Etudiant columnReaders() {
+        return rowMapper.apply(row, "e");
+    }
+
+    @Benchmark
+    public Etudiant previousMapping() {
+        String prefix = "e";
+        Etudiant entity = new Etudiant();
+        entity.setId(previousFromRow(row, prefix + "_id", Long.class));
+        entity.setNom(previousFromRow(row, prefix + "_nom", String.class));
+        entity.setPrenom(previousFromRow(row, prefix + "_prenom", String.class));
+        entity.setMatricule(previousFromRow(row, prefix + "_matricule", Long.class));
+        entity.setDate(previousFromRow(row, prefix + "_date", LocalDate.class));
+        entity.setChangeVersion(previousFromRow(row, prefix + "_change_version", Long.class));
+        entity.setNomNiveauId(previousFromRow(row, prefix + "_nom_niveau_id", Long.class));
+        entity.setNomFiliereId(previousFromRow(row, prefix + "_nom_filiere_id", Long.class));
+        entity.setNomPaysId(previousFromRow(row, prefix + "_nom_pays_id", Long.class));
+        return entity;
+    }
+
+    private <T> T previousFromRow(Row row, String columnName, Class<T> target) {
+        try {
+            return row.get(columnName, target);
+        } catch (Exception e) {
+            return converter.convert(row.get(columnName), target);
+        }
+    }
+}
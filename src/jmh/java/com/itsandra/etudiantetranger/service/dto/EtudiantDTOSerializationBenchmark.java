@@ -0,0 +1,79 @@
+package com.itsandra.etudiantetranger.service.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Measures the JSON serialization of a page of etudiants, as written by {@code GET /api/etudiants}, with an object
+ * mapper configured like the one of the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EtudiantDTOSerializationBenchmark {
+
+    @Param({ "20", "100" })
+    private int pageSize;
+
+    private ObjectWriter writer;
+    private List<EtudiantDTO> page;
+
+    @Setup
+    public void setup() {
+        writer =
+            Jackson2ObjectMapperBuilder
+                .json()
+                .modules(new JavaTimeModule(), new Jdk8Module())
+                .build()
+                .writerFor(new TypeReference<List<EtudiantDTO>>() {});
+        NiveauDTO niveau = new NiveauDTO();
+        niveau.setId(2L);
+        niveau.setNomNiveau("Licence 3");
+        FiliereDTO filiere = new FiliereDTO();
+        filiere.setId(3L);
+        filiere.setNomFiliere("Informatique");
+        PaysDTO pays = new PaysDTO();
+        pays.setId(4L);
+        pays.setNomPays("Sénégal");
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            EtudiantDTO etudiant = new EtudiantDTO();
+            etudiant.setId((long) i);
+            etudiant.setNom("Diallo " + i);
+            etudiant.setPrenom("Aminata");
+            etudiant.setMatricule(20230000L + i);
+            etudiant.setDate(LocalDate.of(2023, 9, 1).plusDays(i));
+            etudiant.setNomNiveau(niveau);
+            etudiant.setNomFiliere(filiere);
+            etudiant.setNomPays(pays);
+            page.add(etudiant);
+        }
+    }
+
+    @Benchmark
+    public byte[] writePage() throws JsonProcessingException {
+        return writer.writeValueAsBytes(page);
+    }
+}
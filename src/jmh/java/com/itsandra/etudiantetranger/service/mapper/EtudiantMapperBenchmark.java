@@ -0,0 +1,76 @@
+package com.itsandra.etudiantetranger.service.mapper;
+
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import com.itsandra.etudiantetranger.domain.Filiere;
+import com.itsandra.etudiantetranger.domain.Niveau;
+import com.itsandra.etudiantetranger.domain.Pays;
+import com.itsandra.etudiantetranger.service.dto.EtudiantDTO;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Measures the {@link EtudiantMapper} conversions done for every etudiant read or written through the REST API, with
+ * the niveau, filiere and pays of the etudiant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EtudiantMapperBenchmark {
+
+    private EtudiantMapper etudiantMapper;
+    private Etudiant etudiant;
+    private EtudiantDTO etudiantDTO;
+
+    @Setup
+    public void setup() {
+        etudiantMapper = new EtudiantMapperImpl();
+        // The generated mapper gets the mappers it uses injected by Spring
+        ReflectionTestUtils.setField(etudiantMapper, "niveauMapper", new NiveauMapperImpl());
+        ReflectionTestUtils.setField(etudiantMapper, "filiereMapper", new FiliereMapperImpl());
+        ReflectionTestUtils.setField(etudiantMapper, "paysMapper", new PaysMapperImpl());
+
+        Niveau niveau = new Niveau();
+        niveau.setId(2L);
+        niveau.setNomNiveau("Licence 3");
+        Filiere filiere = new Filiere();
+        filiere.setId(3L);
+        filiere.setNomFiliere("Informatique");
+        Pays pays = new Pays();
+        pays.setId(4L);
+        pays.setNomPays("Sénégal");
+        etudiant = new Etudiant();
+        etudiant.setId(1L);
+        etudiant.setNom("Diallo");
+        etudiant.setPrenom("Aminata");
+        etudiant.setMatricule(20230042L);
+        etudiant.setDate(LocalDate.of(2023, 9, 1));
+        etudiant.setNomNiveau(niveau);
+        etudiant.setNomFiliere(filiere);
+        etudiant.setNomPays(pays);
+        etudiantDTO = etudiantMapper.toDto(etudiant);
+    }
+
+    @Benchmark
+    public EtudiantDTO toDto() {
+        return etudiantMapper.toDto(etudiant);
+    }
+
+    @Benchmark
+    public Etudiant toEntity() {
+        return etudiantMapper.toEntity(etudiantDTO);
+    }
+}
@@ -0,0 +1,527 @@
+package com.itsandra.etudiantetranger.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itsandra.etudiantetranger.ItsandraetudiantApp;
+import com.itsandra.etudiantetranger.service.EtudiantService;
+import com.itsandra.etudiantetranger.service.FiliereService;
+import com.itsandra.etudiantetranger.service.NiveauService;
+import com.itsandra.etudiantetranger.service.PaysService;
+import com.itsandra.etudiantetranger.service.dto.BatchItemResultDTO;
+import com.itsandra.etudiantetranger.service.dto.EtudiantDTO;
+import com.itsandra.etudiantetranger.service.dto.FiliereDTO;
+import com.itsandra.etudiantetranger.service.dto.NiveauDTO;
+import com.itsandra.etudiantetranger.service.dto.PaysDTO;
+import com.itsandra.etudiantetranger.web.rest.vm.LoginVM;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Load test of the etudiant, authentication and account endpoints: {@code ./mvnw -Pload-test verify}.
+ * <p>
+ * The application starts on the in-memory H2 database of the tests, seeded with a synthetic dataset. The requests are
+ * then sent at a fixed rate, whatever the response times, in a mix of listings, reads, creations and partial updates of
+ * etudiants, account reads and logins. After a warm-up, the latencies, the throughput and the allocation rate are
+ * measured, written to {@code loadtest.report}, and checked against the thresholds of
+ * {@code load-test-thresholds.properties}.
+ * <p>
+ * The rate, the durations, the dataset size and the random seed are the {@code loadtest.*} system properties, set by
+ * the load-test profile. The same seed sends the same requests, in the same order.
+ */
+@SpringBootTest(
+    classes = ItsandraetudiantApp.class,
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        // All the logins come from this address, for two users
+        "application.login-rate-limit.max-attempts-per-login=100000000",
+        "application.login-rate-limit.max-attempts-per-ip=100000000",
+    }
+)
+class EtudiantLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(EtudiantLoadTest.class);
+
+    private static final String METER_NAME = "loadtest.requests";
+
+    private static final String THRESHOLDS = "/load-test-thresholds.properties";
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final MediaType MERGE_PATCH_JSON = MediaType.valueOf("application/merge-patch+json");
+
+    private static final String[] NOMS = { "Diallo", "Traoré", "Ndiaye", "Rakoto", "Mensah", "Kouassi", "Nguyen", "Benali" };
+
+    private static final String[] PRENOMS = { "Aminata", "Moussa", "Fatou", "Hery", "Kofi", "Aya", "Linh", "Yacine" };
+
+    /**
+     * The kinds of requests, with their share of the traffic in percent.
+     */
+    private enum Kind {
+        LIST(45),
+        GET(25),
+        CREATE(5),
+        PATCH(10),
+        ACCOUNT(10),
+        LOGIN(5);
+
+        private final int share;
+
+        Kind(int share) {
+            this.share = share;
+        }
+
+        private String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final int rate = Integer.getInteger("loadtest.rate", 200);
+    private final Duration warmUp = Duration.ofSeconds(Long.getLong("loadtest.warm-up-s", 15));
+    private final Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration-s", 60));
+    private final int datasetSize = Integer.getInteger("loadtest.dataset-size", 10000);
+    private final int maxInFlight = Integer.getInteger("loadtest.max-in-flight", 1000);
+    private final long seed = Long.getLong("loadtest.seed", 42);
+    private final String reportPath = System.getProperty("loadtest.report", "target/load-test-report.json");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebClient.Builder webClientBuilder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NiveauService niveauService;
+
+    @Autowired
+    private FiliereService filiereService;
+
+    @Autowired
+    private PaysService paysService;
+
+    @Autowired
+    private EtudiantService etudiantService;
+
+    private ConnectionProvider connectionProvider;
+
+    private WebClient client;
+
+    private List<Long> niveauIds;
+    private List<Long> filiereIds;
+    private List<Long> paysIds;
+    private List<Long> etudiantIds;
+
+    private String token;
+
+    @BeforeEach
+    public void setup() {
+        connectionProvider = ConnectionProvider.builder("load-test").maxConnections(maxInFlight).pendingAcquireMaxCount(-1).build();
+        client =
+            webClientBuilder
+                .clone()
+                .baseUrl("http://localhost:" + port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        connectionProvider.dispose();
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.MINUTES)
+    void sustainsTheTargetRateWithinTheThresholds() throws IOException {
+        seed();
+        token = authenticate("admin", "admin").block();
+
+        log.info("Warming up for {} at {} requests/s", warmUp, rate);
+        run(warmUp, new SplittableRandom(seed));
+        log.info("Measuring for {} at {} requests/s", duration, rate);
+        Results results = run(duration, new SplittableRandom(seed + 1));
+
+        Map<String, Object> report = results.toReport();
+        File reportFile = new File(reportPath);
+        reportFile.getAbsoluteFile().getParentFile().mkdirs();
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile, report);
+        log.info("Load test results, also written to {}:\n{}", reportFile, results.toTable());
+
+        checkThresholds(results);
+    }
+
+    private void seed() {
+        log.info("Seeding {} etudiants", datasetSize);
+        niveauIds =
+            Flux
+                .range(1, 5)
+                .concatMap(i -> {
+                    NiveauDTO niveau = new NiveauDTO();
+                    niveau.setNomNiveau("Niveau " + i);
+                    return niveauService.save(niveau);
+                })
+                .map(NiveauDTO::getId)
+                .collectList()
+                .block();
+        filiereIds =
+            Flux
+                .range(1, 10)
+                .concatMap(i -> {
+                    FiliereDTO filiere = new FiliereDTO();
+                    filiere.setNomFiliere("Filière " + i);
+                    return filiereService.save(filiere);
+                })
+                .map(FiliereDTO::getId)
+                .collectList()
+                .block();
+        paysIds =
+            Flux
+                .range(1, 30)
+                .concatMap(i -> {
+                    PaysDTO pays = new PaysDTO();
+                    pays.setNomPays("Pays " + i);
+                    return paysService.save(pays);
+                })
+                .map(PaysDTO::getId)
+                .collectList()
+                .block();
+        SplittableRandom random = new SplittableRandom(seed);
+        List<EtudiantDTO> etudiants = IntStream
+            .range(0, datasetSize)
+            .mapToObj(i -> newEtudiant(random, i))
+            .collect(Collectors.toList());
+        etudiantIds =
+            etudiantService
+                .saveAll(Flux.fromIterable(etudiants))
+                .filter(result -> result.getId() != null)
+                .map(BatchItemResultDTO::getId)
+                .collectList()
+                .block();
+    }
+
+    private EtudiantDTO newEtudiant(SplittableRandom random, long number) {
+        EtudiantDTO etudiant = new EtudiantDTO();
+        etudiant.setNom(NOMS[random.nextInt(NOMS.length)]);
+        etudiant.setPrenom(PRENOMS[random.nextInt(PRENOMS.length)]);
+        etudiant.setMatricule(20_000_000L + number);
+        etudiant.setDate(LocalDate.of(2015, 9, 1).plusDays(random.nextInt(3000)));
+        NiveauDTO niveau = new NiveauDTO();
+        niveau.setId(niveauIds.get(random.nextInt(niveauIds.size())));
+        etudiant.setNomNiveau(niveau);
+        FiliereDTO filiere = new FiliereDTO();
+        filiere.setId(filiereIds.get(random.nextInt(filiereIds.size())));
+        etudiant.setNomFiliere(filiere);
+        PaysDTO pays = new PaysDTO();
+        pays.setId(paysIds.get(random.nextInt(paysIds.size())));
+        etudiant.setNomPays(pays);
+        return etudiant;
+    }
+
+    private Mono<String> authenticate(String username, String password) {
+        LoginVM login = new LoginVM();
+        login.setUsername(username);
+        login.setPassword(password);
+        return client
+            .post()
+            .uri("/api/authenticate")
+            .bodyValue(login)
+            .retrieve()
+            .toBodilessEntity()
+            .map(response -> response.getHeaders().getFirst(HttpHeaders.AUTHORIZATION).substring("Bearer ".length()));
+    }
+
+    /**
+     * Send requests at the target rate for a while. A request which would exceed the maximum number of requests in
+     * flight is not sent, and counted as dropped.
+     */
+    private Results run(Duration length, SplittableRandom random) {
+        Results results = new Results(length);
+        long period = TimeUnit.SECONDS.toNanos(1) / rate;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        Flux
+            .interval(Duration.ofNanos(period))
+            .take(length.toNanos() / period)
+            .onBackpressureDrop(tick -> results.dropped.incrementAndGet())
+            // The interval emits one tick at a time, so the random draws keep their order
+            .map(tick -> request(nextKind(random), random, results))
+            .flatMap(request -> request, maxInFlight)
+            .then()
+            .block();
+        results.elapsedNanos = System.nanoTime() - start;
+        results.allocatedBytes = allocatedBefore < 0 ? -1 : allocatedBytes() - allocatedBefore;
+        return results;
+    }
+
+    private static Kind nextKind(SplittableRandom random) {
+        int draw = random.nextInt(100);
+        for (Kind kind : Kind.values()) {
+            draw -= kind.share;
+            if (draw < 0) {
+                return kind;
+            }
+        }
+        return Kind.LIST;
+    }
+
+    private Mono<Boolean> request(Kind kind, SplittableRandom random, Results results) {
+        WebClient.RequestHeadersSpec<?> spec;
+        Long id = etudiantIds.get(random.nextInt(etudiantIds.size()));
+        switch (kind) {
+            case LIST:
+                spec =
+                    client
+                        .get()
+                        .uri("/api/etudiants?page={page}&size={size}&sort=id,asc", random.nextInt(datasetSize / PAGE_SIZE), PAGE_SIZE)
+                        // Rather than the streamed listing
+                        .accept(MediaType.APPLICATION_JSON);
+                break;
+            case GET:
+                spec = client.get().uri("/api/etudiants/{id}", id);
+                break;
+            case CREATE:
+                spec = client.post().uri("/api/etudiants").bodyValue(newEtudiant(random, datasetSize + random.nextInt(1_000_000)));
+                break;
+            case PATCH:
+                EtudiantDTO patch = new EtudiantDTO();
+                patch.setId(id);
+                patch.setPrenom(PRENOMS[random.nextInt(PRENOMS.length)]);
+                spec = client.patch().uri("/api/etudiants/{id}", id).contentType(MERGE_PATCH_JSON).bodyValue(patch);
+                break;
+            case ACCOUNT:
+                spec = client.get().uri("/api/account");
+                break;
+            default:
+                return timed(authenticate("user", "user").map(login -> true), kind, results);
+        }
+        Mono<Boolean> response = spec
+            .headers(headers -> headers.setBearerAuth(token))
+            .exchangeToMono(clientResponse -> clientResponse.releaseBody().thenReturn(clientResponse.statusCode().is2xxSuccessful()));
+        return timed(response, kind, results);
+    }
+
+    private static Mono<Boolean> timed(Mono<Boolean> response, Kind kind, Results results) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return response
+                .onErrorReturn(false)
+                .doOnNext(success -> {
+                    if (success) {
+                        results.timers.get(kind).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    } else {
+                        results.errors.get(kind).increment();
+                    }
+                });
+        });
+    }
+
+    /**
+     * @return the bytes allocated so far by the live threads, or -1 if the JVM doesn't measure them.
+     */
+    private static long allocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long total = 0;
+        for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            // -1 for a thread which ended in between
+            total += Math.max(allocated, 0);
+        }
+        return total;
+    }
+
+    private void checkThresholds(Results results) throws IOException {
+        Properties thresholds = new Properties();
+        try (InputStream in = EtudiantLoadTest.class.getResourceAsStream(THRESHOLDS)) {
+            thresholds.load(in);
+        }
+        SoftAssertions softly = new SoftAssertions();
+        softly
+            .assertThat(results.throughput())
+            .as("successful requests per second")
+            .isGreaterThanOrEqualTo(rate * Double.parseDouble(thresholds.getProperty("throughput.min-ratio")));
+        softly
+            .assertThat(results.errorRatio())
+            .as("share of failed or dropped requests")
+            .isLessThanOrEqualTo(Double.parseDouble(thresholds.getProperty("errors.max-ratio")));
+        if (results.allocatedBytes >= 0) {
+            softly
+                .assertThat(results.allocationMbPerSecond())
+                .as("allocated MB per second")
+                .isLessThanOrEqualTo(Double.parseDouble(thresholds.getProperty("allocation.max-mb-per-s")));
+        }
+        for (Kind kind : Kind.values()) {
+            Map<Double, Double> percentiles = results.percentilesMs(kind);
+            softly
+                .assertThat(percentiles.get(0.5))
+                .as("p50 of %s in ms", kind.key())
+                .isLessThanOrEqualTo(Double.parseDouble(thresholds.getProperty(kind.key() + ".p50-ms")));
+            softly
+                .assertThat(percentiles.get(0.99))
+                .as("p99 of %s in ms", kind.key())
+                .isLessThanOrEqualTo(Double.parseDouble(thresholds.getProperty(kind.key() + ".p99-ms")));
+        }
+        softly.assertAll();
+    }
+
+    /**
+     * The measures of a run, on a registry of its own.
+     */
+    private final class Results {
+
+        private final Duration length;
+        private final MeterRegistry registry = new SimpleMeterRegistry();
+        private final Map<Kind, Timer> timers = new EnumMap<>(Kind.class);
+        private final Map<Kind, Counter> errors = new EnumMap<>(Kind.class);
+        private final AtomicLong dropped = new AtomicLong();
+        private long elapsedNanos;
+        private long allocatedBytes;
+
+        private Results(Duration length) {
+            this.length = length;
+            for (Kind kind : Kind.values()) {
+                timers.put(
+                    kind,
+                    Timer
+                        .builder(METER_NAME)
+                        .tag("kind", kind.key())
+                        .publishPercentiles(0.5, 0.99)
+                        .percentilePrecision(2)
+                        // One window over the whole run
+                        .distributionStatisticExpiry(length.multipliedBy(2).plusMinutes(1))
+                        .distributionStatisticBufferLength(1)
+                        .register(registry)
+                );
+                errors.put(kind, Counter.builder(METER_NAME + ".errors").tag("kind", kind.key()).register(registry));
+            }
+        }
+
+        private long successes() {
+            return timers.values().stream().mapToLong(Timer::count).sum();
+        }
+
+        private long failures() {
+            return errors.values().stream().mapToLong(counter -> (long) counter.count()).sum() + dropped.get();
+        }
+
+        private double throughput() {
+            return successes() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+
+        private double errorRatio() {
+            long total = successes() + failures();
+            return total == 0 ? 0 : failures() / (double) total;
+        }
+
+        private double allocationMbPerSecond() {
+            return allocatedBytes / (1024.0 * 1024.0) * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+
+        private Map<Double, Double> percentilesMs(Kind kind) {
+            Map<Double, Double> percentiles = new HashMap<>();
+            for (ValueAtPercentile value : timers.get(kind).takeSnapshot().percentileValues()) {
+                percentiles.put(value.percentile(), value.value(TimeUnit.MILLISECONDS));
+            }
+            return percentiles;
+        }
+
+        private Map<String, Object> toReport() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("targetRate", rate);
+            report.put("durationS", length.getSeconds());
+            report.put("datasetSize", datasetSize);
+            report.put("seed", seed);
+            report.put("throughput", throughput());
+            report.put("errorRatio", errorRatio());
+            report.put("dropped", dropped.get());
+            report.put("allocationMbPerS", allocatedBytes >= 0 ? allocationMbPerSecond() : null);
+            Map<String, Object> byKind = new LinkedHashMap<>();
+            for (Kind kind : Kind.values()) {
+                Map<String, Object> measures = new LinkedHashMap<>();
+                Map<Double, Double> percentiles = percentilesMs(kind);
+                measures.put("count", timers.get(kind).count());
+                measures.put("errors", (long) errors.get(kind).count());
+                measures.put("meanMs", timers.get(kind).mean(TimeUnit.MILLISECONDS));
+                measures.put("p50Ms", percentiles.get(0.5));
+                measures.put("p99Ms", percentiles.get(0.99));
+                byKind.put(kind.key(), measures);
+            }
+            report.put("requests", byKind);
+            return report;
+        }
+
+        private String toTable() {
+            StringBuilder table = new StringBuilder(
+                String.format("%-8s %8s %7s %9s %9s %9s%n", "", "count", "errors", "mean ms", "p50 ms", "p99 ms")
+            );
+            for (Kind kind : Kind.values()) {
+                Map<Double, Double> percentiles = percentilesMs(kind);
+                table.append(
+                    String.format(
+                        "%-8s %8d %7d %9.1f %9.1f %9.1f%n",
+                        kind.key(),
+                        timers.get(kind).count(),
+                        (long) errors.get(kind).count(),
+                        timers.get(kind).mean(TimeUnit.MILLISECONDS),
+                        percentiles.get(0.5),
+                        percentiles.get(0.99)
+                    )
+                );
+            }
+            table.append(
+                String.format(
+                    "throughput %.1f requests/s for a target of %d, %.2f%% errors, %d dropped, %s MB/s allocated",
+                    throughput(),
+                    rate,
+                    errorRatio() * 100,
+                    dropped.get(),
+                    allocatedBytes >= 0 ? String.format("%.1f", allocationMbPerSecond()) : "unknown"
+                )
+            );
+            return table.toString();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.itsandra.etudiantetranger.aop.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Aspect timing the methods of the service, repository and Web REST Spring components.
+ * <p>
+ * The duration of a call is recorded by the {@value #METER_NAME} meter, tagged by class, method and outcome. For a
+ * method returning a {@link Mono} or a {@link Flux}, it runs from the subscription to the completion, error or
+ * cancellation, so it measures the actual work and not only the assembly of the pipeline. Only a
+ * {@link #setSampleRate(double) sample} of the calls is timed, and the timing can be {@link #setEnabled(boolean)
+ * disabled}, at runtime through the {@link MethodTimingEndpoint}.
+ */
+@Aspect
+public class MethodTimingAspect {
+
+    public static final String METER_NAME = "application.method.timed";
+
+    private static final String SUCCESS = "success";
+    private static final String ERROR = "error";
+    private static final String CANCEL = "cancel";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Class<?>, Map<Method, MethodTimers>> timers = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled;
+
+    private volatile double sampleRate;
+
+    public MethodTimingAspect(MeterRegistry meterRegistry, boolean enabled, double sampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        setSampleRate(sampleRate);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @param sampleRate the share of the calls which are timed, from 0 to 1.
+     */
+    public void setSampleRate(double sampleRate) {
+        if (!(sampleRate >= 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("The sample rate must be between 0 and 1: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Pointcut that matches all repositories, services and Web REST endpoints.
+     */
+    @Pointcut(
+        "within(@org.springframework.stereotype.Repository *)" +
+        " || within(@org.springframework.stereotype.Service *)" +
+        " || within(@org.springframework.web.bind.annotation.RestController *)"
+    )
+    public void springBeanPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Pointcut that matches all Spring beans in the application's main packages.
+     */
+    @Pointcut(
+        "within(com.itsandra.etudiantetranger.repository..*)" +
+        " || within(com.itsandra.etudiantetranger.service..*)" +
+        " || within(com.itsandra.etudiantetranger.web.rest..*)"
+    )
+    public void applicationPackagePointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Pointcut that matches the Spring Data repositories, but not their custom implementations, which they call.
+     */
+    @Pointcut(
+        "this(org.springframework.data.repository.Repository)" +
+        " && !target(org.springframework.data.r2dbc.repository.support.SimpleR2dbcRepository)"
+    )
+    public void springDataRepositoryPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Advice that times a sample of the method calls.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable the error of the method.
+     */
+    @Around("(applicationPackagePointcut() && springBeanPointcut()) || springDataRepositoryPointcut()")
+    public Object timeAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        double rate = sampleRate;
+        if (!enabled || rate == 0 || (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate)) {
+            return joinPoint.proceed();
+        }
+        MethodTimers methodTimers = methodTimers(joinPoint);
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            methodTimers.record(ERROR, start);
+            throw e;
+        }
+        if (result instanceof Mono) {
+            Mono<?> mono = (Mono<?>) result;
+            return Mono.defer(() -> {
+                long subscribed = System.nanoTime();
+                return mono.doFinally(signal -> methodTimers.record(outcome(signal), subscribed));
+            });
+        }
+        if (result instanceof Flux) {
+            Flux<?> flux = (Flux<?>) result;
+            return Flux.defer(() -> {
+                long subscribed = System.nanoTime();
+                return flux.doFinally(signal -> methodTimers.record(outcome(signal), subscribed));
+            });
+        }
+        methodTimers.record(SUCCESS, start);
+        return result;
+    }
+
+    private MethodTimers methodTimers(ProceedingJoinPoint joinPoint) {
+        Class<?> targetClass = joinPoint.getTarget() != null
+            ? joinPoint.getTarget().getClass()
+            : joinPoint.getSignature().getDeclaringType();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return timers
+            .computeIfAbsent(targetClass, key -> new ConcurrentHashMap<>())
+            .computeIfAbsent(method, key -> new MethodTimers(className(targetClass), method.getName()));
+    }
+
+    private static String className(Class<?> targetClass) {
+        Class<?> userClass = ClassUtils.getUserClass(targetClass);
+        // A Spring Data repository is a JDK proxy, whose first interface is the repository
+        if (Proxy.isProxyClass(userClass) && userClass.getInterfaces().length > 0) {
+            userClass = userClass.getInterfaces()[0];
+        }
+        return userClass.getSimpleName();
+    }
+
+    private static String outcome(SignalType signal) {
+        switch (signal) {
+            case ON_ERROR:
+                return ERROR;
+            case CANCEL:
+                return CANCEL;
+            default:
+                return SUCCESS;
+        }
+    }
+
+    /**
+     * The timers of a method, by outcome, registered on their first use.
+     */
+    private final class MethodTimers {
+
+        private final String className;
+
+        private final String methodName;
+
+        private final Map<String, Timer> byOutcome = new ConcurrentHashMap<>(4);
+
+        private MethodTimers(String className, String methodName) {
+            this.className = className;
+            this.methodName = methodName;
+        }
+
+        private void record(String outcome, long start) {
+            long elapsed = System.nanoTime() - start;
+            byOutcome
+                .computeIfAbsent(
+                    outcome,
+                    key ->
+                        Timer
+                            .builder(METER_NAME)
+                            .description("Duration of the calls to the application methods, until their result completes")
+                            .tag("class", className)
+                            .tag("method", methodName)
+                            .tag("outcome", key)
+                            .register(meterRegistry)
+                )
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+}
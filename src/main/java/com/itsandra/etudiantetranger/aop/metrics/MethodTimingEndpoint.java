@@ -0,0 +1,47 @@
+package com.itsandra.etudiantetranger.aop.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+/**
+ * Management endpoint to read and change the settings of the {@link MethodTimingAspect} at runtime, for instance with
+ * a {@code POST /management/methodtimings} of {@code {"enabled": true, "sampleRate": 0.1}}. The changes are lost on
+ * restart, and only apply to the node which receives them.
+ */
+@Endpoint(id = "methodtimings")
+public class MethodTimingEndpoint {
+
+    private final MethodTimingAspect methodTimingAspect;
+
+    public MethodTimingEndpoint(MethodTimingAspect methodTimingAspect) {
+        this.methodTimingAspect = methodTimingAspect;
+    }
+
+    @ReadOperation
+    public Map<String, Object> settings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("enabled", methodTimingAspect.isEnabled());
+        settings.put("sampleRate", methodTimingAspect.getSampleRate());
+        return settings;
+    }
+
+    @WriteOperation
+    public Map<String, Object> configure(@Nullable Boolean enabled, @Nullable Double sampleRate) {
+        if (sampleRate != null) {
+            try {
+                methodTimingAspect.setSampleRate(sampleRate);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidEndpointRequestException(e.getMessage(), "Invalid sample rate");
+            }
+        }
+        if (enabled != null) {
+            methodTimingAspect.setEnabled(enabled);
+        }
+        return settings();
+    }
+}
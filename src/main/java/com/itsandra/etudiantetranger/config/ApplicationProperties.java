@@ -9,4 +9,518 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final Database database = new Database();
+
+    private final ReferenceData referenceData = new ReferenceData();
+
+    private final Batch batch = new Batch();
+
+    private final Pagination pagination = new Pagination();
+
+    private final ReadModel readModel = new ReadModel();
+
+    private final ChangeFeed changeFeed = new ChangeFeed();
+
+    private final Sync sync = new Sync();
+
+    private final Import importJobs = new Import();
+
+    private final Export export = new Export();
+
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+
+    private final LoginRateLimit loginRateLimit = new LoginRateLimit();
+
+    private final UserCache userCache = new UserCache();
+
+    private final MailOutbox mailOutbox = new MailOutbox();
+
+    private final MailRendering mailRendering = new MailRendering();
+
+    private final MethodTiming methodTiming = new MethodTiming();
+
+    public Database getDatabase() {
+        return database;
+    }
+
+    public ReferenceData getReferenceData() {
+        return referenceData;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public ReadModel getReadModel() {
+        return readModel;
+    }
+
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    public Sync getSync() {
+        return sync;
+    }
+
+    public Import getImport() {
+        return importJobs;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public PasswordHashing getPasswordHashing() {
+        return passwordHashing;
+    }
+
+    public LoginRateLimit getLoginRateLimit() {
+        return loginRateLimit;
+    }
+
+    public UserCache getUserCache() {
+        return userCache;
+    }
+
+    public MailOutbox getMailOutbox() {
+        return mailOutbox;
+    }
+
+    public MailRendering getMailRendering() {
+        return mailRendering;
+    }
+
+    public MethodTiming getMethodTiming() {
+        return methodTiming;
+    }
+
+    public static class Database {
+
+        /**
+         * Maximum number of rendered SQL selects kept by the {@code EntityManager}.
+         */
+        private long selectCacheSize = 500;
+
+        public long getSelectCacheSize() {
+            return selectCacheSize;
+        }
+
+        public void setSelectCacheSize(long selectCacheSize) {
+            this.selectCacheSize = selectCacheSize;
+        }
+    }
+
+    public static class ReferenceData {
+
+        /**
+         * Delay between two checks of the reference data version, to notice the writes of the other nodes.
+         */
+        private long versionCheckDelayMs = 30000;
+
+        public long getVersionCheckDelayMs() {
+            return versionCheckDelayMs;
+        }
+
+        public void setVersionCheckDelayMs(long versionCheckDelayMs) {
+            this.versionCheckDelayMs = versionCheckDelayMs;
+        }
+    }
+
+    public static class Batch {
+
+        /**
+         * Number of items of a bulk request inserted with one batched statement, in one transaction.
+         */
+        private int chunkSize = 500;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class Pagination {
+
+        /**
+         * How the totals of the paginated listings are computed: {@code cached}, {@code window} or {@code none}.
+         */
+        private String countStrategy = "cached";
+
+        /**
+         * Time to live of the cached totals, which bounds how stale they are after the writes of the other nodes.
+         */
+        private long countCacheTtlMs = 60000;
+
+        public String getCountStrategy() {
+            return countStrategy;
+        }
+
+        public void setCountStrategy(String countStrategy) {
+            this.countStrategy = countStrategy;
+        }
+
+        public long getCountCacheTtlMs() {
+            return countCacheTtlMs;
+        }
+
+        public void setCountCacheTtlMs(long countCacheTtlMs) {
+            this.countCacheTtlMs = countCacheTtlMs;
+        }
+    }
+
+    public static class ReadModel {
+
+        /**
+         * Whether the etudiant listings are served by the in-memory columnar read model instead of the database.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Delay between two catch-ups of the in-memory etudiant indexes with the writes of the other nodes.
+         */
+        private long reloadDelayMs = 600000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getReloadDelayMs() {
+            return reloadDelayMs;
+        }
+
+        public void setReloadDelayMs(long reloadDelayMs) {
+            this.reloadDelayMs = reloadDelayMs;
+        }
+    }
+
+    public static class ChangeFeed {
+
+        /**
+         * Number of changes buffered for each subscriber of the etudiant change feed, which is disconnected when it is full.
+         */
+        private int bufferSize = 256;
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+    }
+
+    public static class Sync {
+
+        /**
+         * Longest duration between taking a change version and committing its write, clock skew between the nodes
+         * included: the changes of this last window are sent again by the next sync.
+         */
+        private long commitWindowMs = 60000;
+
+        public long getCommitWindowMs() {
+            return commitWindowMs;
+        }
+
+        public void setCommitWindowMs(long commitWindowMs) {
+            this.commitWindowMs = commitWindowMs;
+        }
+    }
+
+    public static class Import {
+
+        /**
+         * Number of rejected rows kept with their error in each etudiant import job, the others are only counted.
+         */
+        private int maxErrors = 100;
+
+        /**
+         * Number of finished etudiant import jobs kept in memory, for their progress to be read.
+         */
+        private int maxJobs = 20;
+
+        public int getMaxErrors() {
+            return maxErrors;
+        }
+
+        public void setMaxErrors(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        public int getMaxJobs() {
+            return maxJobs;
+        }
+
+        public void setMaxJobs(int maxJobs) {
+            this.maxJobs = maxJobs;
+        }
+    }
+
+    public static class Export {
+
+        /**
+         * Number of rows fetched from the database at once by an etudiant export.
+         */
+        private int fetchSize = 500;
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+    }
+
+    public static class PasswordHashing {
+
+        /**
+         * Number of threads hashing and verifying passwords, the number of processors if 0.
+         */
+        private int threads = 0;
+
+        /**
+         * Number of password hashings waiting for a thread, beyond which they are rejected with a 429 status.
+         */
+        private int queueCapacity = 100;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class LoginRateLimit {
+
+        /**
+         * Number of failed authentication attempts allowed for a login from an IP address during a window.
+         */
+        private int maxAttemptsPerLogin = 10;
+
+        /**
+         * Number of authentication attempts allowed from an IP address during a window.
+         */
+        private int maxAttemptsPerIp = 300;
+
+        /**
+         * Duration of a window of the login rate limit.
+         */
+        private long windowMs = 60000;
+
+        public int getMaxAttemptsPerLogin() {
+            return maxAttemptsPerLogin;
+        }
+
+        public void setMaxAttemptsPerLogin(int maxAttemptsPerLogin) {
+            this.maxAttemptsPerLogin = maxAttemptsPerLogin;
+        }
+
+        public int getMaxAttemptsPerIp() {
+            return maxAttemptsPerIp;
+        }
+
+        public void setMaxAttemptsPerIp(int maxAttemptsPerIp) {
+            this.maxAttemptsPerIp = maxAttemptsPerIp;
+        }
+
+        public long getWindowMs() {
+            return windowMs;
+        }
+
+        public void setWindowMs(long windowMs) {
+            this.windowMs = windowMs;
+        }
+    }
+
+    public static class UserCache {
+
+        /**
+         * Maximum number of users kept in memory, by login and by email.
+         */
+        private long maxSize = 10000;
+
+        /**
+         * Duration a user is kept in memory, so the staleness bound of the other nodes after a write.
+         */
+        private long timeToLiveMs = 60000;
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public long getTimeToLiveMs() {
+            return timeToLiveMs;
+        }
+
+        public void setTimeToLiveMs(long timeToLiveMs) {
+            this.timeToLiveMs = timeToLiveMs;
+        }
+    }
+
+    public static class MailOutbox {
+
+        /**
+         * Whether this node delivers the emails of the mail outbox.
+         */
+        private boolean deliveryEnabled = true;
+
+        /**
+         * Delay between two checks for due emails in the mail outbox.
+         */
+        private long pollDelayMs = 1000;
+
+        /**
+         * Number of emails sent at once, over one SMTP connection.
+         */
+        private int batchSize = 50;
+
+        /**
+         * Number of delivery attempts after which an email is abandoned.
+         */
+        private int maxAttempts = 10;
+
+        /**
+         * Delay before the second attempt to deliver an email, doubled at each next attempt.
+         */
+        private long initialBackoffMs = 30000;
+
+        /**
+         * Maximum delay between two attempts to deliver an email.
+         */
+        private long maxBackoffMs = 3600000;
+
+        /**
+         * Duration after which an email claimed by a node which didn't deliver it can be claimed again.
+         */
+        private long leaseMs = 300000;
+
+        public boolean isDeliveryEnabled() {
+            return deliveryEnabled;
+        }
+
+        public void setDeliveryEnabled(boolean deliveryEnabled) {
+            this.deliveryEnabled = deliveryEnabled;
+        }
+
+        public long getPollDelayMs() {
+            return pollDelayMs;
+        }
+
+        public void setPollDelayMs(long pollDelayMs) {
+            this.pollDelayMs = pollDelayMs;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getInitialBackoffMs() {
+            return initialBackoffMs;
+        }
+
+        public void setInitialBackoffMs(long initialBackoffMs) {
+            this.initialBackoffMs = initialBackoffMs;
+        }
+
+        public long getMaxBackoffMs() {
+            return maxBackoffMs;
+        }
+
+        public void setMaxBackoffMs(long maxBackoffMs) {
+            this.maxBackoffMs = maxBackoffMs;
+        }
+
+        public long getLeaseMs() {
+            return leaseMs;
+        }
+
+        public void setLeaseMs(long leaseMs) {
+            this.leaseMs = leaseMs;
+        }
+    }
+
+    public static class MailRendering {
+
+        /**
+         * Number of threads rendering the email templates of a bulk send, the number of processors if 0.
+         */
+        private int threads = 0;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+    }
+
+    public static class MethodTiming {
+
+        /**
+         * Whether the calls to the services, repositories and REST resources are timed, see the methodtimings endpoint.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Share of the calls which are timed, from 0 to 1.
+         */
+        private double sampleRate = 1.0;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.itsandra.etudiantetranger.config;
+
+import com.itsandra.etudiantetranger.aop.metrics.MethodTimingAspect;
+import com.itsandra.etudiantetranger.aop.metrics.MethodTimingEndpoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+
+@Configuration
+@EnableAspectJAutoProxy
+public class MethodTimingConfiguration {
+
+    @Bean
+    public MethodTimingAspect methodTimingAspect(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        ApplicationProperties.MethodTiming methodTiming = applicationProperties.getMethodTiming();
+        return new MethodTimingAspect(meterRegistry, methodTiming.isEnabled(), methodTiming.getSampleRate());
+    }
+
+    @Bean
+    public MethodTimingEndpoint methodTimingEndpoint(MethodTimingAspect methodTimingAspect) {
+        return new MethodTimingEndpoint(methodTimingAspect);
+    }
+}
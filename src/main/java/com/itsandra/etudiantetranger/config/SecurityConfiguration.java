@@ -3,9 +3,12 @@ package com.itsandra.etudiantetranger.config;
 import static org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers.pathMatchers;
 
 import com.itsandra.etudiantetranger.security.AuthoritiesConstants;
+import com.itsandra.etudiantetranger.security.PasswordHashingScheduler;
+import com.itsandra.etudiantetranger.security.TimedPasswordEncoder;
 import com.itsandra.etudiantetranger.security.jwt.JWTFilter;
 import com.itsandra.etudiantetranger.security.jwt.TokenProvider;
 import com.itsandra.etudiantetranger.web.filter.SpaWebFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpMethod;
@@ -38,21 +41,29 @@ public class SecurityConfiguration {
 
     private final SecurityProblemSupport problemSupport;
 
+    private final PasswordHashingScheduler passwordHashingScheduler;
+
+    private final MeterRegistry meterRegistry;
+
     public SecurityConfiguration(
         ReactiveUserDetailsService userDetailsService,
         TokenProvider tokenProvider,
         JHipsterProperties jHipsterProperties,
-        SecurityProblemSupport problemSupport
+        SecurityProblemSupport problemSupport,
+        PasswordHashingScheduler passwordHashingScheduler,
+        MeterRegistry meterRegistry
     ) {
         this.userDetailsService = userDetailsService;
         this.tokenProvider = tokenProvider;
         this.jHipsterProperties = jHipsterProperties;
         this.problemSupport = problemSupport;
+        this.passwordHashingScheduler = passwordHashingScheduler;
+        this.meterRegistry = meterRegistry;
     }
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 
     @Bean
@@ -61,6 +72,8 @@ public class SecurityConfiguration {
             userDetailsService
         );
         authenticationManager.setPasswordEncoder(passwordEncoder());
+        // The password check runs on the bounded password hashing pool rather than on boundedElastic
+        authenticationManager.setScheduler(passwordHashingScheduler.getScheduler());
         return authenticationManager;
     }
 
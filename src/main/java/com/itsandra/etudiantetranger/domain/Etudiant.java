@@ -49,6 +49,12 @@ public class Etudiant implements Serializable {
     @Column("nom_pays_id")
     private Long nomPaysId;
 
+    /**
+     * The version of the last write of this row, see the ChangeVersionRepository.
+     */
+    @Column("change_version")
+    private Long changeVersion = 0L;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public Long getId() {
@@ -182,6 +188,19 @@ public class Etudiant implements Serializable {
         this.nomPaysId = pays;
     }
 
+    public Long getChangeVersion() {
+        return this.changeVersion;
+    }
+
+    public Etudiant changeVersion(Long changeVersion) {
+        this.setChangeVersion(changeVersion);
+        return this;
+    }
+
+    public void setChangeVersion(Long changeVersion) {
+        this.changeVersion = changeVersion;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -21,6 +21,12 @@ public class Niveau implements Serializable {
     @Column("nom_niveau")
     private String nomNiveau;
 
+    /**
+     * The version of the last write of this row, see the ChangeVersionRepository.
+     */
+    @Column("change_version")
+    private Long changeVersion = 0L;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
 
     public Long getId() {
@@ -49,6 +55,19 @@ public class Niveau implements Serializable {
         this.nomNiveau = nomNiveau;
     }
 
+    public Long getChangeVersion() {
+        return this.changeVersion;
+    }
+
+    public Niveau changeVersion(Long changeVersion) {
+        this.setChangeVersion(changeVersion);
+        return this;
+    }
+
+    public void setChangeVersion(Long changeVersion) {
+        this.changeVersion = changeVersion;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -1,7 +1,9 @@
 package com.itsandra.etudiantetranger.management;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -13,12 +15,21 @@ public class SecurityMetersService {
     public static final String INVALID_TOKENS_METER_BASE_UNIT = "errors";
     public static final String INVALID_TOKENS_METER_CAUSE_DIMENSION = "cause";
 
+    /**
+     * The name of the cache of the authentications of the verified tokens, whose hits, misses and evictions are measured
+     * by the {@code cache.gets} and {@code cache.evictions} meters with this cache tag.
+     */
+    public static final String TOKEN_CACHE_NAME = "security.authentication.tokens";
+
+    private final MeterRegistry registry;
+
     private final Counter tokenInvalidSignatureCounter;
     private final Counter tokenExpiredCounter;
     private final Counter tokenUnsupportedCounter;
     private final Counter tokenMalformedCounter;
 
     public SecurityMetersService(MeterRegistry registry) {
+        this.registry = registry;
         this.tokenInvalidSignatureCounter = invalidTokensCounterForCauseBuilder("invalid-signature").register(registry);
         this.tokenExpiredCounter = invalidTokensCounterForCauseBuilder("expired").register(registry);
         this.tokenUnsupportedCounter = invalidTokensCounterForCauseBuilder("unsupported").register(registry);
@@ -48,4 +59,12 @@ public class SecurityMetersService {
     public void trackTokenMalformed() {
         this.tokenMalformedCounter.increment();
     }
+
+    /**
+     * Measure the cache of the authentications of the verified tokens, whose statistics must be recorded.
+     * @param tokenCache the cache.
+     */
+    public void monitorTokenCache(Cache<?, ?> tokenCache) {
+        CaffeineCacheMetrics.monitor(registry, tokenCache, TOKEN_CACHE_NAME);
+    }
 }
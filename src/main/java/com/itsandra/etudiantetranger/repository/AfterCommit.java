@@ -0,0 +1,41 @@
+package com.itsandra.etudiantetranger.repository;
+
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Defers the side effects of a write, such as the updates of the in-memory caches and indexes, to the commit of its
+ * transaction: a write which is rolled back doesn't leave them behind, and a concurrent read can't cache the row as it
+ * was before the commit.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {}
+
+    /**
+     * Run an action once the current transaction is committed, or right away outside of a transaction.
+     * @param action the action, which must not block.
+     * @return a Mono completing once the action is registered, or run.
+     */
+    public static Mono<Void> run(Runnable action) {
+        return TransactionSynchronizationManager
+            .forCurrentTransaction()
+            .flatMap(synchronizationManager -> {
+                if (!synchronizationManager.isSynchronizationActive()) {
+                    return Mono.<Void>fromRunnable(action);
+                }
+                synchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public Mono<Void> afterCommit() {
+                            return Mono.fromRunnable(action);
+                        }
+                    }
+                );
+                return Mono.<Void>empty();
+            })
+            .onErrorResume(NoTransactionException.class, e -> Mono.fromRunnable(action));
+    }
+}
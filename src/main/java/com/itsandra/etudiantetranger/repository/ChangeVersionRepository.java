@@ -0,0 +1,101 @@
+package com.itsandra.etudiantetranger.repository;
+
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * Repository of the change versions of the synchronized entities, and of the tombstones of the deleted ones.
+ * <p>
+ * A version is the time it was taken, in microseconds since the epoch, made unique by this node: taking one costs
+ * neither a statement nor a lock. The versions are not committed in their order, but a write commits within
+ * {@code application.sync.commit-window-ms} of taking its version, which also covers the clock skew between the nodes:
+ * all the versions older than the window are visible, see {@link #committed()}.
+ */
+@Repository
+public class ChangeVersionRepository {
+
+    private static final String INSERT_TOMBSTONE_QUERY =
+        "INSERT INTO change_tombstone (entity_name, entity_id, change_version) VALUES (:entityName, :entityId, :changeVersion)";
+    private static final String TOMBSTONES_QUERY =
+        "SELECT entity_name, entity_id FROM change_tombstone WHERE change_version > :since";
+
+    private final DatabaseClient db;
+
+    private final long commitWindowMicros;
+
+    private final AtomicLong lastVersion = new AtomicLong();
+
+    public ChangeVersionRepository(DatabaseClient db, ApplicationProperties applicationProperties) {
+        this.db = db;
+        this.commitWindowMicros = TimeUnit.MILLISECONDS.toMicros(applicationProperties.getSync().getCommitWindowMs());
+    }
+
+    /**
+     * Take the next change version, for a write.
+     * @return the version, greater than the versions already taken by this node.
+     */
+    public long next() {
+        long now = now();
+        return lastVersion.accumulateAndGet(now, (last, time) -> Math.max(last + 1, time));
+    }
+
+    /**
+     * @return the greatest version taken so far, by any node whose clock is not ahead of this one.
+     */
+    public long current() {
+        return Math.max(now(), lastVersion.get());
+    }
+
+    /**
+     * @return the version up to which all the writes are committed: the versions taken before the commit window.
+     */
+    public long committed() {
+        return now() - commitWindowMicros;
+    }
+
+    /**
+     * Record the deletion of an entity, with the next change version.
+     * @param entityName the name of the entity.
+     * @param id the id of the deleted entity.
+     * @return a Mono to signal the recording.
+     */
+    public Mono<Void> tombstone(String entityName, Long id) {
+        return Mono
+            .defer(() ->
+                db
+                    .sql(INSERT_TOMBSTONE_QUERY)
+                    .bind("entityName", entityName)
+                    .bind("entityId", id)
+                    .bind("changeVersion", next())
+                    .fetch()
+                    .rowsUpdated()
+            )
+            .then();
+    }
+
+    /**
+     * Get the entities deleted since a version.
+     * @param since the version the client is synchronized with, excluded.
+     * @return the entity names and ids of the deleted entities.
+     */
+    public Flux<Tuple2<String, Long>> findTombstones(long since) {
+        return db
+            .sql(TOMBSTONES_QUERY)
+            .bind("since", since)
+            .map(row -> Tuples.of(row.get("entity_name", String.class), row.get("entity_id", Long.class)))
+            .all();
+    }
+
+    private static long now() {
+        Instant now = Instant.now();
+        return TimeUnit.SECONDS.toMicros(now.getEpochSecond()) + TimeUnit.NANOSECONDS.toMicros(now.getNano());
+    }
+}
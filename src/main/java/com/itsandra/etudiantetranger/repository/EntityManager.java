@@ -1,38 +1,55 @@
 package com.itsandra.etudiantetranger.repository;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
 import org.springframework.data.r2dbc.mapping.OutboundRow;
+import org.springframework.data.r2dbc.query.BoundCondition;
 import org.springframework.data.r2dbc.query.UpdateMapper;
 import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
 import org.springframework.data.relational.core.query.Criteria;
-import org.springframework.data.relational.core.sql.Conditions;
+import org.springframework.data.relational.core.query.CriteriaDefinition;
+import org.springframework.data.relational.core.sql.Expression;
+import org.springframework.data.relational.core.sql.Expressions;
 import org.springframework.data.relational.core.sql.OrderByField;
 import org.springframework.data.relational.core.sql.Select;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectOrdered;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectWhere;
 import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.core.sql.render.SqlRenderer;
 import org.springframework.r2dbc.core.Parameter;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.BindMarker;
+import org.springframework.r2dbc.core.binding.BindMarkers;
+import org.springframework.r2dbc.core.binding.BindTarget;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
 /**
  * Helper class to create SQL selects based on the entity, paging parameters and criteria.
- *
+ * The rendered selects are cached by query shape, their hits and misses are exposed as the {@code sql.select} cache metrics.
  */
 @Component
 public class EntityManager {
@@ -40,6 +57,11 @@ public class EntityManager {
     public static final String ENTITY_ALIAS = "e";
     public static final String ALIAS_PREFIX = "e_";
 
+    /**
+     * The alias of the {@link #totalCountColumn()}.
+     */
+    public static final String TOTAL_COUNT_ALIAS = "total_count";
+
     public static class LinkTable {
 
         final String tableName;
@@ -56,90 +78,248 @@ public class EntityManager {
         }
     }
 
+    /**
+     * A rendered SQL statement, and the function binding its parameters to the statement executed by the driver.
+     */
+    static class BoundSelect implements PreparedOperation<String> {
+
+        private final String sql;
+        private final Consumer<BindTarget> binder;
+
+        BoundSelect(String sql, Consumer<BindTarget> binder) {
+            this.sql = sql;
+            this.binder = binder;
+        }
+
+        @Override
+        public String getSource() {
+            return sql;
+        }
+
+        @Override
+        public void bindTo(BindTarget target) {
+            binder.accept(target);
+        }
+
+        @Override
+        public String toQuery() {
+            return sql;
+        }
+    }
+
     private final SqlRenderer sqlRenderer;
     private final UpdateMapper updateMapper;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final StatementMapper statementMapper;
+    private final R2dbcDialect dialect;
+    private final Cache<String, String> selectCache;
 
-    public EntityManager(SqlRenderer sqlRenderer, UpdateMapper updateMapper, R2dbcEntityTemplate r2dbcEntityTemplate) {
+    public EntityManager(
+        SqlRenderer sqlRenderer,
+        UpdateMapper updateMapper,
+        R2dbcEntityTemplate r2dbcEntityTemplate,
+        R2dbcDialect dialect,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
         this.sqlRenderer = sqlRenderer;
         this.updateMapper = updateMapper;
         this.r2dbcEntityTemplate = r2dbcEntityTemplate;
         this.statementMapper = r2dbcEntityTemplate.getDataAccessStrategy().getStatementMapper();
+        this.dialect = dialect;
+        this.selectCache =
+            Caffeine.newBuilder().maximumSize(applicationProperties.getDatabase().getSelectCacheSize()).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, selectCache, "sql.select");
+    }
+
+    /**
+     * A column holding the number of rows matching the select, before its limit and offset are applied, so a page and
+     * its total are read with a single query.
+     * @return the {@code COUNT(*) OVER ()} window column, aliased as {@link #TOTAL_COUNT_ALIAS}.
+     */
+    public static Expression totalCountColumn() {
+        return Expressions.just("COUNT(*) OVER () AS " + TOTAL_COUNT_ALIAS);
+    }
+
+    /**
+     * Collects the rows of a select including the {@link #totalCountColumn()} into a page.
+     * @param rows the entities of the page, each with the total count of its row.
+     * @param pageable the page parameters.
+     * @param count the count query, only used when the page is empty as there is no row to read the total from.
+     * @param <T> the type of the entity.
+     * @return the page.
+     */
+    public static <T> Mono<Page<T>> toPage(Flux<Tuple2<T, Long>> rows, Pageable pageable, Supplier<Mono<Long>> count) {
+        return rows
+            .collectList()
+            .<Page<T>>flatMap(list -> {
+                if (list.isEmpty()) {
+                    return count.get().map(total -> new PageImpl<T>(new ArrayList<>(), pageable, total));
+                }
+                List<T> content = new ArrayList<>(list.size());
+                list.forEach(row -> content.add(row.getT1()));
+                return Mono.just(new PageImpl<>(content, pageable, list.get(0).getT2()));
+            });
     }
 
     /**
      * Creates an SQL select statement from the given fragment and pagination parameters.
-     * @param selectFrom a representation of a select statement.
+     * <p>
+     * The criteria values, the limit and the offset are passed as bind parameters, so the SQL only depends on the shape
+     * of the query: it is rendered once per shape and kept in a bounded cache, and the driver can reuse its prepared statement.
+     * @param queryName the name of the select fragment, which identifies its columns and joins in the cache.
+     * @param selectFrom supplies a representation of a select statement, only called when the SQL is not cached yet.
      * @param entityType the entity type which holds the table name.
      * @param pageable page parameter, or null, if everything needs to be returned
-     * @return sql select statement
+     * @param criteria the criteria on the properties of the entity, or null
+     * @return the sql select statement, with its bindings
      */
-    public String createSelect(SelectFromAndJoin selectFrom, Class<?> entityType, Pageable pageable, Criteria criteria) {
-        if (pageable != null) {
-            if (criteria != null) {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()).where(Conditions.just(criteria.toString())),
-                    entityType,
-                    pageable.getSort()
-                );
-            } else {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()),
-                    entityType,
-                    pageable.getSort()
-                );
-            }
-        } else {
-            if (criteria != null) {
-                return createSelectImpl(selectFrom.where(Conditions.just(criteria.toString())), entityType, null);
-            } else {
-                return createSelectImpl(selectFrom, entityType, null);
-            }
+    public PreparedOperation<String> createSelect(
+        String queryName,
+        Supplier<? extends SelectWhere> selectFrom,
+        Class<?> entityType,
+        Pageable pageable,
+        Criteria criteria
+    ) {
+        if (pageable != null && pageable.isPaged()) {
+            return createSelectImpl(
+                queryName,
+                selectFrom,
+                entityType,
+                pageable.getSort(),
+                (long) pageable.getPageSize(),
+                pageable.getOffset(),
+                criteria
+            );
         }
+        return createSelectImpl(queryName, selectFrom, entityType, pageable != null ? pageable.getSort() : null, null, null, criteria);
     }
 
     /**
-     * Creates an SQL select statement from the given fragment and pagination parameters.
-     * @param selectFrom a representation of a select statement.
+     * Creates an unpaged SQL select statement from the given fragment, sort and criteria, see
+     * {@link #createSelect(String, Supplier, Class, Pageable, Criteria)}.
+     * @param queryName the name of the select fragment, which identifies its columns and joins in the cache.
+     * @param selectFrom supplies a representation of a select statement, only called when the SQL is not cached yet.
      * @param entityType the entity type which holds the table name.
-     * @param pageable page parameter, or null, if everything needs to be returned
-     * @return sql select statement
+     * @param sort the sort of the rows, or null
+     * @param criteria the criteria on the properties of the entity, or null
+     * @return the sql select statement, with its bindings
+     */
+    public PreparedOperation<String> createSelect(
+        String queryName,
+        Supplier<? extends SelectWhere> selectFrom,
+        Class<?> entityType,
+        Sort sort,
+        Criteria criteria
+    ) {
+        return createSelectImpl(queryName, selectFrom, entityType, sort, null, null, criteria);
+    }
+
+    /**
+     * Creates an SQL select statement for a keyset (seek) paginated page: instead of skipping the rows of the previous pages with
+     * an offset, the given criteria restricts the select to the rows after the last row of the previous page.
+     * @param queryName the name of the select fragment, which identifies its columns and joins in the cache.
+     * @param selectFrom supplies a representation of a select statement, only called when the SQL is not cached yet.
+     * @param entityType the entity type which holds the table name.
+     * @param sort the sort of the page, which must end with a unique property.
+     * @param size the maximum number of rows to return.
+     * @param seek the criteria selecting the rows after the previous page, or null for the first page.
+     * @return the sql select statement, with its bindings
      */
-    public String createSelect(SelectFromAndJoinCondition selectFrom, Class<?> entityType, Pageable pageable, Criteria criteria) {
-        if (pageable != null) {
-            if (criteria != null) {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()).where(Conditions.just(criteria.toString())),
-                    entityType,
-                    pageable.getSort()
-                );
-            } else {
-                return createSelectImpl(
-                    selectFrom.limitOffset(pageable.getPageSize(), pageable.getOffset()),
-                    entityType,
-                    pageable.getSort()
-                );
+    public PreparedOperation<String> createSeekSelect(
+        String queryName,
+        Supplier<? extends SelectWhere> selectFrom,
+        Class<?> entityType,
+        Sort sort,
+        int size,
+        Criteria seek
+    ) {
+        return createSelectImpl(queryName, selectFrom, entityType, sort, (long) size, null, seek);
+    }
+
+    private PreparedOperation<String> createSelectImpl(
+        String queryName,
+        Supplier<? extends SelectWhere> selectFrom,
+        Class<?> entityType,
+        Sort sortParameter,
+        Long limit,
+        Long offset,
+        Criteria criteria
+    ) {
+        RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
+        Table table = Table.create(entity.getTableName()).as(EntityManager.ENTITY_ALIAS);
+        BindMarkers bindMarkers = dialect.getBindMarkersFactory().create();
+
+        BoundCondition condition = criteria != null && !criteria.isEmpty()
+            ? updateMapper.getMappedObject(bindMarkers, criteria, table, entity)
+            : null;
+        Sort sort = sortParameter != null && sortParameter.isSorted() ? updateMapper.getMappedObject(sortParameter, entity) : null;
+        BindMarker limitMarker = limit != null ? bindMarkers.next("limit") : null;
+        BindMarker offsetMarker = offset != null ? bindMarkers.next("offset") : null;
+
+        StringBuilder key = new StringBuilder(entityType.getName()).append('|').append(queryName).append('|');
+        if (condition != null) {
+            appendShape(key, criteria);
+        }
+        key.append('|').append(sort).append('|').append(limit != null).append('|').append(offset != null);
+
+        String sql = selectCache.get(
+            key.toString(),
+            k -> {
+                SelectOrdered select = condition != null ? selectFrom.get().where(condition.getCondition()) : selectFrom.get();
+                if (sort != null) {
+                    select = select.orderBy(createOrderByFields(table, sort));
+                }
+                StringBuilder rendered = new StringBuilder(createSelect(select.build()));
+                if (limitMarker != null) {
+                    rendered.append(" LIMIT ").append(limitMarker.getPlaceholder());
+                }
+                if (offsetMarker != null) {
+                    rendered.append(" OFFSET ").append(offsetMarker.getPlaceholder());
+                }
+                return rendered.toString();
             }
-        } else {
-            if (criteria != null) {
-                return createSelectImpl(selectFrom.where(Conditions.just(criteria.toString())), entityType, null);
-            } else {
-                return createSelectImpl(selectFrom, entityType, null);
+        );
+
+        return new BoundSelect(sql, target -> {
+            if (condition != null) {
+                condition.getBindings().apply(target);
             }
-        }
+            if (limitMarker != null) {
+                limitMarker.bind(target, limit);
+            }
+            if (offsetMarker != null) {
+                offsetMarker.bind(target, offset);
+            }
+        });
     }
 
-    private String createSelectImpl(SelectOrdered selectFrom, Class<?> entityType, Sort sortParameter) {
-        if (sortParameter != null && sortParameter.isSorted()) {
-            RelationalPersistentEntity<?> entity = getPersistentEntity(entityType);
-            if (entity != null) {
-                Sort sort = updateMapper.getMappedObject(sortParameter, entity);
-                selectFrom =
-                    selectFrom.orderBy(createOrderByFields(Table.create(entity.getTableName()).as(EntityManager.ENTITY_ALIAS), sort));
+    /**
+     * Append the shape of the criteria to the cache key: its columns, operators and combinators, but not its values,
+     * except for the number of values of the {@code IN} operators, as every value gets its own bind marker.
+     */
+    private static void appendShape(StringBuilder key, CriteriaDefinition criteria) {
+        CriteriaDefinition previous = criteria.getPrevious();
+        if (previous != null && !previous.isEmpty()) {
+            appendShape(key, previous);
+            key.append(' ').append(criteria.getCombinator()).append(' ');
+        }
+        if (criteria.isGroup()) {
+            key.append('(');
+            for (CriteriaDefinition part : criteria.getGroup()) {
+                appendShape(key, part);
+                key.append(';');
+            }
+            key.append(')');
+        } else if (criteria.getColumn() != null) {
+            key.append(criteria.getColumn().getReference()).append(' ').append(criteria.getComparator());
+            if (criteria.isIgnoreCase()) {
+                key.append(" ignore-case");
+            }
+            if (criteria.getValue() instanceof Collection) {
+                key.append(' ').append(((Collection<?>) criteria.getValue()).size());
             }
         }
-        return createSelect(selectFrom.build());
     }
 
     private RelationalPersistentEntity<?> getPersistentEntity(Class<?> entityType) {
@@ -1,7 +1,10 @@
 package com.itsandra.etudiantetranger.repository;
 
 import com.itsandra.etudiantetranger.domain.Etudiant;
+import java.util.List;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
@@ -58,4 +61,20 @@ interface EtudiantRepositoryInternal {
     Mono<Etudiant> findById(Long id);
 
     Flux<Etudiant> findAllBy(Pageable pageable, Criteria criteria);
+
+    Flux<Etudiant> findAllAfter(Sort.Order order, KeysetCursor cursor, int size, Criteria criteria);
+
+    Flux<Etudiant> findAllSortedBy(Sort sort, Criteria criteria);
+
+    Flux<Etudiant> streamBy(Criteria criteria, Sort sort, int fetchSize);
+
+    Flux<Long> insertAll(List<Etudiant> etudiants);
+
+    Mono<Page<Etudiant>> findAllWithTotalBy(Pageable pageable);
+
+    Mono<Page<Etudiant>> findAllWithTotalBy(Pageable pageable, Criteria criteria);
+
+    Mono<Long> countBy(Criteria criteria);
+
+    Mono<Integer> update(Etudiant etudiant, boolean ignoreNulls);
 }
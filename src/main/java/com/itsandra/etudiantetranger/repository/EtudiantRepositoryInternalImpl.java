@@ -4,34 +4,42 @@ import static org.springframework.data.relational.core.query.Criteria.where;
 
 import com.itsandra.etudiantetranger.domain.Etudiant;
 import com.itsandra.etudiantetranger.repository.rowmapper.EtudiantRowMapper;
-import com.itsandra.etudiantetranger.repository.rowmapper.FiliereRowMapper;
-import com.itsandra.etudiantetranger.repository.rowmapper.NiveauRowMapper;
-import com.itsandra.etudiantetranger.repository.rowmapper.PaysRowMapper;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.R2dbcDialect;
 import org.springframework.data.r2dbc.repository.support.SimpleR2dbcRepository;
 import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.query.Update;
 import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Expression;
 import org.springframework.data.relational.core.sql.Select;
-import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoinCondition;
+import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.repository.support.MappingRelationalEntityInformation;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.r2dbc.core.RowsFetchSpec;
+import org.springframework.r2dbc.core.binding.BindMarkers;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
 
 /**
  * Spring Data SQL reactive custom repository implementation for the Etudiant entity.
@@ -43,23 +51,35 @@ class EtudiantRepositoryInternalImpl extends SimpleR2dbcRepository<Etudiant, Lon
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
     private final EntityManager entityManager;
 
-    private final NiveauRowMapper niveauMapper;
-    private final FiliereRowMapper filiereMapper;
-    private final PaysRowMapper paysMapper;
     private final EtudiantRowMapper etudiantMapper;
+    private final ReferenceDataCache referenceDataCache;
+    private final String insertSql;
 
     private static final Table entityTable = Table.aliased("etudiant", EntityManager.ENTITY_ALIAS);
-    private static final Table nomNiveauTable = Table.aliased("niveau", "nomNiveau");
-    private static final Table nomFiliereTable = Table.aliased("filiere", "nomFiliere");
-    private static final Table nomPaysTable = Table.aliased("pays", "nomPays");
+
+    private static final String SELECT_QUERY_NAME = "etudiant";
+    private static final String COUNTED_SELECT_QUERY_NAME = "etudiant-counted";
+
+    // The properties which can be used for keyset pagination, with the parser of their cursor value
+    private static final Map<String, Function<String, Object>> keysetProperties = Map.of(
+        "id",
+        Long::valueOf,
+        "nom",
+        value -> value,
+        "prenom",
+        value -> value,
+        "matricule",
+        Long::valueOf,
+        "date",
+        LocalDate::parse
+    );
 
     public EtudiantRepositoryInternalImpl(
         R2dbcEntityTemplate template,
         EntityManager entityManager,
-        NiveauRowMapper niveauMapper,
-        FiliereRowMapper filiereMapper,
-        PaysRowMapper paysMapper,
         EtudiantRowMapper etudiantMapper,
+        ReferenceDataCache referenceDataCache,
+        R2dbcDialect dialect,
         R2dbcEntityOperations entityOperations,
         R2dbcConverter converter
     ) {
@@ -71,10 +91,22 @@ class EtudiantRepositoryInternalImpl extends SimpleR2dbcRepository<Etudiant, Lon
         this.db = template.getDatabaseClient();
         this.r2dbcEntityTemplate = template;
         this.entityManager = entityManager;
-        this.niveauMapper = niveauMapper;
-        this.filiereMapper = filiereMapper;
-        this.paysMapper = paysMapper;
         this.etudiantMapper = etudiantMapper;
+        this.referenceDataCache = referenceDataCache;
+        this.insertSql = createInsertSql(dialect);
+    }
+
+    private static String createInsertSql(R2dbcDialect dialect) {
+        BindMarkers markers = dialect.getBindMarkersFactory().create();
+        List<String> placeholders = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            placeholders.add(markers.next().getPlaceholder());
+        }
+        return (
+            "INSERT INTO etudiant (nom, prenom, matricule, date, nom_niveau_id, nom_filiere_id, nom_pays_id, change_version) VALUES (" +
+            String.join(", ", placeholders) +
+            ")"
+        );
     }
 
     @Override
@@ -84,30 +116,132 @@ class EtudiantRepositoryInternalImpl extends SimpleR2dbcRepository<Etudiant, Lon
 
     @Override
     public Flux<Etudiant> findAllBy(Pageable pageable, Criteria criteria) {
-        return createQuery(pageable, criteria).all();
+        return hydrate(createQuery(pageable, criteria).all());
     }
 
-    RowsFetchSpec<Etudiant> createQuery(Pageable pageable, Criteria criteria) {
+    @Override
+    public Mono<Page<Etudiant>> findAllWithTotalBy(Pageable pageable) {
+        return findAllWithTotalBy(pageable, null);
+    }
+
+    @Override
+    public Mono<Page<Etudiant>> findAllWithTotalBy(Pageable pageable, Criteria criteria) {
+        return EntityManager
+            .toPage(
+                db
+                    .sql(entityManager.createSelect(COUNTED_SELECT_QUERY_NAME, this::createCountedSelectFrom, Etudiant.class, pageable, criteria))
+                    .map((row, metadata) -> Tuples.of(process(row, metadata), row.get(EntityManager.TOTAL_COUNT_ALIAS, Long.class)))
+                    .all(),
+                pageable,
+                () -> countBy(criteria)
+            )
+            .flatMap(page ->
+                referenceDataCache.get().map(referenceData -> page.map(etudiant -> referenceDataCache.hydrate(referenceData, etudiant)))
+            );
+    }
+
+    @Override
+    public Mono<Long> countBy(Criteria criteria) {
+        return r2dbcEntityTemplate.count(criteria != null ? Query.query(criteria) : Query.empty(), Etudiant.class);
+    }
+
+    @Override
+    public Flux<Etudiant> findAllSortedBy(Sort sort, Criteria criteria) {
+        return hydrate(
+            db
+                .sql(entityManager.createSelect(SELECT_QUERY_NAME, this::createSelectFrom, Etudiant.class, sort, criteria))
+                .map(this::process)
+                .all()
+        );
+    }
+
+    /**
+     * Stream the etudiants matching the criteria, fetching the rows from the database by chunks of the fetch size
+     * rather than all at once, where the driver supports it.
+     */
+    @Override
+    public Flux<Etudiant> streamBy(Criteria criteria, Sort sort, int fetchSize) {
+        return hydrate(
+            db
+                .sql(entityManager.createSelect(SELECT_QUERY_NAME, this::createSelectFrom, Etudiant.class, sort, criteria))
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(this::process)
+                .all()
+        );
+    }
+
+    @Override
+    public Flux<Etudiant> findAllAfter(Sort.Order order, KeysetCursor cursor, int size, Criteria criteria) {
+        Function<String, Object> parser = keysetProperties.get(order.getProperty());
+        if (parser == null) {
+            throw new IllegalArgumentException("Keyset pagination is not supported on property " + order.getProperty());
+        }
+        boolean byId = "id".equals(order.getProperty());
+        Sort sort = byId ? Sort.by(order) : Sort.by(order, new Sort.Order(order.getDirection(), "id"));
+        Object value = null;
+        if (!byId && cursor != null && cursor.getValue() != null) {
+            try {
+                value = parser.apply(cursor.getValue());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid keyset value " + cursor.getValue(), e);
+            }
+        }
+        Criteria seek = cursor != null ? createSeekCriteria(order, byId, value, cursor.getId()) : null;
+        Criteria where = criteria == null ? seek : seek == null ? criteria : criteria.and(seek);
+
+        return hydrate(
+            db
+                .sql(entityManager.createSeekSelect(SELECT_QUERY_NAME, this::createSelectFrom, Etudiant.class, sort, size, where))
+                .map(this::process)
+                .all()
+        );
+    }
+
+    /**
+     * Select the rows after the cursor position, in the given order, with the id as tie-breaker.
+     * Both MySQL and H2 sort {@code NULL} as the lowest value, so null values come first in ascending order and last in descending order.
+     */
+    private static Criteria createSeekCriteria(Sort.Order order, boolean byId, Object value, Long id) {
+        String property = order.getProperty();
+        boolean ascending = order.isAscending();
+        if (byId) {
+            return ascending ? where("id").greaterThan(id) : where("id").lessThan(id);
+        }
+        if (value == null) {
+            return ascending
+                ? where(property).isNotNull().or(where(property).isNull().and("id").greaterThan(id))
+                : where(property).isNull().and("id").lessThan(id);
+        }
+        if (ascending) {
+            return where(property).greaterThan(value).or(where(property).is(value).and("id").greaterThan(id));
+        }
+        return where(property).lessThan(value).or(where(property).is(value).and("id").lessThan(id)).or(property).isNull();
+    }
+
+    /**
+     * The niveau, filiere and pays are hydrated from the {@link ReferenceDataCache}, so only the etudiant columns are selected.
+     */
+    private SelectFromAndJoin createSelectFrom() {
         List<Expression> columns = EtudiantSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
-        columns.addAll(NiveauSqlHelper.getColumns(nomNiveauTable, "nomNiveau"));
-        columns.addAll(FiliereSqlHelper.getColumns(nomFiliereTable, "nomFiliere"));
-        columns.addAll(PaysSqlHelper.getColumns(nomPaysTable, "nomPays"));
-        SelectFromAndJoinCondition selectFrom = Select
-            .builder()
-            .select(columns)
-            .from(entityTable)
-            .leftOuterJoin(nomNiveauTable)
-            .on(Column.create("nom_niveau_id", entityTable))
-            .equals(Column.create("id", nomNiveauTable))
-            .leftOuterJoin(nomFiliereTable)
-            .on(Column.create("nom_filiere_id", entityTable))
-            .equals(Column.create("id", nomFiliereTable))
-            .leftOuterJoin(nomPaysTable)
-            .on(Column.create("nom_pays_id", entityTable))
-            .equals(Column.create("id", nomPaysTable));
-
-        String select = entityManager.createSelect(selectFrom, Etudiant.class, pageable, criteria);
-        return db.sql(select).map(this::process);
+        return Select.builder().select(columns).from(entityTable);
+    }
+
+    private SelectFromAndJoin createCountedSelectFrom() {
+        List<Expression> columns = EtudiantSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        columns.add(EntityManager.totalCountColumn());
+        return Select.builder().select(columns).from(entityTable);
+    }
+
+    private Flux<Etudiant> hydrate(Flux<Etudiant> etudiants) {
+        return referenceDataCache
+            .get()
+            .flatMapMany(referenceData -> etudiants.map(etudiant -> referenceDataCache.hydrate(referenceData, etudiant)));
+    }
+
+    RowsFetchSpec<Etudiant> createQuery(Pageable pageable, Criteria criteria) {
+        return db
+            .sql(entityManager.createSelect(SELECT_QUERY_NAME, this::createSelectFrom, Etudiant.class, pageable, criteria))
+            .map(this::process);
     }
 
     @Override
@@ -117,17 +251,86 @@ class EtudiantRepositoryInternalImpl extends SimpleR2dbcRepository<Etudiant, Lon
 
     @Override
     public Mono<Etudiant> findById(Long id) {
-        return createQuery(null, where(EntityManager.ENTITY_ALIAS + ".id").is(id)).one();
+        return referenceDataCache
+            .get()
+            .flatMap(referenceData ->
+                createQuery(null, where("id").is(id)).one().map(etudiant -> referenceDataCache.hydrate(referenceData, etudiant))
+            );
     }
 
     private Etudiant process(Row row, RowMetadata metadata) {
         Etudiant entity = etudiantMapper.apply(row, "e");
-        entity.setNomNiveau(niveauMapper.apply(row, "nomNiveau"));
-        entity.setNomFiliere(filiereMapper.apply(row, "nomFiliere"));
-        entity.setNomPays(paysMapper.apply(row, "nomPays"));
         return entity;
     }
 
+    /**
+     * Insert the etudiants with a single batched statement, one binding per etudiant.
+     * @return the generated ids, in the order of the etudiants.
+     */
+    @Override
+    public Flux<Long> insertAll(List<Etudiant> etudiants) {
+        if (etudiants.isEmpty()) {
+            return Flux.empty();
+        }
+        return db.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(insertSql).returnGeneratedValues("id");
+            for (int i = 0; i < etudiants.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                Etudiant etudiant = etudiants.get(i);
+                bind(statement, 0, etudiant.getNom(), String.class);
+                bind(statement, 1, etudiant.getPrenom(), String.class);
+                bind(statement, 2, etudiant.getMatricule(), Long.class);
+                bind(statement, 3, etudiant.getDate(), LocalDate.class);
+                bind(statement, 4, etudiant.getNomNiveauId(), Long.class);
+                bind(statement, 5, etudiant.getNomFiliereId(), Long.class);
+                bind(statement, 6, etudiant.getNomPaysId(), Long.class);
+                bind(statement, 7, etudiant.getChangeVersion(), Long.class);
+            }
+            return Flux.from(statement.execute()).concatMap(result -> result.map((row, metadata) -> row.get(0, Long.class)));
+        });
+    }
+
+    private static void bind(Statement statement, int index, Object value, Class<?> type) {
+        if (value != null) {
+            statement.bind(index, value);
+        } else {
+            statement.bindNull(index, type);
+        }
+    }
+
+    /**
+     * Update the columns of the etudiant with a single {@code UPDATE} statement, without reading it first.
+     * @param etudiant the etudiant, with its id.
+     * @param ignoreNulls whether to only update the columns whose value is not null.
+     * @return the number of updated rows: 0 if there is no etudiant with this id.
+     */
+    @Override
+    public Mono<Integer> update(Etudiant etudiant, boolean ignoreNulls) {
+        Map<SqlIdentifier, Object> columns = new LinkedHashMap<>();
+        putColumn(columns, "nom", etudiant.getNom(), ignoreNulls);
+        putColumn(columns, "prenom", etudiant.getPrenom(), ignoreNulls);
+        putColumn(columns, "matricule", etudiant.getMatricule(), ignoreNulls);
+        putColumn(columns, "date", etudiant.getDate(), ignoreNulls);
+        putColumn(columns, "nom_niveau_id", etudiant.getNomNiveauId(), ignoreNulls);
+        putColumn(columns, "nom_filiere_id", etudiant.getNomFiliereId(), ignoreNulls);
+        putColumn(columns, "nom_pays_id", etudiant.getNomPaysId(), ignoreNulls);
+        putColumn(columns, "change_version", etudiant.getChangeVersion(), ignoreNulls);
+        Query byId = Query.query(where("id").is(etudiant.getId()));
+        if (columns.isEmpty()) {
+            // Nothing to update, but the caller still needs to know whether the etudiant exists
+            return r2dbcEntityTemplate.count(byId, Etudiant.class).map(Long::intValue);
+        }
+        return r2dbcEntityTemplate.update(byId, Update.from(columns), Etudiant.class);
+    }
+
+    private static void putColumn(Map<SqlIdentifier, Object> columns, String column, Object value, boolean ignoreNulls) {
+        if (value != null || !ignoreNulls) {
+            columns.put(SqlIdentifier.unquoted(column), value);
+        }
+    }
+
     @Override
     public <S extends Etudiant> Mono<S> save(S entity) {
         return super.save(entity);
@@ -15,6 +15,7 @@ public class EtudiantSqlHelper {
         columns.add(Column.aliased("prenom", table, columnPrefix + "_prenom"));
         columns.add(Column.aliased("matricule", table, columnPrefix + "_matricule"));
         columns.add(Column.aliased("date", table, columnPrefix + "_date"));
+        columns.add(Column.aliased("change_version", table, columnPrefix + "_change_version"));
 
         columns.add(Column.aliased("nom_niveau_id", table, columnPrefix + "_nom_niveau_id"));
         columns.add(Column.aliased("nom_filiere_id", table, columnPrefix + "_nom_filiere_id"));
@@ -12,6 +12,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.function.BiFunction;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
@@ -28,6 +29,7 @@ import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.r2dbc.core.RowsFetchSpec;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
 
 /**
  * Spring Data SQL reactive custom repository implementation for the Filiere entity.
@@ -43,6 +45,9 @@ class FiliereRepositoryInternalImpl extends SimpleR2dbcRepository<Filiere, Long>
 
     private static final Table entityTable = Table.aliased("filiere", EntityManager.ENTITY_ALIAS);
 
+    private static final String SELECT_QUERY_NAME = "filiere";
+    private static final String COUNTED_SELECT_QUERY_NAME = "filiere-counted";
+
     public FiliereRepositoryInternalImpl(
         R2dbcEntityTemplate template,
         EntityManager entityManager,
@@ -72,11 +77,32 @@ class FiliereRepositoryInternalImpl extends SimpleR2dbcRepository<Filiere, Long>
     }
 
     RowsFetchSpec<Filiere> createQuery(Pageable pageable, Criteria criteria) {
+        return db
+            .sql(entityManager.createSelect(SELECT_QUERY_NAME, this::createSelectFrom, Filiere.class, pageable, criteria))
+            .map(this::process);
+    }
+
+    @Override
+    public Mono<Page<Filiere>> findAllWithTotalBy(Pageable pageable) {
+        return EntityManager.toPage(
+            db
+                .sql(entityManager.createSelect(COUNTED_SELECT_QUERY_NAME, this::createCountedSelectFrom, Filiere.class, pageable, null))
+                .map((row, metadata) -> Tuples.of(process(row, metadata), row.get(EntityManager.TOTAL_COUNT_ALIAS, Long.class)))
+                .all(),
+            pageable,
+            this::count
+        );
+    }
+
+    private SelectFromAndJoin createSelectFrom() {
         List<Expression> columns = FiliereSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
-        SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
+        return Select.builder().select(columns).from(entityTable);
+    }
 
-        String select = entityManager.createSelect(selectFrom, Filiere.class, pageable, criteria);
-        return db.sql(select).map(this::process);
+    private SelectFromAndJoin createCountedSelectFrom() {
+        List<Expression> columns = FiliereSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        columns.add(EntityManager.totalCountColumn());
+        return Select.builder().select(columns).from(entityTable);
     }
 
     @Override
@@ -86,7 +112,7 @@ class FiliereRepositoryInternalImpl extends SimpleR2dbcRepository<Filiere, Long>
 
     @Override
     public Mono<Filiere> findById(Long id) {
-        return createQuery(null, where(EntityManager.ENTITY_ALIAS + ".id").is(id)).one();
+        return createQuery(null, where("id").is(id)).one();
     }
 
     private Filiere process(Row row, RowMetadata metadata) {
@@ -12,6 +12,7 @@ public class FiliereSqlHelper {
         List<Expression> columns = new ArrayList<>();
         columns.add(Column.aliased("id", table, columnPrefix + "_id"));
         columns.add(Column.aliased("nom_filiere", table, columnPrefix + "_nom_filiere"));
+        columns.add(Column.aliased("change_version", table, columnPrefix + "_change_version"));
 
         return columns;
     }
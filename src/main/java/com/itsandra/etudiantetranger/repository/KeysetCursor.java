@@ -0,0 +1,123 @@
+package com.itsandra.etudiantetranger.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.Assert;
+
+/**
+ * An opaque position in a keyset (seek) paginated listing: the sort property and direction of the listing,
+ * together with the sort value and the id of the last row which was returned.
+ * <p>
+ * The next page is selected with a {@code WHERE (sort, id) > (value, id)} predicate instead of an {@code OFFSET},
+ * so the cost of a page doesn't depend on how deep into the listing it is.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = ",";
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final String value;
+    private final Long id;
+
+    public KeysetCursor(String property, Sort.Direction direction, String value, Long id) {
+        Assert.hasText(property, "property is empty");
+        Assert.notNull(direction, "direction is null");
+        Assert.notNull(id, "id is null");
+        this.property = property;
+        this.direction = direction;
+        this.value = value;
+        this.id = id;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * @return the sort value of the last returned row, in its {@code toString()} form, or {@code null} if it was {@code NULL}.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return the order this cursor continues.
+     */
+    public Sort.Order getOrder() {
+        return new Sort.Order(direction, property);
+    }
+
+    /**
+     * Encode the cursor into a URL safe token.
+     * @return the opaque token.
+     */
+    public String encode() {
+        String raw = property + SEPARATOR + direction.name() + SEPARATOR + id + (value != null ? SEPARATOR + value : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token created by {@link #encode()}.
+     * @param token the opaque token.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    public static KeysetCursor decode(String token) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+        String[] parts = raw.split(SEPARATOR, 4);
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        try {
+            return new KeysetCursor(parts[0], Sort.Direction.fromString(parts[1]), parts.length == 4 ? parts[3] : null, Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof KeysetCursor)) {
+            return false;
+        }
+        KeysetCursor that = (KeysetCursor) o;
+        return (
+            property.equals(that.property) && direction == that.direction && Objects.equals(value, that.value) && id.equals(that.id)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(property, direction, value, id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "KeysetCursor{" +
+            "property='" + property + "'" +
+            ", direction=" + direction +
+            ", value='" + value + "'" +
+            ", id=" + id +
+            "}";
+    }
+}
@@ -0,0 +1,137 @@
+package com.itsandra.etudiantetranger.repository;
+
+import com.itsandra.etudiantetranger.domain.MailOutboxMessage;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.UUID;
+import org.springframework.data.r2dbc.convert.R2dbcConverter;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Repository of the {@link MailOutboxMessage} waiting for their delivery.
+ * <p>
+ * A batch of due messages is claimed by moving their next attempt to the end of a lease, with a conditional update,
+ * so the nodes delivering concurrently never claim the same message. A claimed message is then either deleted once
+ * sent, or released with a later next attempt. The messages of a node which stopped during a delivery are claimed
+ * again once their lease ends.
+ */
+@Repository
+public class MailOutboxRepository {
+
+    private static final String DUE_QUERY =
+        "SELECT id FROM mail_outbox WHERE attempts < :maxAttempts AND next_attempt_date <= :now ORDER BY next_attempt_date, id LIMIT ";
+    private static final String CLAIM_QUERY =
+        "UPDATE mail_outbox SET claim = :claim, next_attempt_date = :leaseEnd" +
+        " WHERE id IN (:ids) AND attempts < :maxAttempts AND next_attempt_date <= :now";
+    private static final String CLAIMED_QUERY = "SELECT * FROM mail_outbox WHERE claim = :claim ORDER BY id";
+    private static final String DELETE_QUERY = "DELETE FROM mail_outbox WHERE id IN (:ids)";
+    private static final String RELEASE_QUERY =
+        "UPDATE mail_outbox SET claim = NULL, attempts = :attempts, next_attempt_date = :nextAttemptDate, last_error = :lastError" +
+        " WHERE id = :id";
+    private static final String COUNT_QUERY = "SELECT COUNT(*) AS total FROM mail_outbox WHERE attempts < :maxAttempts";
+
+    private final DatabaseClient db;
+    private final R2dbcEntityTemplate r2dbcEntityTemplate;
+    private final R2dbcConverter r2dbcConverter;
+
+    public MailOutboxRepository(DatabaseClient db, R2dbcEntityTemplate r2dbcEntityTemplate, R2dbcConverter r2dbcConverter) {
+        this.db = db;
+        this.r2dbcEntityTemplate = r2dbcEntityTemplate;
+        this.r2dbcConverter = r2dbcConverter;
+    }
+
+    /**
+     * Add a message to the outbox, in the current transaction.
+     * @param message the message.
+     * @return the saved message.
+     */
+    public Mono<MailOutboxMessage> insert(MailOutboxMessage message) {
+        return r2dbcEntityTemplate.insert(message);
+    }
+
+    /**
+     * Claim the due messages, for a delivery until the end of the lease.
+     * @param batchSize the maximum number of messages to claim.
+     * @param maxAttempts the number of attempts after which a message is no longer delivered.
+     * @param now the current date.
+     * @param leaseEnd the date after which the messages can be claimed again, if they were neither sent nor released.
+     * @return the claimed messages.
+     */
+    public Flux<MailOutboxMessage> claim(int batchSize, int maxAttempts, Instant now, Instant leaseEnd) {
+        String claim = UUID.randomUUID().toString();
+        return db
+            .sql(DUE_QUERY + batchSize)
+            .bind("maxAttempts", maxAttempts)
+            .bind("now", toDate(now))
+            .map(row -> row.get("id", Long.class))
+            .all()
+            .collectList()
+            .flatMapMany(ids ->
+                ids.isEmpty()
+                    ? Flux.empty()
+                    : db
+                        .sql(CLAIM_QUERY)
+                        .bind("claim", claim)
+                        .bind("leaseEnd", toDate(leaseEnd))
+                        .bind("ids", ids)
+                        .bind("maxAttempts", maxAttempts)
+                        .bind("now", toDate(now))
+                        .fetch()
+                        .rowsUpdated()
+                        .thenMany(
+                            db
+                                .sql(CLAIMED_QUERY)
+                                .bind("claim", claim)
+                                .map((row, metadata) -> r2dbcConverter.read(MailOutboxMessage.class, row, metadata))
+                                .all()
+                        )
+            );
+    }
+
+    /**
+     * Delete the sent messages.
+     * @param ids the ids of the messages.
+     * @return a Mono to signal the deletion.
+     */
+    public Mono<Void> deleteAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        return db.sql(DELETE_QUERY).bind("ids", ids).fetch().rowsUpdated().then();
+    }
+
+    /**
+     * Release a claimed message after a failed delivery, with its new number of attempts and its next attempt date.
+     * @param message the message.
+     * @return a Mono to signal the release.
+     */
+    public Mono<Void> release(MailOutboxMessage message) {
+        return db
+            .sql(RELEASE_QUERY)
+            .bind("attempts", message.getAttempts())
+            .bind("nextAttemptDate", toDate(message.getNextAttemptDate()))
+            .bind("lastError", message.getLastError())
+            .bind("id", message.getId())
+            .fetch()
+            .rowsUpdated()
+            .then();
+    }
+
+    /**
+     * @param maxAttempts the number of attempts after which a message is no longer delivered.
+     * @return the number of messages still to deliver.
+     */
+    public Mono<Long> countPending(int maxAttempts) {
+        return db.sql(COUNT_QUERY).bind("maxAttempts", maxAttempts).map(row -> row.get("total", Long.class)).one();
+    }
+
+    private static LocalDateTime toDate(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
@@ -1,6 +1,7 @@
 package com.itsandra.etudiantetranger.repository;
 
 import com.itsandra.etudiantetranger.domain.Niveau;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.relational.core.query.Criteria;
@@ -40,4 +41,6 @@ interface NiveauRepositoryInternal {
     Mono<Niveau> findById(Long id);
 
     Flux<Niveau> findAllBy(Pageable pageable, Criteria criteria);
+
+    Mono<Page<Niveau>> findAllWithTotalBy(Pageable pageable);
 }
@@ -12,6 +12,7 @@ public class NiveauSqlHelper {
         List<Expression> columns = new ArrayList<>();
         columns.add(Column.aliased("id", table, columnPrefix + "_id"));
         columns.add(Column.aliased("nom_niveau", table, columnPrefix + "_nom_niveau"));
+        columns.add(Column.aliased("change_version", table, columnPrefix + "_change_version"));
 
         return columns;
     }
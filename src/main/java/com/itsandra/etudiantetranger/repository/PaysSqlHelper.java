@@ -12,6 +12,7 @@ public class PaysSqlHelper {
         List<Expression> columns = new ArrayList<>();
         columns.add(Column.aliased("id", table, columnPrefix + "_id"));
         columns.add(Column.aliased("nom_pays", table, columnPrefix + "_nom_pays"));
+        columns.add(Column.aliased("change_version", table, columnPrefix + "_change_version"));
 
         return columns;
     }
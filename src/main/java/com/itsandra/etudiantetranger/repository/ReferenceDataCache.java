@@ -0,0 +1,282 @@
+package com.itsandra.etudiantetranger.repository;
+
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import com.itsandra.etudiantetranger.domain.Filiere;
+import com.itsandra.etudiantetranger.domain.Niveau;
+import com.itsandra.etudiantetranger.domain.Pays;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory copy of the {@link Pays}, {@link Niveau} and {@link Filiere} reference tables, used to hydrate the
+ * relationships of the etudiants without joining these tables.
+ * <p>
+ * Every write to a reference table must go through {@link #invalidate()}, which bumps the shared
+ * {@code reference_data_version} row and drops the local copy once the write is committed. The other nodes notice the
+ * new version with a periodic check, so their copy is at most {@code application.reference-data.version-check-delay-ms}
+ * behind. The concurrent requests missing the copy share a single load.
+ */
+@Component
+public class ReferenceDataCache implements SchedulingConfigurer {
+
+    private static final String VERSION_QUERY = "SELECT version FROM reference_data_version WHERE id = 1";
+    private static final String BUMP_VERSION_QUERY = "UPDATE reference_data_version SET version = version + 1 WHERE id = 1";
+
+    private static final Duration VERSION_CHECK_TIMEOUT = Duration.ofSeconds(10);
+
+    private final Logger log = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    /**
+     * An immutable copy of the reference tables, at a given version.
+     */
+    public static final class Snapshot {
+
+        private final long version;
+        private final Map<Long, String> pays;
+        private final Map<Long, String> niveaux;
+        private final Map<Long, String> filieres;
+        private final Map<String, Long> paysIds;
+        private final Map<String, Long> niveauIds;
+        private final Map<String, Long> filiereIds;
+
+        Snapshot(long version, Map<Long, String> pays, Map<Long, String> niveaux, Map<Long, String> filieres) {
+            this.version = version;
+            this.pays = pays;
+            this.niveaux = niveaux;
+            this.filieres = filieres;
+            this.paysIds = idsByName(pays);
+            this.niveauIds = idsByName(niveaux);
+            this.filiereIds = idsByName(filieres);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public int size() {
+            return pays.size() + niveaux.size() + filieres.size();
+        }
+
+        /**
+         * Find a pays by name, ignoring the case and the surrounding spaces.
+         * @param nomPays the name.
+         * @return the id of the pays, the lowest one if several pays have this name, or null if there is none.
+         */
+        public Long findPaysId(String nomPays) {
+            return paysIds.get(nameKey(nomPays));
+        }
+
+        /**
+         * Find a niveau by name, ignoring the case and the surrounding spaces.
+         * @param nomNiveau the name.
+         * @return the id of the niveau, the lowest one if several niveaux have this name, or null if there is none.
+         */
+        public Long findNiveauId(String nomNiveau) {
+            return niveauIds.get(nameKey(nomNiveau));
+        }
+
+        /**
+         * Find a filiere by name, ignoring the case and the surrounding spaces.
+         * @param nomFiliere the name.
+         * @return the id of the filiere, the lowest one if several filieres have this name, or null if there is none.
+         */
+        public Long findFiliereId(String nomFiliere) {
+            return filiereIds.get(nameKey(nomFiliere));
+        }
+
+        private static Map<String, Long> idsByName(Map<Long, String> names) {
+            Map<String, Long> ids = new HashMap<>(names.size() * 2);
+            names.forEach((id, name) -> {
+                if (name != null) {
+                    ids.merge(nameKey(name), id, Math::min);
+                }
+            });
+            return ids;
+        }
+
+        private static String nameKey(String name) {
+            return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final DatabaseClient db;
+    private final PaysRepository paysRepository;
+    private final NiveauRepository niveauRepository;
+    private final FiliereRepository filiereRepository;
+    private final long versionCheckDelayMs;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<Mono<Snapshot>> loading = new AtomicReference<>();
+    private final AtomicBoolean checking = new AtomicBoolean();
+    private volatile Snapshot current;
+
+    public ReferenceDataCache(
+        DatabaseClient db,
+        PaysRepository paysRepository,
+        NiveauRepository niveauRepository,
+        FiliereRepository filiereRepository,
+        ApplicationProperties applicationProperties
+    ) {
+        this.db = db;
+        this.paysRepository = paysRepository;
+        this.niveauRepository = niveauRepository;
+        this.filiereRepository = filiereRepository;
+        this.versionCheckDelayMs = applicationProperties.getReferenceData().getVersionCheckDelayMs();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addFixedDelayTask(this::checkVersion, versionCheckDelayMs);
+    }
+
+    /**
+     * Get the current copy of the reference tables, loading it if needed.
+     * @return the snapshot, which is the running load if there is one.
+     */
+    public Mono<Snapshot> get() {
+        Snapshot snapshot = current;
+        if (snapshot != null) {
+            return Mono.just(snapshot);
+        }
+        return Mono.defer(() -> {
+            Snapshot loadedSnapshot = current;
+            if (loadedSnapshot != null) {
+                return Mono.just(loadedSnapshot);
+            }
+            Mono<Snapshot> running = loading.get();
+            if (running != null) {
+                return running;
+            }
+            long loadedGeneration = generation.get();
+            Mono<Snapshot> load = load()
+                .doOnNext(loaded -> {
+                    // Don't publish a copy which was loaded concurrently with an invalidation
+                    if (generation.get() == loadedGeneration) {
+                        current = loaded;
+                    }
+                })
+                .doFinally(signal -> loading.set(null))
+                .cache();
+            Mono<Snapshot> witness = loading.compareAndExchange(null, load);
+            return witness != null ? witness : load;
+        });
+    }
+
+    /**
+     * Set the relationships of the etudiant from its foreign keys.
+     * <p>
+     * A foreign key missing from the snapshot means that another node created the referenced row after the last version
+     * check: the relationship only gets its id, and the local copy is dropped so the next request reloads it.
+     * @param snapshot the copy of the reference tables.
+     * @param etudiant the etudiant to hydrate.
+     * @return the etudiant.
+     */
+    public Etudiant hydrate(Snapshot snapshot, Etudiant etudiant) {
+        Long paysId = etudiant.getNomPaysId();
+        Long niveauId = etudiant.getNomNiveauId();
+        Long filiereId = etudiant.getNomFiliereId();
+        boolean miss = false;
+        if (paysId != null) {
+            String nomPays = snapshot.pays.get(paysId);
+            miss |= nomPays == null && !snapshot.pays.containsKey(paysId);
+            etudiant.setNomPays(new Pays().id(paysId).nomPays(nomPays));
+        }
+        if (niveauId != null) {
+            String nomNiveau = snapshot.niveaux.get(niveauId);
+            miss |= nomNiveau == null && !snapshot.niveaux.containsKey(niveauId);
+            etudiant.setNomNiveau(new Niveau().id(niveauId).nomNiveau(nomNiveau));
+        }
+        if (filiereId != null) {
+            String nomFiliere = snapshot.filieres.get(filiereId);
+            miss |= nomFiliere == null && !snapshot.filieres.containsKey(filiereId);
+            etudiant.setNomFiliere(new Filiere().id(filiereId).nomFiliere(nomFiliere));
+        }
+        if (miss) {
+            invalidateLocally(snapshot);
+        }
+        return etudiant;
+    }
+
+    /**
+     * Bump the shared version so the other nodes drop their copy, and drop the local copy once the current transaction
+     * is committed: a copy loaded before the commit would otherwise be published again, without the write.
+     * @return a Mono to signal the invalidation.
+     */
+    public Mono<Void> invalidate() {
+        return db.sql(BUMP_VERSION_QUERY).fetch().rowsUpdated().then(AfterCommit.run(() -> invalidateLocally(current)));
+    }
+
+    /**
+     * Check whether another node changed the reference tables since the local copy was loaded.
+     * <p>
+     * The check is only started: the scheduler thread is shared with the other scheduled tasks, so it doesn't wait for
+     * the database. A check still running when the next one is due skips it.
+     */
+    public void checkVersion() {
+        Snapshot snapshot = current;
+        if (snapshot == null || !checking.compareAndSet(false, true)) {
+            return;
+        }
+        fetchVersion()
+            .timeout(VERSION_CHECK_TIMEOUT)
+            .doFinally(signal -> checking.set(false))
+            .subscribe(
+                version -> {
+                    if (version != snapshot.getVersion()) {
+                        log.debug("Reference data changed from version {} to {}", snapshot.getVersion(), version);
+                        invalidateLocally(snapshot);
+                    }
+                },
+                e -> log.warn("Could not check the reference data version: {}", e.getMessage())
+            );
+    }
+
+    private void invalidateLocally(Snapshot snapshot) {
+        generation.incrementAndGet();
+        // The running load may have read the tables before the change: the next requests start a new one
+        loading.set(null);
+        if (current == snapshot) {
+            current = null;
+        }
+    }
+
+    private Mono<Long> fetchVersion() {
+        return db.sql(VERSION_QUERY).map(row -> row.get("version", Long.class)).one().defaultIfEmpty(0L);
+    }
+
+    private Mono<Snapshot> load() {
+        // The version is read first: a write committed in between only causes a useless reload at the next check. The
+        // queries may share the connection of a transaction, so they run one after the other
+        return fetchVersion()
+            .flatMap(version ->
+                paysRepository
+                    .findAll()
+                    .collectMap(Pays::getId, Pays::getNomPays)
+                    .flatMap(pays ->
+                        niveauRepository
+                            .findAll()
+                            .collectMap(Niveau::getId, Niveau::getNomNiveau)
+                            .flatMap(niveaux ->
+                                filiereRepository
+                                    .findAll()
+                                    .collectMap(Filiere::getId, Filiere::getNomFiliere)
+                                    .map(filieres -> new Snapshot(version, pays, niveaux, filieres))
+                            )
+                    )
+            )
+            .doOnNext(snapshot -> log.debug("Loaded {} reference data rows at version {}", snapshot.size(), snapshot.getVersion()));
+    }
+}
@@ -0,0 +1,144 @@
+package com.itsandra.etudiantetranger.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import com.itsandra.etudiantetranger.domain.Authority;
+import com.itsandra.etudiantetranger.domain.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory copy of the users with their authorities, by login and by email, and of the authority names, so the
+ * authentications and the account requests don't query the database each time.
+ * <p>
+ * A user is kept {@code application.user-cache.time-to-live-ms} at most. Every write to a user must go through
+ * {@link #evictOnCommit(User)}, with the login and email it had before and after the write. The other nodes don't see
+ * the evictions: their copy is at most one time to live behind. The cached users are shared and must not be modified.
+ */
+@Component
+public class UserCache {
+
+    public static final String USERS_CACHE_NAME = "users";
+
+    private static final String LOGIN_KEY = "login:";
+    private static final String EMAIL_KEY = "email:";
+
+    private final UserRepository userRepository;
+
+    private final Cache<String, User> users;
+
+    private final Mono<List<String>> authorityNames;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserCache(
+        UserRepository userRepository,
+        AuthorityRepository authorityRepository,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        this.userRepository = userRepository;
+        Duration timeToLive = Duration.ofMillis(applicationProperties.getUserCache().getTimeToLiveMs());
+        this.users =
+            Caffeine
+                .newBuilder()
+                .maximumSize(applicationProperties.getUserCache().getMaxSize())
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, USERS_CACHE_NAME);
+        this.authorityNames =
+            authorityRepository
+                .findAll()
+                .map(Authority::getName)
+                .collectList()
+                .map(Collections::unmodifiableList)
+                .cache(names -> timeToLive, e -> Duration.ZERO, () -> timeToLive);
+    }
+
+    /**
+     * Find a user with its authorities by login.
+     * @param login the lowercase login.
+     * @return the user, or an empty Mono if there is none.
+     */
+    public Mono<User> findOneWithAuthoritiesByLogin(String login) {
+        return find(LOGIN_KEY + login, Mono.defer(() -> userRepository.findOneWithAuthoritiesByLogin(login)));
+    }
+
+    /**
+     * Find a user with its authorities by email, ignoring the case.
+     * @param email the email.
+     * @return the user, or an empty Mono if there is none.
+     */
+    public Mono<User> findOneWithAuthoritiesByEmailIgnoreCase(String email) {
+        return find(
+            EMAIL_KEY + email.toLowerCase(Locale.ENGLISH),
+            Mono.defer(() -> userRepository.findOneWithAuthoritiesByEmailIgnoreCase(email))
+        );
+    }
+
+    /**
+     * @return the names of all the authorities.
+     */
+    public Mono<List<String>> findAuthorityNames() {
+        return authorityNames;
+    }
+
+    /**
+     * Drop the copy of a user, under the login and email it has when the returned Mono is subscribed, both right away
+     * and once the current transaction is committed: a read made before the commit can't keep the previous version of
+     * the user in the cache.
+     * @param user the user.
+     * @return a Mono completing once the user is evicted, and its eviction after commit registered.
+     */
+    public Mono<Void> evictOnCommit(User user) {
+        return Mono.defer(() -> {
+            String login = user.getLogin();
+            String email = user.getEmail();
+            evict(login, email);
+            return AfterCommit.run(() -> evict(login, email));
+        });
+    }
+
+    private void evict(String login, String email) {
+        generation.incrementAndGet();
+        if (login != null) {
+            users.invalidate(LOGIN_KEY + login);
+        }
+        if (email != null) {
+            users.invalidate(EMAIL_KEY + email.toLowerCase(Locale.ENGLISH));
+        }
+    }
+
+    /**
+     * Drop the copies of all the users, after a bulk write.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        users.invalidateAll();
+    }
+
+    private Mono<User> find(String key, Mono<User> load) {
+        return Mono.defer(() -> {
+            User cached = users.getIfPresent(key);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            long loadedGeneration = generation.get();
+            return load.doOnNext(loaded -> {
+                // Don't keep a copy which was loaded concurrently with an eviction
+                if (generation.get() == loadedGeneration) {
+                    users.put(key, loaded);
+                }
+            });
+        });
+    }
+}
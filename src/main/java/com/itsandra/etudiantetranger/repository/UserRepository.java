@@ -6,17 +6,17 @@ import static org.springframework.data.relational.core.query.Query.query;
 import com.itsandra.etudiantetranger.domain.Authority;
 import com.itsandra.etudiantetranger.domain.User;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
-import org.apache.commons.beanutils.BeanComparator;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Expression;
 import org.springframework.data.relational.core.sql.Table;
@@ -94,28 +94,29 @@ class UserRepositoryInternalImpl implements UserRepositoryInternal {
 
     @Override
     public Flux<User> findAllWithAuthorities(Pageable pageable) {
-        String property = pageable.getSort().stream().map(Sort.Order::getProperty).findFirst().orElse("id");
-        String direction = String.valueOf(
-            pageable.getSort().stream().map(Sort.Order::getDirection).findFirst().orElse(Sort.DEFAULT_DIRECTION)
-        );
-        long page = pageable.getPageNumber();
-        long size = pageable.getPageSize();
+        // The users are paged alone, so a page never splits the authorities of a user, then the authorities of this page
+        // are loaded at once. The id breaks the ties of the requested sort, for a stable paging.
+        Sort sort = pageable.getSort().getOrderFor("id") != null ? pageable.getSort() : pageable.getSort().and(Sort.by("id"));
+        return r2dbcEntityTemplate
+            .select(User.class)
+            .matching(query(Criteria.empty()).sort(sort).limit(pageable.getPageSize()).offset(pageable.getOffset()))
+            .all()
+            .collectList()
+            .flatMapMany(users -> users.isEmpty() ? Flux.empty() : withAuthorities(users));
+    }
 
+    private Flux<User> withAuthorities(List<User> users) {
+        List<Long> userIds = users.stream().map(User::getId).collect(Collectors.toList());
         return db
-            .sql("SELECT * FROM jhi_user u LEFT JOIN jhi_user_authority ua ON u.id=ua.user_id")
-            .map((row, metadata) ->
-                Tuples.of(r2dbcConverter.read(User.class, row, metadata), Optional.ofNullable(row.get("authority_name", String.class)))
-            )
+            .sql("SELECT user_id, authority_name FROM jhi_user_authority WHERE user_id IN (:userIds)")
+            .bind("userIds", userIds)
+            .map(row -> Tuples.of(row.get("user_id", Long.class), row.get("authority_name", String.class)))
             .all()
-            .groupBy(t -> t.getT1().getLogin())
-            .flatMap(l -> l.collectList().map(t -> updateUserWithAuthorities(t.get(0).getT1(), t)))
-            .sort(
-                Sort.Direction.fromString(direction) == Sort.DEFAULT_DIRECTION
-                    ? new BeanComparator<>(property)
-                    : new BeanComparator<>(property).reversed()
-            )
-            .skip(page * size)
-            .take(size);
+            .collect(Collectors.groupingBy(Tuple2::getT1, Collectors.mapping(t -> authority(t.getT2()), Collectors.toSet())))
+            .flatMapIterable(authorities -> {
+                users.forEach(user -> user.setAuthorities(authorities.getOrDefault(user.getId(), new HashSet<>())));
+                return users;
+            });
     }
 
     @Override
@@ -145,14 +146,16 @@ class UserRepositoryInternalImpl implements UserRepositoryInternal {
             tuples
                 .stream()
                 .filter(t -> t.getT2().isPresent())
-                .map(t -> {
-                    Authority authority = new Authority();
-                    authority.setName(t.getT2().get());
-                    return authority;
-                })
+                .map(t -> authority(t.getT2().get()))
                 .collect(Collectors.toSet())
         );
 
         return user;
     }
+
+    private static Authority authority(String name) {
+        Authority authority = new Authority();
+        authority.setName(name);
+        return authority;
+    }
 }
@@ -46,8 +46,36 @@ public class ColumnConverter {
         return conversionService.convert(value, target);
     }
 
+    /**
+     * Whether the values of the source type can be converted to the target type by {@link #convert(Object, Class)}.
+     * @param source class.
+     * @param target class.
+     * @return true if the conversion is possible.
+     */
+    public boolean canConvert(Class<?> source, Class<?> target) {
+        return (
+            ClassUtils.isAssignable(target, source) ||
+            conversions.hasCustomReadTarget(source, target) ||
+            (Enum.class.isAssignableFrom(target) && String.class.equals(source)) ||
+            conversionService.canConvert(source, target)
+        );
+    }
+
+    /**
+     * Create a reader of a column, to read it from every row of a query.
+     * @param columnName the name of the column.
+     * @param target class.
+     * @param <T> the parameter for the intended type.
+     * @return the reader.
+     */
+    public <T> ColumnReader<T> reader(String columnName, Class<T> target) {
+        return new ColumnReader<>(this, columnName, target);
+    }
+
     /**
      * Convert a value from the {@link Row} to a type - throws an exception, it it's impossible.
+     * <p>
+     * Row mappers should rather use a {@link #reader(String, Class)}, which resolves the conversion once per column.
      * @param row which contains the column values.
      * @param target class.
      * @param columnName the name of the column which to convert.
@@ -55,12 +83,11 @@ public class ColumnConverter {
      * @return the value which can be constructed from the input.
      */
     public <T> T fromRow(Row row, String columnName, Class<T> target) {
-        try {
-            // try, directly the driver
-            return row.get(columnName, target);
-        } catch (Exception e) {
-            Object obj = row.get(columnName);
+        Object obj = row.get(columnName);
+        if (obj == null || canConvert(obj.getClass(), target)) {
             return convert(obj, target);
         }
+        // let the driver decode it
+        return row.get(columnName, target);
     }
 }
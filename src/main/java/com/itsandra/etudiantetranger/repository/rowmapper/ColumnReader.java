@@ -0,0 +1,63 @@
+package com.itsandra.etudiantetranger.repository.rowmapper;
+
+import io.r2dbc.spi.Row;
+
+/**
+ * Reads a column of the rows of a query, and converts its values to the type of the entity field.
+ * <p>
+ * The column name is resolved once, and so is the conversion: it is looked up on the first value of a type not
+ * assignable to the target, then reused as long as the driver returns values of the same type, so reading a row
+ * neither allocates column names nor relies on exceptions.
+ *
+ * @param <T> the type of the entity field.
+ */
+public final class ColumnReader<T> {
+
+    /**
+     * How the values of a given type are converted to the target type.
+     */
+    private static final class Conversion {
+
+        private final Class<?> sourceType;
+        private final boolean byConverter;
+
+        Conversion(Class<?> sourceType, boolean byConverter) {
+            this.sourceType = sourceType;
+            this.byConverter = byConverter;
+        }
+    }
+
+    private final ColumnConverter converter;
+    private final String columnName;
+    private final Class<T> target;
+    private volatile Conversion conversion;
+
+    ColumnReader(ColumnConverter converter, String columnName, Class<T> target) {
+        this.converter = converter;
+        this.columnName = columnName;
+        this.target = target;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    /**
+     * Read the column from the row.
+     * @param row which contains the column values.
+     * @return the converted value of the column.
+     */
+    public T read(Row row) {
+        Object value = row.get(columnName);
+        if (value == null || target.isInstance(value)) {
+            return target.cast(value);
+        }
+        Conversion current = conversion;
+        if (current == null || current.sourceType != value.getClass()) {
+            current = new Conversion(value.getClass(), converter.canConvert(value.getClass(), target));
+            conversion = current;
+        }
+        // The driver knows how to decode the types the conversion service doesn't
+        return current.byConverter ? converter.convert(value, target) : row.get(columnName, target);
+    }
+}
@@ -3,6 +3,8 @@ package com.itsandra.etudiantetranger.repository.rowmapper;
 import com.itsandra.etudiantetranger.domain.Etudiant;
 import io.r2dbc.spi.Row;
 import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
 
@@ -12,8 +14,38 @@ import org.springframework.stereotype.Service;
 @Service
 public class EtudiantRowMapper implements BiFunction<Row, String, Etudiant> {
 
+    /**
+     * The readers of the columns for a column prefix, created once and shared by all the queries using this prefix.
+     */
+    private final class Columns {
+
+        private final ColumnReader<Long> id;
+        private final ColumnReader<String> nom;
+        private final ColumnReader<String> prenom;
+        private final ColumnReader<Long> matricule;
+        private final ColumnReader<LocalDate> date;
+        private final ColumnReader<Long> changeVersion;
+        private final ColumnReader<Long> nomNiveauId;
+        private final ColumnReader<Long> nomFiliereId;
+        private final ColumnReader<Long> nomPaysId;
+
+        Columns(String prefix) {
+            id = converter.reader(prefix + "_id", Long.class);
+            nom = converter.reader(prefix + "_nom", String.class);
+            prenom = converter.reader(prefix + "_prenom", String.class);
+            matricule = converter.reader(prefix + "_matricule", Long.class);
+            date = converter.reader(prefix + "_date", LocalDate.class);
+            changeVersion = converter.reader(prefix + "_change_version", Long.class);
+            nomNiveauId = converter.reader(prefix + "_nom_niveau_id", Long.class);
+            nomFiliereId = converter.reader(prefix + "_nom_filiere_id", Long.class);
+            nomPaysId = converter.reader(prefix + "_nom_pays_id", Long.class);
+        }
+    }
+
     private final ColumnConverter converter;
 
+    private final Map<String, Columns> columnsByPrefix = new ConcurrentHashMap<>();
+
     public EtudiantRowMapper(ColumnConverter converter) {
         this.converter = converter;
     }
@@ -24,15 +56,17 @@ public class EtudiantRowMapper implements BiFunction<Row, String, Etudiant> {
      */
     @Override
     public Etudiant apply(Row row, String prefix) {
+        Columns columns = columnsByPrefix.computeIfAbsent(prefix, Columns::new);
         Etudiant entity = new Etudiant();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setNom(converter.fromRow(row, prefix + "_nom", String.class));
-        entity.setPrenom(converter.fromRow(row, prefix + "_prenom", String.class));
-        entity.setMatricule(converter.fromRow(row, prefix + "_matricule", Long.class));
-        entity.setDate(converter.fromRow(row, prefix + "_date", LocalDate.class));
-        entity.setNomNiveauId(converter.fromRow(row, prefix + "_nom_niveau_id", Long.class));
-        entity.setNomFiliereId(converter.fromRow(row, prefix + "_nom_filiere_id", Long.class));
-        entity.setNomPaysId(converter.fromRow(row, prefix + "_nom_pays_id", Long.class));
+        entity.setId(columns.id.read(row));
+        entity.setNom(columns.nom.read(row));
+        entity.setPrenom(columns.prenom.read(row));
+        entity.setMatricule(columns.matricule.read(row));
+        entity.setDate(columns.date.read(row));
+        entity.setChangeVersion(columns.changeVersion.read(row));
+        entity.setNomNiveauId(columns.nomNiveauId.read(row));
+        entity.setNomFiliereId(columns.nomFiliereId.read(row));
+        entity.setNomPaysId(columns.nomPaysId.read(row));
         return entity;
     }
 }
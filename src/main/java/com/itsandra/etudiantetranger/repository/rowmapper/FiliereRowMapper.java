@@ -2,6 +2,8 @@ package com.itsandra.etudiantetranger.repository.rowmapper;
 
 import com.itsandra.etudiantetranger.domain.Filiere;
 import io.r2dbc.spi.Row;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
 
@@ -11,8 +13,26 @@ import org.springframework.stereotype.Service;
 @Service
 public class FiliereRowMapper implements BiFunction<Row, String, Filiere> {
 
+    /**
+     * The readers of the columns for a column prefix, created once and shared by all the queries using this prefix.
+     */
+    private final class Columns {
+
+        private final ColumnReader<Long> id;
+        private final ColumnReader<String> nomFiliere;
+        private final ColumnReader<Long> changeVersion;
+
+        Columns(String prefix) {
+            id = converter.reader(prefix + "_id", Long.class);
+            nomFiliere = converter.reader(prefix + "_nom_filiere", String.class);
+            changeVersion = converter.reader(prefix + "_change_version", Long.class);
+        }
+    }
+
     private final ColumnConverter converter;
 
+    private final Map<String, Columns> columnsByPrefix = new ConcurrentHashMap<>();
+
     public FiliereRowMapper(ColumnConverter converter) {
         this.converter = converter;
     }
@@ -23,9 +43,11 @@ public class FiliereRowMapper implements BiFunction<Row, String, Filiere> {
      */
     @Override
     public Filiere apply(Row row, String prefix) {
+        Columns columns = columnsByPrefix.computeIfAbsent(prefix, Columns::new);
         Filiere entity = new Filiere();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setNomFiliere(converter.fromRow(row, prefix + "_nom_filiere", String.class));
+        entity.setId(columns.id.read(row));
+        entity.setNomFiliere(columns.nomFiliere.read(row));
+        entity.setChangeVersion(columns.changeVersion.read(row));
         return entity;
     }
 }
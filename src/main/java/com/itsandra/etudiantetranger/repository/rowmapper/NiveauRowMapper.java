@@ -2,6 +2,8 @@ package com.itsandra.etudiantetranger.repository.rowmapper;
 
 import com.itsandra.etudiantetranger.domain.Niveau;
 import io.r2dbc.spi.Row;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
 
@@ -11,8 +13,26 @@ import org.springframework.stereotype.Service;
 @Service
 public class NiveauRowMapper implements BiFunction<Row, String, Niveau> {
 
+    /**
+     * The readers of the columns for a column prefix, created once and shared by all the queries using this prefix.
+     */
+    private final class Columns {
+
+        private final ColumnReader<Long> id;
+        private final ColumnReader<String> nomNiveau;
+        private final ColumnReader<Long> changeVersion;
+
+        Columns(String prefix) {
+            id = converter.reader(prefix + "_id", Long.class);
+            nomNiveau = converter.reader(prefix + "_nom_niveau", String.class);
+            changeVersion = converter.reader(prefix + "_change_version", Long.class);
+        }
+    }
+
     private final ColumnConverter converter;
 
+    private final Map<String, Columns> columnsByPrefix = new ConcurrentHashMap<>();
+
     public NiveauRowMapper(ColumnConverter converter) {
         this.converter = converter;
     }
@@ -23,9 +43,11 @@ public class NiveauRowMapper implements BiFunction<Row, String, Niveau> {
      */
     @Override
     public Niveau apply(Row row, String prefix) {
+        Columns columns = columnsByPrefix.computeIfAbsent(prefix, Columns::new);
         Niveau entity = new Niveau();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setNomNiveau(converter.fromRow(row, prefix + "_nom_niveau", String.class));
+        entity.setId(columns.id.read(row));
+        entity.setNomNiveau(columns.nomNiveau.read(row));
+        entity.setChangeVersion(columns.changeVersion.read(row));
         return entity;
     }
 }
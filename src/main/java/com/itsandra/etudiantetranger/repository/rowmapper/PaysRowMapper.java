@@ -2,6 +2,8 @@ package com.itsandra.etudiantetranger.repository.rowmapper;
 
 import com.itsandra.etudiantetranger.domain.Pays;
 import io.r2dbc.spi.Row;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
 
@@ -11,8 +13,26 @@ import org.springframework.stereotype.Service;
 @Service
 public class PaysRowMapper implements BiFunction<Row, String, Pays> {
 
+    /**
+     * The readers of the columns for a column prefix, created once and shared by all the queries using this prefix.
+     */
+    private final class Columns {
+
+        private final ColumnReader<Long> id;
+        private final ColumnReader<String> nomPays;
+        private final ColumnReader<Long> changeVersion;
+
+        Columns(String prefix) {
+            id = converter.reader(prefix + "_id", Long.class);
+            nomPays = converter.reader(prefix + "_nom_pays", String.class);
+            changeVersion = converter.reader(prefix + "_change_version", Long.class);
+        }
+    }
+
     private final ColumnConverter converter;
 
+    private final Map<String, Columns> columnsByPrefix = new ConcurrentHashMap<>();
+
     public PaysRowMapper(ColumnConverter converter) {
         this.converter = converter;
     }
@@ -23,9 +43,11 @@ public class PaysRowMapper implements BiFunction<Row, String, Pays> {
      */
     @Override
     public Pays apply(Row row, String prefix) {
+        Columns columns = columnsByPrefix.computeIfAbsent(prefix, Columns::new);
         Pays entity = new Pays();
-        entity.setId(converter.fromRow(row, prefix + "_id", Long.class));
-        entity.setNomPays(converter.fromRow(row, prefix + "_nom_pays", String.class));
+        entity.setId(columns.id.read(row));
+        entity.setNomPays(columns.nomPays.read(row));
+        entity.setChangeVersion(columns.changeVersion.read(row));
         return entity;
     }
 }
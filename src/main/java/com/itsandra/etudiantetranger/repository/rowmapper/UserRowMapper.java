@@ -3,6 +3,8 @@ package com.itsandra.etudiantetranger.repository.rowmapper;
 import com.itsandra.etudiantetranger.domain.User;
 import io.r2dbc.spi.Row;
 import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import org.springframework.stereotype.Service;
 
@@ -12,8 +14,44 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserRowMapper implements BiFunction<Row, String, User> {
 
+    /**
+     * The readers of the columns for a column prefix, created once and shared by all the queries using this prefix.
+     */
+    private final class Columns {
+
+        private final ColumnReader<Long> id;
+        private final ColumnReader<String> login;
+        private final ColumnReader<String> password;
+        private final ColumnReader<String> firstName;
+        private final ColumnReader<String> lastName;
+        private final ColumnReader<String> email;
+        private final ColumnReader<Boolean> activated;
+        private final ColumnReader<String> langKey;
+        private final ColumnReader<String> imageUrl;
+        private final ColumnReader<String> activationKey;
+        private final ColumnReader<String> resetKey;
+        private final ColumnReader<Instant> resetDate;
+
+        Columns(String prefix) {
+            id = converter.reader(prefix + "_id", Long.class);
+            login = converter.reader(prefix + "_login", String.class);
+            password = converter.reader(prefix + "_password", String.class);
+            firstName = converter.reader(prefix + "_first_name", String.class);
+            lastName = converter.reader(prefix + "_last_name", String.class);
+            email = converter.reader(prefix + "_email", String.class);
+            activated = converter.reader(prefix + "_activated", Boolean.class);
+            langKey = converter.reader(prefix + "_lang_key", String.class);
+            imageUrl = converter.reader(prefix + "_image_url", String.class);
+            activationKey = converter.reader(prefix + "_activation_key", String.class);
+            resetKey = converter.reader(prefix + "_reset_key", String.class);
+            resetDate = converter.reader(prefix + "_reset_date", Instant.class);
+        }
+    }
+
     private final ColumnConverter converter;
 
+    private final Map<String, Columns> columnsByPrefix = new ConcurrentHashMap<>();
+
     public UserRowMapper(ColumnConverter converter) {
         this.converter = converter;
     }
@@ -24,19 +62,20 @@ public class UserRowMapper implements BiFunction<Row, String, User> {
      */
     @Override
     public User apply(Row row, String prefix) {
+        Columns columns = columnsByPrefix.computeIfAbsent(prefix, Columns::new);
         User entity = new User();
-        entity.setId(row.get(prefix + "_id", Long.class));
-        entity.setLogin(converter.fromRow(row, prefix + "_login", String.class));
-        entity.setPassword(converter.fromRow(row, prefix + "_password", String.class));
-        entity.setFirstName(converter.fromRow(row, prefix + "_first_name", String.class));
-        entity.setLastName(converter.fromRow(row, prefix + "_last_name", String.class));
-        entity.setEmail(converter.fromRow(row, prefix + "_email", String.class));
-        entity.setActivated(Boolean.TRUE.equals(converter.fromRow(row, prefix + "_activated", Boolean.class)));
-        entity.setLangKey(converter.fromRow(row, prefix + "_lang_key", String.class));
-        entity.setImageUrl(converter.fromRow(row, prefix + "_image_url", String.class));
-        entity.setActivationKey(converter.fromRow(row, prefix + "_activation_key", String.class));
-        entity.setResetKey(converter.fromRow(row, prefix + "_reset_key", String.class));
-        entity.setResetDate(converter.fromRow(row, prefix + "_reset_date", Instant.class));
+        entity.setId(columns.id.read(row));
+        entity.setLogin(columns.login.read(row));
+        entity.setPassword(columns.password.read(row));
+        entity.setFirstName(columns.firstName.read(row));
+        entity.setLastName(columns.lastName.read(row));
+        entity.setEmail(columns.email.read(row));
+        entity.setActivated(Boolean.TRUE.equals(columns.activated.read(row)));
+        entity.setLangKey(columns.langKey.read(row));
+        entity.setImageUrl(columns.imageUrl.read(row));
+        entity.setActivationKey(columns.activationKey.read(row));
+        entity.setResetKey(columns.resetKey.read(row));
+        entity.setResetDate(columns.resetDate.read(row));
         return entity;
     }
 }
@@ -0,0 +1,133 @@
+package com.itsandra.etudiantetranger.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Locale;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits the authentication attempts from each IP address, and the failed ones for each login from each IP address, per
+ * window of {@code application.login-rate-limit.window-ms}, so a credential stuffing run or a burst of retries is
+ * rejected before any password is verified. The rejected attempts are counted by the {@value #REJECTED_METER_NAME}
+ * meter, tagged by the exceeded limit.
+ * <p>
+ * Only the failures count against a login, and only from the IP address they come from: the owner of the login can
+ * still sign in while someone else guesses its password. A successful authentication clears the failures.
+ * <p>
+ * The attempts are counted by each node: behind a load balancer, a client gets up to the limit on every node. The IP
+ * address is the one of the connection, or the one forwarded by the proxy with the {@code proxy} profile.
+ */
+@Component
+public class LoginRateLimiter {
+
+    public static final String REJECTED_METER_NAME = "security.authentication.rate-limited";
+
+    private static final long MAX_TRACKED_KEYS = 100_000;
+
+    private final int maxAttemptsPerLogin;
+
+    private final int maxAttemptsPerIp;
+
+    private final long windowMs;
+
+    private final Cache<String, Window> windows;
+
+    private final Counter loginRejections;
+
+    private final Counter ipRejections;
+
+    public LoginRateLimiter(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        this.maxAttemptsPerLogin = applicationProperties.getLoginRateLimit().getMaxAttemptsPerLogin();
+        this.maxAttemptsPerIp = applicationProperties.getLoginRateLimit().getMaxAttemptsPerIp();
+        this.windowMs = applicationProperties.getLoginRateLimit().getWindowMs();
+        this.windows = Caffeine.newBuilder().maximumSize(MAX_TRACKED_KEYS).expireAfterAccess(Duration.ofMillis(this.windowMs)).build();
+        this.loginRejections = rejections(meterRegistry, "login");
+        this.ipRejections = rejections(meterRegistry, "ip");
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String limit) {
+        return Counter
+            .builder(REJECTED_METER_NAME)
+            .description("Number of authentication attempts rejected by the login rate limit")
+            .tag("limit", limit)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Count an authentication attempt.
+     *
+     * @param login the login of the attempt.
+     * @param ip the IP address of the client, or null if unknown.
+     * @return true if the attempt is allowed, false if it exceeds the limit of the IP address or of the failures of the login.
+     */
+    public boolean tryAcquire(String login, String ip) {
+        long now = System.currentTimeMillis();
+        if (ip != null && !window("ip:" + ip).tryAcquire(now, windowMs, maxAttemptsPerIp)) {
+            ipRejections.increment();
+            return false;
+        }
+        Window failures = windows.getIfPresent(loginKey(login, ip));
+        if (failures != null && failures.isFull(now, windowMs, maxAttemptsPerLogin)) {
+            loginRejections.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Count a failed authentication attempt against its login.
+     *
+     * @param login the login of the attempt.
+     * @param ip the IP address of the client, or null if unknown.
+     */
+    public void recordFailure(String login, String ip) {
+        window(loginKey(login, ip)).tryAcquire(System.currentTimeMillis(), windowMs, maxAttemptsPerLogin);
+    }
+
+    /**
+     * Clear the failed authentication attempts of a login, once it is authenticated.
+     *
+     * @param login the login of the attempt.
+     * @param ip the IP address of the client, or null if unknown.
+     */
+    public void recordSuccess(String login, String ip) {
+        windows.invalidate(loginKey(login, ip));
+    }
+
+    private static String loginKey(String login, String ip) {
+        return "login:" + (login != null ? login.toLowerCase(Locale.ENGLISH) : "") + "@" + (ip != null ? ip : "");
+    }
+
+    private Window window(String key) {
+        return windows.get(key, k -> new Window());
+    }
+
+    /**
+     * The attempts counted during the current window of a key.
+     */
+    private static final class Window {
+
+        private long start;
+        private int attempts;
+
+        synchronized boolean tryAcquire(long now, long windowMs, int maxAttempts) {
+            if (isFull(now, windowMs, maxAttempts)) {
+                return false;
+            }
+            attempts++;
+            return true;
+        }
+
+        synchronized boolean isFull(long now, long windowMs, int maxAttempts) {
+            if (now - start >= windowMs) {
+                start = now;
+                attempts = 0;
+            }
+            return attempts >= maxAttempts;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.itsandra.etudiantetranger.security;
+
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The scheduler of the password hashings and verifications, which are CPU-heavy by design.
+ * <p>
+ * They run on {@code application.password-hashing.threads} dedicated threads, so a burst of logins never holds the
+ * event loops nor the threads of the other blocking work. At most {@code application.password-hashing.queue-capacity}
+ * hashings wait for a thread: the next ones fail at once with a {@link java.util.concurrent.RejectedExecutionException},
+ * counted by the {@value #REJECTED_METER_NAME} meter. The number of waiting hashings is the {@value #QUEUE_METER_NAME}
+ * meter.
+ */
+@Component
+public class PasswordHashingScheduler {
+
+    public static final String QUEUE_METER_NAME = "security.password.hashing.queue";
+
+    public static final String REJECTED_METER_NAME = "security.password.hashing.rejected";
+
+    private final ThreadPoolExecutor executor;
+
+    private final Scheduler scheduler;
+
+    public PasswordHashingScheduler(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        int threads = applicationProperties.getPasswordHashing().getThreads();
+        int threadCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        Counter rejected = Counter
+            .builder(REJECTED_METER_NAME)
+            .description("Number of password hashings rejected because too many were waiting")
+            .register(meterRegistry);
+        this.executor =
+            new ThreadPoolExecutor(
+                threadCount,
+                threadCount,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(applicationProperties.getPasswordHashing().getQueueCapacity()),
+                new HashingThreadFactory(),
+                (task, pool) -> {
+                    rejected.increment();
+                    new ThreadPoolExecutor.AbortPolicy().rejectedExecution(task, pool);
+                }
+            );
+        Gauge
+            .builder(QUEUE_METER_NAME, executor, pool -> pool.getQueue().size())
+            .description("Number of password hashings waiting for a thread")
+            .register(meterRegistry);
+        this.scheduler = Schedulers.fromExecutorService(executor, "password-hashing");
+    }
+
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+    private static final class HashingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
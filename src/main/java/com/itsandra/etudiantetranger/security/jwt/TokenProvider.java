@@ -1,5 +1,8 @@
 package com.itsandra.etudiantetranger.security.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.itsandra.etudiantetranger.management.SecurityMetersService;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
@@ -8,6 +11,9 @@ import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -30,6 +36,11 @@ public class TokenProvider {
 
     private static final String INVALID_JWT_TOKEN = "Invalid JWT token.";
 
+    /**
+     * Maximum number of cached authentications, about the number of users active during a token validity.
+     */
+    private static final long MAX_CACHED_AUTHENTICATIONS = 10_000;
+
     private final Key key;
 
     private final JwtParser jwtParser;
@@ -40,6 +51,11 @@ public class TokenProvider {
 
     private final SecurityMetersService securityMetersService;
 
+    /**
+     * The authentications of the verified tokens, by digest of the token, until the expiration of the token.
+     */
+    private final Cache<String, CachedAuthentication> authenticationCache;
+
     public TokenProvider(JHipsterProperties jHipsterProperties, SecurityMetersService securityMetersService) {
         byte[] keyBytes;
         String secret = jHipsterProperties.getSecurity().getAuthentication().getJwt().getBase64Secret();
@@ -61,6 +77,9 @@ public class TokenProvider {
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
 
         this.securityMetersService = securityMetersService;
+        this.authenticationCache =
+            Caffeine.newBuilder().maximumSize(MAX_CACHED_AUTHENTICATIONS).expireAfter(new UntilTokenExpiration()).recordStats().build();
+        securityMetersService.monitorTokenCache(authenticationCache);
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
@@ -85,8 +104,34 @@ public class TokenProvider {
     }
 
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return createAuthentication(token, jwtParser.parseClaimsJws(token).getBody());
+    }
+
+    /**
+     * Get the authentication of a token if it is valid, parsing and verifying the token only the first time it is presented:
+     * its authentication is then cached until the token expires.
+     *
+     * @param token the token.
+     * @return the authentication, or null if the token is invalid.
+     */
+    public Authentication getValidAuthentication(String token) {
+        String digest = digest(token);
+        CachedAuthentication cached = authenticationCache.getIfPresent(digest);
+        if (cached != null && cached.expiration > System.currentTimeMillis()) {
+            return cached.authentication;
+        }
+        Claims claims = parseValidClaims(token);
+        if (claims == null) {
+            return null;
+        }
+        Authentication authentication = createAuthentication(token, claims);
+        if (claims.getExpiration() != null) {
+            authenticationCache.put(digest, new CachedAuthentication(authentication, claims.getExpiration().getTime()));
+        }
+        return authentication;
+    }
 
+    private Authentication createAuthentication(String token, Claims claims) {
         Collection<? extends GrantedAuthority> authorities = Arrays
             .stream(claims.get(AUTHORITIES_KEY).toString().split(","))
             .filter(auth -> !auth.trim().isEmpty())
@@ -99,10 +144,12 @@ public class TokenProvider {
     }
 
     public boolean validateToken(String authToken) {
-        try {
-            jwtParser.parseClaimsJws(authToken);
+        return parseValidClaims(authToken) != null;
+    }
 
-            return true;
+    private Claims parseValidClaims(String authToken) {
+        try {
+            return jwtParser.parseClaimsJws(authToken).getBody();
         } catch (ExpiredJwtException e) {
             this.securityMetersService.trackTokenExpired();
 
@@ -123,6 +170,47 @@ public class TokenProvider {
             log.error("Token validation error {}", e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    /**
+     * The SHA-256 digest of the token, a short cache key which only a token with the same content matches.
+     */
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class CachedAuthentication {
+
+        private final Authentication authentication;
+        private final long expiration;
+
+        private CachedAuthentication(Authentication authentication, long expiration) {
+            this.authentication = authentication;
+            this.expiration = expiration;
+        }
+    }
+
+    private static final class UntilTokenExpiration implements Expiry<String, CachedAuthentication> {
+
+        @Override
+        public long expireAfterCreate(String digest, CachedAuthentication cached, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, cached.expiration - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, CachedAuthentication cached, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, cached, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, CachedAuthentication cached, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,13 @@
+package com.itsandra.etudiantetranger.service;
+
+/**
+ * Ends the feed of a subscriber of the {@link EtudiantChangeFeed} which didn't keep up with the changes.
+ */
+public class ChangeFeedOverflowException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ChangeFeedOverflowException(int bufferSize, Throwable cause) {
+        super("The subscriber fell more than " + bufferSize + " changes behind", cause);
+    }
+}
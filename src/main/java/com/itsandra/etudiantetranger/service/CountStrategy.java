@@ -0,0 +1,22 @@
+package com.itsandra.etudiantetranger.service;
+
+/**
+ * How the total number of entities of a paginated listing is computed.
+ */
+public enum CountStrategy {
+    /**
+     * The total is kept in memory, maintained by the save and delete paths of the services and refreshed with a
+     * {@code SELECT COUNT(*)} when it expires.
+     */
+    CACHED,
+
+    /**
+     * The total is read from a {@code COUNT(*) OVER ()} column of the page query.
+     */
+    WINDOW,
+
+    /**
+     * No total is computed.
+     */
+    NONE,
+}
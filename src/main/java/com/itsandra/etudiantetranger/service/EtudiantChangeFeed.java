@@ -0,0 +1,81 @@
+package com.itsandra.etudiantetranger.service;
+
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import com.itsandra.etudiantetranger.service.dto.EtudiantChangeDTO;
+import com.itsandra.etudiantetranger.service.dto.EtudiantDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Service publishing the creates, updates and deletes of the etudiants made by this node, to any number of subscribers.
+ * <p>
+ * The changes are published once their transaction is committed, so a write which is rolled back is never published.
+ * A write never waits for the subscribers: each subscriber has its own buffer of
+ * {@code application.change-feed.buffer-size} changes. A subscriber whose buffer is full has missed changes, so its
+ * feed ends with a {@link ChangeFeedOverflowException} rather than silently skipping them, and the overflow is counted
+ * by the {@value #OVERFLOW_METER_NAME} meter. The subscriber then has to reload the etudiants and subscribe again.
+ */
+@Service
+public class EtudiantChangeFeed {
+
+    public static final String OVERFLOW_METER_NAME = "etudiant.changes.overflow";
+
+    private final Logger log = LoggerFactory.getLogger(EtudiantChangeFeed.class);
+
+    private final Sinks.Many<EtudiantChangeDTO> sink = Sinks.many().multicast().directBestEffort();
+
+    private final Counter overflows;
+
+    private final int bufferSize;
+
+    public EtudiantChangeFeed(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        this.overflows = Counter
+            .builder(OVERFLOW_METER_NAME)
+            .description("Number of change feed subscribers disconnected because they didn't keep up with the changes")
+            .register(meterRegistry);
+        this.bufferSize = applicationProperties.getChangeFeed().getBufferSize();
+    }
+
+    public void created(EtudiantDTO etudiant) {
+        publish(new EtudiantChangeDTO(EtudiantChangeDTO.Type.CREATED, etudiant.getId(), etudiant));
+    }
+
+    public void updated(EtudiantDTO etudiant) {
+        publish(new EtudiantChangeDTO(EtudiantChangeDTO.Type.UPDATED, etudiant.getId(), etudiant));
+    }
+
+    public void deleted(Long id) {
+        publish(new EtudiantChangeDTO(EtudiantChangeDTO.Type.DELETED, id, null));
+    }
+
+    /**
+     * Subscribe to the changes made from now on.
+     *
+     * @return the changes, ending with a {@link ChangeFeedOverflowException} if the subscriber falls behind.
+     */
+    public Flux<EtudiantChangeDTO> changes() {
+        return sink
+            .asFlux()
+            .onBackpressureBuffer(bufferSize, BufferOverflowStrategy.ERROR)
+            .onErrorMap(
+                Exceptions::isOverflow,
+                e -> {
+                    overflows.increment();
+                    log.debug("A change feed subscriber fell more than {} changes behind", bufferSize);
+                    return new ChangeFeedOverflowException(bufferSize, e);
+                }
+            );
+    }
+
+    private void publish(EtudiantChangeDTO change) {
+        // Only concurrent writes can make the emission fail, so it is retried: it never waits for a subscriber
+        sink.emitNext(change, (signalType, emitResult) -> emitResult == Sinks.EmitResult.FAIL_NON_SERIALIZED);
+    }
+}
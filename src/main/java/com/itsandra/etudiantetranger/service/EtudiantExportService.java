@@ -0,0 +1,493 @@
+package com.itsandra.etudiantetranger.service;
+
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import com.itsandra.etudiantetranger.service.criteria.EtudiantCriteria;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service exporting the etudiants to CSV or XLSX files.
+ * <p>
+ * The etudiants are read from the database by chunks of {@code application.export.fetch-size} rows, and encoded as
+ * they are read straight into the buffers of the response, without intermediate DTOs: an export runs in constant
+ * memory, at the pace of the client. The exported rows and bytes are counted by the {@value #ROWS_METER_NAME} and
+ * {@value #BYTES_METER_NAME} meters, and the rows per second of each finished export are recorded by the
+ * {@value #THROUGHPUT_METER_NAME} meter, all tagged by format.
+ * <p>
+ * The CSV files have the columns of the imports, so they can be imported back.
+ */
+@Service
+public class EtudiantExportService {
+
+    public static final String ROWS_METER_NAME = "etudiant.export.rows";
+
+    public static final String BYTES_METER_NAME = "etudiant.export.bytes";
+
+    public static final String THROUGHPUT_METER_NAME = "etudiant.export.throughput";
+
+    public enum Format {
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8)),
+        XLSX(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Optional<Format> fromExtension(String extension) {
+            for (Format format : values()) {
+                if (format.getExtension().equalsIgnoreCase(extension)) {
+                    return Optional.of(format);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static final int ROWS_PER_BUFFER = 256;
+
+    private static final String[] COLUMNS = { "id", "nom", "prenom", "matricule", "date", "pays", "filiere", "niveau" };
+
+    private final Logger log = LoggerFactory.getLogger(EtudiantExportService.class);
+
+    private final EtudiantService etudiantService;
+
+    private final int fetchSize;
+
+    private final Map<Format, Meters> meters = new EnumMap<>(Format.class);
+
+    public EtudiantExportService(
+        EtudiantService etudiantService,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        this.etudiantService = etudiantService;
+        this.fetchSize = applicationProperties.getExport().getFetchSize();
+        for (Format format : Format.values()) {
+            meters.put(format, new Meters(meterRegistry, format));
+        }
+    }
+
+    /**
+     * Export the etudiants matching the criteria.
+     *
+     * @param etudiantCriteria the filters of the etudiants.
+     * @param sort the sort of the etudiants, by id if unsorted.
+     * @param format the format of the file.
+     * @param bufferFactory the factory of the buffers of the response.
+     * @return the content of the file, written as the etudiants are read.
+     */
+    public Flux<DataBuffer> export(EtudiantCriteria etudiantCriteria, Sort sort, Format format, DataBufferFactory bufferFactory) {
+        log.debug("Request to export Etudiants as {} by criteria: {}", format, etudiantCriteria);
+        Meters formatMeters = meters.get(format);
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicLong rows = new AtomicLong();
+            EtudiantWriter writer = format == Format.CSV ? new CsvWriter() : new XlsxWriter();
+            Flux<Etudiant> etudiants = etudiantService.streamAll(etudiantCriteria, sort.isSorted() ? sort : Sort.by("id"), fetchSize);
+            return Flux
+                .concat(
+                    Mono.fromSupplier(() -> writer.start(bufferFactory.allocateBuffer())),
+                    etudiants
+                        .buffer(ROWS_PER_BUFFER)
+                        .map(chunk -> {
+                            rows.addAndGet(chunk.size());
+                            formatMeters.rows.increment(chunk.size());
+                            return writer.write(bufferFactory.allocateBuffer(), chunk);
+                        }),
+                    Mono.fromSupplier(() -> writer.finish(bufferFactory.allocateBuffer()))
+                )
+                .filter(buffer -> {
+                    if (buffer.readableByteCount() > 0) {
+                        return true;
+                    }
+                    DataBufferUtils.release(buffer);
+                    return false;
+                })
+                .doOnNext(buffer -> formatMeters.bytes.increment(buffer.readableByteCount()))
+                .doOnComplete(() -> {
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    if (seconds > 0) {
+                        formatMeters.throughput.record(rows.get() / seconds);
+                    }
+                    log.debug("Exported {} Etudiants as {} in {}s", rows.get(), format, seconds);
+                })
+                .doFinally(signal -> writer.close())
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+        });
+    }
+
+    private static String nomPays(Etudiant etudiant) {
+        return etudiant.getNomPays() != null ? etudiant.getNomPays().getNomPays() : null;
+    }
+
+    private static String nomFiliere(Etudiant etudiant) {
+        return etudiant.getNomFiliere() != null ? etudiant.getNomFiliere().getNomFiliere() : null;
+    }
+
+    private static String nomNiveau(Etudiant etudiant) {
+        return etudiant.getNomNiveau() != null ? etudiant.getNomNiveau().getNomNiveau() : null;
+    }
+
+    private static final class Meters {
+
+        private final Counter rows;
+        private final Counter bytes;
+        private final DistributionSummary throughput;
+
+        private Meters(MeterRegistry meterRegistry, Format format) {
+            String tag = format.getExtension();
+            this.rows = Counter.builder(ROWS_METER_NAME).description("Number of exported etudiants").tag("format", tag).register(meterRegistry);
+            this.bytes = Counter
+                .builder(BYTES_METER_NAME)
+                .description("Number of bytes written by the etudiant exports")
+                .baseUnit("bytes")
+                .tag("format", tag)
+                .register(meterRegistry);
+            this.throughput = DistributionSummary
+                .builder(THROUGHPUT_METER_NAME)
+                .description("Number of etudiants exported per second, by export")
+                .baseUnit("rows/s")
+                .tag("format", tag)
+                .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Encodes the etudiants into buffers, a chunk at a time.
+     */
+    private interface EtudiantWriter {
+        DataBuffer start(DataBuffer buffer);
+
+        DataBuffer write(DataBuffer buffer, List<Etudiant> etudiants);
+
+        DataBuffer finish(DataBuffer buffer);
+
+        default void close() {}
+    }
+
+    /**
+     * Writes the etudiants as CSV, with the {@code ;} separator and a byte order mark, so spreadsheets open it as UTF-8.
+     * A text starting like a formula is prefixed with a {@code '}, so a spreadsheet shows it instead of evaluating it.
+     */
+    private static final class CsvWriter implements EtudiantWriter {
+
+        private static final byte[] BYTE_ORDER_MARK = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+        private static final byte SEPARATOR = ';';
+        private static final byte[] LINE_END = { '\r', '\n' };
+        private static final String FORMULA_STARTS = "=+-@";
+        private static final byte FORMULA_ESCAPE = '\'';
+
+        @Override
+        public DataBuffer start(DataBuffer buffer) {
+            buffer.write(BYTE_ORDER_MARK);
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) {
+                    buffer.write(SEPARATOR);
+                }
+                buffer.write(COLUMNS[i], StandardCharsets.UTF_8);
+            }
+            return buffer.write(LINE_END);
+        }
+
+        @Override
+        public DataBuffer write(DataBuffer buffer, List<Etudiant> etudiants) {
+            for (Etudiant etudiant : etudiants) {
+                writeValue(buffer, etudiant.getId());
+                buffer.write(SEPARATOR);
+                writeValue(buffer, etudiant.getNom());
+                buffer.write(SEPARATOR);
+                writeValue(buffer, etudiant.getPrenom());
+                buffer.write(SEPARATOR);
+                writeValue(buffer, etudiant.getMatricule());
+                buffer.write(SEPARATOR);
+                writeValue(buffer, etudiant.getDate());
+                buffer.write(SEPARATOR);
+                writeValue(buffer, nomPays(etudiant));
+                buffer.write(SEPARATOR);
+                writeValue(buffer, nomFiliere(etudiant));
+                buffer.write(SEPARATOR);
+                writeValue(buffer, nomNiveau(etudiant));
+                buffer.write(LINE_END);
+            }
+            return buffer;
+        }
+
+        @Override
+        public DataBuffer finish(DataBuffer buffer) {
+            return buffer;
+        }
+
+        private static void writeValue(DataBuffer buffer, Object value) {
+            if (value != null) {
+                buffer.write(value.toString(), StandardCharsets.UTF_8);
+            }
+        }
+
+        private static void writeValue(DataBuffer buffer, String value) {
+            if (value == null) {
+                return;
+            }
+            boolean quoted = false;
+            for (int i = 0; i < value.length() && !quoted; i++) {
+                char c = value.charAt(i);
+                quoted = c == SEPARATOR || c == '"' || c == '\r' || c == '\n';
+            }
+            boolean formula = !value.isEmpty() && FORMULA_STARTS.indexOf(value.charAt(0)) >= 0;
+            if (!quoted) {
+                if (formula) {
+                    buffer.write(FORMULA_ESCAPE);
+                }
+                buffer.write(value, StandardCharsets.UTF_8);
+                return;
+            }
+            buffer.write((byte) '"');
+            if (formula) {
+                buffer.write(FORMULA_ESCAPE);
+            }
+            int from = 0;
+            for (int quote = value.indexOf('"'); quote >= 0; quote = value.indexOf('"', from)) {
+                buffer.write(value.subSequence(from, quote + 1), StandardCharsets.UTF_8);
+                buffer.write((byte) '"');
+                from = quote + 1;
+            }
+            buffer.write(value.subSequence(from, value.length()), StandardCharsets.UTF_8);
+            buffer.write((byte) '"');
+        }
+    }
+
+    /**
+     * Writes the etudiants as a single sheet workbook, with inline strings so the sheet can be written row by row.
+     * The zip entries are deflated into the given buffers, only the compression window is kept between two buffers.
+     */
+    private static final class XlsxWriter implements EtudiantWriter {
+
+        private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+        private static final String CONTENT_TYPES =
+            XML_DECLARATION +
+            "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">" +
+            "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>" +
+            "<Default Extension=\"xml\" ContentType=\"application/xml\"/>" +
+            "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>" +
+            "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>" +
+            "</Types>";
+        private static final String ROOT_RELATIONSHIPS =
+            XML_DECLARATION +
+            "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+            "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>" +
+            "</Relationships>";
+        private static final String WORKBOOK =
+            XML_DECLARATION +
+            "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">" +
+            "<sheets><sheet name=\"Etudiants\" sheetId=\"1\" r:id=\"rId1\"/></sheets>" +
+            "</workbook>";
+        private static final String WORKBOOK_RELATIONSHIPS =
+            XML_DECLARATION +
+            "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+            "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet1.xml\"/>" +
+            "</Relationships>";
+        private static final String SHEET_START =
+            XML_DECLARATION + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>";
+        private static final String SHEET_END = "</sheetData></worksheet>";
+
+        private final BufferOutputStream output = new BufferOutputStream();
+        private final ZipOutputStream zip = new ZipOutputStream(output, StandardCharsets.UTF_8);
+        private final Writer xml = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+
+        @Override
+        public synchronized DataBuffer start(DataBuffer buffer) {
+            output.buffer = buffer;
+            try {
+                writeEntry("[Content_Types].xml", CONTENT_TYPES);
+                writeEntry("_rels/.rels", ROOT_RELATIONSHIPS);
+                writeEntry("xl/workbook.xml", WORKBOOK);
+                writeEntry("xl/_rels/workbook.xml.rels", WORKBOOK_RELATIONSHIPS);
+                zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+                xml.write(SHEET_START);
+                xml.write("<row>");
+                for (String column : COLUMNS) {
+                    writeCell(column);
+                }
+                xml.write("</row>");
+                xml.flush();
+            } catch (IOException e) {
+                throw failure(e);
+            }
+            return output.take();
+        }
+
+        @Override
+        public synchronized DataBuffer write(DataBuffer buffer, List<Etudiant> etudiants) {
+            output.buffer = buffer;
+            try {
+                for (Etudiant etudiant : etudiants) {
+                    xml.write("<row>");
+                    writeCell(etudiant.getId());
+                    writeCell(etudiant.getNom());
+                    writeCell(etudiant.getPrenom());
+                    writeCell(etudiant.getMatricule());
+                    writeCell(etudiant.getDate() != null ? etudiant.getDate().toString() : null);
+                    writeCell(nomPays(etudiant));
+                    writeCell(nomFiliere(etudiant));
+                    writeCell(nomNiveau(etudiant));
+                    xml.write("</row>");
+                }
+                xml.flush();
+            } catch (IOException e) {
+                throw failure(e);
+            }
+            return output.take();
+        }
+
+        @Override
+        public synchronized DataBuffer finish(DataBuffer buffer) {
+            output.buffer = buffer;
+            try {
+                xml.write(SHEET_END);
+                xml.flush();
+                zip.closeEntry();
+                zip.finish();
+            } catch (IOException e) {
+                throw failure(e);
+            }
+            return output.take();
+        }
+
+        @Override
+        public synchronized void close() {
+            // Frees the deflater, dropping the end of the file if the export was stopped
+            output.discard();
+            try {
+                zip.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeEntry(String name, String content) throws IOException {
+            zip.putNextEntry(new ZipEntry(name));
+            xml.write(content);
+            xml.flush();
+            zip.closeEntry();
+        }
+
+        private void writeCell(Long value) throws IOException {
+            if (value == null) {
+                xml.write("<c/>");
+            } else {
+                xml.write("<c><v>");
+                xml.write(value.toString());
+                xml.write("</v></c>");
+            }
+        }
+
+        private void writeCell(String value) throws IOException {
+            if (value == null) {
+                xml.write("<c/>");
+                return;
+            }
+            xml.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '&':
+                        xml.write("&amp;");
+                        break;
+                    case '<':
+                        xml.write("&lt;");
+                        break;
+                    case '>':
+                        xml.write("&gt;");
+                        break;
+                    default:
+                        // The control characters other than tab and line ends, and the two noncharacters, are not allowed in XML
+                        if ((c >= 0x20 && c != '\uFFFE' && c != '\uFFFF') || c == '\t' || c == '\n' || c == '\r') {
+                            xml.write(c);
+                        }
+                }
+            }
+            xml.write("</t></is></c>");
+        }
+
+        private RuntimeException failure(IOException e) {
+            DataBufferUtils.release(output.take());
+            return new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The output of the zip stream, into the current buffer.
+     */
+    private static final class BufferOutputStream extends OutputStream {
+
+        private DataBuffer buffer;
+        private boolean discarding;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!discarding) {
+                current().write((byte) b);
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (!discarding) {
+                current().write(bytes, offset, length);
+            }
+        }
+
+        void discard() {
+            discarding = true;
+            DataBufferUtils.release(take());
+        }
+
+        DataBuffer take() {
+            DataBuffer taken = buffer;
+            buffer = null;
+            return taken;
+        }
+
+        private DataBuffer current() throws IOException {
+            if (buffer == null) {
+                throw new IOException("The export was stopped");
+            }
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.itsandra.etudiantetranger.service;
+
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import com.itsandra.etudiantetranger.repository.ReferenceDataCache;
+import com.itsandra.etudiantetranger.service.dto.BatchItemResultDTO;
+import com.itsandra.etudiantetranger.service.dto.EtudiantDTO;
+import com.itsandra.etudiantetranger.service.dto.EtudiantImportDTO;
+import com.itsandra.etudiantetranger.service.dto.FiliereDTO;
+import com.itsandra.etudiantetranger.service.dto.NiveauDTO;
+import com.itsandra.etudiantetranger.service.dto.PaysDTO;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * Service importing etudiants from CSV files, as they are uploaded.
+ * <p>
+ * The file is decoded line by line from the uploaded buffers, and the valid rows are created by chunks of
+ * {@code application.batch.chunk-size} with {@link EtudiantService#saveAll(Flux)}: at most one chunk is in memory,
+ * whatever the size of the file. The first line names the columns, separated by {@code ;} or {@code ,}:
+ * {@code nom}, {@code prenom}, {@code matricule}, {@code date}, and the names of the {@code pays}, {@code filiere} and
+ * {@code niveau}, resolved with the {@link ReferenceDataCache}. The other columns, like {@code id}, are ignored.
+ * <p>
+ * The progress of the running imports, and of the last {@code application.import.max-jobs} finished ones, can be read
+ * by job id. Only the first {@code application.import.max-errors} rejected rows of a job are kept with their error.
+ */
+@Service
+public class EtudiantImportService {
+
+    private static final StringDecoder LINE_DECODER = StringDecoder.textPlainOnly(List.of("\n"), true);
+
+    private static final ResolvableType STRING_TYPE = ResolvableType.forClass(String.class);
+
+    private final Logger log = LoggerFactory.getLogger(EtudiantImportService.class);
+
+    private final EtudiantService etudiantService;
+
+    private final ReferenceDataCache referenceDataCache;
+
+    private final int batchChunkSize;
+
+    private final int maxErrors;
+
+    private final int maxJobs;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final Deque<String> finishedJobIds = new ConcurrentLinkedDeque<>();
+
+    public EtudiantImportService(
+        EtudiantService etudiantService,
+        ReferenceDataCache referenceDataCache,
+        ApplicationProperties applicationProperties
+    ) {
+        this.etudiantService = etudiantService;
+        this.referenceDataCache = referenceDataCache;
+        this.batchChunkSize = applicationProperties.getBatch().getChunkSize();
+        this.maxErrors = applicationProperties.getImport().getMaxErrors();
+        this.maxJobs = applicationProperties.getImport().getMaxJobs();
+    }
+
+    /**
+     * Import the etudiants of a CSV file.
+     * <p>
+     * The progress of the job can be read as soon as the import starts, under the id chosen by the client if any.
+     *
+     * @param jobId the id of the job, or {@code null} to generate one.
+     * @param fileName the name of the uploaded file.
+     * @param content the content of the file, consumed as the rows are imported.
+     * @return the finished job: completed, possibly with rejected rows, or failed if the file couldn't be read; or an
+     * {@link ImportJobAlreadyExistsException} if there is already a job with this id.
+     */
+    public Mono<EtudiantImportDTO> importCsv(String jobId, String fileName, Flux<DataBuffer> content) {
+        // Not UUID.randomUUID(): its SecureRandom may block the event loop, and a job id is not a secret
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Job job = new Job(jobId != null ? jobId : new UUID(random.nextLong(), random.nextLong()).toString(), fileName);
+        if (jobs.putIfAbsent(job.id, job) != null) {
+            return Mono.error(new ImportJobAlreadyExistsException(job.id));
+        }
+        log.debug("Request to import Etudiants from {} with job {}", fileName, job.id);
+        Flux<String> lines = LINE_DECODER.decode(content, STRING_TYPE, null, Collections.emptyMap());
+        return referenceDataCache
+            .get()
+            .flatMapMany(snapshot -> {
+                Columns[] columns = new Columns[1];
+                return lines
+                    .index()
+                    .<Tuple2<Long, EtudiantDTO>>handle((line, sink) -> {
+                        long lineNumber = line.getT1() + 1;
+                        String text = stripLineEnd(line.getT2(), lineNumber);
+                        if (columns[0] == null) {
+                            columns[0] = Columns.fromHeader(text);
+                        } else if (!text.isBlank()) {
+                            parseRow(snapshot, columns[0], lineNumber, text, job, sink);
+                        }
+                    })
+                    .buffer(batchChunkSize)
+                    .concatMap(chunk -> saveChunk(chunk, job), 1);
+            })
+            .then(Mono.fromCallable(() -> finish(job, EtudiantImportDTO.Status.COMPLETED, null)))
+            .onErrorResume(e -> {
+                log.warn("Failed to import Etudiants from {} with job {}: {}", fileName, job.id, e.getMessage());
+                return Mono.just(finish(job, EtudiantImportDTO.Status.FAILED, e.getMessage()));
+            })
+            .doOnCancel(() -> finish(job, EtudiantImportDTO.Status.FAILED, "The upload was cancelled"));
+    }
+
+    /**
+     * Get the progress of an import.
+     *
+     * @param id the id of the job.
+     * @return the job, if it is running or among the last finished ones.
+     */
+    public Optional<EtudiantImportDTO> findJob(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(Job::toDto);
+    }
+
+    /**
+     * Get the progress of the running imports, and of the last finished ones.
+     *
+     * @return the jobs, the most recently started first.
+     */
+    public List<EtudiantImportDTO> findJobs() {
+        return jobs
+            .values()
+            .stream()
+            .map(Job::toDto)
+            .sorted((job, other) -> other.getStartedAt().compareTo(job.getStartedAt()))
+            .collect(Collectors.toList());
+    }
+
+    private void parseRow(
+        ReferenceDataCache.Snapshot snapshot,
+        Columns columns,
+        long lineNumber,
+        String text,
+        Job job,
+        SynchronousSink<Tuple2<Long, EtudiantDTO>> sink
+    ) {
+        try {
+            List<String> values = splitLine(text, columns.delimiter);
+            if (values.size() != columns.count) {
+                throw new IllegalArgumentException("Expected " + columns.count + " columns, found " + values.size());
+            }
+            EtudiantDTO etudiant = new EtudiantDTO();
+            etudiant.setNom(value(values, columns.nom));
+            etudiant.setPrenom(value(values, columns.prenom));
+            String matricule = value(values, columns.matricule);
+            if (matricule != null) {
+                etudiant.setMatricule(Long.valueOf(matricule));
+            }
+            String date = value(values, columns.date);
+            if (date != null) {
+                etudiant.setDate(LocalDate.parse(date));
+            }
+            String nomPays = value(values, columns.pays);
+            if (nomPays != null) {
+                PaysDTO pays = new PaysDTO();
+                pays.setId(reference(snapshot.findPaysId(nomPays), "pays", nomPays));
+                pays.setNomPays(nomPays);
+                etudiant.setNomPays(pays);
+            }
+            String nomFiliere = value(values, columns.filiere);
+            if (nomFiliere != null) {
+                FiliereDTO filiere = new FiliereDTO();
+                filiere.setId(reference(snapshot.findFiliereId(nomFiliere), "filiere", nomFiliere));
+                filiere.setNomFiliere(nomFiliere);
+                etudiant.setNomFiliere(filiere);
+            }
+            String nomNiveau = value(values, columns.niveau);
+            if (nomNiveau != null) {
+                NiveauDTO niveau = new NiveauDTO();
+                niveau.setId(reference(snapshot.findNiveauId(nomNiveau), "niveau", nomNiveau));
+                niveau.setNomNiveau(nomNiveau);
+                etudiant.setNomNiveau(niveau);
+            }
+            sink.next(Tuples.of(lineNumber, etudiant));
+        } catch (NumberFormatException e) {
+            job.reject(lineNumber, "Invalid matricule: " + e.getMessage(), maxErrors);
+        } catch (DateTimeParseException e) {
+            job.reject(lineNumber, "Invalid date: " + e.getParsedString(), maxErrors);
+        } catch (IllegalArgumentException e) {
+            job.reject(lineNumber, e.getMessage(), maxErrors);
+        }
+    }
+
+    private Flux<BatchItemResultDTO> saveChunk(List<Tuple2<Long, EtudiantDTO>> chunk, Job job) {
+        return etudiantService
+            .saveAll(Flux.fromIterable(chunk).map(Tuple2::getT2))
+            .doOnNext(result -> {
+                if (result.getError() == null) {
+                    job.imported.incrementAndGet();
+                } else {
+                    job.reject(chunk.get((int) result.getIndex()).getT1(), result.getError(), maxErrors);
+                }
+            });
+    }
+
+    private EtudiantImportDTO finish(Job job, EtudiantImportDTO.Status status, String error) {
+        if (job.finish(status, error)) {
+            finishedJobIds.add(job.id);
+            while (finishedJobIds.size() > maxJobs) {
+                String oldest = finishedJobIds.poll();
+                if (oldest != null) {
+                    jobs.remove(oldest);
+                }
+            }
+            log.debug("Finished the import job {}: {}", job.id, status);
+        }
+        return job.toDto();
+    }
+
+    private static String stripLineEnd(String line, long lineNumber) {
+        String text = line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+        // Some spreadsheets start their CSV exports with a byte order mark
+        return lineNumber == 1 && text.startsWith("\uFEFF") ? text.substring(1) : text;
+    }
+
+    private static String value(List<String> values, int column) {
+        if (column < 0) {
+            return null;
+        }
+        String value = values.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Long reference(Long id, String entityName, String name) {
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown " + entityName + ": " + name);
+        }
+        return id;
+    }
+
+    /**
+     * Split a CSV line, with the {@code "} quoting of RFC 4180. A quoted value can't span several lines.
+     */
+    static List<String> splitLine(String line, char delimiter) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted value");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * The positions of the imported columns, from the header line.
+     */
+    private static final class Columns {
+
+        private final char delimiter;
+        private final int count;
+        private final int nom;
+        private final int prenom;
+        private final int matricule;
+        private final int date;
+        private final int pays;
+        private final int filiere;
+        private final int niveau;
+
+        private Columns(char delimiter, List<String> names) {
+            this.delimiter = delimiter;
+            this.count = names.size();
+            this.nom = names.indexOf("nom");
+            this.prenom = names.indexOf("prenom");
+            this.matricule = names.indexOf("matricule");
+            this.date = names.indexOf("date");
+            this.pays = names.indexOf("pays");
+            this.filiere = names.indexOf("filiere");
+            this.niveau = names.indexOf("niveau");
+        }
+
+        static Columns fromHeader(String header) {
+            char delimiter = header.indexOf(';') >= 0 ? ';' : ',';
+            List<String> names = splitLine(header, delimiter)
+                .stream()
+                .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toList());
+            Columns columns = new Columns(delimiter, names);
+            if (columns.nom < 0 && columns.prenom < 0 && columns.matricule < 0) {
+                throw new IllegalArgumentException("The first line must name the columns, like nom;prenom;matricule;date;pays");
+            }
+            return columns;
+        }
+    }
+
+    /**
+     * The progress of an import, updated by the import and read concurrently.
+     */
+    private static final class Job {
+
+        private final String id;
+        private final String fileName;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final List<EtudiantImportDTO.RowError> rowErrors = new ArrayList<>();
+        private EtudiantImportDTO.Status status = EtudiantImportDTO.Status.RUNNING;
+        private String error;
+        private Instant finishedAt;
+
+        private Job(String id, String fileName) {
+            this.id = id;
+            this.fileName = fileName;
+        }
+
+        void reject(long line, String error, int maxErrors) {
+            rejected.incrementAndGet();
+            synchronized (this) {
+                if (rowErrors.size() < maxErrors) {
+                    rowErrors.add(new EtudiantImportDTO.RowError(line, error));
+                }
+            }
+        }
+
+        synchronized boolean finish(EtudiantImportDTO.Status status, String error) {
+            if (this.status != EtudiantImportDTO.Status.RUNNING) {
+                return false;
+            }
+            this.status = status;
+            this.error = error;
+            this.finishedAt = Instant.now();
+            return true;
+        }
+
+        synchronized EtudiantImportDTO toDto() {
+            EtudiantImportDTO dto = new EtudiantImportDTO();
+            dto.setId(id);
+            dto.setFileName(fileName);
+            dto.setStatus(status);
+            dto.setError(error);
+            dto.setStartedAt(startedAt);
+            dto.setFinishedAt(finishedAt);
+            dto.setRowsImported(imported.get());
+            dto.setRowsRejected(rejected.get());
+            long elapsedMillis = Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now()).toMillis();
+            dto.setRowsPerSecond(elapsedMillis > 0 ? (dto.getRowsImported() + dto.getRowsRejected()) * 1000.0 / elapsedMillis : 0);
+            dto.setRowErrors(new ArrayList<>(rowErrors));
+            return dto;
+        }
+    }
+}
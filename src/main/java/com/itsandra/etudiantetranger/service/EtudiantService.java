@@ -1,16 +1,48 @@
 package com.itsandra.etudiantetranger.service;
 
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
 import com.itsandra.etudiantetranger.domain.Etudiant;
+import com.itsandra.etudiantetranger.repository.AfterCommit;
+import com.itsandra.etudiantetranger.repository.ChangeVersionRepository;
 import com.itsandra.etudiantetranger.repository.EtudiantRepository;
+import com.itsandra.etudiantetranger.repository.KeysetCursor;
+import com.itsandra.etudiantetranger.repository.ReferenceDataCache;
+import com.itsandra.etudiantetranger.service.criteria.EtudiantCriteria;
+import com.itsandra.etudiantetranger.service.dto.BatchItemResultDTO;
 import com.itsandra.etudiantetranger.service.dto.EtudiantDTO;
+import com.itsandra.etudiantetranger.service.dto.EtudiantFacetsDTO;
+import com.itsandra.etudiantetranger.service.index.EtudiantColumnStore;
+import com.itsandra.etudiantetranger.service.index.EtudiantFacetIndex;
+import com.itsandra.etudiantetranger.service.index.EtudiantFacetIndex.Facet;
+import com.itsandra.etudiantetranger.service.index.EtudiantIndexes;
+import com.itsandra.etudiantetranger.service.index.EtudiantSearchIndex;
 import com.itsandra.etudiantetranger.service.mapper.EtudiantMapper;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.ValueFunction;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
 /**
  * Service Implementation for managing {@link Etudiant}.
@@ -21,13 +53,62 @@ public class EtudiantService {
 
     private final Logger log = LoggerFactory.getLogger(EtudiantService.class);
 
+    private static final String ENTITY_NAME = "etudiant";
+
     private final EtudiantRepository etudiantRepository;
 
     private final EtudiantMapper etudiantMapper;
 
-    public EtudiantService(EtudiantRepository etudiantRepository, EtudiantMapper etudiantMapper) {
+    private final TotalCountService totalCountService;
+
+    private final EtudiantIndexes etudiantIndexes;
+
+    private final EtudiantSearchIndex etudiantSearchIndex;
+
+    private final EtudiantFacetIndex etudiantFacetIndex;
+
+    private final Optional<EtudiantColumnStore> etudiantColumnStore;
+
+    private final ReferenceDataCache referenceDataCache;
+
+    private final EtudiantChangeFeed etudiantChangeFeed;
+
+    private final ChangeVersionRepository changeVersionRepository;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final Validator validator;
+
+    private final int batchChunkSize;
+
+    public EtudiantService(
+        EtudiantRepository etudiantRepository,
+        EtudiantMapper etudiantMapper,
+        TotalCountService totalCountService,
+        EtudiantIndexes etudiantIndexes,
+        EtudiantSearchIndex etudiantSearchIndex,
+        EtudiantFacetIndex etudiantFacetIndex,
+        Optional<EtudiantColumnStore> etudiantColumnStore,
+        ReferenceDataCache referenceDataCache,
+        EtudiantChangeFeed etudiantChangeFeed,
+        ChangeVersionRepository changeVersionRepository,
+        TransactionalOperator transactionalOperator,
+        Validator validator,
+        ApplicationProperties applicationProperties
+    ) {
         this.etudiantRepository = etudiantRepository;
         this.etudiantMapper = etudiantMapper;
+        this.totalCountService = totalCountService;
+        this.etudiantIndexes = etudiantIndexes;
+        this.etudiantSearchIndex = etudiantSearchIndex;
+        this.etudiantFacetIndex = etudiantFacetIndex;
+        this.etudiantColumnStore = etudiantColumnStore;
+        this.referenceDataCache = referenceDataCache;
+        this.etudiantChangeFeed = etudiantChangeFeed;
+        this.changeVersionRepository = changeVersionRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.validator = validator;
+        this.batchChunkSize = applicationProperties.getBatch().getChunkSize();
     }
 
     /**
@@ -38,27 +119,130 @@ public class EtudiantService {
      */
     public Mono<EtudiantDTO> save(EtudiantDTO etudiantDTO) {
         log.debug("Request to save Etudiant : {}", etudiantDTO);
-        return etudiantRepository.save(etudiantMapper.toEntity(etudiantDTO)).map(etudiantMapper::toDto);
+        return etudiantRepository
+            .save(etudiantMapper.toEntity(etudiantDTO).changeVersion(changeVersionRepository.next()))
+            .flatMap(this::hydrate)
+            .flatMap(saved ->
+                etudiantDTO.getId() == null
+                    ? AfterCommit.run(() -> totalCountService.increment(ENTITY_NAME, 1)).thenReturn(saved)
+                    : Mono.just(saved)
+            )
+            .flatMap(saved -> afterCommit(saved, etudiantDTO.getId() == null ? etudiantChangeFeed::created : etudiantChangeFeed::updated));
+    }
+
+    /**
+     * Create etudiants in bulk.
+     * <p>
+     * The etudiants are consumed as they arrive and inserted by chunks, each chunk with one batched statement in its own
+     * transaction: a failing chunk doesn't roll back the chunks already inserted. An etudiant is validated with the
+     * constraints of its DTO first, and a failure is reported by an error key, without the details of the database.
+     *
+     * @param etudiantDTOs the entities to create.
+     * @return the result of each entity, in the order of the entities.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<BatchItemResultDTO> saveAll(Flux<EtudiantDTO> etudiantDTOs) {
+        log.debug("Request to save Etudiants in bulk");
+        return etudiantDTOs.index().buffer(batchChunkSize).concatMap(this::saveChunk);
+    }
+
+    private Flux<BatchItemResultDTO> saveChunk(List<Tuple2<Long, EtudiantDTO>> chunk) {
+        List<BatchItemResultDTO> rejected = new ArrayList<>();
+        List<Long> indexes = new ArrayList<>(chunk.size());
+        List<Etudiant> etudiants = new ArrayList<>(chunk.size());
+        for (Tuple2<Long, EtudiantDTO> item : chunk) {
+            if (item.getT2() == null) {
+                rejected.add(BatchItemResultDTO.failed(item.getT1(), BatchItemResultDTO.ERR_ITEM_NULL));
+            } else if (item.getT2().getId() != null) {
+                rejected.add(BatchItemResultDTO.failed(item.getT1(), BatchItemResultDTO.ERR_ID_EXISTS));
+            } else if (!validator.validate(item.getT2()).isEmpty()) {
+                rejected.add(BatchItemResultDTO.failed(item.getT1(), BatchItemResultDTO.ERR_VALIDATION));
+            } else {
+                indexes.add(item.getT1());
+                etudiants.add(etudiantMapper.toEntity(item.getT2()));
+            }
+        }
+        Flux<BatchItemResultDTO> created = Flux
+            .defer(() -> {
+                if (etudiants.isEmpty()) {
+                    return Flux.empty();
+                }
+                long version = changeVersionRepository.next();
+                etudiants.forEach(etudiant -> etudiant.setChangeVersion(version));
+                return etudiantRepository.insertAll(etudiants);
+            })
+            .collectList()
+            .as(transactionalOperator::transactional)
+            .doOnNext(ids -> totalCountService.increment(ENTITY_NAME, ids.size()))
+            .flatMapMany(ids ->
+                referenceDataCache
+                    .get()
+                    .flatMapMany(snapshot -> {
+                        List<BatchItemResultDTO> results = new ArrayList<>(ids.size());
+                        for (int i = 0; i < ids.size(); i++) {
+                            Etudiant etudiant = referenceDataCache.hydrate(snapshot, etudiants.get(i).id(ids.get(i)));
+                            etudiantIndexes.put(etudiant);
+                            etudiantChangeFeed.created(etudiantMapper.toDto(etudiant));
+                            results.add(BatchItemResultDTO.created(indexes.get(i), ids.get(i)));
+                        }
+                        return Flux.fromIterable(results);
+                    })
+            )
+            .onErrorResume(e -> {
+                log.warn("Failed to save a chunk of {} Etudiants", etudiants.size(), e);
+                return Flux.fromIterable(indexes).map(index -> BatchItemResultDTO.failed(index, BatchItemResultDTO.ERR_CHUNK_FAILED));
+            });
+        return Flux.fromIterable(rejected).concatWith(created).sort(Comparator.comparingLong(BatchItemResultDTO::getIndex));
+    }
+
+    /**
+     * Update a etudiant, with a single statement.
+     * <p>
+     * The etudiant is not read back: the names of its niveau, filiere and pays come from the {@link ReferenceDataCache}.
+     *
+     * @param etudiantDTO the entity to update.
+     * @return the persisted entity, or an empty Mono if there is no etudiant with this id.
+     */
+    public Mono<EtudiantDTO> update(EtudiantDTO etudiantDTO) {
+        log.debug("Request to update Etudiant : {}", etudiantDTO);
+        Etudiant etudiant = etudiantMapper.toEntity(etudiantDTO).changeVersion(changeVersionRepository.next());
+        return etudiantRepository
+            .update(etudiant, false)
+            .filter(updated -> updated > 0)
+            .flatMap(updated -> hydrate(etudiant))
+            .flatMap(updated -> afterCommit(updated, etudiantChangeFeed::updated));
     }
 
     /**
      * Partially update a etudiant.
+     * <p>
+     * Only the non-null fields are written, with a single statement. MySQL can't return the updated row, so when some
+     * fields are left unchanged the etudiant is read back by its primary key, if it was found; when all the fields are
+     * given, it is hydrated from the {@link ReferenceDataCache} like by {@link #update(EtudiantDTO)}.
      *
      * @param etudiantDTO the entity to update partially.
-     * @return the persisted entity.
+     * @return the persisted entity, or an empty Mono if there is no etudiant with this id.
      */
     public Mono<EtudiantDTO> partialUpdate(EtudiantDTO etudiantDTO) {
         log.debug("Request to partially update Etudiant : {}", etudiantDTO);
-
+        Etudiant etudiant = etudiantMapper.toEntity(etudiantDTO).changeVersion(changeVersionRepository.next());
         return etudiantRepository
-            .findById(etudiantDTO.getId())
-            .map(existingEtudiant -> {
-                etudiantMapper.partialUpdate(existingEtudiant, etudiantDTO);
+            .update(etudiant, true)
+            .filter(updated -> updated > 0)
+            .flatMap(updated -> isComplete(etudiantDTO) ? hydrate(etudiant) : etudiantRepository.findById(etudiantDTO.getId()))
+            .flatMap(updated -> afterCommit(updated, etudiantChangeFeed::updated));
+    }
 
-                return existingEtudiant;
-            })
-            .flatMap(etudiantRepository::save)
-            .map(etudiantMapper::toDto);
+    private static boolean isComplete(EtudiantDTO etudiantDTO) {
+        return (
+            etudiantDTO.getNom() != null &&
+            etudiantDTO.getPrenom() != null &&
+            etudiantDTO.getMatricule() != null &&
+            etudiantDTO.getDate() != null &&
+            etudiantDTO.getNomNiveau() != null &&
+            etudiantDTO.getNomFiliere() != null &&
+            etudiantDTO.getNomPays() != null
+        );
     }
 
     /**
@@ -67,10 +251,245 @@ public class EtudiantService {
      * @param pageable the pagination information.
      * @return the list of entities.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Flux<EtudiantDTO> findAll(Pageable pageable) {
-        log.debug("Request to get all Etudiants");
-        return etudiantRepository.findAllBy(pageable).map(etudiantMapper::toDto);
+        return findAll(new EtudiantCriteria(), pageable);
+    }
+
+    /**
+     * Get a page of the etudiants matching the criteria, without its total.
+     *
+     * @param etudiantCriteria the filters of the etudiants.
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Flux<EtudiantDTO> findAll(EtudiantCriteria etudiantCriteria, Pageable pageable) {
+        log.debug("Request to get all Etudiants by criteria: {}", etudiantCriteria);
+        return findPageInReadModel(etudiantCriteria, pageable)
+            .map(page -> Flux.fromIterable(page.getContent()))
+            .defaultIfEmpty(
+                Flux.defer(() -> etudiantRepository.findAllBy(pageable, toCriteria(etudiantCriteria)).map(etudiantMapper::toDto))
+            )
+            .flatMapMany(Function.identity());
+    }
+
+    /**
+     * Get all the etudiants matching the criteria, without pagination: they are streamed from the database as they are
+     * read.
+     *
+     * @param etudiantCriteria the filters of the etudiants.
+     * @param sort the sort of the etudiants.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Flux<EtudiantDTO> findAll(EtudiantCriteria etudiantCriteria, Sort sort) {
+        log.debug("Request to get all Etudiants by criteria: {}, sorted by {}", etudiantCriteria, sort);
+        return etudiantRepository.findAllSortedBy(sort, toCriteria(etudiantCriteria)).map(etudiantMapper::toDto);
+    }
+
+    /**
+     * Stream the etudiants matching the criteria, as entities: an export encodes them as they are read, without mapping
+     * each of them to a DTO first.
+     *
+     * @param etudiantCriteria the filters of the etudiants.
+     * @param sort the sort of the etudiants.
+     * @param fetchSize the number of rows fetched from the database at once.
+     * @return the entities, with their relationships.
+     */
+    @Transactional(readOnly = true)
+    public Flux<Etudiant> streamAll(EtudiantCriteria etudiantCriteria, Sort sort, int fetchSize) {
+        log.debug("Request to stream Etudiants by criteria: {}", etudiantCriteria);
+        return etudiantRepository.streamBy(toCriteria(etudiantCriteria), sort, fetchSize);
+    }
+
+    /**
+     * Get a page of the etudiants matching the criteria with keyset pagination.
+     *
+     * @param etudiantCriteria the filters of the etudiants, which must be the same for all the pages.
+     * @param order the order of the listing, continued by the cursor if there is one.
+     * @param cursor the position of the last etudiant of the previous page, or null for the first page.
+     * @param size the page size.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Flux<EtudiantDTO> findAllAfter(EtudiantCriteria etudiantCriteria, Sort.Order order, KeysetCursor cursor, int size) {
+        log.debug("Request to get Etudiants by criteria: {}, after : {}", etudiantCriteria, cursor);
+        return etudiantRepository.findAllAfter(order, cursor, size, toCriteria(etudiantCriteria)).map(etudiantMapper::toDto);
+    }
+
+    /**
+     * Get a page of etudiants, with its total computed by the {@link TotalCountService}.
+     *
+     * @param pageable the pagination information.
+     * @param withTotal false if the total is not needed, so it is not computed.
+     * @return the page of entities.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Mono<Page<EtudiantDTO>> findPage(Pageable pageable, boolean withTotal) {
+        return findPage(new EtudiantCriteria(), pageable, withTotal);
+    }
+
+    /**
+     * Get a page of the etudiants matching the criteria, with its total computed by the {@link TotalCountService}.
+     * <p>
+     * If the {@link EtudiantColumnStore} is enabled and supports the sort, the page is read from memory, with its exact
+     * total.
+     *
+     * @param etudiantCriteria the filters of the etudiants.
+     * @param pageable the pagination information.
+     * @param withTotal false if the total is not needed, so it is not computed.
+     * @return the page of entities.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Mono<Page<EtudiantDTO>> findPage(EtudiantCriteria etudiantCriteria, Pageable pageable, boolean withTotal) {
+        log.debug("Request to get a page of Etudiants by criteria: {}", etudiantCriteria);
+        return findPageInReadModel(etudiantCriteria, pageable)
+            .switchIfEmpty(Mono.defer(() -> findPageInDatabase(etudiantCriteria, pageable, withTotal)));
+    }
+
+    /**
+     * @return the page read from the {@link EtudiantColumnStore}, or empty if it is disabled or doesn't support the sort.
+     */
+    private Mono<Page<EtudiantDTO>> findPageInReadModel(EtudiantCriteria etudiantCriteria, Pageable pageable) {
+        if (etudiantColumnStore.isEmpty()) {
+            return Mono.empty();
+        }
+        return etudiantIndexes
+            .ready()
+            .then(Mono.fromSupplier(() -> etudiantColumnStore.get().findPage(etudiantCriteria, pageable)))
+            .flatMap(Mono::justOrEmpty)
+            .flatMap(page ->
+                referenceDataCache
+                    .get()
+                    .map(snapshot -> page.map(etudiant -> etudiantMapper.toDto(referenceDataCache.hydrate(snapshot, etudiant))))
+            );
+    }
+
+    private Mono<Page<EtudiantDTO>> findPageInDatabase(EtudiantCriteria etudiantCriteria, Pageable pageable, boolean withTotal) {
+        Criteria criteria = createCriteria(etudiantCriteria);
+        if (criteria.isEmpty()) {
+            return totalCountService
+                .findPage(
+                    ENTITY_NAME,
+                    pageable,
+                    withTotal,
+                    etudiantRepository::findAllBy,
+                    etudiantRepository::count,
+                    etudiantRepository::findAllWithTotalBy
+                )
+                .map(page -> page.map(etudiantMapper::toDto));
+        }
+        return totalCountService
+            .findFilteredPage(
+                ENTITY_NAME,
+                pageable,
+                withTotal,
+                page -> etudiantRepository.findAllBy(page, criteria),
+                () -> etudiantRepository.countBy(criteria),
+                page -> etudiantRepository.findAllWithTotalBy(page, criteria)
+            )
+            .map(page -> page.map(etudiantMapper::toDto));
+    }
+
+    /**
+     * @return the criteria of the filters, or null if there is no filter.
+     */
+    private static Criteria toCriteria(EtudiantCriteria etudiantCriteria) {
+        Criteria criteria = createCriteria(etudiantCriteria);
+        return criteria.isEmpty() ? null : criteria;
+    }
+
+    /**
+     * Translate the filters into criteria on the etudiant properties, whose values are bound as parameters.
+     */
+    private static Criteria createCriteria(EtudiantCriteria etudiantCriteria) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (etudiantCriteria.getNom() != null) {
+            criteria.add(where("nom").like(startsWith(etudiantCriteria.getNom())));
+        }
+        if (etudiantCriteria.getPrenom() != null) {
+            criteria.add(where("prenom").like(startsWith(etudiantCriteria.getPrenom())));
+        }
+        if (etudiantCriteria.getMatricule() != null) {
+            criteria.add(where("matricule").is(etudiantCriteria.getMatricule()));
+        }
+        if (etudiantCriteria.getDateFrom() != null) {
+            criteria.add(where("date").greaterThanOrEquals(etudiantCriteria.getDateFrom()));
+        }
+        if (etudiantCriteria.getDateTo() != null) {
+            criteria.add(where("date").lessThanOrEquals(etudiantCriteria.getDateTo()));
+        }
+        if (etudiantCriteria.getNomNiveauId() != null) {
+            criteria.add(where("nomNiveauId").is(etudiantCriteria.getNomNiveauId()));
+        }
+        if (etudiantCriteria.getNomFiliereId() != null) {
+            criteria.add(where("nomFiliereId").is(etudiantCriteria.getNomFiliereId()));
+        }
+        if (etudiantCriteria.getNomPaysId() != null) {
+            criteria.add(where("nomPaysId").is(etudiantCriteria.getNomPaysId()));
+        }
+        return Criteria.from(criteria);
+    }
+
+    /**
+     * A {@code LIKE} pattern matching the values starting with the prefix, with the wildcards of the prefix escaped.
+     */
+    private static ValueFunction<String> startsWith(String prefix) {
+        return escaper -> escaper.escape(prefix) + "%";
+    }
+
+    /**
+     * Search the etudiants by their nom and prenom, with the {@link EtudiantSearchIndex}.
+     *
+     * @param query the words to search.
+     * @param pageable the pagination information, whose sort is ignored as the results are ranked.
+     * @return the page of entities, ranked.
+     */
+    @Transactional(readOnly = true)
+    public Mono<Page<EtudiantDTO>> search(String query, Pageable pageable) {
+        log.debug("Request to search for a page of Etudiants for query {}", query);
+        return etudiantIndexes
+            .ready()
+            .then(Mono.fromSupplier(() -> etudiantSearchIndex.search(query, pageable)))
+            .flatMap(ids -> {
+                if (ids.isEmpty()) {
+                    return Mono.just(ids.map(id -> (EtudiantDTO) null));
+                }
+                return etudiantRepository
+                    .findAllBy(null, where("id").in(ids.getContent()))
+                    .collectMap(Etudiant::getId, etudiantMapper::toDto)
+                    // Keep the ranking, and drop the etudiants deleted by another node since they were indexed
+                    .map(byId -> {
+                        List<EtudiantDTO> content = new ArrayList<>(ids.getNumberOfElements());
+                        ids.forEach(id -> {
+                            if (byId.containsKey(id)) {
+                                content.add(byId.get(id));
+                            }
+                        });
+                        return new PageImpl<>(content, pageable, ids.getTotalElements());
+                    });
+            });
+    }
+
+    /**
+     * Count the etudiants matching the filters by facet, with the {@link EtudiantFacetIndex}.
+     *
+     * @param filters the accepted values of each filtered facet.
+     * @param facets the facets to count by.
+     * @return the facet counts.
+     */
+    public Mono<EtudiantFacetsDTO> countFacets(Map<Facet, Set<Long>> filters, Set<Facet> facets) {
+        log.debug("Request to count Etudiants by {} with filters {}", facets, filters);
+        return etudiantIndexes
+            .ready()
+            .then(Mono.fromSupplier(() -> etudiantFacetIndex.count(filters, facets)))
+            .map(counts -> {
+                EtudiantFacetsDTO facetsDTO = new EtudiantFacetsDTO();
+                facetsDTO.setTotal(counts.getTotal());
+                counts.getFacets().forEach((facet, facetCounts) -> facetsDTO.getFacets().put(facet.getName(), facetCounts));
+                return facetsDTO;
+            });
     }
 
     /**
@@ -94,6 +513,27 @@ public class EtudiantService {
         return etudiantRepository.findById(id).map(etudiantMapper::toDto);
     }
 
+    /**
+     * Set the niveau, filiere and pays of a written etudiant from the {@link ReferenceDataCache}, as a read does, without
+     * querying them.
+     */
+    private Mono<Etudiant> hydrate(Etudiant etudiant) {
+        return referenceDataCache.get().map(snapshot -> referenceDataCache.hydrate(snapshot, etudiant));
+    }
+
+    /**
+     * Apply a write to the indexes and publish it, once its transaction is committed.
+     */
+    private Mono<EtudiantDTO> afterCommit(Etudiant etudiant, Consumer<EtudiantDTO> publish) {
+        EtudiantDTO etudiantDTO = etudiantMapper.toDto(etudiant);
+        return AfterCommit
+            .run(() -> {
+                etudiantIndexes.put(etudiant);
+                publish.accept(etudiantDTO);
+            })
+            .thenReturn(etudiantDTO);
+    }
+
     /**
      * Delete the etudiant by id.
      *
@@ -102,6 +542,15 @@ public class EtudiantService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Etudiant : {}", id);
-        return etudiantRepository.deleteById(id);
+        return etudiantRepository
+            .deleteById(id)
+            .then(changeVersionRepository.tombstone(ENTITY_NAME, id))
+            .then(
+                AfterCommit.run(() -> {
+                    totalCountService.invalidate(ENTITY_NAME);
+                    etudiantIndexes.remove(id);
+                    etudiantChangeFeed.deleted(id);
+                })
+            );
     }
 }
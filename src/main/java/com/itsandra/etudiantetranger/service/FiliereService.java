@@ -1,11 +1,15 @@
 package com.itsandra.etudiantetranger.service;
 
 import com.itsandra.etudiantetranger.domain.Filiere;
+import com.itsandra.etudiantetranger.repository.AfterCommit;
+import com.itsandra.etudiantetranger.repository.ChangeVersionRepository;
 import com.itsandra.etudiantetranger.repository.FiliereRepository;
+import com.itsandra.etudiantetranger.repository.ReferenceDataCache;
 import com.itsandra.etudiantetranger.service.dto.FiliereDTO;
 import com.itsandra.etudiantetranger.service.mapper.FiliereMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,13 +25,30 @@ public class FiliereService {
 
     private final Logger log = LoggerFactory.getLogger(FiliereService.class);
 
+    private static final String ENTITY_NAME = "filiere";
+
     private final FiliereRepository filiereRepository;
 
     private final FiliereMapper filiereMapper;
 
-    public FiliereService(FiliereRepository filiereRepository, FiliereMapper filiereMapper) {
+    private final ReferenceDataCache referenceDataCache;
+
+    private final TotalCountService totalCountService;
+
+    private final ChangeVersionRepository changeVersionRepository;
+
+    public FiliereService(
+        FiliereRepository filiereRepository,
+        FiliereMapper filiereMapper,
+        ReferenceDataCache referenceDataCache,
+        TotalCountService totalCountService,
+        ChangeVersionRepository changeVersionRepository
+    ) {
         this.filiereRepository = filiereRepository;
         this.filiereMapper = filiereMapper;
+        this.referenceDataCache = referenceDataCache;
+        this.totalCountService = totalCountService;
+        this.changeVersionRepository = changeVersionRepository;
     }
 
     /**
@@ -38,7 +59,15 @@ public class FiliereService {
      */
     public Mono<FiliereDTO> save(FiliereDTO filiereDTO) {
         log.debug("Request to save Filiere : {}", filiereDTO);
-        return filiereRepository.save(filiereMapper.toEntity(filiereDTO)).map(filiereMapper::toDto);
+        return filiereRepository
+            .save(filiereMapper.toEntity(filiereDTO).changeVersion(changeVersionRepository.next()))
+            .flatMap(saved -> referenceDataCache.invalidate().thenReturn(saved))
+            .flatMap(saved ->
+                filiereDTO.getId() == null
+                    ? AfterCommit.run(() -> totalCountService.increment(ENTITY_NAME, 1)).thenReturn(saved)
+                    : Mono.just(saved)
+            )
+            .map(filiereMapper::toDto);
     }
 
     /**
@@ -55,9 +84,10 @@ public class FiliereService {
             .map(existingFiliere -> {
                 filiereMapper.partialUpdate(existingFiliere, filiereDTO);
 
-                return existingFiliere;
+                return existingFiliere.changeVersion(changeVersionRepository.next());
             })
             .flatMap(filiereRepository::save)
+            .flatMap(saved -> referenceDataCache.invalidate().thenReturn(saved))
             .map(filiereMapper::toDto);
     }
 
@@ -73,6 +103,28 @@ public class FiliereService {
         return filiereRepository.findAllBy(pageable).map(filiereMapper::toDto);
     }
 
+    /**
+     * Get a page of filieres, with its total computed by the {@link TotalCountService}.
+     *
+     * @param pageable the pagination information.
+     * @param withTotal false if the total is not needed, so it is not computed.
+     * @return the page of entities.
+     */
+    @Transactional(readOnly = true)
+    public Mono<Page<FiliereDTO>> findPage(Pageable pageable, boolean withTotal) {
+        log.debug("Request to get a page of Filieres");
+        return totalCountService
+            .findPage(
+                ENTITY_NAME,
+                pageable,
+                withTotal,
+                filiereRepository::findAllBy,
+                filiereRepository::count,
+                filiereRepository::findAllWithTotalBy
+            )
+            .map(page -> page.map(filiereMapper::toDto));
+    }
+
     /**
      * Returns the number of filieres available.
      * @return the number of entities in the database.
@@ -102,6 +154,10 @@ public class FiliereService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Filiere : {}", id);
-        return filiereRepository.deleteById(id);
+        return filiereRepository
+            .deleteById(id)
+            .then(changeVersionRepository.tombstone(ENTITY_NAME, id))
+            .then(referenceDataCache.invalidate())
+            .then(AfterCommit.run(() -> totalCountService.invalidate(ENTITY_NAME)));
     }
 }
@@ -0,0 +1,10 @@
+package com.itsandra.etudiantetranger.service;
+
+public class ImportJobAlreadyExistsException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ImportJobAlreadyExistsException(String jobId) {
+        super("An import job already exists with the id " + jobId);
+    }
+}
@@ -0,0 +1,271 @@
+package com.itsandra.etudiantetranger.service;
+
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import com.itsandra.etudiantetranger.domain.MailOutboxMessage;
+import com.itsandra.etudiantetranger.repository.MailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Service delivering the emails of the mail outbox.
+ * <p>
+ * Every {@code application.mail-outbox.poll-delay-ms}, the due emails are claimed by batches of
+ * {@code application.mail-outbox.batch-size}, and each batch is sent over one SMTP connection. A sent email is
+ * deleted from the outbox. An email which could not be sent is attempted again after a delay, doubled at each attempt
+ * from {@code application.mail-outbox.initial-backoff-ms} up to {@code application.mail-outbox.max-backoff-ms}, and
+ * is abandoned after {@code application.mail-outbox.max-attempts} attempts: it stays in the outbox with its last error.
+ * <p>
+ * The deliveries are measured by the {@value #SENT_METER_NAME}, {@value #RETRIED_METER_NAME},
+ * {@value #ABANDONED_METER_NAME}, {@value #BATCH_METER_NAME} and {@value #THROUGHPUT_METER_NAME} meters.
+ */
+@Service
+public class MailDeliveryService implements SchedulingConfigurer {
+
+    public static final String SENT_METER_NAME = "mail.outbox.sent";
+
+    public static final String RETRIED_METER_NAME = "mail.outbox.retried";
+
+    public static final String ABANDONED_METER_NAME = "mail.outbox.abandoned";
+
+    public static final String BATCH_METER_NAME = "mail.outbox.batch";
+
+    public static final String THROUGHPUT_METER_NAME = "mail.outbox.throughput";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(MailDeliveryService.class);
+
+    private final MailOutboxRepository mailOutboxRepository;
+
+    private final JavaMailSender javaMailSender;
+
+    private final JHipsterProperties jHipsterProperties;
+
+    private final boolean deliveryEnabled;
+
+    private final long pollDelayMs;
+
+    private final int batchSize;
+
+    private final int maxAttempts;
+
+    private final long initialBackoffMs;
+
+    private final long maxBackoffMs;
+
+    private final long leaseMs;
+
+    private final Counter sent;
+
+    private final Counter retried;
+
+    private final Counter abandoned;
+
+    private final Timer batches;
+
+    private final DistributionSummary throughput;
+
+    public MailDeliveryService(
+        MailOutboxRepository mailOutboxRepository,
+        JavaMailSender javaMailSender,
+        JHipsterProperties jHipsterProperties,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.MailOutbox mailOutbox = applicationProperties.getMailOutbox();
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.javaMailSender = javaMailSender;
+        this.jHipsterProperties = jHipsterProperties;
+        this.deliveryEnabled = mailOutbox.isDeliveryEnabled();
+        this.pollDelayMs = mailOutbox.getPollDelayMs();
+        this.batchSize = mailOutbox.getBatchSize();
+        this.maxAttempts = mailOutbox.getMaxAttempts();
+        this.initialBackoffMs = mailOutbox.getInitialBackoffMs();
+        this.maxBackoffMs = mailOutbox.getMaxBackoffMs();
+        this.leaseMs = mailOutbox.getLeaseMs();
+        this.sent = Counter.builder(SENT_METER_NAME).description("Number of emails sent from the mail outbox").register(meterRegistry);
+        this.retried =
+            Counter
+                .builder(RETRIED_METER_NAME)
+                .description("Number of email deliveries which failed and will be attempted again")
+                .register(meterRegistry);
+        this.abandoned =
+            Counter
+                .builder(ABANDONED_METER_NAME)
+                .description("Number of emails abandoned after their last failed delivery attempt")
+                .register(meterRegistry);
+        this.batches = Timer.builder(BATCH_METER_NAME).description("Duration of the sending of a batch of emails").register(meterRegistry);
+        this.throughput =
+            DistributionSummary
+                .builder(THROUGHPUT_METER_NAME)
+                .description("Number of emails sent per second, by batch")
+                .baseUnit("emails/s")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addFixedDelayTask(this::deliverDueEmails, pollDelayMs);
+    }
+
+    /**
+     * Deliver the due emails, batch after batch until none is due.
+     */
+    public void deliverDueEmails() {
+        if (!deliveryEnabled) {
+            return;
+        }
+        Integer claimed;
+        do {
+            claimed = deliverBatch().block();
+        } while (claimed != null && claimed == batchSize);
+    }
+
+    /**
+     * Claim and send one batch of due emails.
+     * @return the number of claimed emails, sent or not.
+     */
+    public Mono<Integer> deliverBatch() {
+        Instant now = Instant.now();
+        return mailOutboxRepository
+            .claim(batchSize, maxAttempts, now, now.plusMillis(leaseMs))
+            .collectList()
+            .flatMap(messages -> {
+                if (messages.isEmpty()) {
+                    return Mono.just(0);
+                }
+                return Mono
+                    .fromCallable(() -> send(messages))
+                    // SMTP is blocking I/O
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(failures -> {
+                        List<Long> sentIds = messages
+                            .stream()
+                            .map(MailOutboxMessage::getId)
+                            .filter(id -> !failures.containsKey(id))
+                            .collect(Collectors.toList());
+                        return mailOutboxRepository
+                            .deleteAll(sentIds)
+                            .thenMany(Flux.fromIterable(messages))
+                            .filter(message -> failures.containsKey(message.getId()))
+                            .concatMap(message -> retryLater(message, failures.get(message.getId())))
+                            .then(Mono.just(messages.size()));
+                    });
+            });
+    }
+
+    /**
+     * Send a batch of emails over one connection.
+     * @return the errors of the emails which were not sent, by id.
+     */
+    private Map<Long, Exception> send(List<MailOutboxMessage> messages) {
+        Map<Long, Exception> failures = new HashMap<>();
+        Map<MimeMessage, Long> ids = new IdentityHashMap<>();
+        List<MimeMessage> mimeMessages = new ArrayList<>(messages.size());
+        for (MailOutboxMessage message : messages) {
+            try {
+                MimeMessage mimeMessage = toMimeMessage(message);
+                ids.put(mimeMessage, message.getId());
+                mimeMessages.add(mimeMessage);
+            } catch (MessagingException | IllegalArgumentException e) {
+                failures.put(message.getId(), e);
+            }
+        }
+        if (mimeMessages.isEmpty()) {
+            return failures;
+        }
+        long start = System.nanoTime();
+        try {
+            javaMailSender.send(mimeMessages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            // The messages missing from the failed messages were sent
+            e.getFailedMessages().forEach((mimeMessage, error) -> failures.put(ids.get(mimeMessage), error));
+        } catch (MailException e) {
+            // The connection failed, nothing was sent
+            log.warn("Emails could not be sent: {}", e.getMessage());
+            ids.values().forEach(id -> failures.put(id, e));
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        int sentCount = messages.size() - failures.size();
+        batches.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        sent.increment(sentCount);
+        if (sentCount > 0 && elapsedNanos > 0) {
+            throughput.record(sentCount * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+        }
+        log.debug("Sent {} emails out of {}", sentCount, messages.size());
+        return failures;
+    }
+
+    private MimeMessage toMimeMessage(MailOutboxMessage message) throws MessagingException {
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, message.isMultipart(), StandardCharsets.UTF_8.name());
+        helper.setTo(message.getRecipient());
+        helper.setFrom(jHipsterProperties.getMail().getFrom());
+        helper.setSubject(message.getSubject());
+        helper.setText(message.getContent(), message.isHtml());
+        return mimeMessage;
+    }
+
+    private Mono<Void> retryLater(MailOutboxMessage message, Exception error) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setLastError(StringUtils.abbreviate(String.valueOf(error), MAX_ERROR_LENGTH));
+        message.setNextAttemptDate(Instant.now().plus(backoff(attempts)));
+        if (attempts >= maxAttempts) {
+            abandoned.increment();
+            log.warn(
+                "Email {} to '{}' abandoned after {} attempts: {}",
+                message.getId(),
+                message.getRecipient(),
+                attempts,
+                error.toString()
+            );
+        } else {
+            retried.increment();
+            log.debug(
+                "Email {} to '{}' will be attempted again at {}",
+                message.getId(),
+                message.getRecipient(),
+                message.getNextAttemptDate()
+            );
+        }
+        return mailOutboxRepository.release(message);
+    }
+
+    /**
+     * @param attempts the number of failed attempts, at least 1.
+     * @return the delay before the next attempt.
+     */
+    Duration backoff(int attempts) {
+        long delay = initialBackoffMs << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(delay < 0 ? maxBackoffMs : Math.min(delay, maxBackoffMs));
+    }
+}
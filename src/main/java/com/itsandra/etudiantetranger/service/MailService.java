@@ -1,60 +1,62 @@
 package com.itsandra.etudiantetranger.service;
 
+import com.itsandra.etudiantetranger.domain.MailOutboxMessage;
 import com.itsandra.etudiantetranger.domain.User;
-import java.nio.charset.StandardCharsets;
-import java.util.Locale;
-import javax.mail.MessagingException;
-import javax.mail.internet.MimeMessage;
+import com.itsandra.etudiantetranger.repository.MailOutboxRepository;
+import java.time.Instant;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.MessageSource;
-import org.springframework.mail.MailException;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring5.SpringTemplateEngine;
-import tech.jhipster.config.JHipsterProperties;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Service for sending emails.
  * <p>
- * We use the {@link Async} annotation to send emails asynchronously.
+ * The emails are not sent here but written to the mail outbox, in the transaction of the caller, so they are sent
+ * if and only if this transaction commits, even if the node restarts in between. The {@link MailDeliveryService}
+ * delivers them. The emails sent from a template are rendered by the {@link MailTemplateRenderer}.
  */
 @Service
 public class MailService {
 
     private final Logger log = LoggerFactory.getLogger(MailService.class);
 
-    private static final String USER = "user";
+    private static final String ACTIVATION_TEMPLATE = "mail/activationEmail";
 
-    private static final String BASE_URL = "baseUrl";
+    private static final String CREATION_TEMPLATE = "mail/creationEmail";
 
-    private final JHipsterProperties jHipsterProperties;
+    private static final String PASSWORD_RESET_TEMPLATE = "mail/passwordResetEmail";
 
-    private final JavaMailSender javaMailSender;
+    private final MailOutboxRepository mailOutboxRepository;
 
-    private final MessageSource messageSource;
+    private final MailTemplateRenderer mailTemplateRenderer;
 
-    private final SpringTemplateEngine templateEngine;
+    public MailService(MailOutboxRepository mailOutboxRepository, MailTemplateRenderer mailTemplateRenderer) {
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.mailTemplateRenderer = mailTemplateRenderer;
+    }
+
+    /**
+     * Parse the email templates once the application is ready, so the first emails don't wait for it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpTemplates() {
+        warmUp().subscribe(null, e -> log.warn("Could not parse the email templates: {}", e.getMessage()));
+    }
 
-    public MailService(
-        JHipsterProperties jHipsterProperties,
-        JavaMailSender javaMailSender,
-        MessageSource messageSource,
-        SpringTemplateEngine templateEngine
-    ) {
-        this.jHipsterProperties = jHipsterProperties;
-        this.javaMailSender = javaMailSender;
-        this.messageSource = messageSource;
-        this.templateEngine = templateEngine;
+    Mono<Void> warmUp() {
+        return mailTemplateRenderer
+            .warmUp(List.of(ACTIVATION_TEMPLATE, CREATION_TEMPLATE, PASSWORD_RESET_TEMPLATE))
+            .doOnSuccess(parsed -> log.debug("Parsed the email templates"));
     }
 
-    @Async
-    public void sendEmail(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
+    public Mono<Void> sendEmail(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
         log.debug(
-            "Send email[multipart '{}' and html '{}'] to '{}' with subject '{}' and content={}",
+            "Queue email[multipart '{}' and html '{}'] to '{}' with subject '{}' and content={}",
             isMultipart,
             isHtml,
             to,
@@ -62,51 +64,74 @@ public class MailService {
             content
         );
 
-        // Prepare message using a Spring helper
-        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
-        try {
-            MimeMessageHelper message = new MimeMessageHelper(mimeMessage, isMultipart, StandardCharsets.UTF_8.name());
-            message.setTo(to);
-            message.setFrom(jHipsterProperties.getMail().getFrom());
-            message.setSubject(subject);
-            message.setText(content, isHtml);
-            javaMailSender.send(mimeMessage);
-            log.debug("Sent email to User '{}'", to);
-        } catch (MailException | MessagingException e) {
-            log.warn("Email could not be sent to user '{}'", to, e);
-        }
+        return mailOutboxRepository.insert(toMessage(to, subject, content, isMultipart, isHtml)).then();
     }
 
-    @Async
-    public void sendEmailFromTemplate(User user, String templateName, String titleKey) {
+    public Mono<Void> sendEmailFromTemplate(User user, String templateName, String titleKey) {
         if (user.getEmail() == null) {
             log.debug("Email doesn't exist for user '{}'", user.getLogin());
-            return;
+            return Mono.empty();
         }
-        Locale locale = Locale.forLanguageTag(user.getLangKey());
-        Context context = new Context(locale);
-        context.setVariable(USER, user);
-        context.setVariable(BASE_URL, jHipsterProperties.getMail().getBaseUrl());
-        String content = templateEngine.process(templateName, context);
-        String subject = messageSource.getMessage(titleKey, null, locale);
-        sendEmail(user.getEmail(), subject, content, false, true);
+        return mailTemplateRenderer
+            .render(user, templateName, titleKey)
+            .flatMap(email -> sendEmail(user.getEmail(), email.getT1(), email.getT2(), false, true));
+    }
+
+    /**
+     * Queue an email from a template for each of the users, rendering several emails at the same time.
+     * @param users the recipients, the ones without an email are skipped.
+     * @param templateName the name of the template.
+     * @param titleKey the message key of the subject.
+     * @return the number of queued emails.
+     */
+    public Mono<Long> sendEmailsFromTemplate(Flux<User> users, String templateName, String titleKey) {
+        return users
+            .filter(user -> user.getEmail() != null)
+            .flatMap(
+                user ->
+                    mailTemplateRenderer
+                        .render(user, templateName, titleKey)
+                        .map(email -> toMessage(user.getEmail(), email.getT1(), email.getT2(), false, true)),
+                mailTemplateRenderer.getThreadCount()
+            )
+            .concatMap(mailOutboxRepository::insert)
+            .count()
+            .doOnNext(count -> log.debug("Queued {} emails from template '{}'", count, templateName));
     }
 
-    @Async
-    public void sendActivationEmail(User user) {
+    public Mono<Void> sendActivationEmail(User user) {
         log.debug("Sending activation email to '{}'", user.getEmail());
-        sendEmailFromTemplate(user, "mail/activationEmail", "email.activation.title");
+        return sendEmailFromTemplate(user, ACTIVATION_TEMPLATE, "email.activation.title");
     }
 
-    @Async
-    public void sendCreationEmail(User user) {
+    public Mono<Long> sendActivationEmails(Flux<User> users) {
+        return sendEmailsFromTemplate(users, ACTIVATION_TEMPLATE, "email.activation.title");
+    }
+
+    public Mono<Void> sendCreationEmail(User user) {
         log.debug("Sending creation email to '{}'", user.getEmail());
-        sendEmailFromTemplate(user, "mail/creationEmail", "email.activation.title");
+        return sendEmailFromTemplate(user, CREATION_TEMPLATE, "email.activation.title");
     }
 
-    @Async
-    public void sendPasswordResetMail(User user) {
+    public Mono<Void> sendPasswordResetMail(User user) {
         log.debug("Sending password reset email to '{}'", user.getEmail());
-        sendEmailFromTemplate(user, "mail/passwordResetEmail", "email.reset.title");
+        return sendEmailFromTemplate(user, PASSWORD_RESET_TEMPLATE, "email.reset.title");
+    }
+
+    public Mono<Long> sendPasswordResetMails(Flux<User> users) {
+        return sendEmailsFromTemplate(users, PASSWORD_RESET_TEMPLATE, "email.reset.title");
+    }
+
+    private static MailOutboxMessage toMessage(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
+        MailOutboxMessage message = new MailOutboxMessage();
+        message.setRecipient(to);
+        message.setSubject(subject);
+        message.setContent(content);
+        message.setMultipart(isMultipart);
+        message.setHtml(isHtml);
+        Instant now = Instant.now();
+        message.setNextAttemptDate(now);
+        message.setCreatedDate(now);
+        return message;
     }
 }
@@ -0,0 +1,138 @@
+package com.itsandra.etudiantetranger.service;
+
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import com.itsandra.etudiantetranger.config.Constants;
+import com.itsandra.etudiantetranger.domain.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PreDestroy;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Renders the subject and the content of the emails sent from a template.
+ * <p>
+ * The subjects are resolved once per locale and then kept in memory. The templates are parsed once and kept by the
+ * template cache of Thymeleaf, when {@code spring.thymeleaf.cache} is enabled: {@link #warmUp(Collection)} parses
+ * them ahead of the first email, along with the localized messages they contain, which the {@link MessageSource}
+ * keeps per locale. The renderings run on {@code application.mail-rendering.threads} dedicated threads, so a bulk
+ * send renders its recipients in parallel without holding the threads of the other blocking work. The duration of a
+ * rendering is the {@value #RENDER_METER_NAME} meter, tagged by template.
+ */
+@Component
+public class MailTemplateRenderer {
+
+    public static final String RENDER_METER_NAME = "mail.template.render";
+
+    private static final String USER = "user";
+
+    private static final String BASE_URL = "baseUrl";
+
+    private final JHipsterProperties jHipsterProperties;
+
+    private final MessageSource messageSource;
+
+    private final SpringTemplateEngine templateEngine;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, String> subjects = new ConcurrentHashMap<>();
+
+    private final Map<String, Timer> renderTimers = new ConcurrentHashMap<>();
+
+    private final int threadCount;
+
+    private final Scheduler scheduler;
+
+    public MailTemplateRenderer(
+        JHipsterProperties jHipsterProperties,
+        MessageSource messageSource,
+        SpringTemplateEngine templateEngine,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        this.jHipsterProperties = jHipsterProperties;
+        this.messageSource = messageSource;
+        this.templateEngine = templateEngine;
+        this.meterRegistry = meterRegistry;
+        int threads = applicationProperties.getMailRendering().getThreads();
+        this.threadCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // Bounded elastic rather than parallel: the first rendering of a template reads it from the classpath
+        this.scheduler =
+            Schedulers.newBoundedElastic(threadCount, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "mail-rendering", 60, true);
+    }
+
+    /**
+     * @return the number of emails rendered at the same time.
+     */
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Render an email for a user, in the language of the user.
+     * @param user the recipient.
+     * @param templateName the name of the template.
+     * @param titleKey the message key of the subject.
+     * @return the subject and the content.
+     */
+    public Mono<Tuple2<String, String>> render(User user, String templateName, String titleKey) {
+        return Mono
+            .fromCallable(() -> {
+                Locale locale = Locale.forLanguageTag(user.getLangKey() != null ? user.getLangKey() : Constants.DEFAULT_LANGUAGE);
+                return Tuples.of(renderSubject(titleKey, locale), renderContent(user, templateName, locale));
+            })
+            .subscribeOn(scheduler);
+    }
+
+    /**
+     * Parse the templates, so the first emails don't wait for it.
+     * @param templateNames the names of the templates.
+     * @return a Mono completing once the templates are parsed.
+     */
+    public Mono<Void> warmUp(Collection<String> templateNames) {
+        Locale locale = Locale.forLanguageTag(Constants.DEFAULT_LANGUAGE);
+        return Flux
+            .fromIterable(templateNames)
+            .concatMap(templateName -> Mono.fromCallable(() -> renderContent(new User(), templateName, locale)).subscribeOn(scheduler))
+            .then();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+    private String renderSubject(String titleKey, Locale locale) {
+        return subjects.computeIfAbsent(locale.toLanguageTag() + ':' + titleKey, key -> messageSource.getMessage(titleKey, null, locale));
+    }
+
+    private String renderContent(User user, String templateName, Locale locale) {
+        Context context = new Context(locale);
+        context.setVariable(USER, user);
+        context.setVariable(BASE_URL, jHipsterProperties.getMail().getBaseUrl());
+        Timer timer = renderTimers.computeIfAbsent(
+            templateName,
+            name ->
+                Timer
+                    .builder(RENDER_METER_NAME)
+                    .description("Duration of the rendering of an email")
+                    .tag("template", name)
+                    .register(meterRegistry)
+        );
+        return timer.record(() -> templateEngine.process(templateName, context));
+    }
+}
@@ -1,11 +1,15 @@
 package com.itsandra.etudiantetranger.service;
 
 import com.itsandra.etudiantetranger.domain.Niveau;
+import com.itsandra.etudiantetranger.repository.AfterCommit;
+import com.itsandra.etudiantetranger.repository.ChangeVersionRepository;
 import com.itsandra.etudiantetranger.repository.NiveauRepository;
+import com.itsandra.etudiantetranger.repository.ReferenceDataCache;
 import com.itsandra.etudiantetranger.service.dto.NiveauDTO;
 import com.itsandra.etudiantetranger.service.mapper.NiveauMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,13 +25,30 @@ public class NiveauService {
 
     private final Logger log = LoggerFactory.getLogger(NiveauService.class);
 
+    private static final String ENTITY_NAME = "niveau";
+
     private final NiveauRepository niveauRepository;
 
     private final NiveauMapper niveauMapper;
 
-    public NiveauService(NiveauRepository niveauRepository, NiveauMapper niveauMapper) {
+    private final ReferenceDataCache referenceDataCache;
+
+    private final TotalCountService totalCountService;
+
+    private final ChangeVersionRepository changeVersionRepository;
+
+    public NiveauService(
+        NiveauRepository niveauRepository,
+        NiveauMapper niveauMapper,
+        ReferenceDataCache referenceDataCache,
+        TotalCountService totalCountService,
+        ChangeVersionRepository changeVersionRepository
+    ) {
         this.niveauRepository = niveauRepository;
         this.niveauMapper = niveauMapper;
+        this.referenceDataCache = referenceDataCache;
+        this.totalCountService = totalCountService;
+        this.changeVersionRepository = changeVersionRepository;
     }
 
     /**
@@ -38,7 +59,15 @@ public class NiveauService {
      */
     public Mono<NiveauDTO> save(NiveauDTO niveauDTO) {
         log.debug("Request to save Niveau : {}", niveauDTO);
-        return niveauRepository.save(niveauMapper.toEntity(niveauDTO)).map(niveauMapper::toDto);
+        return niveauRepository
+            .save(niveauMapper.toEntity(niveauDTO).changeVersion(changeVersionRepository.next()))
+            .flatMap(saved -> referenceDataCache.invalidate().thenReturn(saved))
+            .flatMap(saved ->
+                niveauDTO.getId() == null
+                    ? AfterCommit.run(() -> totalCountService.increment(ENTITY_NAME, 1)).thenReturn(saved)
+                    : Mono.just(saved)
+            )
+            .map(niveauMapper::toDto);
     }
 
     /**
@@ -55,9 +84,10 @@ public class NiveauService {
             .map(existingNiveau -> {
                 niveauMapper.partialUpdate(existingNiveau, niveauDTO);
 
-                return existingNiveau;
+                return existingNiveau.changeVersion(changeVersionRepository.next());
             })
             .flatMap(niveauRepository::save)
+            .flatMap(saved -> referenceDataCache.invalidate().thenReturn(saved))
             .map(niveauMapper::toDto);
     }
 
@@ -73,6 +103,28 @@ public class NiveauService {
         return niveauRepository.findAllBy(pageable).map(niveauMapper::toDto);
     }
 
+    /**
+     * Get a page of niveaus, with its total computed by the {@link TotalCountService}.
+     *
+     * @param pageable the pagination information.
+     * @param withTotal false if the total is not needed, so it is not computed.
+     * @return the page of entities.
+     */
+    @Transactional(readOnly = true)
+    public Mono<Page<NiveauDTO>> findPage(Pageable pageable, boolean withTotal) {
+        log.debug("Request to get a page of Niveaus");
+        return totalCountService
+            .findPage(
+                ENTITY_NAME,
+                pageable,
+                withTotal,
+                niveauRepository::findAllBy,
+                niveauRepository::count,
+                niveauRepository::findAllWithTotalBy
+            )
+            .map(page -> page.map(niveauMapper::toDto));
+    }
+
     /**
      * Returns the number of niveaus available.
      * @return the number of entities in the database.
@@ -102,6 +154,10 @@ public class NiveauService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Niveau : {}", id);
-        return niveauRepository.deleteById(id);
+        return niveauRepository
+            .deleteById(id)
+            .then(changeVersionRepository.tombstone(ENTITY_NAME, id))
+            .then(referenceDataCache.invalidate())
+            .then(AfterCommit.run(() -> totalCountService.invalidate(ENTITY_NAME)));
     }
 }
@@ -1,11 +1,15 @@
 package com.itsandra.etudiantetranger.service;
 
 import com.itsandra.etudiantetranger.domain.Pays;
+import com.itsandra.etudiantetranger.repository.AfterCommit;
+import com.itsandra.etudiantetranger.repository.ChangeVersionRepository;
 import com.itsandra.etudiantetranger.repository.PaysRepository;
+import com.itsandra.etudiantetranger.repository.ReferenceDataCache;
 import com.itsandra.etudiantetranger.service.dto.PaysDTO;
 import com.itsandra.etudiantetranger.service.mapper.PaysMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,13 +25,30 @@ public class PaysService {
 
     private final Logger log = LoggerFactory.getLogger(PaysService.class);
 
+    private static final String ENTITY_NAME = "pays";
+
     private final PaysRepository paysRepository;
 
     private final PaysMapper paysMapper;
 
-    public PaysService(PaysRepository paysRepository, PaysMapper paysMapper) {
+    private final ReferenceDataCache referenceDataCache;
+
+    private final TotalCountService totalCountService;
+
+    private final ChangeVersionRepository changeVersionRepository;
+
+    public PaysService(
+        PaysRepository paysRepository,
+        PaysMapper paysMapper,
+        ReferenceDataCache referenceDataCache,
+        TotalCountService totalCountService,
+        ChangeVersionRepository changeVersionRepository
+    ) {
         this.paysRepository = paysRepository;
         this.paysMapper = paysMapper;
+        this.referenceDataCache = referenceDataCache;
+        this.totalCountService = totalCountService;
+        this.changeVersionRepository = changeVersionRepository;
     }
 
     /**
@@ -38,7 +59,15 @@ public class PaysService {
      */
     public Mono<PaysDTO> save(PaysDTO paysDTO) {
         log.debug("Request to save Pays : {}", paysDTO);
-        return paysRepository.save(paysMapper.toEntity(paysDTO)).map(paysMapper::toDto);
+        return paysRepository
+            .save(paysMapper.toEntity(paysDTO).changeVersion(changeVersionRepository.next()))
+            .flatMap(saved -> referenceDataCache.invalidate().thenReturn(saved))
+            .flatMap(saved ->
+                paysDTO.getId() == null
+                    ? AfterCommit.run(() -> totalCountService.increment(ENTITY_NAME, 1)).thenReturn(saved)
+                    : Mono.just(saved)
+            )
+            .map(paysMapper::toDto);
     }
 
     /**
@@ -55,9 +84,10 @@ public class PaysService {
             .map(existingPays -> {
                 paysMapper.partialUpdate(existingPays, paysDTO);
 
-                return existingPays;
+                return existingPays.changeVersion(changeVersionRepository.next());
             })
             .flatMap(paysRepository::save)
+            .flatMap(saved -> referenceDataCache.invalidate().thenReturn(saved))
             .map(paysMapper::toDto);
     }
 
@@ -73,6 +103,28 @@ public class PaysService {
         return paysRepository.findAllBy(pageable).map(paysMapper::toDto);
     }
 
+    /**
+     * Get a page of pays, with its total computed by the {@link TotalCountService}.
+     *
+     * @param pageable the pagination information.
+     * @param withTotal false if the total is not needed, so it is not computed.
+     * @return the page of entities.
+     */
+    @Transactional(readOnly = true)
+    public Mono<Page<PaysDTO>> findPage(Pageable pageable, boolean withTotal) {
+        log.debug("Request to get a page of Pays");
+        return totalCountService
+            .findPage(
+                ENTITY_NAME,
+                pageable,
+                withTotal,
+                paysRepository::findAllBy,
+                paysRepository::count,
+                paysRepository::findAllWithTotalBy
+            )
+            .map(page -> page.map(paysMapper::toDto));
+    }
+
     /**
      * Returns the number of pays available.
      * @return the number of entities in the database.
@@ -102,6 +154,10 @@ public class PaysService {
      */
     public Mono<Void> delete(Long id) {
         log.debug("Request to delete Pays : {}", id);
-        return paysRepository.deleteById(id);
+        return paysRepository
+            .deleteById(id)
+            .then(changeVersionRepository.tombstone(ENTITY_NAME, id))
+            .then(referenceDataCache.invalidate())
+            .then(AfterCommit.run(() -> totalCountService.invalidate(ENTITY_NAME)));
     }
 }
@@ -0,0 +1,118 @@
+package com.itsandra.etudiantetranger.service;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+import com.itsandra.etudiantetranger.repository.ChangeVersionRepository;
+import com.itsandra.etudiantetranger.repository.EtudiantRepository;
+import com.itsandra.etudiantetranger.repository.FiliereRepository;
+import com.itsandra.etudiantetranger.repository.NiveauRepository;
+import com.itsandra.etudiantetranger.repository.PaysRepository;
+import com.itsandra.etudiantetranger.service.dto.SyncDTO;
+import com.itsandra.etudiantetranger.service.mapper.EtudiantMapper;
+import com.itsandra.etudiantetranger.service.mapper.FiliereMapper;
+import com.itsandra.etudiantetranger.service.mapper.NiveauMapper;
+import com.itsandra.etudiantetranger.service.mapper.PaysMapper;
+import java.util.ArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service computing the changes of the etudiants and of their reference data since a change version, for the clients
+ * keeping an offline copy.
+ * <p>
+ * The size of a sync only depends on the number of changes since the previous one. The version returned to the client
+ * is the one up to which all the writes are committed, see {@link ChangeVersionRepository#committed()}: a write still
+ * running is never missed, and the changes of the commit window are sent again by the next sync.
+ */
+@Service
+@Transactional(readOnly = true)
+public class SyncService {
+
+    private final Logger log = LoggerFactory.getLogger(SyncService.class);
+
+    private final ChangeVersionRepository changeVersionRepository;
+
+    private final EtudiantRepository etudiantRepository;
+
+    private final PaysRepository paysRepository;
+
+    private final NiveauRepository niveauRepository;
+
+    private final FiliereRepository filiereRepository;
+
+    private final EtudiantMapper etudiantMapper;
+
+    private final PaysMapper paysMapper;
+
+    private final NiveauMapper niveauMapper;
+
+    private final FiliereMapper filiereMapper;
+
+    public SyncService(
+        ChangeVersionRepository changeVersionRepository,
+        EtudiantRepository etudiantRepository,
+        PaysRepository paysRepository,
+        NiveauRepository niveauRepository,
+        FiliereRepository filiereRepository,
+        EtudiantMapper etudiantMapper,
+        PaysMapper paysMapper,
+        NiveauMapper niveauMapper,
+        FiliereMapper filiereMapper
+    ) {
+        this.changeVersionRepository = changeVersionRepository;
+        this.etudiantRepository = etudiantRepository;
+        this.paysRepository = paysRepository;
+        this.niveauRepository = niveauRepository;
+        this.filiereRepository = filiereRepository;
+        this.etudiantMapper = etudiantMapper;
+        this.paysMapper = paysMapper;
+        this.niveauMapper = niveauMapper;
+        this.filiereMapper = filiereMapper;
+    }
+
+    /**
+     * Get the changes since a version.
+     * <p>
+     * Without a version, or with a version the database doesn't know (after a restore), all the rows are returned, and
+     * the sync is flagged as full.
+     *
+     * @param since the version of the previous sync, or null for the first sync.
+     * @return the changes, and the version to synchronize from next time.
+     */
+    public Mono<SyncDTO> changesSince(Long since) {
+        log.debug("Request to get the changes since version {}", since);
+        return Mono
+            .defer(() -> {
+                // Taken before the reads: all the versions up to it are committed, so they are all read
+                long committed = changeVersionRepository.committed();
+                SyncDTO sync = new SyncDTO();
+                sync.setFull(since == null || since > changeVersionRepository.current());
+                sync.setVersion(sync.isFull() ? committed : Math.max(since, committed));
+                Criteria changed = sync.isFull() ? null : where("changeVersion").greaterThan(since);
+                // The queries share the connection of the transaction, so they run one after the other
+                return etudiantRepository
+                    .findAllBy(null, changed)
+                    .map(etudiantMapper::toDto)
+                    .collectList()
+                    .doOnNext(sync::setEtudiants)
+                    .then(paysRepository.findAllBy(null, changed).map(paysMapper::toDto).collectList().doOnNext(sync::setPays))
+                    .then(niveauRepository.findAllBy(null, changed).map(niveauMapper::toDto).collectList().doOnNext(sync::setNiveaux))
+                    .then(filiereRepository.findAllBy(null, changed).map(filiereMapper::toDto).collectList().doOnNext(sync::setFilieres))
+                    .then(
+                        sync.isFull()
+                            ? Mono.empty()
+                            : changeVersionRepository
+                                .findTombstones(since)
+                                .doOnNext(tombstone ->
+                                    sync.getDeleted().computeIfAbsent(tombstone.getT1(), entityName -> new ArrayList<>()).add(tombstone.getT2())
+                                )
+                                .then()
+                    )
+                    .thenReturn(sync);
+            });
+    }
+}
@@ -0,0 +1,234 @@
+package com.itsandra.etudiantetranger.service;
+
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Service computing the total number of entities of the paginated listings, with the {@link CountStrategy} configured
+ * by {@code application.pagination.count-strategy}.
+ * <p>
+ * The cached totals are only maintained by the committed writes of this node, and a write racing with a reload can be
+ * missed: they are at most {@code application.pagination.count-cache-ttl-ms} behind. A page with a cached total corrects
+ * it when it shows the total is wrong: a partial page is the last one, so its end is the exact total, and a full page
+ * ending after the total proves it too low.
+ * <p>
+ * The way each page got its total is counted by the {@value #TOTAL_COUNT_METER_NAME} meter.
+ */
+@Service
+public class TotalCountService {
+
+    public static final String SKIP_TOTAL_COUNT_HEADER = "X-Skip-Total-Count";
+
+    public static final String TOTAL_COUNT_METER_NAME = "pagination.total-count";
+    public static final String TOTAL_COUNT_METER_DESCRIPTION = "Indicates how the total of the paginated listings was computed.";
+    public static final String TOTAL_COUNT_METER_ENTITY_DIMENSION = "entity";
+    public static final String TOTAL_COUNT_METER_STRATEGY_DIMENSION = "strategy";
+
+    // The strategy tag of the pages whose total was expired or not cached yet
+    private static final String COUNT_QUERY_STRATEGY = "count";
+
+    private final Logger log = LoggerFactory.getLogger(TotalCountService.class);
+
+    private static final class CachedCount {
+
+        private final long total;
+        private final long loadedAt;
+
+        CachedCount(long total, long loadedAt) {
+            this.total = total;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final CountStrategy strategy;
+    private final long cacheTtlMs;
+    private final Map<String, CachedCount> cachedCounts = new ConcurrentHashMap<>();
+
+    public TotalCountService(MeterRegistry registry, ApplicationProperties applicationProperties) {
+        this.registry = registry;
+        this.strategy = CountStrategy.valueOf(applicationProperties.getPagination().getCountStrategy().trim().toUpperCase(Locale.ROOT));
+        this.cacheTtlMs = applicationProperties.getPagination().getCountCacheTtlMs();
+    }
+
+    public CountStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Whether the pages of a listing get a computed total. Otherwise, their total is their offset plus their size, and
+     * must not be sent to the client.
+     *
+     * @param withTotal false if the client doesn't need the total.
+     * @return true if the total is computed.
+     */
+    public boolean hasTotal(boolean withTotal) {
+        return withTotal && strategy != CountStrategy.NONE;
+    }
+
+    /**
+     * Get a page of entities, with its total computed by the configured strategy.
+     *
+     * @param entityName the name of the entity, which identifies its cached total.
+     * @param pageable the pagination information.
+     * @param withTotal false if the client doesn't need the total, which is then not computed.
+     * @param findAll the query of a page of entities.
+     * @param count the query of the number of entities.
+     * @param findAllWithTotal the query of a page of entities, including the {@code COUNT(*) OVER ()} column.
+     * @param <T> the type of the entity.
+     * @return the page, whose total is only meaningful if {@link #hasTotal(boolean)}.
+     */
+    public <T> Mono<Page<T>> findPage(
+        String entityName,
+        Pageable pageable,
+        boolean withTotal,
+        Function<Pageable, Flux<T>> findAll,
+        Supplier<Mono<Long>> count,
+        Function<Pageable, Mono<Page<T>>> findAllWithTotal
+    ) {
+        return findPage(entityName, pageable, withTotal, true, findAll, count, findAllWithTotal);
+    }
+
+    /**
+     * Get a page of a filtered listing, with its total computed by the configured strategy.
+     * <p>
+     * Only the unfiltered totals are cached: with the {@link CountStrategy#CACHED} strategy, the total of a filtered
+     * listing is always counted.
+     *
+     * @param entityName the name of the entity.
+     * @param pageable the pagination information.
+     * @param withTotal false if the client doesn't need the total, which is then not computed.
+     * @param findAll the query of a page of the filtered entities.
+     * @param count the query of the number of filtered entities.
+     * @param findAllWithTotal the query of a page of the filtered entities, including the {@code COUNT(*) OVER ()} column.
+     * @param <T> the type of the entity.
+     * @return the page, whose total is only meaningful if {@link #hasTotal(boolean)}.
+     */
+    public <T> Mono<Page<T>> findFilteredPage(
+        String entityName,
+        Pageable pageable,
+        boolean withTotal,
+        Function<Pageable, Flux<T>> findAll,
+        Supplier<Mono<Long>> count,
+        Function<Pageable, Mono<Page<T>>> findAllWithTotal
+    ) {
+        return findPage(entityName, pageable, withTotal, false, findAll, count, findAllWithTotal);
+    }
+
+    private <T> Mono<Page<T>> findPage(
+        String entityName,
+        Pageable pageable,
+        boolean withTotal,
+        boolean cacheable,
+        Function<Pageable, Flux<T>> findAll,
+        Supplier<Mono<Long>> count,
+        Function<Pageable, Mono<Page<T>>> findAllWithTotal
+    ) {
+        CountStrategy pageStrategy = withTotal ? strategy : CountStrategy.NONE;
+        switch (pageStrategy) {
+            case WINDOW:
+                track(entityName, CountStrategy.WINDOW.name());
+                return findAllWithTotal.apply(pageable);
+            case CACHED:
+                if (!cacheable) {
+                    track(entityName, COUNT_QUERY_STRATEGY);
+                    return findPageWithCount(pageable, findAll, count.get());
+                }
+                return findPageWithCachedCount(entityName, pageable, findAll, count);
+            default:
+                track(entityName, CountStrategy.NONE.name());
+                return findAll
+                    .apply(pageable)
+                    .collectList()
+                    .<Page<T>>map(content -> new PageImpl<>(content, pageable, pageable.getOffset() + content.size()));
+        }
+    }
+
+    private <T> Mono<Page<T>> findPageWithCachedCount(
+        String entityName,
+        Pageable pageable,
+        Function<Pageable, Flux<T>> findAll,
+        Supplier<Mono<Long>> count
+    ) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = cachedCounts.get(entityName);
+        if (cached != null && now - cached.loadedAt < cacheTtlMs) {
+            track(entityName, CountStrategy.CACHED.name());
+            return findAll
+                .apply(pageable)
+                .collectList()
+                .<Page<T>>map(content -> new PageImpl<>(content, pageable, correct(entityName, cached, pageable, content.size())));
+        }
+        track(entityName, COUNT_QUERY_STRATEGY);
+        return findPageWithCount(
+            pageable,
+            findAll,
+            count.get().doOnNext(total -> cachedCounts.put(entityName, new CachedCount(total, now)))
+        );
+    }
+
+    /**
+     * @return the cached total, or the total shown by the page if it contradicts it, which then replaces the cached one.
+     */
+    private long correct(String entityName, CachedCount cached, Pageable pageable, int size) {
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        long end = offset + size;
+        boolean last = pageable.isUnpaged() || (size < pageable.getPageSize() && (size > 0 || offset == 0));
+        if (last ? end == cached.total : end <= cached.total) {
+            return cached.total;
+        }
+        log.trace("Correcting the total count of {} from {} to {}", entityName, cached.total, end);
+        cachedCounts.replace(entityName, cached, new CachedCount(end, cached.loadedAt));
+        return end;
+    }
+
+    private <T> Mono<Page<T>> findPageWithCount(Pageable pageable, Function<Pageable, Flux<T>> findAll, Mono<Long> count) {
+        return count
+            .zipWith(findAll.apply(pageable).collectList())
+            .<Page<T>>map(countWithEntities -> new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1()));
+    }
+
+    /**
+     * Add created entities to the cached total, if there is one.
+     *
+     * @param entityName the name of the entity.
+     * @param created the number of created entities.
+     */
+    public void increment(String entityName, long created) {
+        cachedCounts.computeIfPresent(entityName, (name, cached) -> new CachedCount(cached.total + created, cached.loadedAt));
+    }
+
+    /**
+     * Drop the cached total, so the next page reloads it.
+     *
+     * @param entityName the name of the entity.
+     */
+    public void invalidate(String entityName) {
+        log.trace("Invalidating the total count of {}", entityName);
+        cachedCounts.remove(entityName);
+    }
+
+    private void track(String entityName, String pageStrategy) {
+        Counter
+            .builder(TOTAL_COUNT_METER_NAME)
+            .description(TOTAL_COUNT_METER_DESCRIPTION)
+            .tag(TOTAL_COUNT_METER_ENTITY_DIMENSION, entityName)
+            .tag(TOTAL_COUNT_METER_STRATEGY_DIMENSION, pageStrategy.toLowerCase(Locale.ROOT))
+            .register(registry)
+            .increment();
+    }
+}
@@ -4,8 +4,10 @@ import com.itsandra.etudiantetranger.config.Constants;
 import com.itsandra.etudiantetranger.domain.Authority;
 import com.itsandra.etudiantetranger.domain.User;
 import com.itsandra.etudiantetranger.repository.AuthorityRepository;
+import com.itsandra.etudiantetranger.repository.UserCache;
 import com.itsandra.etudiantetranger.repository.UserRepository;
 import com.itsandra.etudiantetranger.security.AuthoritiesConstants;
+import com.itsandra.etudiantetranger.security.PasswordHashingScheduler;
 import com.itsandra.etudiantetranger.security.SecurityUtils;
 import com.itsandra.etudiantetranger.service.dto.AdminUserDTO;
 import com.itsandra.etudiantetranger.service.dto.UserDTO;
@@ -20,6 +22,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -40,10 +43,26 @@ public class UserService {
 
     private final AuthorityRepository authorityRepository;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository) {
+    private final PasswordHashingScheduler passwordHashingScheduler;
+
+    private final UserCache userCache;
+
+    private final MailService mailService;
+
+    public UserService(
+        UserRepository userRepository,
+        PasswordEncoder passwordEncoder,
+        AuthorityRepository authorityRepository,
+        PasswordHashingScheduler passwordHashingScheduler,
+        UserCache userCache,
+        MailService mailService
+    ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authorityRepository = authorityRepository;
+        this.passwordHashingScheduler = passwordHashingScheduler;
+        this.userCache = userCache;
+        this.mailService = mailService;
     }
 
     @Transactional
@@ -66,7 +85,7 @@ public class UserService {
         return userRepository
             .findOneByResetKey(key)
             .filter(user -> user.getResetDate().isAfter(Instant.now().minus(1, ChronoUnit.DAYS)))
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(passwordHashingScheduler.getScheduler())
             .map(user -> {
                 user.setPassword(passwordEncoder.encode(newPassword));
                 user.setResetKey(null);
@@ -76,6 +95,11 @@ public class UserService {
             .flatMap(this::saveUser);
     }
 
+    /**
+     * Start the reset of the password of an activated user, and queue the email of the reset key in the same transaction.
+     * @param mail the email of the user.
+     * @return the user, or an empty Mono if there is no activated user with this email.
+     */
     @Transactional
     public Mono<User> requestPasswordReset(String mail) {
         return userRepository
@@ -87,16 +111,23 @@ public class UserService {
                 user.setResetDate(Instant.now());
                 return user;
             })
-            .flatMap(this::saveUser);
+            .flatMap(this::saveUser)
+            .flatMap(user -> mailService.sendPasswordResetMail(user).thenReturn(user));
     }
 
+    /**
+     * Register a user, not activated yet, and queue the activation email in the same transaction.
+     * @param userDTO the user.
+     * @param password the password of the user.
+     * @return the registered user.
+     */
     @Transactional
     public Mono<User> registerUser(AdminUserDTO userDTO, String password) {
         return userRepository
             .findOneByLogin(userDTO.getLogin().toLowerCase())
             .flatMap(existingUser -> {
                 if (!existingUser.isActivated()) {
-                    return userRepository.delete(existingUser);
+                    return userRepository.delete(existingUser).then(userCache.evictOnCommit(existingUser));
                 } else {
                     return Mono.error(new UsernameAlreadyUsedException());
                 }
@@ -104,12 +135,12 @@ public class UserService {
             .then(userRepository.findOneByEmailIgnoreCase(userDTO.getEmail()))
             .flatMap(existingUser -> {
                 if (!existingUser.isActivated()) {
-                    return userRepository.delete(existingUser);
+                    return userRepository.delete(existingUser).then(userCache.evictOnCommit(existingUser));
                 } else {
                     return Mono.error(new EmailAlreadyUsedException());
                 }
             })
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(passwordHashingScheduler.getScheduler())
             .then(
                 Mono.fromCallable(() -> {
                     User newUser = new User();
@@ -140,7 +171,8 @@ public class UserService {
                     .doOnNext(user -> user.setAuthorities(authorities))
                     .flatMap(this::saveUser)
                     .doOnNext(user -> log.debug("Created Information for User: {}", user));
-            });
+            })
+            .flatMap(user -> mailService.sendActivationEmail(user).thenReturn(user));
     }
 
     @Transactional
@@ -163,7 +195,7 @@ public class UserService {
             .flatMap(authorityRepository::findById)
             .doOnNext(authority -> user.getAuthorities().add(authority))
             .then(Mono.just(user))
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(passwordHashingScheduler.getScheduler())
             .map(newUser -> {
                 String encryptedPassword = passwordEncoder.encode(RandomUtil.generatePassword());
                 newUser.setPassword(encryptedPassword);
@@ -186,6 +218,8 @@ public class UserService {
     public Mono<AdminUserDTO> updateUser(AdminUserDTO userDTO) {
         return userRepository
             .findById(userDTO.getId())
+            // The login and email may change: drop the copy under the current ones
+            .flatMap(user -> userCache.evictOnCommit(user).thenReturn(user))
             .flatMap(user -> {
                 user.setLogin(userDTO.getLogin().toLowerCase());
                 user.setFirstName(userDTO.getFirstName());
@@ -215,6 +249,7 @@ public class UserService {
         return userRepository
             .findOneByLogin(login)
             .flatMap(user -> userRepository.delete(user).thenReturn(user))
+            .flatMap(user -> userCache.evictOnCommit(user).thenReturn(user))
             .doOnNext(user -> log.debug("Deleted User: {}", user))
             .then();
     }
@@ -234,6 +269,8 @@ public class UserService {
         return SecurityUtils
             .getCurrentUserLogin()
             .flatMap(userRepository::findOneByLogin)
+            // The email may change: drop the copy under the current one
+            .flatMap(user -> userCache.evictOnCommit(user).thenReturn(user))
             .flatMap(user -> {
                 user.setFirstName(firstName);
                 user.setLastName(lastName);
@@ -267,7 +304,8 @@ public class UserService {
                             .fromIterable(user.getAuthorities())
                             .flatMap(authority -> userRepository.saveUserAuthority(savedUser.getId(), authority.getName()))
                             .then(Mono.just(savedUser))
-                    );
+                    )
+                    .flatMap(savedUser -> userCache.evictOnCommit(savedUser).thenReturn(savedUser));
             });
     }
 
@@ -276,7 +314,7 @@ public class UserService {
         return SecurityUtils
             .getCurrentUserLogin()
             .flatMap(userRepository::findOneByLogin)
-            .publishOn(Schedulers.boundedElastic())
+            .publishOn(passwordHashingScheduler.getScheduler())
             .map(user -> {
                 String currentEncryptedPassword = user.getPassword();
                 if (!passwordEncoder.matches(currentClearTextPassword, currentEncryptedPassword)) {
@@ -306,14 +344,14 @@ public class UserService {
         return userRepository.count();
     }
 
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Mono<User> getUserWithAuthoritiesByLogin(String login) {
-        return userRepository.findOneWithAuthoritiesByLogin(login);
+        return userCache.findOneWithAuthoritiesByLogin(login);
     }
 
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Mono<User> getUserWithAuthorities() {
-        return SecurityUtils.getCurrentUserLogin().flatMap(userRepository::findOneWithAuthoritiesByLogin);
+        return SecurityUtils.getCurrentUserLogin().flatMap(userCache::findOneWithAuthoritiesByLogin);
     }
 
     /**
@@ -333,6 +371,7 @@ public class UserService {
                 LocalDateTime.ofInstant(Instant.now().minus(3, ChronoUnit.DAYS), ZoneOffset.UTC)
             )
             .flatMap(user -> userRepository.delete(user).thenReturn(user))
+            .flatMap(user -> userCache.evictOnCommit(user).thenReturn(user))
             .doOnNext(user -> log.debug("Deleted User: {}", user));
     }
 
@@ -340,8 +379,8 @@ public class UserService {
      * Gets a list of all the authorities.
      * @return a list of all the authorities.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Flux<String> getAuthorities() {
-        return authorityRepository.findAll().map(Authority::getName);
+        return userCache.findAuthorityNames().flatMapIterable(names -> names);
     }
 }
@@ -0,0 +1,140 @@
+package com.itsandra.etudiantetranger.service.criteria;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Criteria class for the {@link com.itsandra.etudiantetranger.domain.Etudiant} entity, which receives all the possible
+ * filtering options from the Http GET request parameters.
+ * For example the following could be a valid request:
+ * {@code /etudiants?nom=Dia&nomPaysId=1&dateFrom=2023-01-01}
+ * <p>
+ * {@code nom} and {@code prenom} match by prefix, {@code dateFrom} and {@code dateTo} are inclusive, and the other
+ * fields match by equality. The filters which are not set are ignored.
+ */
+public class EtudiantCriteria implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String nom;
+
+    private String prenom;
+
+    private Long matricule;
+
+    private LocalDate dateFrom;
+
+    private LocalDate dateTo;
+
+    private Long nomNiveauId;
+
+    private Long nomFiliereId;
+
+    private Long nomPaysId;
+
+    public String getNom() {
+        return nom;
+    }
+
+    public void setNom(String nom) {
+        this.nom = nom;
+    }
+
+    public String getPrenom() {
+        return prenom;
+    }
+
+    public void setPrenom(String prenom) {
+        this.prenom = prenom;
+    }
+
+    public Long getMatricule() {
+        return matricule;
+    }
+
+    public void setMatricule(Long matricule) {
+        this.matricule = matricule;
+    }
+
+    public LocalDate getDateFrom() {
+        return dateFrom;
+    }
+
+    public void setDateFrom(LocalDate dateFrom) {
+        this.dateFrom = dateFrom;
+    }
+
+    public LocalDate getDateTo() {
+        return dateTo;
+    }
+
+    public void setDateTo(LocalDate dateTo) {
+        this.dateTo = dateTo;
+    }
+
+    public Long getNomNiveauId() {
+        return nomNiveauId;
+    }
+
+    public void setNomNiveauId(Long nomNiveauId) {
+        this.nomNiveauId = nomNiveauId;
+    }
+
+    public Long getNomFiliereId() {
+        return nomFiliereId;
+    }
+
+    public void setNomFiliereId(Long nomFiliereId) {
+        this.nomFiliereId = nomFiliereId;
+    }
+
+    public Long getNomPaysId() {
+        return nomPaysId;
+    }
+
+    public void setNomPaysId(Long nomPaysId) {
+        this.nomPaysId = nomPaysId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EtudiantCriteria)) {
+            return false;
+        }
+        EtudiantCriteria that = (EtudiantCriteria) o;
+        return (
+            Objects.equals(nom, that.nom) &&
+            Objects.equals(prenom, that.prenom) &&
+            Objects.equals(matricule, that.matricule) &&
+            Objects.equals(dateFrom, that.dateFrom) &&
+            Objects.equals(dateTo, that.dateTo) &&
+            Objects.equals(nomNiveauId, that.nomNiveauId) &&
+            Objects.equals(nomFiliereId, that.nomFiliereId) &&
+            Objects.equals(nomPaysId, that.nomPaysId)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(nom, prenom, matricule, dateFrom, dateTo, nomNiveauId, nomFiliereId, nomPaysId);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "EtudiantCriteria{" +
+            (nom != null ? "nom='" + nom + "', " : "") +
+            (prenom != null ? "prenom='" + prenom + "', " : "") +
+            (matricule != null ? "matricule=" + matricule + ", " : "") +
+            (dateFrom != null ? "dateFrom='" + dateFrom + "', " : "") +
+            (dateTo != null ? "dateTo='" + dateTo + "', " : "") +
+            (nomNiveauId != null ? "nomNiveauId=" + nomNiveauId + ", " : "") +
+            (nomFiliereId != null ? "nomFiliereId=" + nomFiliereId + ", " : "") +
+            (nomPaysId != null ? "nomPaysId=" + nomPaysId + ", " : "") +
+            "}";
+    }
+}
@@ -0,0 +1,73 @@
+package com.itsandra.etudiantetranger.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO for the outcome of one item of a batch: its position in the request, and either its generated id or the key of
+ * the error which prevented its creation.
+ */
+public class BatchItemResultDTO implements Serializable {
+
+    public static final String ERR_ITEM_NULL = "error.itemnull";
+    public static final String ERR_ID_EXISTS = "error.idexists";
+    public static final String ERR_VALIDATION = "error.validation";
+    public static final String ERR_CHUNK_FAILED = "error.chunkfailed";
+
+    private long index;
+
+    private Long id;
+
+    private String error;
+
+    public BatchItemResultDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public static BatchItemResultDTO created(long index, Long id) {
+        BatchItemResultDTO result = new BatchItemResultDTO();
+        result.setIndex(index);
+        result.setId(id);
+        return result;
+    }
+
+    public static BatchItemResultDTO failed(long index, String error) {
+        BatchItemResultDTO result = new BatchItemResultDTO();
+        result.setIndex(index);
+        result.setError(error);
+        return result;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BatchItemResultDTO{" +
+            "index=" + getIndex() +
+            ", id=" + getId() +
+            ", error='" + getError() + "'" +
+            "}";
+    }
+}
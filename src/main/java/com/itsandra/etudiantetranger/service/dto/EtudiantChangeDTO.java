@@ -0,0 +1,64 @@
+package com.itsandra.etudiantetranger.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO for a change of an etudiant: its id, and its new state unless it was deleted.
+ */
+public class EtudiantChangeDTO implements Serializable {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+    }
+
+    private Type type;
+
+    private Long id;
+
+    private EtudiantDTO etudiant;
+
+    public EtudiantChangeDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public EtudiantChangeDTO(Type type, Long id, EtudiantDTO etudiant) {
+        this.type = type;
+        this.id = id;
+        this.etudiant = etudiant;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public EtudiantDTO getEtudiant() {
+        return etudiant;
+    }
+
+    public void setEtudiant(EtudiantDTO etudiant) {
+        this.etudiant = etudiant;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "EtudiantChangeDTO{" +
+            "type=" + getType() +
+            ", id=" + getId() +
+            "}";
+    }
+}
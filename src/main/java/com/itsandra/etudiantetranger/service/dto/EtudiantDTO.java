@@ -3,6 +3,7 @@ package com.itsandra.etudiantetranger.service.dto;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.Objects;
+import javax.validation.constraints.Size;
 
 /**
  * A DTO for the {@link com.itsandra.etudiantetranger.domain.Etudiant} entity.
@@ -11,8 +12,10 @@ public class EtudiantDTO implements Serializable {
 
     private Long id;
 
+    @Size(max = 255)
     private String nom;
 
+    @Size(max = 255)
     private String prenom;
 
     private Long matricule;
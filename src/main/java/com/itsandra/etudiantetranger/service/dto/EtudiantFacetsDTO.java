@@ -0,0 +1,41 @@
+package com.itsandra.etudiantetranger.service.dto;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A DTO for the facet counts of the etudiants: the number of etudiants matching the filters, and for each requested
+ * facet, the number of these etudiants by facet value.
+ */
+public class EtudiantFacetsDTO implements Serializable {
+
+    private long total;
+
+    private Map<String, Map<Long, Long>> facets = new LinkedHashMap<>();
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public Map<String, Map<Long, Long>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Map<Long, Long>> facets) {
+        this.facets = facets;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "EtudiantFacetsDTO{" +
+            "total=" + getTotal() +
+            ", facets=" + getFacets() +
+            "}";
+    }
+}
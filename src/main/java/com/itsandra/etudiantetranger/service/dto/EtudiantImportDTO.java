@@ -0,0 +1,184 @@
+package com.itsandra.etudiantetranger.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO for the progress of an import of etudiants from a CSV file.
+ */
+public class EtudiantImportDTO implements Serializable {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+    }
+
+    /**
+     * A row of the file which couldn't be imported.
+     */
+    public static class RowError implements Serializable {
+
+        private long line;
+
+        private String error;
+
+        public RowError() {
+            // Empty constructor needed for Jackson.
+        }
+
+        public RowError(long line, String error) {
+            this.line = line;
+            this.error = error;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public void setLine(long line) {
+            this.line = line;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "RowError{" +
+                "line=" + getLine() +
+                ", error='" + getError() + "'" +
+                "}";
+        }
+    }
+
+    private String id;
+
+    private String fileName;
+
+    private Status status;
+
+    private String error;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    private long rowsImported;
+
+    private long rowsRejected;
+
+    private double rowsPerSecond;
+
+    private List<RowError> rowErrors = new ArrayList<>();
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * @return the error which stopped the import, if it failed.
+     */
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public void setRowsImported(long rowsImported) {
+        this.rowsImported = rowsImported;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public void setRowsRejected(long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    /**
+     * @return the number of rows imported or rejected per second, since the start of the import.
+     */
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    /**
+     * @return the first rejected rows, with their error.
+     */
+    public List<RowError> getRowErrors() {
+        return rowErrors;
+    }
+
+    public void setRowErrors(List<RowError> rowErrors) {
+        this.rowErrors = rowErrors;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "EtudiantImportDTO{" +
+            "id='" + getId() + "'" +
+            ", fileName='" + getFileName() + "'" +
+            ", status=" + getStatus() +
+            ", rowsImported=" + getRowsImported() +
+            ", rowsRejected=" + getRowsRejected() +
+            ", rowsPerSecond=" + getRowsPerSecond() +
+            "}";
+    }
+}
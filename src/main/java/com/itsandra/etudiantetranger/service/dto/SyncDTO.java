@@ -0,0 +1,104 @@
+package com.itsandra.etudiantetranger.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A DTO for the changes of the etudiants and of their reference data since a version: the rows created or updated, and
+ * the ids of the rows deleted, by entity name.
+ */
+public class SyncDTO implements Serializable {
+
+    private long version;
+
+    private boolean full;
+
+    private List<EtudiantDTO> etudiants = new ArrayList<>();
+
+    private List<PaysDTO> pays = new ArrayList<>();
+
+    private List<NiveauDTO> niveaux = new ArrayList<>();
+
+    private List<FiliereDTO> filieres = new ArrayList<>();
+
+    private Map<String, List<Long>> deleted = new LinkedHashMap<>();
+
+    /**
+     * @return the version to synchronize from next time.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * @return true if the rows are all the rows rather than the changes, so the client must replace its copy.
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    public void setFull(boolean full) {
+        this.full = full;
+    }
+
+    public List<EtudiantDTO> getEtudiants() {
+        return etudiants;
+    }
+
+    public void setEtudiants(List<EtudiantDTO> etudiants) {
+        this.etudiants = etudiants;
+    }
+
+    public List<PaysDTO> getPays() {
+        return pays;
+    }
+
+    public void setPays(List<PaysDTO> pays) {
+        this.pays = pays;
+    }
+
+    public List<NiveauDTO> getNiveaux() {
+        return niveaux;
+    }
+
+    public void setNiveaux(List<NiveauDTO> niveaux) {
+        this.niveaux = niveaux;
+    }
+
+    public List<FiliereDTO> getFilieres() {
+        return filieres;
+    }
+
+    public void setFilieres(List<FiliereDTO> filieres) {
+        this.filieres = filieres;
+    }
+
+    public Map<String, List<Long>> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(Map<String, List<Long>> deleted) {
+        this.deleted = deleted;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SyncDTO{" +
+            "version=" + getVersion() +
+            ", full=" + isFull() +
+            ", etudiants=" + getEtudiants().size() +
+            ", pays=" + getPays().size() +
+            ", niveaux=" + getNiveaux().size() +
+            ", filieres=" + getFilieres().size() +
+            ", deleted=" + getDeleted() +
+            "}";
+    }
+}
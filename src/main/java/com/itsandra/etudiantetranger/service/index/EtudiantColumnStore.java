@@ -0,0 +1,552 @@
+package com.itsandra.etudiantetranger.service.index;
+
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import com.itsandra.etudiantetranger.service.criteria.EtudiantCriteria;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+/**
+ * Columnar copy of the etudiant table, serving the listings without querying the database, enabled by
+ * {@code application.read-model.enabled}.
+ * <p>
+ * Every column is a primitive array indexed by slot, a small integer reused once its etudiant is removed. The names are
+ * dictionary encoded: each distinct string is stored once, and the rows only hold its code. A listing scans the
+ * columns into a bitmap of the matching slots, and a name filter is resolved once against the dictionary instead of
+ * against every row. It then walks the slots presorted by its sort, and stops at the end of its page. The slots are
+ * sorted once by the first listing with a sort, and a write then moves its slot within each kept order by binary search.
+ * <p>
+ * The listings share a read lock, and the writes take the write lock, only for their work in memory.
+ * <p>
+ * Consistency rules:
+ * <ul>
+ *     <li>The writes of this node are applied as soon as they are committed, by the {@link EtudiantIndexes}.</li>
+ *     <li>The writes of the other nodes are only seen after the next catch-up, every
+ *     {@code application.read-model.reload-delay-ms}.</li>
+ *     <li>The names are sorted ignoring case and accents, as the default MySQL collation does, with a {@link Collator}
+ *     of primary strength. They are filtered by prefix ignoring case and accents too, as the {@code LIKE} of the
+ *     database does.</li>
+ *     <li>A listing sorted by another property than a column is left to the database.</li>
+ * </ul>
+ * The memory held by the columns is exposed by the {@value #MEMORY_METER_NAME} gauge, and per etudiant by the
+ * {@value #MEMORY_PER_ETUDIANT_METER_NAME} gauge.
+ */
+@Component
+@ConditionalOnProperty(prefix = "application.read-model", name = "enabled", havingValue = "true")
+public class EtudiantColumnStore implements EtudiantIndex {
+
+    public static final String SIZE_METER_NAME = "read.model.etudiant.size";
+    public static final String MEMORY_METER_NAME = "read.model.etudiant.memory";
+    public static final String MEMORY_PER_ETUDIANT_METER_NAME = "read.model.etudiant.memory.per.etudiant";
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final int NULL_CODE = -1;
+
+    // The number of sorts whose order is kept
+    private static final int MAX_ORDERS = 16;
+
+    // The estimated size of a row: 6 longs and 2 codes in the columns, and an entry of the slot map
+    private static final long ROW_BYTES = 6 * Long.BYTES + 2 * Integer.BYTES + 64L;
+    // The estimated overhead of a dictionary string, of its folded copy and collation key, and of its dictionary entries
+    private static final long STRING_BYTES = 3 * 40 + 64L;
+
+    /**
+     * A comparator of slots, on the primitive slots.
+     */
+    @FunctionalInterface
+    private interface SlotComparator {
+        int compare(int slot, int otherSlot);
+
+        default SlotComparator reversed() {
+            return (slot, otherSlot) -> compare(otherSlot, slot);
+        }
+
+        default SlotComparator thenComparing(SlotComparator next) {
+            return (slot, otherSlot) -> {
+                int comparison = compare(slot, otherSlot);
+                return comparison != 0 ? comparison : next.compare(slot, otherSlot);
+            };
+        }
+    }
+
+    /**
+     * The slots sorted by a sort, which ends by the ids so a slot has a single place.
+     */
+    private static final class Order {
+
+        private final SlotComparator comparator;
+        private int[] slots;
+        private int size;
+
+        Order(SlotComparator comparator, int[] slots) {
+            this.comparator = comparator;
+            this.slots = slots;
+            this.size = slots.length;
+            sort(slots, comparator);
+        }
+
+        /**
+         * Insert a slot at its place, from the current values of its columns.
+         */
+        void insert(int slot) {
+            int index = -search(slot) - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, Math.max(INITIAL_CAPACITY, size * 2));
+            }
+            System.arraycopy(slots, index, slots, index + 1, size - index);
+            slots[index] = slot;
+            size++;
+        }
+
+        /**
+         * Remove a slot, before the values of its columns change.
+         */
+        void remove(int slot) {
+            int index = search(slot);
+            if (index >= 0) {
+                System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+                size--;
+            }
+        }
+
+        /**
+         * @return the index of the slot, or {@code -(insertion point) - 1} if it isn't part of the order.
+         */
+        private int search(int slot) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = comparator.compare(slots[middle], slot);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+
+    /**
+     * The columns of the etudiants, and the dictionary of their names.
+     */
+    private static final class Columns implements Content {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private final Map<Long, Integer> slotsById = new HashMap<>();
+        private final BitSet slots = new BitSet();
+
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private long[] matricules = new long[INITIAL_CAPACITY];
+        private long[] dates = new long[INITIAL_CAPACITY];
+        private long[] paysIds = new long[INITIAL_CAPACITY];
+        private long[] filiereIds = new long[INITIAL_CAPACITY];
+        private long[] niveauIds = new long[INITIAL_CAPACITY];
+        private int[] noms = new int[INITIAL_CAPACITY];
+        private int[] prenoms = new int[INITIAL_CAPACITY];
+
+        private final List<String> dictionary = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+        private long dictionaryChars;
+
+        // The folded strings and the collation keys of the dictionary, by code
+        private final Collator collator = Collator.getInstance(Locale.ROOT);
+        private final List<String> foldedDictionary = new ArrayList<>();
+        private final List<CollationKey> collationKeys = new ArrayList<>();
+
+        // The slots sorted by each requested sort, built by the first listing with the sort and kept up to date by the writes
+        private final Map<Sort, Order> orders = new ConcurrentHashMap<>();
+
+        Columns() {
+            collator.setStrength(Collator.PRIMARY);
+        }
+
+        @Override
+        public void put(Etudiant etudiant) {
+            lock.writeLock().lock();
+            try {
+                Integer slot = slotsById.get(etudiant.getId());
+                if (slot == null) {
+                    slot = slots.nextClearBit(0);
+                    ensureCapacity(slot + 1);
+                    slots.set(slot);
+                    slotsById.put(etudiant.getId(), slot);
+                } else {
+                    for (Order order : orders.values()) {
+                        order.remove(slot);
+                    }
+                }
+                ids[slot] = etudiant.getId();
+                matricules[slot] = toColumn(etudiant.getMatricule());
+                dates[slot] = etudiant.getDate() != null ? etudiant.getDate().toEpochDay() : NULL_LONG;
+                paysIds[slot] = toColumn(etudiant.getNomPaysId());
+                filiereIds[slot] = toColumn(etudiant.getNomFiliereId());
+                niveauIds[slot] = toColumn(etudiant.getNomNiveauId());
+                noms[slot] = encode(etudiant.getNom());
+                prenoms[slot] = encode(etudiant.getPrenom());
+                for (Order order : orders.values()) {
+                    order.insert(slot);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void remove(Long id) {
+            lock.writeLock().lock();
+            try {
+                Integer slot = slotsById.remove(id);
+                if (slot != null) {
+                    for (Order order : orders.values()) {
+                        order.remove(slot);
+                    }
+                    slots.clear(slot);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private int size() {
+            lock.readLock().lock();
+            try {
+                return slotsById.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private long memory() {
+            lock.readLock().lock();
+            try {
+                long orderBytes = orders.values().stream().mapToLong(order -> (long) order.slots.length * Integer.BYTES).sum();
+                // The strings removed from every row stay in the dictionary until the next reload
+                return ids.length * ROW_BYTES + dictionary.size() * STRING_BYTES + dictionaryChars * Character.BYTES + orderBytes;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private Optional<Page<Etudiant>> findPage(EtudiantCriteria criteria, Pageable pageable) {
+            lock.readLock().lock();
+            try {
+                Order order = order(pageable.getSort());
+                if (order == null) {
+                    return Optional.empty();
+                }
+                BitSet matching = matching(criteria);
+                int total = matching.cardinality();
+                long from = pageable.isPaged() ? pageable.getOffset() : 0;
+                long to = pageable.isPaged() ? from + pageable.getPageSize() : total;
+                List<Etudiant> content = new ArrayList<>((int) Math.max(0, Math.min(to, total) - from));
+                long rank = 0;
+                for (int i = 0; i < order.size && rank < to; i++) {
+                    int slot = order.slots[i];
+                    if (matching.get(slot)) {
+                        if (rank >= from) {
+                            content.add(read(slot));
+                        }
+                        rank++;
+                    }
+                }
+                return Optional.of(new PageImpl<>(content, pageable, total));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * @return the slots matching the criteria.
+         */
+        private BitSet matching(EtudiantCriteria criteria) {
+            BitSet nomCodes = criteria.getNom() != null ? codesStartingWith(criteria.getNom()) : null;
+            BitSet prenomCodes = criteria.getPrenom() != null ? codesStartingWith(criteria.getPrenom()) : null;
+            long matricule = toColumn(criteria.getMatricule());
+            long dateFrom = criteria.getDateFrom() != null ? criteria.getDateFrom().toEpochDay() : NULL_LONG;
+            long dateTo = criteria.getDateTo() != null ? criteria.getDateTo().toEpochDay() : NULL_LONG;
+            long paysId = toColumn(criteria.getNomPaysId());
+            long filiereId = toColumn(criteria.getNomFiliereId());
+            long niveauId = toColumn(criteria.getNomNiveauId());
+
+            BitSet matching = new BitSet(ids.length);
+            for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+                if (
+                    (nomCodes == null || (noms[slot] != NULL_CODE && nomCodes.get(noms[slot]))) &&
+                    (prenomCodes == null || (prenoms[slot] != NULL_CODE && prenomCodes.get(prenoms[slot]))) &&
+                    (matricule == NULL_LONG || matricules[slot] == matricule) &&
+                    (dateFrom == NULL_LONG || (dates[slot] != NULL_LONG && dates[slot] >= dateFrom)) &&
+                    (dateTo == NULL_LONG || (dates[slot] != NULL_LONG && dates[slot] <= dateTo)) &&
+                    (paysId == NULL_LONG || paysIds[slot] == paysId) &&
+                    (filiereId == NULL_LONG || filiereIds[slot] == filiereId) &&
+                    (niveauId == NULL_LONG || niveauIds[slot] == niveauId)
+                ) {
+                    matching.set(slot);
+                }
+            }
+            return matching;
+        }
+
+        /**
+         * Get all the slots in the order of the sort, sorting them only for the first listing with this sort. Called
+         * with the read lock, so the columns can't change while they are sorted.
+         *
+         * @return the sorted slots, or null if a property of the sort isn't a column.
+         */
+        private Order order(Sort sort) {
+            Order order = orders.get(sort);
+            if (order != null) {
+                return order;
+            }
+            SlotComparator comparator = comparator(sort);
+            if (comparator == null) {
+                return null;
+            }
+            order = new Order(comparator, slots.stream().toArray());
+            if (orders.size() >= MAX_ORDERS) {
+                orders.clear();
+            }
+            Order witness = orders.putIfAbsent(sort, order);
+            return witness != null ? witness : order;
+        }
+
+        /**
+         * @return the comparator of the slots for the sort, ending by their ids, or null if a property isn't a column.
+         */
+        private SlotComparator comparator(Sort sort) {
+            SlotComparator comparator = null;
+            for (Sort.Order order : sort) {
+                SlotComparator column = column(order.getProperty());
+                if (column == null) {
+                    return null;
+                }
+                column = order.isAscending() ? column : column.reversed();
+                comparator = comparator == null ? column : comparator.thenComparing(column);
+            }
+            SlotComparator byId = (slot, otherSlot) -> Long.compare(ids[slot], ids[otherSlot]);
+            return comparator == null ? byId : comparator.thenComparing(byId);
+        }
+
+        /**
+         * @return the ascending comparator of a column, with the nulls first, or null if the property isn't a column.
+         */
+        private SlotComparator column(String property) {
+            switch (property) {
+                case "id":
+                    return (slot, otherSlot) -> Long.compare(ids[slot], ids[otherSlot]);
+                case "matricule":
+                    return (slot, otherSlot) -> Long.compare(matricules[slot], matricules[otherSlot]);
+                case "date":
+                    return (slot, otherSlot) -> Long.compare(dates[slot], dates[otherSlot]);
+                case "nomPaysId":
+                    return (slot, otherSlot) -> Long.compare(paysIds[slot], paysIds[otherSlot]);
+                case "nomFiliereId":
+                    return (slot, otherSlot) -> Long.compare(filiereIds[slot], filiereIds[otherSlot]);
+                case "nomNiveauId":
+                    return (slot, otherSlot) -> Long.compare(niveauIds[slot], niveauIds[otherSlot]);
+                case "nom":
+                    return (slot, otherSlot) -> compareNames(noms[slot], noms[otherSlot]);
+                case "prenom":
+                    return (slot, otherSlot) -> compareNames(prenoms[slot], prenoms[otherSlot]);
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * Compare two names by their collation keys, ignoring case and accents as the default MySQL collation does, with
+         * the nulls first.
+         */
+        private int compareNames(int code, int otherCode) {
+            if (code == otherCode) {
+                return 0;
+            } else if (code == NULL_CODE) {
+                return -1;
+            } else if (otherCode == NULL_CODE) {
+                return 1;
+            }
+            return collationKeys.get(code).compareTo(collationKeys.get(otherCode));
+        }
+
+        private BitSet codesStartingWith(String prefix) {
+            String foldedPrefix = Names.fold(prefix);
+            BitSet matching = new BitSet(dictionary.size());
+            for (int code = 0; code < dictionary.size(); code++) {
+                if (foldedDictionary.get(code).startsWith(foldedPrefix)) {
+                    matching.set(code);
+                }
+            }
+            return matching;
+        }
+
+        private Etudiant read(int slot) {
+            Etudiant etudiant = new Etudiant()
+                .nom(decode(noms[slot]))
+                .prenom(decode(prenoms[slot]))
+                .matricule(fromColumn(matricules[slot]))
+                .date(dates[slot] != NULL_LONG ? LocalDate.ofEpochDay(dates[slot]) : null);
+            etudiant.setId(ids[slot]);
+            etudiant.setNomPaysId(fromColumn(paysIds[slot]));
+            etudiant.setNomFiliereId(fromColumn(filiereIds[slot]));
+            etudiant.setNomNiveauId(fromColumn(niveauIds[slot]));
+            return etudiant;
+        }
+
+        private int encode(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            return codes.computeIfAbsent(
+                value,
+                newValue -> {
+                    String folded = Names.fold(newValue);
+                    dictionary.add(newValue);
+                    foldedDictionary.add(folded);
+                    collationKeys.add(collator.getCollationKey(newValue));
+                    dictionaryChars += newValue.length() + folded.length();
+                    return dictionary.size() - 1;
+                }
+            );
+        }
+
+        private String decode(int code) {
+            return code != NULL_CODE ? dictionary.get(code) : null;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, newCapacity);
+            matricules = Arrays.copyOf(matricules, newCapacity);
+            dates = Arrays.copyOf(dates, newCapacity);
+            paysIds = Arrays.copyOf(paysIds, newCapacity);
+            filiereIds = Arrays.copyOf(filiereIds, newCapacity);
+            niveauIds = Arrays.copyOf(niveauIds, newCapacity);
+            noms = Arrays.copyOf(noms, newCapacity);
+            prenoms = Arrays.copyOf(prenoms, newCapacity);
+        }
+    }
+
+    private volatile Columns content = new Columns();
+
+    public EtudiantColumnStore(MeterRegistry meterRegistry) {
+        Gauge
+            .builder(SIZE_METER_NAME, this, EtudiantColumnStore::size)
+            .description("Number of etudiants in the read model")
+            .register(meterRegistry);
+        Gauge
+            .builder(MEMORY_METER_NAME, this, EtudiantColumnStore::memory)
+            .description("Estimated memory held by the read model of the etudiants")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge
+            .builder(MEMORY_PER_ETUDIANT_METER_NAME, this, store -> store.size() == 0 ? 0 : store.memory() / store.size())
+            .description("Estimated memory held by the read model per etudiant")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Content newContent() {
+        return new Columns();
+    }
+
+    @Override
+    public void swap(Content content) {
+        this.content = (Columns) content;
+    }
+
+    @Override
+    public void put(Etudiant etudiant) {
+        content.put(etudiant);
+    }
+
+    @Override
+    public void remove(Long id) {
+        content.remove(id);
+    }
+
+    public int size() {
+        return content.size();
+    }
+
+    /**
+     * @return the estimated number of bytes held by the columns and the dictionary.
+     */
+    public long memory() {
+        return content.memory();
+    }
+
+    /**
+     * Get a page of the etudiants matching the criteria.
+     * <p>
+     * The etudiants have the ids of their relationships, but not their names.
+     *
+     * @param criteria the filters of the etudiants.
+     * @param pageable the pagination information.
+     * @return the page of etudiants, or empty if the sort isn't supported by the read model.
+     */
+    public Optional<Page<Etudiant>> findPage(EtudiantCriteria criteria, Pageable pageable) {
+        return content.findPage(criteria, pageable);
+    }
+
+    /**
+     * Sort slots with a merge sort, as {@link Arrays#sort(int[])} has no comparator.
+     */
+    private static void sort(int[] slots, SlotComparator comparator) {
+        int[] buffer = new int[slots.length];
+        for (int width = 1; width < slots.length; width *= 2) {
+            for (int from = 0; from < slots.length - width; from += 2 * width) {
+                merge(slots, buffer, from, from + width, Math.min(from + 2 * width, slots.length), comparator);
+            }
+        }
+    }
+
+    private static void merge(int[] slots, int[] buffer, int from, int middle, int to, SlotComparator comparator) {
+        System.arraycopy(slots, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && comparator.compare(buffer[left], buffer[right]) <= 0)) {
+                slots[i] = buffer[left++];
+            } else {
+                slots[i] = buffer[right++];
+            }
+        }
+    }
+
+    private static long toColumn(Long value) {
+        return value != null ? value : NULL_LONG;
+    }
+
+    private static Long fromColumn(long value) {
+        return value != NULL_LONG ? value : null;
+    }
+}
@@ -0,0 +1,235 @@
+package com.itsandra.etudiantetranger.service.index;
+
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bitmap indexes of the etudiants by pays, filiere, niveau and year of their date, to count the etudiants of any
+ * intersection of facets without querying the database.
+ * <p>
+ * Every indexed etudiant gets a slot, a small integer which is reused once the etudiant is removed, so the bitmaps stay
+ * dense: one bit per etudiant for each facet value. A count is a few word-wide {@code AND} over the bitmaps, in
+ * microseconds for the size of this table, made in two scratch bitmaps reused by all the counts: a count allocates no
+ * bitmap, and without filters it reads the cardinality of each bitmap as is.
+ * <p>
+ * The updates and the counts hold the monitor of the content of the index, but only for their work in memory.
+ */
+@Component
+public class EtudiantFacetIndex implements EtudiantIndex {
+
+    /**
+     * A dimension the etudiants can be counted by.
+     */
+    public enum Facet {
+        PAYS(Etudiant::getNomPaysId),
+        FILIERE(Etudiant::getNomFiliereId),
+        NIVEAU(Etudiant::getNomNiveauId),
+        YEAR(etudiant -> etudiant.getDate() != null ? Long.valueOf(etudiant.getDate().getYear()) : null);
+
+        private final Function<Etudiant, Long> value;
+
+        Facet(Function<Etudiant, Long> value) {
+            this.value = value;
+        }
+
+        /**
+         * @return the name of the facet in the API.
+         */
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * @param name the name of a facet in the API.
+         * @return the facet, or null if there is no facet with this name.
+         */
+        public static Facet fromName(String name) {
+            for (Facet facet : values()) {
+                if (facet.getName().equals(name)) {
+                    return facet;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The number of etudiants matching the filters, and their counts by facet value.
+     */
+    public static final class Counts {
+
+        private final long total;
+        private final Map<Facet, Map<Long, Long>> facets;
+
+        Counts(long total, Map<Facet, Map<Long, Long>> facets) {
+            this.total = total;
+            this.facets = facets;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public Map<Facet, Map<Long, Long>> getFacets() {
+            return facets;
+        }
+    }
+
+    private static final Facet[] FACETS = Facet.values();
+
+    /**
+     * The slots of the etudiants, and the bitmaps of each facet value.
+     */
+    private static final class Bitmaps implements Content {
+
+        private final Map<Long, Integer> slotsById = new HashMap<>();
+        private final List<Long[]> valuesBySlot = new ArrayList<>();
+        private final BitSet slots = new BitSet();
+        private final Map<Facet, Map<Long, BitSet>> bitmaps = new EnumMap<>(Facet.class);
+        // The working bitmaps of the counts, guarded by this
+        private final BitSet matching = new BitSet();
+        private final BitSet scratch = new BitSet();
+
+        Bitmaps() {
+            for (Facet facet : FACETS) {
+                bitmaps.put(facet, new HashMap<>());
+            }
+        }
+
+        @Override
+        public synchronized void put(Etudiant etudiant) {
+            Integer slot = slotsById.get(etudiant.getId());
+            if (slot == null) {
+                slot = slots.nextClearBit(0);
+                slots.set(slot);
+                slotsById.put(etudiant.getId(), slot);
+            } else {
+                unset(slot);
+            }
+            Long[] values = new Long[FACETS.length];
+            for (Facet facet : FACETS) {
+                values[facet.ordinal()] = facet.value.apply(etudiant);
+                if (values[facet.ordinal()] != null) {
+                    bitmaps.get(facet).computeIfAbsent(values[facet.ordinal()], value -> new BitSet()).set(slot);
+                }
+            }
+            if (slot < valuesBySlot.size()) {
+                valuesBySlot.set(slot, values);
+            } else {
+                valuesBySlot.add(values);
+            }
+        }
+
+        @Override
+        public synchronized void remove(Long id) {
+            Integer slot = slotsById.remove(id);
+            if (slot != null) {
+                unset(slot);
+                valuesBySlot.set(slot, null);
+                slots.clear(slot);
+            }
+        }
+
+        private synchronized int size() {
+            return slotsById.size();
+        }
+
+        private synchronized Counts count(Map<Facet, Set<Long>> filters, Set<Facet> facets) {
+            matching.clear();
+            matching.or(slots);
+            filters.forEach((facet, values) -> {
+                scratch.clear();
+                for (Long value : values) {
+                    BitSet bitmap = bitmaps.get(facet).get(value);
+                    if (bitmap != null) {
+                        scratch.or(bitmap);
+                    }
+                }
+                matching.and(scratch);
+            });
+            Map<Facet, Map<Long, Long>> counts = new EnumMap<>(Facet.class);
+            for (Facet facet : facets) {
+                Map<Long, Long> facetCounts = new TreeMap<>();
+                bitmaps
+                    .get(facet)
+                    .forEach((value, bitmap) -> {
+                        if (filters.isEmpty()) {
+                            facetCounts.put(value, (long) bitmap.cardinality());
+                        } else if (bitmap.intersects(matching)) {
+                            scratch.clear();
+                            scratch.or(bitmap);
+                            scratch.and(matching);
+                            facetCounts.put(value, (long) scratch.cardinality());
+                        }
+                    });
+                counts.put(facet, facetCounts);
+            }
+            return new Counts(matching.cardinality(), counts);
+        }
+
+        private void unset(int slot) {
+            Long[] values = valuesBySlot.get(slot);
+            for (Facet facet : FACETS) {
+                Long value = values[facet.ordinal()];
+                if (value != null) {
+                    Map<Long, BitSet> facetBitmaps = bitmaps.get(facet);
+                    BitSet bitmap = facetBitmaps.get(value);
+                    bitmap.clear(slot);
+                    if (bitmap.isEmpty()) {
+                        facetBitmaps.remove(value);
+                    }
+                }
+            }
+        }
+    }
+
+    private volatile Bitmaps content = new Bitmaps();
+
+    @Override
+    public Content newContent() {
+        return new Bitmaps();
+    }
+
+    @Override
+    public void swap(Content content) {
+        this.content = (Bitmaps) content;
+    }
+
+    @Override
+    public void put(Etudiant etudiant) {
+        content.put(etudiant);
+    }
+
+    @Override
+    public void remove(Long id) {
+        content.remove(id);
+    }
+
+    public int size() {
+        return content.size();
+    }
+
+    /**
+     * Count the etudiants matching the filters, by the values of the requested facets.
+     * <p>
+     * An etudiant matches the filters if, for each filtered facet, its value is one of the filter values. The etudiants
+     * without a value for a facet aren't counted by this facet, but are part of the total.
+     *
+     * @param filters the accepted values of each filtered facet.
+     * @param facets the facets to count by.
+     * @return the counts, by facet and then by value in ascending order.
+     */
+    public Counts count(Map<Facet, Set<Long>> filters, Set<Facet> facets) {
+        return content.count(filters, facets);
+    }
+}
@@ -0,0 +1,56 @@
+package com.itsandra.etudiantetranger.service.index;
+
+import com.itsandra.etudiantetranger.domain.Etudiant;
+
+/**
+ * An in-memory index over the etudiants, loaded from the database by {@link EtudiantIndexes} and kept current by the
+ * writes of the {@link com.itsandra.etudiantetranger.service.EtudiantService}.
+ * <p>
+ * The etudiants of an index are held by its {@link Content}. A full load fills a new content off to the side while the
+ * current one keeps serving the reads and the writes, then {@linkplain #swap(Content) swaps} it in at once.
+ * <p>
+ * The methods can be called concurrently, from non-blocking threads: implementations must be thread-safe, and may only
+ * hold a lock for a short update in memory, never while waiting for I/O.
+ */
+public interface EtudiantIndex {
+    /**
+     * The etudiants of an index.
+     */
+    interface Content {
+        /**
+         * Add an etudiant, or replace the previous version of an etudiant with the same id.
+         * @param etudiant the etudiant, with its id.
+         */
+        void put(Etudiant etudiant);
+
+        /**
+         * Remove an etudiant, if it is part of the content.
+         * @param id the id of the etudiant.
+         */
+        void remove(Long id);
+    }
+
+    /**
+     * Create an empty content, to be loaded without being seen by the reads of the index.
+     * @return the new content.
+     */
+    Content newContent();
+
+    /**
+     * Replace the content of the index at once: a read sees either all the previous etudiants, or all the new ones.
+     * @param content the new content, created by {@link #newContent()}.
+     */
+    void swap(Content content);
+
+    /**
+     * Add an etudiant, or replace the previous version of an etudiant with the same id.
+     * @param etudiant the etudiant, with its id.
+     */
+    void put(Etudiant etudiant);
+
+    /**
+     * Remove an etudiant, if it is indexed.
+     * @param id the id of the etudiant.
+     */
+    void remove(Long id);
+}
@@ -0,0 +1,259 @@
+package com.itsandra.etudiantetranger.service.index;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import com.itsandra.etudiantetranger.repository.ChangeVersionRepository;
+import com.itsandra.etudiantetranger.repository.EtudiantRepository;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.IntervalTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Loads all the {@link EtudiantIndex} beans with a single scan of the etudiant table, and forwards them the committed
+ * writes.
+ * <p>
+ * The load starts on the first use of an index, or when the application is ready if the read model is enabled, as the
+ * listings then need it. It fills new contents off to the side, while the current ones keep serving the reads and the
+ * writes, and then swaps them all in at once: a read never sees a partially loaded index. The writes which happen during
+ * the load are recorded, and replayed on the new contents before the swap unless the scan already read a later version
+ * of their etudiant, so they aren't lost.
+ * <p>
+ * Once loaded, the indexes catch up with the writes of the other nodes every
+ * {@code application.read-model.reload-delay-ms}: only the etudiants whose change version is newer than the last load,
+ * and the tombstones of the deleted ones, are read again.
+ */
+@Component
+public class EtudiantIndexes implements SchedulingConfigurer {
+
+    /**
+     * A write made during a load: the put of an etudiant, or the removal of an id.
+     */
+    private static final class Write {
+
+        private final Long id;
+        private final Etudiant etudiant;
+
+        Write(Long id, Etudiant etudiant) {
+            this.id = id;
+            this.etudiant = etudiant;
+        }
+    }
+
+    private final Logger log = LoggerFactory.getLogger(EtudiantIndexes.class);
+
+    private static final String ENTITY_NAME = "etudiant";
+
+    private final EtudiantRepository etudiantRepository;
+    private final ChangeVersionRepository changeVersionRepository;
+    private final List<EtudiantIndex> indexes;
+    private final boolean loadOnStartup;
+    private final long reloadDelayMs;
+    private final AtomicReference<Mono<Void>> loaded = new AtomicReference<>();
+    private final AtomicReference<Mono<Void>> loading = new AtomicReference<>();
+
+    // The change version up to which the indexes hold all the committed writes
+    private volatile long version;
+
+    // The writes made since the start of the running load, guarded by this
+    private List<Write> pending;
+
+    public EtudiantIndexes(
+        EtudiantRepository etudiantRepository,
+        ChangeVersionRepository changeVersionRepository,
+        List<EtudiantIndex> indexes,
+        ApplicationProperties applicationProperties
+    ) {
+        this.etudiantRepository = etudiantRepository;
+        this.changeVersionRepository = changeVersionRepository;
+        this.indexes = indexes;
+        this.loadOnStartup = applicationProperties.getReadModel().isEnabled();
+        this.reloadDelayMs = applicationProperties.getReadModel().getReloadDelayMs();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (loadOnStartup) {
+            ready().subscribe(null, e -> log.warn("Could not load the etudiant indexes: {}", e.getMessage()));
+        }
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addFixedDelayTask(new IntervalTask(this::reloadPeriodically, reloadDelayMs, reloadDelayMs));
+    }
+
+    public void reloadPeriodically() {
+        if (loaded.get() != null) {
+            catchUp().subscribe(null, e -> log.warn("Could not catch up the etudiant indexes: {}", e.getMessage()));
+        }
+    }
+
+    /**
+     * Wait for the indexes to be loaded once, starting the load if needed.
+     * @return a Mono completing once the indexes are loaded.
+     */
+    public Mono<Void> ready() {
+        Mono<Void> current = loaded.get();
+        if (current != null) {
+            return current;
+        }
+        Mono<Void> load = reload().doOnError(e -> loaded.set(null)).cache();
+        Mono<Void> witness = loaded.compareAndExchange(null, load);
+        return witness != null ? witness : load;
+    }
+
+    /**
+     * Load the indexes again from the database, and swap them in: the current indexes serve the reads until then.
+     * @return a Mono completing once the indexes are swapped, which is the running load if there is one.
+     */
+    public Mono<Void> reload() {
+        return share(this::load);
+    }
+
+    /**
+     * Apply the writes committed since the last load, on this node or another one, to the current indexes.
+     * @return a Mono completing once they are applied, which is the running load if there is one.
+     */
+    public Mono<Void> catchUp() {
+        return share(this::loadChanges);
+    }
+
+    private Mono<Void> share(Supplier<Mono<Void>> loader) {
+        Mono<Void> current = loading.get();
+        if (current != null) {
+            return current;
+        }
+        Mono<Void> load = loader.get().doFinally(signal -> loading.set(null)).cache();
+        Mono<Void> witness = loading.compareAndExchange(null, load);
+        return witness != null ? witness : load;
+    }
+
+    public synchronized void put(Etudiant etudiant) {
+        indexes.forEach(index -> index.put(etudiant));
+        if (pending != null) {
+            pending.add(new Write(etudiant.getId(), etudiant));
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        indexes.forEach(index -> index.remove(id));
+        if (pending != null) {
+            pending.add(new Write(id, null));
+        }
+    }
+
+    private Mono<Void> load() {
+        return Mono
+            .defer(() -> {
+                long start = System.currentTimeMillis();
+                long committed = changeVersionRepository.committed();
+                List<EtudiantIndex.Content> contents = indexes.stream().map(EtudiantIndex::newContent).collect(Collectors.toList());
+                // The version of each etudiant read by the scan, which runs on one thread at a time
+                Map<Long, Long> versions = new HashMap<>();
+                startRecording();
+                return etudiantRepository
+                    .findAll()
+                    .doOnNext(etudiant -> {
+                        versions.put(etudiant.getId(), etudiant.getChangeVersion());
+                        contents.forEach(content -> content.put(etudiant));
+                    })
+                    .count()
+                    .doOnNext(count -> {
+                        swap(contents, versions);
+                        version = committed;
+                        log.info("Loaded {} etudiants in {} indexes in {} ms", count, indexes.size(), System.currentTimeMillis() - start);
+                    })
+                    .doFinally(signal -> stopRecording());
+            })
+            .then();
+    }
+
+    private Mono<Void> loadChanges() {
+        return Mono.defer(() -> {
+            long since = version;
+            long committed = changeVersionRepository.committed();
+            // Read on one thread at a time
+            Map<Long, Etudiant> changed = new HashMap<>();
+            Set<Long> removed = new HashSet<>();
+            startRecording();
+            return etudiantRepository
+                .findAllBy(null, where("changeVersion").greaterThan(since))
+                .doOnNext(etudiant -> changed.put(etudiant.getId(), etudiant))
+                .thenMany(changeVersionRepository.findTombstones(since))
+                .filter(tombstone -> ENTITY_NAME.equals(tombstone.getT1()))
+                .doOnNext(tombstone -> removed.add(tombstone.getT2()))
+                .then(
+                    Mono.fromRunnable(() -> {
+                        apply(changed, removed);
+                        version = committed;
+                        log.debug("Caught up the etudiant indexes with {} changes and {} deletions", changed.size(), removed.size());
+                    })
+                )
+                .doFinally(signal -> stopRecording())
+                .then();
+        });
+    }
+
+    private synchronized void startRecording() {
+        pending = new ArrayList<>();
+    }
+
+    private synchronized void stopRecording() {
+        pending = null;
+    }
+
+    /**
+     * Replay the writes recorded during the load on the new contents, and swap them in, without letting a write in.
+     */
+    private synchronized void swap(List<EtudiantIndex.Content> contents, Map<Long, Long> versions) {
+        for (Write write : pending) {
+            if (write.etudiant == null) {
+                contents.forEach(content -> content.remove(write.id));
+            } else if (isNewer(write.etudiant, versions.get(write.id))) {
+                contents.forEach(content -> content.put(write.etudiant));
+            }
+        }
+        pending = null;
+        for (int i = 0; i < indexes.size(); i++) {
+            indexes.get(i).swap(contents.get(i));
+        }
+    }
+
+    /**
+     * Apply the changes read from the database to the current indexes, unless a write recorded since then is newer.
+     */
+    private synchronized void apply(Map<Long, Etudiant> changed, Set<Long> removed) {
+        Map<Long, Write> written = new HashMap<>();
+        pending.forEach(write -> written.put(write.id, write));
+        for (Etudiant etudiant : changed.values()) {
+            Write write = written.get(etudiant.getId());
+            boolean superseded = write != null && (write.etudiant == null || isNewer(write.etudiant, etudiant.getChangeVersion()));
+            if (!superseded && !removed.contains(etudiant.getId())) {
+                indexes.forEach(index -> index.put(etudiant));
+            }
+        }
+        removed.forEach(id -> indexes.forEach(index -> index.remove(id)));
+        pending = null;
+    }
+
+    private static boolean isNewer(Etudiant etudiant, Long scannedVersion) {
+        return scannedVersion == null || etudiant.getChangeVersion() == null || etudiant.getChangeVersion() > scannedVersion;
+    }
+}
@@ -0,0 +1,264 @@
+package com.itsandra.etudiantetranger.service.index;
+
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Full-text index of the names of the etudiants, to search them by any part of their nom or prenom, ignoring case and
+ * accents: "helene" finds "Hélène".
+ * <p>
+ * The names are normalized and split into words, whose trigrams are kept in an inverted index. A search intersects the
+ * postings of the trigrams of its terms, then checks the remaining candidates against their normalized names, so the
+ * results are exact. Terms shorter than a trigram are only checked against the candidates of the other terms, so a query
+ * needs at least one term of {@link #MIN_TERM_LENGTH} characters: it would otherwise scan all the names.
+ */
+@Component
+public class EtudiantSearchIndex implements EtudiantIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * The length of the longest term of a query below which it isn't searched.
+     */
+    public static final int MIN_TERM_LENGTH = GRAM_LENGTH;
+
+    private static final int EXACT_WORD_SCORE = 3;
+    private static final int WORD_PREFIX_SCORE = 2;
+    private static final int SUBSTRING_SCORE = 1;
+
+    /**
+     * The normalized names of an etudiant.
+     */
+    private static final class Document {
+
+        private final Long id;
+        private final String[] words;
+
+        Document(Long id, String[] words) {
+            this.id = id;
+            this.words = words;
+        }
+    }
+
+    private static final class Match {
+
+        private final Long id;
+        private final int score;
+
+        Match(Long id, int score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    /**
+     * The documents and the postings of their trigrams.
+     */
+    private static final class Postings implements Content {
+
+        private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+        private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+        @Override
+        public void put(Etudiant etudiant) {
+            String names =
+                (etudiant.getNom() != null ? etudiant.getNom() : "") + " " + (etudiant.getPrenom() != null ? etudiant.getPrenom() : "");
+            Document document = new Document(etudiant.getId(), words(names));
+            Document previous = documents.put(document.id, document);
+            Set<String> grams = grams(document.words);
+            if (previous != null) {
+                Set<String> previousGrams = grams(previous.words);
+                previousGrams.removeAll(grams);
+                previousGrams.forEach(gram -> removePosting(gram, document.id));
+            }
+            grams.forEach(gram -> addPosting(gram, document.id));
+        }
+
+        @Override
+        public void remove(Long id) {
+            Document previous = documents.remove(id);
+            if (previous != null) {
+                grams(previous.words).forEach(gram -> removePosting(gram, id));
+            }
+        }
+
+        private Page<Long> search(String[] terms, Pageable pageable) {
+            List<Match> matches = new ArrayList<>();
+            for (Long id : candidates(terms)) {
+                Document document = documents.get(id);
+                int score = document != null ? score(document, terms) : 0;
+                if (score > 0) {
+                    matches.add(new Match(id, score));
+                }
+            }
+            matches.sort(Comparator.comparingInt((Match match) -> -match.score).thenComparing(match -> match.id));
+            int from = (int) Math.min(pageable.getOffset(), matches.size());
+            int to = Math.min(from + pageable.getPageSize(), matches.size());
+            List<Long> ids = new ArrayList<>(to - from);
+            for (Match match : matches.subList(from, to)) {
+                ids.add(match.id);
+            }
+            return new PageImpl<>(ids, pageable, matches.size());
+        }
+
+        /**
+         * The ids of the documents containing all the trigrams of the terms, at least one of which has trigrams.
+         */
+        private Collection<Long> candidates(String[] terms) {
+            List<Set<Long>> termPostings = new ArrayList<>();
+            for (String gram : grams(terms)) {
+                Set<Long> posting = postings.get(gram);
+                if (posting == null) {
+                    return List.of();
+                }
+                termPostings.add(posting);
+            }
+            termPostings.sort(Comparator.comparingInt(Set::size));
+            Set<Long> candidates = new HashSet<>(termPostings.get(0));
+            for (int i = 1; i < termPostings.size() && !candidates.isEmpty(); i++) {
+                candidates.retainAll(termPostings.get(i));
+            }
+            return candidates;
+        }
+
+        private void addPosting(String gram, Long id) {
+            // Updated inside compute, so it can't race with the removal of an emptied posting
+            postings.compute(gram, (key, ids) -> {
+                Set<Long> posting = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                posting.add(id);
+                return posting;
+            });
+        }
+
+        private void removePosting(String gram, Long id) {
+            postings.computeIfPresent(gram, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private volatile Postings content = new Postings();
+
+    @Override
+    public Content newContent() {
+        return new Postings();
+    }
+
+    @Override
+    public void swap(Content content) {
+        this.content = (Postings) content;
+    }
+
+    @Override
+    public void put(Etudiant etudiant) {
+        content.put(etudiant);
+    }
+
+    @Override
+    public void remove(Long id) {
+        content.remove(id);
+    }
+
+    public int size() {
+        return content.documents.size();
+    }
+
+    /**
+     * Search the etudiants whose names contain all the words of the query.
+     * <p>
+     * The results are ranked by how well their words match the terms: a whole word first, then a word prefix, then
+     * any part of a word, and by id for the same score.
+     * @param query the words to search, in any case and with or without accents.
+     * @param pageable the page of results.
+     * @return the page of the ids of the matching etudiants, empty if the query is not {@linkplain #isSearchable(String)
+     * searchable}.
+     */
+    public Page<Long> search(String query, Pageable pageable) {
+        String[] terms = words(query);
+        if (!hasLongTerm(terms)) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+        return content.search(terms, pageable);
+    }
+
+    /**
+     * @param query the words to search.
+     * @return true if one of the words has at least {@link #MIN_TERM_LENGTH} characters once normalized.
+     */
+    public static boolean isSearchable(String query) {
+        return hasLongTerm(words(query));
+    }
+
+    private static boolean hasLongTerm(String[] terms) {
+        for (String term : terms) {
+            if (term.length() >= MIN_TERM_LENGTH) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the score of the document, or 0 if one of the terms isn't part of its words.
+     */
+    private static int score(Document document, String[] terms) {
+        int score = 0;
+        for (String term : terms) {
+            int termScore = 0;
+            for (String word : document.words) {
+                if (word.equals(term)) {
+                    termScore = EXACT_WORD_SCORE;
+                    break;
+                } else if (word.startsWith(term)) {
+                    termScore = Math.max(termScore, WORD_PREFIX_SCORE);
+                } else if (termScore == 0 && word.contains(term)) {
+                    termScore = SUBSTRING_SCORE;
+                }
+            }
+            if (termScore == 0) {
+                return 0;
+            }
+            score += termScore;
+        }
+        return score;
+    }
+
+    private static Set<String> grams(String[] words) {
+        Set<String> grams = new HashSet<>();
+        for (String word : words) {
+            for (int i = 0; i + GRAM_LENGTH <= word.length(); i++) {
+                grams.add(word.substring(i, i + GRAM_LENGTH));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Split a text into normalized words: lower case, without accents, and with the ligatures expanded.
+     */
+    static String[] words(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String folded = Names.fold(text);
+        StringBuilder normalized = new StringBuilder(folded.length());
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            normalized.append(Character.isLetterOrDigit(c) ? c : ' ');
+        }
+        String trimmed = normalized.toString().trim();
+        return trimmed.isEmpty() ? new String[0] : trimmed.split(" +");
+    }
+}
@@ -0,0 +1,37 @@
+package com.itsandra.etudiantetranger.service.index;
+
+import java.text.Normalizer;
+
+/**
+ * Comparison of the names of the etudiants as the default MySQL collation does, ignoring case and accents.
+ */
+final class Names {
+
+    private Names() {}
+
+    /**
+     * Fold a name for comparisons: lower case, without accents, and with the ligatures expanded, so "Œuvray" and
+     * "oeuvray" fold to the same string.
+     */
+    static String fold(String name) {
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            char lower = Character.toLowerCase(c);
+            if (lower == 'œ') {
+                folded.append("oe");
+            } else if (lower == 'æ') {
+                folded.append("ae");
+            } else if (lower == 'ß') {
+                folded.append("ss");
+            } else {
+                folded.append(lower);
+            }
+        }
+        return folded.toString();
+    }
+}
@@ -2,7 +2,6 @@ package com.itsandra.etudiantetranger.web.rest;
 
 import com.itsandra.etudiantetranger.repository.UserRepository;
 import com.itsandra.etudiantetranger.security.SecurityUtils;
-import com.itsandra.etudiantetranger.service.MailService;
 import com.itsandra.etudiantetranger.service.UserService;
 import com.itsandra.etudiantetranger.service.dto.AdminUserDTO;
 import com.itsandra.etudiantetranger.service.dto.PasswordChangeDTO;
@@ -40,12 +39,9 @@ public class AccountResource {
 
     private final UserService userService;
 
-    private final MailService mailService;
-
-    public AccountResource(UserRepository userRepository, UserService userService, MailService mailService) {
+    public AccountResource(UserRepository userRepository, UserService userService) {
         this.userRepository = userRepository;
         this.userService = userService;
-        this.mailService = mailService;
     }
 
     /**
@@ -62,7 +58,7 @@ public class AccountResource {
         if (isPasswordLengthInvalid(managedUserVM.getPassword())) {
             throw new InvalidPasswordException();
         }
-        return userService.registerUser(managedUserVM, managedUserVM.getPassword()).doOnSuccess(mailService::sendActivationEmail).then();
+        return userService.registerUser(managedUserVM, managedUserVM.getPassword()).then();
     }
 
     /**
@@ -165,9 +161,7 @@ public class AccountResource {
         return userService
             .requestPasswordReset(mail)
             .doOnSuccess(user -> {
-                if (Objects.nonNull(user)) {
-                    mailService.sendPasswordResetMail(user);
-                } else {
+                if (Objects.isNull(user)) {
                     // Pretend the request has been successful to prevent checking which emails really exist
                     // but log that an invalid attempt has been made
                     log.warn("Password reset requested for non existing mail");
@@ -0,0 +1,65 @@
+package com.itsandra.etudiantetranger.web.rest;
+
+import com.itsandra.etudiantetranger.service.EtudiantExportService;
+import com.itsandra.etudiantetranger.service.criteria.EtudiantCriteria;
+import com.itsandra.etudiantetranger.web.rest.errors.BadRequestAlertException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * REST controller for exporting {@link com.itsandra.etudiantetranger.domain.Etudiant}s to files.
+ */
+@RestController
+@RequestMapping("/api")
+public class EtudiantExportResource {
+
+    private final Logger log = LoggerFactory.getLogger(EtudiantExportResource.class);
+
+    private static final String ENTITY_NAME = "etudiant";
+
+    private final EtudiantExportService etudiantExportService;
+
+    public EtudiantExportResource(EtudiantExportService etudiantExportService) {
+        this.etudiantExportService = etudiantExportService;
+    }
+
+    /**
+     * {@code GET  /etudiants/export} : export the etudiants matching the criteria, with the filters of the listing.
+     * <p>
+     * The file is written as the etudiants are read from the database, into the buffers of the response.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @param pageable the pagination information, ignored but for the sort, by id by default.
+     * @param format the format of the file, {@code csv} or {@code xlsx}.
+     * @param response the response, whose buffers are written.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the file in body, or with status {@code 400 (Bad Request)} if the format is unknown.
+     */
+    @GetMapping("/etudiants/export")
+    public ResponseEntity<Flux<DataBuffer>> exportEtudiants(
+        @org.springdoc.api.annotations.ParameterObject EtudiantCriteria criteria,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        @RequestParam(value = "format", defaultValue = "csv") String format,
+        ServerHttpResponse response
+    ) {
+        log.debug("REST request to export Etudiants as {} by criteria: {}", format, criteria);
+        EtudiantExportService.Format exportFormat = EtudiantExportService.Format
+            .fromExtension(format)
+            .orElseThrow(() -> new BadRequestAlertException("Unknown export format " + format, ENTITY_NAME, "formatinvalid"));
+        return ResponseEntity
+            .ok()
+            .contentType(exportFormat.getMediaType())
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("etudiants." + exportFormat.getExtension()).build().toString()
+            )
+            .body(etudiantExportService.export(criteria, pageable.getSort(), exportFormat, response.bufferFactory()));
+    }
+}
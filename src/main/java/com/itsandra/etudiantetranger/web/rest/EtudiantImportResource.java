@@ -0,0 +1,117 @@
+package com.itsandra.etudiantetranger.web.rest;
+
+import com.itsandra.etudiantetranger.service.EtudiantImportService;
+import com.itsandra.etudiantetranger.service.ImportJobAlreadyExistsException;
+import com.itsandra.etudiantetranger.service.dto.EtudiantImportDTO;
+import com.itsandra.etudiantetranger.web.rest.errors.BadRequestAlertException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.DefaultPartHttpMessageReader;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.http.codec.multipart.Part;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import tech.jhipster.web.util.reactive.ResponseUtil;
+
+/**
+ * REST controller for importing {@link com.itsandra.etudiantetranger.domain.Etudiant}s from CSV files.
+ */
+@RestController
+@RequestMapping("/api")
+public class EtudiantImportResource {
+
+    private final Logger log = LoggerFactory.getLogger(EtudiantImportResource.class);
+
+    private static final String ENTITY_NAME = "etudiant";
+
+    private static final String FILE_PART_NAME = "file";
+
+    private static final Pattern JOB_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private static final ResolvableType PART_TYPE = ResolvableType.forClass(Part.class);
+
+    private final EtudiantImportService etudiantImportService;
+
+    private final DefaultPartHttpMessageReader partReader = new DefaultPartHttpMessageReader();
+
+    public EtudiantImportResource(EtudiantImportService etudiantImportService) {
+        this.etudiantImportService = etudiantImportService;
+        // The parts are parsed as they arrive, rather than stored first: an import never holds the whole file
+        this.partReader.setStreaming(true);
+    }
+
+    /**
+     * {@code POST  /etudiants/import} : Import etudiants from the CSV file of the {@code file} part.
+     * <p>
+     * The file is imported as it is uploaded, and the response is only sent once the whole file is read. To follow the
+     * progress of the import meanwhile, with {@code GET /etudiants/imports/:jobId}, the client chooses the id of the job.
+     *
+     * @param jobId the id of the import job, made of at most 64 letters, digits, {@code -} or {@code _}; generated if absent.
+     * @param request the multipart request.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the completed import job,
+     * or with status {@code 400 (Bad Request)} and with body the failed import job if the file couldn't be read,
+     * or with status {@code 400 (Bad Request)} if there is no file part, or if the job id is invalid or already used.
+     */
+    @PostMapping(value = "/etudiants/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<EtudiantImportDTO>> importEtudiants(
+        @RequestParam(value = "jobId", required = false) String jobId,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to import Etudiants with job : {}", jobId);
+        if (jobId != null && !JOB_ID_PATTERN.matcher(jobId).matches()) {
+            return Mono.error(new BadRequestAlertException("Invalid job id", ENTITY_NAME, "idinvalid"));
+        }
+        // The parts are streamed, so each one must be consumed before the next one is read
+        return partReader
+            .read(PART_TYPE, request, Collections.emptyMap())
+            .concatMap(part -> {
+                if (FILE_PART_NAME.equals(part.name())) {
+                    String fileName = part instanceof FilePart ? ((FilePart) part).filename() : null;
+                    return etudiantImportService.importCsv(jobId, fileName, part.content());
+                }
+                return part.content().doOnNext(DataBufferUtils::release).then(Mono.empty());
+            })
+            .next()
+            .onErrorMap(ImportJobAlreadyExistsException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "idexists"))
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "importinvalid"))
+            .switchIfEmpty(Mono.error(new BadRequestAlertException("A CSV file part is required", ENTITY_NAME, "filemissing")))
+            .map(job -> {
+                if (job.getStatus() == EtudiantImportDTO.Status.FAILED) {
+                    return ResponseEntity.badRequest().body(job);
+                }
+                return ResponseEntity.created(URI.create("/api/etudiants/imports/" + job.getId())).body(job);
+            });
+    }
+
+    /**
+     * {@code GET  /etudiants/imports} : get the running imports, and the last finished ones.
+     *
+     * @return the list of import jobs, the most recently started first.
+     */
+    @GetMapping("/etudiants/imports")
+    public List<EtudiantImportDTO> getAllImports() {
+        log.debug("REST request to get the Etudiant imports");
+        return etudiantImportService.findJobs();
+    }
+
+    /**
+     * {@code GET  /etudiants/imports/:id} : get the progress of an import.
+     *
+     * @param id the id of the import job.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the import job, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/etudiants/imports/{id}")
+    public Mono<ResponseEntity<EtudiantImportDTO>> getImport(@PathVariable String id) {
+        log.debug("REST request to get the Etudiant import : {}", id);
+        return ResponseUtil.wrapOrNotFound(Mono.justOrEmpty(etudiantImportService.findJob(id)));
+    }
+}
@@ -1,25 +1,42 @@
 package com.itsandra.etudiantetranger.web.rest;
 
-import com.itsandra.etudiantetranger.repository.EtudiantRepository;
+import com.itsandra.etudiantetranger.repository.KeysetCursor;
+import com.itsandra.etudiantetranger.service.ChangeFeedOverflowException;
+import com.itsandra.etudiantetranger.service.EtudiantChangeFeed;
 import com.itsandra.etudiantetranger.service.EtudiantService;
+import com.itsandra.etudiantetranger.service.TotalCountService;
+import com.itsandra.etudiantetranger.service.criteria.EtudiantCriteria;
+import com.itsandra.etudiantetranger.service.dto.BatchItemResultDTO;
+import com.itsandra.etudiantetranger.service.dto.EtudiantChangeDTO;
 import com.itsandra.etudiantetranger.service.dto.EtudiantDTO;
+import com.itsandra.etudiantetranger.service.dto.EtudiantFacetsDTO;
+import com.itsandra.etudiantetranger.service.index.EtudiantFacetIndex.Facet;
+import com.itsandra.etudiantetranger.service.index.EtudiantSearchIndex;
 import com.itsandra.etudiantetranger.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import javax.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -41,16 +58,27 @@ public class EtudiantResource {
 
     private static final String ENTITY_NAME = "etudiant";
 
+    private static final Duration CHANGES_HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
+    private static final String OVERFLOW_EVENT = "overflow";
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final EtudiantService etudiantService;
 
-    private final EtudiantRepository etudiantRepository;
+    private final EtudiantChangeFeed etudiantChangeFeed;
+
+    private final TotalCountService totalCountService;
 
-    public EtudiantResource(EtudiantService etudiantService, EtudiantRepository etudiantRepository) {
+    public EtudiantResource(
+        EtudiantService etudiantService,
+        EtudiantChangeFeed etudiantChangeFeed,
+        TotalCountService totalCountService
+    ) {
         this.etudiantService = etudiantService;
-        this.etudiantRepository = etudiantRepository;
+        this.etudiantChangeFeed = etudiantChangeFeed;
+        this.totalCountService = totalCountService;
     }
 
     /**
@@ -61,7 +89,7 @@ public class EtudiantResource {
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/etudiants")
-    public Mono<ResponseEntity<EtudiantDTO>> createEtudiant(@RequestBody EtudiantDTO etudiantDTO) throws URISyntaxException {
+    public Mono<ResponseEntity<EtudiantDTO>> createEtudiant(@Valid @RequestBody EtudiantDTO etudiantDTO) throws URISyntaxException {
         log.debug("REST request to save Etudiant : {}", etudiantDTO);
         if (etudiantDTO.getId() != null) {
             throw new BadRequestAlertException("A new etudiant cannot already have an ID", ENTITY_NAME, "idexists");
@@ -80,6 +108,20 @@ public class EtudiantResource {
             });
     }
 
+    /**
+     * {@code POST  /etudiants/batch} : Create new etudiants in bulk.
+     * <p>
+     * The body is a JSON array or newline delimited JSON, consumed as it is read: it is never buffered as a whole.
+     *
+     * @param etudiantDTOs the etudiantDTOs to create.
+     * @return the {@link Flux} of the result of each etudiantDTO, with either its id or the reason it wasn't created.
+     */
+    @PostMapping(value = "/etudiants/batch", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public Flux<BatchItemResultDTO> createEtudiants(@RequestBody Flux<EtudiantDTO> etudiantDTOs) {
+        log.debug("REST request to save Etudiants in bulk");
+        return etudiantService.saveAll(etudiantDTOs);
+    }
+
     /**
      * {@code PUT  /etudiants/:id} : Updates an existing etudiant.
      *
@@ -87,13 +129,14 @@ public class EtudiantResource {
      * @param etudiantDTO the etudiantDTO to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated etudiantDTO,
      * or with status {@code 400 (Bad Request)} if the etudiantDTO is not valid,
+     * or with status {@code 404 (Not Found)} if the etudiantDTO is not found,
      * or with status {@code 500 (Internal Server Error)} if the etudiantDTO couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/etudiants/{id}")
     public Mono<ResponseEntity<EtudiantDTO>> updateEtudiant(
         @PathVariable(value = "id", required = false) final Long id,
-        @RequestBody EtudiantDTO etudiantDTO
+        @Valid @RequestBody EtudiantDTO etudiantDTO
     ) throws URISyntaxException {
         log.debug("REST request to update Etudiant : {}, {}", id, etudiantDTO);
         if (etudiantDTO.getId() == null) {
@@ -103,23 +146,15 @@ public class EtudiantResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        return etudiantRepository
-            .existsById(id)
-            .flatMap(exists -> {
-                if (!exists) {
-                    return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                }
-
-                return etudiantService
-                    .save(etudiantDTO)
-                    .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                    .map(result ->
-                        ResponseEntity
-                            .ok()
-                            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
-                            .body(result)
-                    );
-            });
+        return etudiantService
+            .update(etudiantDTO)
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(result ->
+                ResponseEntity
+                    .ok()
+                    .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
+                    .body(result)
+            );
     }
 
     /**
@@ -146,52 +181,257 @@ public class EtudiantResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        return etudiantRepository
-            .existsById(id)
-            .flatMap(exists -> {
-                if (!exists) {
-                    return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                }
+        return etudiantService
+            .partialUpdate(etudiantDTO)
+            .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+            .map(res ->
+                ResponseEntity
+                    .ok()
+                    .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId().toString()))
+                    .body(res)
+            );
+    }
+
+    /**
+     * {@code GET  /etudiants} : get all the etudiants, or the etudiants matching the filters of the request parameters.
+     * <p>
+     * Clients which don't need the {@code X-Total-Count} header can send an
+     * {@value TotalCountService#SKIP_TOTAL_COUNT_HEADER} header set to {@code true}, so the total is not computed. Without
+     * a total, the {@code Link} header only has the {@code next} and {@code prev} pages.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @param pageable the pagination information.
+     * @param skipTotalCount whether to skip the total.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of etudiants in body.
+     */
+    @GetMapping("/etudiants")
+    public Mono<ResponseEntity<List<EtudiantDTO>>> getAllEtudiants(
+        @org.springdoc.api.annotations.ParameterObject EtudiantCriteria criteria,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        @RequestHeader(value = TotalCountService.SKIP_TOTAL_COUNT_HEADER, defaultValue = "false") boolean skipTotalCount,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Etudiants by criteria: {}", criteria);
+        return etudiantService
+            .findPage(criteria, pageable, !skipTotalCount)
+            .map(page -> {
+                HttpHeaders headers = PaginationHeaders.generatePaginationHttpHeaders(
+                    UriComponentsBuilder.fromHttpRequest(request),
+                    page,
+                    totalCountService.hasTotal(!skipTotalCount)
+                );
+                return ResponseEntity.ok().headers(headers).body(page.getContent());
+            });
+    }
 
-                Mono<EtudiantDTO> result = etudiantService.partialUpdate(etudiantDTO);
+    /**
+     * {@code GET  /etudiants} : stream the etudiants, or the etudiants matching the filters of the request parameters, as
+     * newline delimited JSON or as server-sent events.
+     * <p>
+     * Every etudiant is written as soon as it is read from the database, and the database is only read as fast as the
+     * client consumes the response, so even a full export runs in constant memory.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @param pageable the pagination information, ignored but for the sort in unpaged mode.
+     * @param unpaged whether to stream all the etudiants instead of a single page.
+     * @return the stream of etudiants.
+     */
+    @GetMapping(value = "/etudiants", produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+    public Flux<EtudiantDTO> streamAllEtudiants(
+        @org.springdoc.api.annotations.ParameterObject EtudiantCriteria criteria,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        @RequestParam(value = "unpaged", defaultValue = "false") boolean unpaged
+    ) {
+        log.debug("REST request to stream Etudiants by criteria: {}, unpaged : {}", criteria, unpaged);
+        return unpaged ? etudiantService.findAll(criteria, pageable.getSort()) : etudiantService.findAll(criteria, pageable);
+    }
 
-                return result
-                    .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                    .map(res ->
-                        ResponseEntity
-                            .ok()
-                            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, res.getId().toString()))
-                            .body(res)
+    /**
+     * {@code GET  /etudiants?after=:cursor} : get a page of etudiants, or of the etudiants matching the filters of the
+     * request parameters, with keyset pagination.
+     * <p>
+     * An empty {@code after} parameter requests the first page. As long as the page is full, the {@code Link} header
+     * contains the {@code next} page, whose cursor holds the position of the last etudiant of this page, with the same
+     * filters.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @param after the cursor of the previous page, or empty for the first page.
+     * @param pageable the page size, and the sort of the first page.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of etudiants in body,
+     * or with status {@code 400 (Bad Request)} if the cursor or the sort is not valid.
+     */
+    @GetMapping(value = "/etudiants", params = "after")
+    public Mono<ResponseEntity<List<EtudiantDTO>>> getAllEtudiantsAfter(
+        @org.springdoc.api.annotations.ParameterObject EtudiantCriteria criteria,
+        @RequestParam("after") String after,
+        @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        log.debug("REST request to get a page of Etudiants by criteria: {}, after : {}", criteria, after);
+        int size = pageable.getPageSize();
+        KeysetCursor cursor;
+        try {
+            cursor = after.isEmpty() ? null : KeysetCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        Sort.Order order = cursor != null ? cursor.getOrder() : pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("id"));
+        Flux<EtudiantDTO> etudiants;
+        try {
+            etudiants = etudiantService.findAllAfter(criteria, order, cursor, size);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "cursorinvalid");
+        }
+        return etudiants
+            .collectList()
+            .map(page -> {
+                HttpHeaders headers = new HttpHeaders();
+                if (page.size() == size) {
+                    EtudiantDTO last = page.get(size - 1);
+                    KeysetCursor next = new KeysetCursor(
+                        order.getProperty(),
+                        order.getDirection(),
+                        getKeysetValue(last, order.getProperty()),
+                        last.getId()
                     );
+                    String link = UriComponentsBuilder
+                        .fromHttpRequest(request)
+                        .replaceQueryParam("after", next.encode())
+                        .replaceQueryParam("size", size)
+                        .replaceQueryParam("page")
+                        .replaceQueryParam("sort")
+                        .toUriString();
+                    headers.add(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+                }
+                return ResponseEntity.ok().headers(headers).body(page);
             });
     }
 
+    private static String getKeysetValue(EtudiantDTO etudiantDTO, String property) {
+        Object value;
+        switch (property) {
+            case "nom":
+                value = etudiantDTO.getNom();
+                break;
+            case "prenom":
+                value = etudiantDTO.getPrenom();
+                break;
+            case "matricule":
+                value = etudiantDTO.getMatricule();
+                break;
+            case "date":
+                value = etudiantDTO.getDate();
+                break;
+            default:
+                // The id is already the position of the cursor
+                value = null;
+        }
+        return value != null ? value.toString() : null;
+    }
+
     /**
-     * {@code GET  /etudiants} : get all the etudiants.
+     * {@code GET  /etudiants/changes} : stream the creates, updates and deletes of the etudiants, as server-sent events.
+     * <p>
+     * Each event is named after the type of its change. A comment is sent on connection and then periodically, to keep
+     * the connection open. A client which falls behind receives an {@code overflow} event and the stream ends: it has
+     * missed changes, so it must reload the etudiants before connecting again.
      *
+     * @return the stream of changes.
+     */
+    @GetMapping(value = "/etudiants/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<EtudiantChangeDTO>> streamEtudiantChanges() {
+        log.debug("REST request to stream the Etudiant changes");
+        Flux<ServerSentEvent<EtudiantChangeDTO>> heartbeats = Flux
+            .interval(Duration.ZERO, CHANGES_HEARTBEAT_INTERVAL)
+            .map(tick -> ServerSentEvent.<EtudiantChangeDTO>builder().comment("heartbeat").build());
+        return etudiantChangeFeed
+            .changes()
+            .map(change -> ServerSentEvent.builder(change).event(change.getType().name().toLowerCase(Locale.ROOT)).build())
+            .onErrorResume(
+                ChangeFeedOverflowException.class,
+                e -> Mono.just(ServerSentEvent.<EtudiantChangeDTO>builder().event(OVERFLOW_EVENT).build())
+            )
+            .mergeWith(heartbeats)
+            .takeUntil(event -> OVERFLOW_EVENT.equals(event.event()));
+    }
+
+    /**
+     * {@code GET  /etudiants/facets} : count the etudiants by pays, filiere, niveau and year.
+     * <p>
+     * Each filter accepts a list of values: an etudiant matches if its value is one of them, for every filter.
+     *
+     * @param pays the accepted pays ids, if filtered.
+     * @param filiere the accepted filiere ids, if filtered.
+     * @param niveau the accepted niveau ids, if filtered.
+     * @param year the accepted years of the date, if filtered.
+     * @param facets the facets to count by, all of them by default.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the facet counts in body,
+     * or with status {@code 400 (Bad Request)} if a facet is unknown.
+     */
+    @GetMapping("/etudiants/facets")
+    public Mono<ResponseEntity<EtudiantFacetsDTO>> getEtudiantFacets(
+        @RequestParam(value = "pays", required = false) Set<Long> pays,
+        @RequestParam(value = "filiere", required = false) Set<Long> filiere,
+        @RequestParam(value = "niveau", required = false) Set<Long> niveau,
+        @RequestParam(value = "year", required = false) Set<Long> year,
+        @RequestParam(value = "facets", required = false) List<String> facets
+    ) {
+        log.debug("REST request to count Etudiants by facets : {}", facets);
+        Map<Facet, Set<Long>> filters = new EnumMap<>(Facet.class);
+        addFilter(filters, Facet.PAYS, pays);
+        addFilter(filters, Facet.FILIERE, filiere);
+        addFilter(filters, Facet.NIVEAU, niveau);
+        addFilter(filters, Facet.YEAR, year);
+        Set<Facet> counted = EnumSet.allOf(Facet.class);
+        if (facets != null && !facets.isEmpty()) {
+            counted.clear();
+            for (String name : facets) {
+                Facet facet = Facet.fromName(name);
+                if (facet == null) {
+                    throw new BadRequestAlertException("Invalid facet", ENTITY_NAME, "facetinvalid");
+                }
+                counted.add(facet);
+            }
+        }
+        return etudiantService.countFacets(filters, counted).map(ResponseEntity::ok);
+    }
+
+    private static void addFilter(Map<Facet, Set<Long>> filters, Facet facet, Set<Long> values) {
+        if (values != null) {
+            filters.put(facet, values);
+        }
+    }
+
+    /**
+     * {@code GET  /_search/etudiants?q=:query} : search the etudiants by their nom and prenom.
+     * <p>
+     * The search ignores case and accents, and matches any part of the names. The results are ranked by relevance.
+     *
+     * @param query the words to search, one of which has at least {@link EtudiantSearchIndex#MIN_TERM_LENGTH} characters.
      * @param pageable the pagination information.
      * @param request a {@link ServerHttpRequest} request.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of etudiants in body.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of etudiants in body,
+     * or with status {@code 400 (Bad Request)} if all the words of the query are too short.
      */
-    @GetMapping("/etudiants")
-    public Mono<ResponseEntity<List<EtudiantDTO>>> getAllEtudiants(
+    @GetMapping("/_search/etudiants")
+    public Mono<ResponseEntity<List<EtudiantDTO>>> searchEtudiants(
+        @RequestParam("q") String query,
         @org.springdoc.api.annotations.ParameterObject Pageable pageable,
         ServerHttpRequest request
     ) {
-        log.debug("REST request to get a page of Etudiants");
+        log.debug("REST request to search for a page of Etudiants for query {}", query);
+        if (!EtudiantSearchIndex.isSearchable(query)) {
+            throw new BadRequestAlertException("Query too short", ENTITY_NAME, "querytooshort");
+        }
         return etudiantService
-            .countAll()
-            .zipWith(etudiantService.findAll(pageable).collectList())
-            .map(countWithEntities ->
+            .search(query, pageable)
+            .map(page ->
                 ResponseEntity
                     .ok()
-                    .headers(
-                        PaginationUtil.generatePaginationHttpHeaders(
-                            UriComponentsBuilder.fromHttpRequest(request),
-                            new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
-                        )
-                    )
-                    .body(countWithEntities.getT2())
+                    .headers(PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpRequest(request), page))
+                    .body(page.getContent())
             );
     }
 
@@ -0,0 +1,64 @@
+package com.itsandra.etudiantetranger.web.rest;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * Pagination headers of the listings whose total is not always computed, see {@code TotalCountService}.
+ */
+final class PaginationHeaders {
+
+    private static final String HEADER_LINK_FORMAT = "<{0}>; rel=\"{1}\"";
+
+    private PaginationHeaders() {}
+
+    /**
+     * Generate the pagination headers of a page.
+     * <p>
+     * With a total, these are the {@code X-Total-Count} and {@code Link} headers of {@link PaginationUtil}. Without a
+     * total, there is no {@code X-Total-Count} and the {@code Link} header only has the {@code next} and {@code prev}
+     * pages: a full page is assumed to have a next one.
+     *
+     * @param uriBuilder the URI of the listing.
+     * @param page the page.
+     * @param hasTotal whether the total of the page was computed.
+     * @return the headers.
+     */
+    static HttpHeaders generatePaginationHttpHeaders(UriComponentsBuilder uriBuilder, Page<?> page, boolean hasTotal) {
+        if (hasTotal) {
+            return PaginationUtil.generatePaginationHttpHeaders(uriBuilder, page);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getPageable().isUnpaged()) {
+            return headers;
+        }
+        int pageNumber = page.getNumber();
+        int pageSize = page.getSize();
+        List<String> links = new ArrayList<>(2);
+        if (page.getNumberOfElements() == pageSize) {
+            links.add(prepareLink(uriBuilder, pageNumber + 1, pageSize, "next"));
+        }
+        if (pageNumber > 0) {
+            links.add(prepareLink(uriBuilder, pageNumber - 1, pageSize, "prev"));
+        }
+        if (!links.isEmpty()) {
+            headers.add(HttpHeaders.LINK, String.join(",", links));
+        }
+        return headers;
+    }
+
+    private static String prepareLink(UriComponentsBuilder uriBuilder, int pageNumber, int pageSize, String relType) {
+        String uri = uriBuilder
+            .replaceQueryParam("page", Integer.toString(pageNumber))
+            .replaceQueryParam("size", Integer.toString(pageSize))
+            .toUriString()
+            .replace(",", "%2C")
+            .replace(";", "%3B");
+        return MessageFormat.format(HEADER_LINK_FORMAT, uri, relType);
+    }
+}
@@ -2,6 +2,7 @@ package com.itsandra.etudiantetranger.web.rest;
 
 import com.itsandra.etudiantetranger.repository.PaysRepository;
 import com.itsandra.etudiantetranger.service.PaysService;
+import com.itsandra.etudiantetranger.service.TotalCountService;
 import com.itsandra.etudiantetranger.service.dto.PaysDTO;
 import com.itsandra.etudiantetranger.web.rest.errors.BadRequestAlertException;
 import java.net.URI;
@@ -14,7 +15,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -27,7 +27,6 @@ import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
-import tech.jhipster.web.util.PaginationUtil;
 import tech.jhipster.web.util.reactive.ResponseUtil;
 
 /**
@@ -48,9 +47,12 @@ public class PaysResource {
 
     private final PaysRepository paysRepository;
 
-    public PaysResource(PaysService paysService, PaysRepository paysRepository) {
+    private final TotalCountService totalCountService;
+
+    public PaysResource(PaysService paysService, PaysRepository paysRepository, TotalCountService totalCountService) {
         this.paysService = paysService;
         this.paysRepository = paysRepository;
+        this.totalCountService = totalCountService;
     }
 
     /**
@@ -168,31 +170,33 @@ public class PaysResource {
 
     /**
      * {@code GET  /pays} : get all the pays.
+     * <p>
+     * Clients which don't need the {@code X-Total-Count} header can send an
+     * {@value TotalCountService#SKIP_TOTAL_COUNT_HEADER} header set to {@code true}, so the total is not computed. Without
+     * a total, the {@code Link} header only has the {@code next} and {@code prev} pages.
      *
      * @param pageable the pagination information.
+     * @param skipTotalCount whether to skip the total.
      * @param request a {@link ServerHttpRequest} request.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of pays in body.
      */
     @GetMapping("/pays")
     public Mono<ResponseEntity<List<PaysDTO>>> getAllPays(
         @org.springdoc.api.annotations.ParameterObject Pageable pageable,
+        @RequestHeader(value = TotalCountService.SKIP_TOTAL_COUNT_HEADER, defaultValue = "false") boolean skipTotalCount,
         ServerHttpRequest request
     ) {
         log.debug("REST request to get a page of Pays");
         return paysService
-            .countAll()
-            .zipWith(paysService.findAll(pageable).collectList())
-            .map(countWithEntities ->
-                ResponseEntity
-                    .ok()
-                    .headers(
-                        PaginationUtil.generatePaginationHttpHeaders(
-                            UriComponentsBuilder.fromHttpRequest(request),
-                            new PageImpl<>(countWithEntities.getT2(), pageable, countWithEntities.getT1())
-                        )
-                    )
-                    .body(countWithEntities.getT2())
-            );
+            .findPage(pageable, !skipTotalCount)
+            .map(page -> {
+                HttpHeaders headers = PaginationHeaders.generatePaginationHttpHeaders(
+                    UriComponentsBuilder.fromHttpRequest(request),
+                    page,
+                    totalCountService.hasTotal(!skipTotalCount)
+                );
+                return ResponseEntity.ok().headers(headers).body(page.getContent());
+            });
     }
 
     /**
@@ -0,0 +1,45 @@
+package com.itsandra.etudiantetranger.web.rest;
+
+import com.itsandra.etudiantetranger.service.SyncService;
+import com.itsandra.etudiantetranger.service.dto.SyncDTO;
+import com.itsandra.etudiantetranger.web.rest.errors.BadRequestAlertException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller for synchronizing the offline copies of the etudiants and of their reference data.
+ */
+@RestController
+@RequestMapping("/api")
+public class SyncResource {
+
+    private final Logger log = LoggerFactory.getLogger(SyncResource.class);
+
+    private static final String ENTITY_NAME = "sync";
+
+    private final SyncService syncService;
+
+    public SyncResource(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    /**
+     * {@code GET  /sync} : get the changes of the etudiants, pays, niveaux and filieres since a version.
+     *
+     * @param since the version returned by the previous sync, or none for the first sync.
+     * @return the changes, with status {@code 200 (OK)}, or with status {@code 400 (Bad Request)} if the version is negative.
+     */
+    @GetMapping("/sync")
+    public Mono<SyncDTO> sync(@RequestParam(required = false) Long since) {
+        log.debug("REST request to get the changes since version {}", since);
+        if (since != null && since < 0) {
+            throw new BadRequestAlertException("Invalid version", ENTITY_NAME, "versioninvalid");
+        }
+        return syncService.changesSince(since);
+    }
+}
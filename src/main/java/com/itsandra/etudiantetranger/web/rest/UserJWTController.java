@@ -1,15 +1,20 @@
 package com.itsandra.etudiantetranger.web.rest;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.itsandra.etudiantetranger.security.LoginRateLimiter;
 import com.itsandra.etudiantetranger.security.jwt.JWTFilter;
 import com.itsandra.etudiantetranger.security.jwt.TokenProvider;
+import com.itsandra.etudiantetranger.web.rest.errors.TooManyRequestsException;
 import com.itsandra.etudiantetranger.web.rest.vm.LoginVM;
+import java.net.InetSocketAddress;
 import javax.validation.Valid;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
@@ -25,19 +30,43 @@ public class UserJWTController {
 
     private final ReactiveAuthenticationManager authenticationManager;
 
-    public UserJWTController(TokenProvider tokenProvider, ReactiveAuthenticationManager authenticationManager) {
+    private final LoginRateLimiter loginRateLimiter;
+
+    public UserJWTController(
+        TokenProvider tokenProvider,
+        ReactiveAuthenticationManager authenticationManager,
+        LoginRateLimiter loginRateLimiter
+    ) {
         this.tokenProvider = tokenProvider;
         this.authenticationManager = authenticationManager;
+        this.loginRateLimiter = loginRateLimiter;
     }
 
+    /**
+     * {@code POST  /authenticate} : authenticate a user.
+     * <p>
+     * The attempts are rate limited per client address, and the failed ones per login, before the password is checked, so
+     * a flood of attempts is answered with a {@code 429 (Too Many Requests)} without costing a password hash.
+     *
+     * @param loginVM the credentials.
+     * @param request the request, giving the client address.
+     * @return the JWT of the authenticated user.
+     */
     @PostMapping("/authenticate")
-    public Mono<ResponseEntity<JWTToken>> authorize(@Valid @RequestBody Mono<LoginVM> loginVM) {
+    public Mono<ResponseEntity<JWTToken>> authorize(@Valid @RequestBody Mono<LoginVM> loginVM, ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        String ip = remoteAddress != null && remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress() : null;
         return loginVM
-            .flatMap(login ->
-                authenticationManager
+            .flatMap(login -> {
+                if (!loginRateLimiter.tryAcquire(login.getUsername(), ip)) {
+                    return Mono.error(new TooManyRequestsException());
+                }
+                return authenticationManager
                     .authenticate(new UsernamePasswordAuthenticationToken(login.getUsername(), login.getPassword()))
-                    .flatMap(auth -> Mono.fromCallable(() -> tokenProvider.createToken(auth, login.isRememberMe())))
-            )
+                    .doOnNext(auth -> loginRateLimiter.recordSuccess(login.getUsername(), ip))
+                    .doOnError(AuthenticationException.class, e -> loginRateLimiter.recordFailure(login.getUsername(), ip))
+                    .flatMap(auth -> Mono.fromCallable(() -> tokenProvider.createToken(auth, login.isRememberMe())));
+            })
             .map(jwt -> {
                 HttpHeaders httpHeaders = new HttpHeaders();
                 httpHeaders.add(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
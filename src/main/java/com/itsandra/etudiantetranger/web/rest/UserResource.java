@@ -133,7 +133,7 @@ public class UserResource {
                 }
                 return userService.createUser(userDTO);
             })
-            .doOnSuccess(mailService::sendCreationEmail)
+            .flatMap(user -> mailService.sendCreationEmail(user).thenReturn(user))
             .map(user -> {
                 try {
                     return ResponseEntity
@@ -29,5 +29,9 @@ class TechnicalStructureTest {
         .whereLayer("Persistence").mayOnlyBeAccessedByLayers("Service", "Security", "Web", "Config")
         .whereLayer("Domain").mayOnlyBeAccessedByLayers("Persistence", "Service", "Security", "Web", "Config")
 
-        .ignoreDependency(belongToAnyOf(ItsandraetudiantApp.class), alwaysTrue());
+        .ignoreDependency(belongToAnyOf(ItsandraetudiantApp.class), alwaysTrue())
+        .ignoreDependency(alwaysTrue(), belongToAnyOf(
+            com.itsandra.etudiantetranger.config.Constants.class,
+            com.itsandra.etudiantetranger.config.ApplicationProperties.class
+        ));
 }
@@ -0,0 +1,98 @@
+package com.itsandra.etudiantetranger.aop.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import com.itsandra.etudiantetranger.IntegrationTest;
+import com.itsandra.etudiantetranger.repository.UserRepository;
+import com.itsandra.etudiantetranger.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+
+/**
+ * Integration tests for {@link MethodTimingAspect}.
+ */
+@IntegrationTest
+class MethodTimingAspectIT {
+
+    @Autowired
+    private MethodTimingAspect methodTimingAspect;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    public void restoreSettings() {
+        methodTimingAspect.setEnabled(true);
+        methodTimingAspect.setSampleRate(1.0);
+    }
+
+    @Test
+    void testReactiveMethodIsTimedOnSubscription() {
+        long before = count("UserService", "getAuthorities", "success");
+
+        Flux<String> authorities = userService.getAuthorities();
+        assertThat(count("UserService", "getAuthorities", "success")).isEqualTo(before);
+
+        authorities.collectList().block();
+        assertThat(count("UserService", "getAuthorities", "success")).isEqualTo(before + 1);
+    }
+
+    @Test
+    void testSpringDataRepositoryIsTimed() {
+        long before = count("UserRepository", "count", "success");
+
+        userRepository.count().block();
+
+        assertThat(count("UserRepository", "count", "success")).isEqualTo(before + 1);
+    }
+
+    @Test
+    void testErrorIsTimedAsError() {
+        long before = count("UserRepository", "findById", "error");
+
+        assertThat(catchThrowable(() -> userRepository.findById((Long) null).block())).isNotNull();
+
+        assertThat(count("UserRepository", "findById", "error")).isEqualTo(before + 1);
+    }
+
+    @Test
+    void testTimingCanBeDisabledAtRuntime() {
+        methodTimingAspect.setEnabled(false);
+        long before = count("UserRepository", "count", "success");
+
+        userRepository.count().block();
+
+        assertThat(count("UserRepository", "count", "success")).isEqualTo(before);
+    }
+
+    @Test
+    void testOnlyTheSampledCallsAreTimed() {
+        methodTimingAspect.setSampleRate(0);
+        long before = count("UserRepository", "count", "success");
+
+        userRepository.count().block();
+
+        assertThat(count("UserRepository", "count", "success")).isEqualTo(before);
+    }
+
+    private long count(String className, String method, String outcome) {
+        Timer timer = meterRegistry
+            .find(MethodTimingAspect.METER_NAME)
+            .tag("class", className)
+            .tag("method", method)
+            .tag("outcome", outcome)
+            .timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
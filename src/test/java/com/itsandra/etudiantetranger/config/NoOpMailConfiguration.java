@@ -1,12 +1,15 @@
 package com.itsandra.etudiantetranger.config;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import com.itsandra.etudiantetranger.service.MailService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
 
 @Configuration
 public class NoOpMailConfiguration {
@@ -15,7 +18,11 @@ public class NoOpMailConfiguration {
 
     public NoOpMailConfiguration() {
         mockMailService = mock(MailService.class);
-        doNothing().when(mockMailService).sendActivationEmail(any());
+        when(mockMailService.sendActivationEmail(any())).thenReturn(Mono.empty());
+        when(mockMailService.sendCreationEmail(any())).thenReturn(Mono.empty());
+        when(mockMailService.sendPasswordResetMail(any())).thenReturn(Mono.empty());
+        when(mockMailService.sendEmailFromTemplate(any(), anyString(), anyString())).thenReturn(Mono.empty());
+        when(mockMailService.sendEmail(anyString(), anyString(), anyString(), anyBoolean(), anyBoolean())).thenReturn(Mono.empty());
     }
 
     @Bean
@@ -0,0 +1,59 @@
+package com.itsandra.etudiantetranger.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.itsandra.etudiantetranger.IntegrationTest;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Integration tests for the {@link ReferenceDataCache}.
+ */
+@IntegrationTest
+class ReferenceDataCacheIT {
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private DatabaseClient db;
+
+    @BeforeEach
+    public void initTest() {
+        referenceDataCache.invalidate().block();
+    }
+
+    @Test
+    void concurrentRequestsShareOneLoad() {
+        List<ReferenceDataCache.Snapshot> snapshots = Flux
+            .merge(referenceDataCache.get(), referenceDataCache.get(), referenceDataCache.get())
+            .collectList()
+            .block();
+
+        assertThat(snapshots).hasSize(3);
+        assertThat(snapshots.get(1)).isSameAs(snapshots.get(0));
+        assertThat(snapshots.get(2)).isSameAs(snapshots.get(0));
+    }
+
+    @Test
+    void checkVersionDropsACopyChangedByAnotherNode() {
+        ReferenceDataCache.Snapshot snapshot = referenceDataCache.get().block();
+        db.sql("UPDATE reference_data_version SET version = version + 1 WHERE id = 1").fetch().rowsUpdated().block();
+
+        referenceDataCache.checkVersion();
+
+        // The check doesn't wait for the database: the copy is dropped a bit later
+        ReferenceDataCache.Snapshot reloaded = Mono
+            .defer(referenceDataCache::get)
+            .filter(loaded -> loaded.getVersion() > snapshot.getVersion())
+            .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(10)))
+            .block(Duration.ofSeconds(5));
+        assertThat(reloaded).isNotNull();
+    }
+}
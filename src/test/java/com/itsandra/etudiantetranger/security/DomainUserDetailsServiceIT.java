@@ -6,6 +6,7 @@ import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import com.itsandra.etudiantetranger.IntegrationTest;
 import com.itsandra.etudiantetranger.config.Constants;
 import com.itsandra.etudiantetranger.domain.User;
+import com.itsandra.etudiantetranger.repository.UserCache;
 import com.itsandra.etudiantetranger.repository.UserRepository;
 import java.util.Locale;
 import org.apache.commons.lang3.RandomStringUtils;
@@ -31,11 +32,15 @@ class DomainUserDetailsServiceIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
     @Autowired
     private ReactiveUserDetailsService domainUserDetailsService;
 
     @BeforeEach
     public void init() {
+        userCache.clear();
         userRepository.deleteAllUserAuthorities().block();
         userRepository.deleteAll().block();
 
@@ -63,6 +63,17 @@ class TokenProviderSecurityMetersTests {
         assertThat(aggregate(counters)).isZero();
     }
 
+    @Test
+    void testTokenCacheHitsAndMissesAreCounted() {
+        String validToken = createValidToken();
+
+        tokenProvider.getValidAuthentication(validToken);
+        tokenProvider.getValidAuthentication(validToken);
+
+        assertThat(tokenCacheGets("miss")).isEqualTo(1);
+        assertThat(tokenCacheGets("hit")).isEqualTo(1);
+    }
+
     @Test
     void testTokenExpiredCount() {
         assertThat(meterRegistry.get(INVALID_TOKENS_METER_EXPECTED_NAME).tag("cause", "expired").counter().count()).isZero();
@@ -155,4 +166,13 @@ class TokenProviderSecurityMetersTests {
     private double aggregate(Collection<Counter> counters) {
         return counters.stream().mapToDouble(Counter::count).sum();
     }
+
+    private double tokenCacheGets(String result) {
+        return meterRegistry
+            .get("cache.gets")
+            .tag("cache", SecurityMetersService.TOKEN_CACHE_NAME)
+            .tag("result", result)
+            .functionCounter()
+            .count();
+    }
 }
@@ -88,6 +88,25 @@ class TokenProviderTest {
         assertThat(isTokenValid).isFalse();
     }
 
+    @Test
+    void testValidAuthenticationIsCached() {
+        Authentication authentication = createAuthentication();
+        String token = tokenProvider.createToken(authentication, false);
+
+        Authentication first = tokenProvider.getValidAuthentication(token);
+        Authentication second = tokenProvider.getValidAuthentication(token);
+
+        assertThat(first).isNotNull().isSameAs(second);
+        assertThat(first.getName()).isEqualTo("anonymous");
+        assertThat(first.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly(AuthoritiesConstants.ANONYMOUS);
+    }
+
+    @Test
+    void testReturnNullAuthenticationWhenJWTisInvalid() {
+        assertThat(tokenProvider.getValidAuthentication(createTokenWithDifferentSignature())).isNull();
+        assertThat(tokenProvider.getValidAuthentication(createUnsupportedToken())).isNull();
+    }
+
     @Test
     void testKeyIsSetFromSecretWhenSecretIsNotEmpty() {
         final String secret = "NwskoUmKHZtzGRKJKVjsJF7BtQMMxNWi";
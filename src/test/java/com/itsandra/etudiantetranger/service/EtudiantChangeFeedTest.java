@@ -0,0 +1,104 @@
+package com.itsandra.etudiantetranger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import com.itsandra.etudiantetranger.service.dto.EtudiantChangeDTO;
+import com.itsandra.etudiantetranger.service.dto.EtudiantDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+class EtudiantChangeFeedTest {
+
+    private MeterRegistry meterRegistry;
+
+    private EtudiantChangeFeed changeFeed;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getChangeFeed().setBufferSize(2);
+        changeFeed = new EtudiantChangeFeed(meterRegistry, applicationProperties);
+    }
+
+    @Test
+    void testSubscribersReceiveTheChanges() {
+        List<EtudiantChangeDTO> received = new CopyOnWriteArrayList<>();
+        Disposable subscription = changeFeed.changes().subscribe(received::add);
+
+        changeFeed.created(etudiant(1L));
+        changeFeed.updated(etudiant(1L));
+        changeFeed.deleted(1L);
+        subscription.dispose();
+
+        assertThat(received)
+            .extracting(EtudiantChangeDTO::getType)
+            .containsExactly(EtudiantChangeDTO.Type.CREATED, EtudiantChangeDTO.Type.UPDATED, EtudiantChangeDTO.Type.DELETED);
+        assertThat(received.get(0).getEtudiant().getId()).isEqualTo(1L);
+        assertThat(received.get(2).getId()).isEqualTo(1L);
+        assertThat(received.get(2).getEtudiant()).isNull();
+    }
+
+    @Test
+    void testChangesWithoutSubscriberAreDropped() {
+        changeFeed.deleted(1L);
+
+        List<EtudiantChangeDTO> received = new CopyOnWriteArrayList<>();
+        Disposable subscription = changeFeed.changes().subscribe(received::add);
+        changeFeed.deleted(2L);
+        subscription.dispose();
+
+        assertThat(received).extracting(EtudiantChangeDTO::getId).containsExactly(2L);
+    }
+
+    @Test
+    void testSlowSubscriberIsDisconnectedWithoutBlockingWriters() {
+        List<EtudiantChangeDTO> received = new CopyOnWriteArrayList<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        BaseSubscriber<EtudiantChangeDTO> slowSubscriber = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // Don't request anything yet
+            }
+
+            @Override
+            protected void hookOnNext(EtudiantChangeDTO change) {
+                received.add(change);
+            }
+
+            @Override
+            protected void hookOnError(Throwable throwable) {
+                error.set(throwable);
+            }
+        };
+        List<EtudiantChangeDTO> receivedByFastSubscriber = new CopyOnWriteArrayList<>();
+        Disposable fastSubscription = changeFeed.changes().subscribe(receivedByFastSubscriber::add);
+        changeFeed.changes().subscribe(slowSubscriber);
+
+        for (long id = 1; id <= 3; id++) {
+            changeFeed.deleted(id);
+        }
+        slowSubscriber.request(10);
+        fastSubscription.dispose();
+
+        assertThat(error.get()).isInstanceOf(ChangeFeedOverflowException.class);
+        assertThat(received).hasSizeLessThanOrEqualTo(2);
+        assertThat(receivedByFastSubscriber).extracting(EtudiantChangeDTO::getId).containsExactly(1L, 2L, 3L);
+        assertThat(meterRegistry.get(EtudiantChangeFeed.OVERFLOW_METER_NAME).counter().count()).isEqualTo(1);
+    }
+
+    private static EtudiantDTO etudiant(Long id) {
+        EtudiantDTO etudiant = new EtudiantDTO();
+        etudiant.setId(id);
+        return etudiant;
+    }
+}
@@ -0,0 +1,134 @@
+package com.itsandra.etudiantetranger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.itsandra.etudiantetranger.IntegrationTest;
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import com.itsandra.etudiantetranger.domain.Pays;
+import com.itsandra.etudiantetranger.repository.ChangeVersionRepository;
+import com.itsandra.etudiantetranger.repository.EntityManager;
+import com.itsandra.etudiantetranger.repository.EtudiantRepository;
+import com.itsandra.etudiantetranger.repository.PaysRepository;
+import com.itsandra.etudiantetranger.repository.ReferenceDataCache;
+import com.itsandra.etudiantetranger.service.criteria.EtudiantCriteria;
+import com.itsandra.etudiantetranger.service.dto.EtudiantDTO;
+import com.itsandra.etudiantetranger.service.dto.PaysDTO;
+import com.itsandra.etudiantetranger.service.index.EtudiantColumnStore;
+import com.itsandra.etudiantetranger.service.index.EtudiantIndexes;
+import java.time.LocalDate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Integration tests for {@link EtudiantService} with the {@link EtudiantColumnStore} enabled.
+ */
+@IntegrationTest
+@TestPropertySource(properties = "application.read-model.enabled=true")
+class EtudiantServiceReadModelIT {
+
+    @Autowired
+    private EtudiantService etudiantService;
+
+    @Autowired
+    private EtudiantColumnStore etudiantColumnStore;
+
+    @Autowired
+    private EtudiantIndexes etudiantIndexes;
+
+    @Autowired
+    private PaysRepository paysRepository;
+
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+
+    @Autowired
+    private ChangeVersionRepository changeVersionRepository;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private EntityManager em;
+
+    private Pays pays;
+
+    @BeforeEach
+    public void init() {
+        em.deleteAll(Etudiant.class).block();
+        etudiantIndexes.reload().block();
+        pays = paysRepository.save(new Pays().nomPays("Sénégal")).block();
+        referenceDataCache.invalidate().block();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        em.deleteAll(Etudiant.class).block();
+        paysRepository.delete(pays).block();
+        referenceDataCache.invalidate().block();
+    }
+
+    @Test
+    void assertThatListingsAreServedFromTheReadModel() {
+        EtudiantDTO first = etudiantService.save(etudiant("Diallo", 1L)).block();
+        EtudiantDTO second = etudiantService.save(etudiant("Ba", 2L)).block();
+        assertThat(etudiantColumnStore.size()).isEqualTo(2);
+
+        EtudiantCriteria criteria = new EtudiantCriteria();
+        criteria.setNomPaysId(pays.getId());
+        Page<EtudiantDTO> page = etudiantService.findPage(criteria, PageRequest.of(0, 10, Sort.by("nom")), true).block();
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(EtudiantDTO::getId).containsExactly(second.getId(), first.getId());
+        assertThat(page.getContent().get(0).getNomPays().getNomPays()).isEqualTo("Sénégal");
+
+        etudiantService.delete(second.getId()).block();
+
+        assertThat(etudiantService.findAll(PageRequest.of(0, 10)).collectList().block())
+            .extracting(EtudiantDTO::getId)
+            .containsExactly(first.getId());
+    }
+
+    @Test
+    void assertThatCatchUpReadsTheWritesOfOtherNodes() {
+        EtudiantDTO removed = etudiantService.save(etudiant("Diallo", 1L)).block();
+        // Written by another node, without going through this node's indexes
+        Etudiant added = etudiantRepository
+            .save(
+                new Etudiant()
+                    .nom("Ba")
+                    .prenom("Awa")
+                    .matricule(2L)
+                    .date(LocalDate.of(2022, 9, 1))
+                    .nomPays(pays)
+                    .changeVersion(changeVersionRepository.next())
+            )
+            .block();
+        etudiantRepository.deleteById(removed.getId()).then(changeVersionRepository.tombstone("etudiant", removed.getId())).block();
+        assertThat(etudiantColumnStore.size()).isEqualTo(1);
+
+        etudiantIndexes.catchUp().block();
+
+        assertThat(etudiantColumnStore.size()).isEqualTo(1);
+        assertThat(etudiantService.findAll(PageRequest.of(0, 10)).collectList().block())
+            .extracting(EtudiantDTO::getId)
+            .containsExactly(added.getId());
+    }
+
+    private EtudiantDTO etudiant(String nom, Long matricule) {
+        PaysDTO paysDTO = new PaysDTO();
+        paysDTO.setId(pays.getId());
+        EtudiantDTO etudiantDTO = new EtudiantDTO();
+        etudiantDTO.setNom(nom);
+        etudiantDTO.setPrenom("Awa");
+        etudiantDTO.setMatricule(matricule);
+        etudiantDTO.setDate(LocalDate.of(2022, 9, 1));
+        etudiantDTO.setNomPays(paysDTO);
+        return etudiantDTO;
+    }
+}
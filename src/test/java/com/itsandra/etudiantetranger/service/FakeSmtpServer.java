@@ -0,0 +1,165 @@
+package com.itsandra.etudiantetranger.service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * In-process SMTP server for the tests, keeping the received messages in memory.
+ * <p>
+ * It serves one connection at a time, and accepts every recipient except the rejected ones.
+ */
+public class FakeSmtpServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+
+    private final Thread acceptor;
+
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+
+    private final Set<String> rejectedRecipients = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    public FakeSmtpServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptConnections, "fake-smtp-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return a mail sender connecting to this server.
+     */
+    public JavaMailSenderImpl createMailSender() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(serverSocket.getInetAddress().getHostAddress());
+        mailSender.setPort(serverSocket.getLocalPort());
+        mailSender.getJavaMailProperties().setProperty("mail.smtp.connectiontimeout", "5000");
+        mailSender.getJavaMailProperties().setProperty("mail.smtp.timeout", "5000");
+        return mailSender;
+    }
+
+    public void rejectRecipient(String address) {
+        rejectedRecipients.add(address.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return the number of connections accepted so far.
+     */
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * @return the messages received so far.
+     */
+    public List<MimeMessage> getMessages() throws MessagingException {
+        Session session = Session.getInstance(new Properties());
+        List<MimeMessage> parsed = new ArrayList<>();
+        for (String message : messages) {
+            parsed.add(new MimeMessage(session, new ByteArrayInputStream(message.getBytes(StandardCharsets.ISO_8859_1))));
+        }
+        return parsed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                connections.incrementAndGet();
+                serve(socket);
+            } catch (IOException e) {
+                // The server was closed, or the client went away
+            }
+        }
+    }
+
+    private void serve(Socket socket) throws IOException {
+        // ISO-8859-1 keeps the bytes of the 8 bit messages as they are
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+        Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.ISO_8859_1);
+        reply(out, "220 localhost ESMTP");
+        boolean acceptedRecipient = false;
+        String line;
+        while ((line = in.readLine()) != null) {
+            String command = line.toUpperCase(Locale.ROOT);
+            if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                reply(out, "250 localhost");
+            } else if (command.startsWith("MAIL FROM:")) {
+                acceptedRecipient = false;
+                reply(out, "250 OK");
+            } else if (command.startsWith("RCPT TO:")) {
+                if (rejectedRecipients.contains(address(line))) {
+                    reply(out, "550 Mailbox unavailable");
+                } else {
+                    acceptedRecipient = true;
+                    reply(out, "250 OK");
+                }
+            } else if (command.equals("DATA")) {
+                if (!acceptedRecipient) {
+                    reply(out, "503 No valid recipient");
+                    continue;
+                }
+                reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                messages.add(readData(in));
+                reply(out, "250 OK");
+            } else if (command.equals("RSET") || command.equals("NOOP")) {
+                reply(out, "250 OK");
+            } else if (command.equals("QUIT")) {
+                reply(out, "221 Bye");
+                return;
+            } else {
+                reply(out, "500 Unknown command");
+            }
+        }
+    }
+
+    private static String readData(BufferedReader in) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            // Remove the dot stuffing
+            lines.add(line.startsWith(".") ? line.substring(1) : line);
+        }
+        lines.add("");
+        return String.join("\r\n", lines);
+    }
+
+    private static String address(String rcptCommand) {
+        String address = rcptCommand.substring("RCPT TO:".length()).trim();
+        int end = address.indexOf('>');
+        if (address.startsWith("<") && end > 0) {
+            address = address.substring(1, end);
+        }
+        return address.toLowerCase(Locale.ROOT);
+    }
+
+    private static void reply(Writer out, String response) throws IOException {
+        out.write(response + "\r\n");
+        out.flush();
+    }
+}
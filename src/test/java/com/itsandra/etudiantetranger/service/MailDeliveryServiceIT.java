@@ -0,0 +1,180 @@
+package com.itsandra.etudiantetranger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.itsandra.etudiantetranger.IntegrationTest;
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import com.itsandra.etudiantetranger.repository.MailOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import javax.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Integration tests for {@link MailDeliveryService}.
+ */
+@IntegrationTest
+class MailDeliveryServiceIT {
+
+    private static final int MAX_ATTEMPTS = 2;
+
+    @Autowired
+    private JHipsterProperties jHipsterProperties;
+
+    @Autowired
+    private MailTemplateRenderer mailTemplateRenderer;
+
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Autowired
+    private DatabaseClient db;
+
+    private FakeSmtpServer smtpServer;
+
+    private MeterRegistry meterRegistry;
+
+    private MailService mailService;
+
+    private MailDeliveryService mailDeliveryService;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        db.sql("DELETE FROM mail_outbox").fetch().rowsUpdated().block();
+        smtpServer = new FakeSmtpServer();
+        meterRegistry = new SimpleMeterRegistry();
+        mailService = new MailService(mailOutboxRepository, mailTemplateRenderer);
+        // No backoff, so the failed emails are due again right away
+        mailDeliveryService =
+            new MailDeliveryService(
+                mailOutboxRepository,
+                smtpServer.createMailSender(),
+                jHipsterProperties,
+                meterRegistry,
+                mailOutboxProperties(MAX_ATTEMPTS, 0, 0)
+            );
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        smtpServer.close();
+    }
+
+    @Test
+    void testBatchIsSentOverOneConnection() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mailService.sendEmail("john" + i + "@example.com", "subject" + i, "content" + i, false, false).block();
+        }
+
+        assertThat(mailDeliveryService.deliverBatch().block()).isEqualTo(3);
+
+        assertThat(smtpServer.getConnectionCount()).isEqualTo(1);
+        assertThat(smtpServer.getMessages()).extracting(MimeMessage::getSubject).containsExactly("subject0", "subject1", "subject2");
+        assertThat(mailOutboxRepository.countPending(MAX_ATTEMPTS).block()).isZero();
+        assertThat(meterRegistry.get(MailDeliveryService.SENT_METER_NAME).counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get(MailDeliveryService.BATCH_METER_NAME).timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testNothingToDeliver() throws Exception {
+        assertThat(mailDeliveryService.deliverBatch().block()).isZero();
+
+        assertThat(smtpServer.getConnectionCount()).isZero();
+    }
+
+    @Test
+    void testRejectedEmailIsRetriedAndTheOthersAreSent() throws Exception {
+        smtpServer.rejectRecipient("rejected@example.com");
+        mailService.sendEmail("john@example.com", "subject", "content", false, false).block();
+        mailService.sendEmail("rejected@example.com", "subject", "content", false, false).block();
+
+        mailDeliveryService.deliverBatch().block();
+
+        assertThat(smtpServer.getMessages()).hasSize(1);
+        assertThat(smtpServer.getMessages().get(0).getAllRecipients()[0]).hasToString("john@example.com");
+        Map<String, Object> pending = findOutboxRow();
+        assertThat(pending).containsEntry("RECIPIENT", "rejected@example.com").containsEntry("ATTEMPTS", 1);
+        assertThat(pending.get("LAST_ERROR")).isNotNull();
+        assertThat(pending.get("CLAIM")).isNull();
+        assertThat(meterRegistry.get(MailDeliveryService.RETRIED_METER_NAME).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testEmailIsAbandonedAfterTheMaxAttempts() throws Exception {
+        smtpServer.rejectRecipient("rejected@example.com");
+        mailService.sendEmail("rejected@example.com", "subject", "content", false, false).block();
+
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            assertThat(mailDeliveryService.deliverBatch().block()).isEqualTo(1);
+        }
+
+        assertThat(mailDeliveryService.deliverBatch().block()).isZero();
+        assertThat(mailOutboxRepository.countPending(MAX_ATTEMPTS).block()).isZero();
+        // The abandoned email stays in the outbox with its last error
+        assertThat(findOutboxRow()).containsEntry("ATTEMPTS", MAX_ATTEMPTS);
+        assertThat(meterRegistry.get(MailDeliveryService.RETRIED_METER_NAME).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(MailDeliveryService.ABANDONED_METER_NAME).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testAllEmailsAreRetriedWhenTheServerIsDown() throws Exception {
+        smtpServer.close();
+        mailService.sendEmail("john@example.com", "subject", "content", false, false).block();
+        mailService.sendEmail("jane@example.com", "subject", "content", false, false).block();
+
+        assertThat(mailDeliveryService.deliverBatch().block()).isEqualTo(2);
+
+        assertThat(mailOutboxRepository.countPending(MAX_ATTEMPTS).block()).isEqualTo(2);
+        assertThat(meterRegistry.get(MailDeliveryService.SENT_METER_NAME).counter().count()).isZero();
+        assertThat(meterRegistry.get(MailDeliveryService.RETRIED_METER_NAME).counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testClaimedEmailIsNotClaimedAgainDuringTheLease() {
+        mailService.sendEmail("john@example.com", "subject", "content", false, false).block();
+        Instant now = Instant.now();
+
+        assertThat(mailOutboxRepository.claim(50, MAX_ATTEMPTS, now, now.plusSeconds(60)).collectList().block()).hasSize(1);
+        assertThat(mailOutboxRepository.claim(50, MAX_ATTEMPTS, now, now.plusSeconds(60)).collectList().block()).isEmpty();
+        Instant afterLease = now.plusSeconds(61);
+        assertThat(mailOutboxRepository.claim(50, MAX_ATTEMPTS, afterLease, afterLease.plusSeconds(60)).collectList().block())
+            .hasSize(1);
+    }
+
+    @Test
+    void testBackoffIsDoubledUpToTheMax() {
+        MailDeliveryService service = new MailDeliveryService(
+            mailOutboxRepository,
+            smtpServer.createMailSender(),
+            jHipsterProperties,
+            meterRegistry,
+            mailOutboxProperties(10, 1000, 5000)
+        );
+
+        assertThat(service.backoff(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(service.backoff(2)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(service.backoff(3)).isEqualTo(Duration.ofSeconds(4));
+        assertThat(service.backoff(4)).isEqualTo(Duration.ofSeconds(5));
+        assertThat(service.backoff(100)).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    private Map<String, Object> findOutboxRow() {
+        return db.sql("SELECT recipient, attempts, last_error, claim FROM mail_outbox").fetch().one().block();
+    }
+
+    private static ApplicationProperties mailOutboxProperties(int maxAttempts, long initialBackoffMs, long maxBackoffMs) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getMailOutbox().setMaxAttempts(maxAttempts);
+        applicationProperties.getMailOutbox().setInitialBackoffMs(initialBackoffMs);
+        applicationProperties.getMailOutbox().setMaxBackoffMs(maxBackoffMs);
+        return applicationProperties;
+    }
+}
@@ -1,41 +1,40 @@
 package com.itsandra.etudiantetranger.service;
 
 import static org.assertj.core.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.*;
 
 import com.itsandra.etudiantetranger.IntegrationTest;
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
 import com.itsandra.etudiantetranger.config.Constants;
 import com.itsandra.etudiantetranger.domain.User;
-import java.io.ByteArrayOutputStream;
+import com.itsandra.etudiantetranger.repository.MailOutboxRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.mail.Multipart;
-import javax.mail.internet.MimeBodyPart;
+import javax.mail.Part;
+import javax.mail.internet.ContentType;
 import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimeMultipart;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
-import org.mockito.MockitoAnnotations;
-import org.mockito.Spy;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.MessageSource;
-import org.springframework.mail.MailSendException;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
-import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
 import tech.jhipster.config.JHipsterProperties;
 
 /**
- * Integration tests for {@link MailService}.
+ * Integration tests for {@link MailService}, delivering the queued emails to an in-process SMTP server.
  */
 @IntegrationTest
 class MailServiceIT {
@@ -50,84 +49,105 @@ class MailServiceIT {
     private JHipsterProperties jHipsterProperties;
 
     @Autowired
-    private MessageSource messageSource;
+    private MailTemplateRenderer mailTemplateRenderer;
 
     @Autowired
-    private SpringTemplateEngine templateEngine;
+    private MailOutboxRepository mailOutboxRepository;
 
-    @Spy
-    private JavaMailSenderImpl javaMailSender;
+    @Autowired
+    private DatabaseClient db;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-    @Captor
-    private ArgumentCaptor<MimeMessage> messageCaptor;
+    private FakeSmtpServer smtpServer;
 
     private MailService mailService;
 
+    private MailDeliveryService mailDeliveryService;
+
     @BeforeEach
-    public void setup() {
-        MockitoAnnotations.openMocks(this);
-        doNothing().when(javaMailSender).send(any(MimeMessage.class));
-        mailService = new MailService(jHipsterProperties, javaMailSender, messageSource, templateEngine);
+    public void setup() throws Exception {
+        db.sql("DELETE FROM mail_outbox").fetch().rowsUpdated().block();
+        smtpServer = new FakeSmtpServer();
+        mailService = new MailService(mailOutboxRepository, mailTemplateRenderer);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getMailOutbox().setMaxAttempts(3);
+        applicationProperties.getMailOutbox().setInitialBackoffMs(60000);
+        mailDeliveryService =
+            new MailDeliveryService(
+                mailOutboxRepository,
+                smtpServer.createMailSender(),
+                jHipsterProperties,
+                new SimpleMeterRegistry(),
+                applicationProperties
+            );
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        smtpServer.close();
+    }
+
+    @Test
+    void testWarmUpParsesTheEmailTemplates() {
+        mailService.warmUp().block();
+
+        for (String template : List.of("mail/activationEmail", "mail/creationEmail", "mail/passwordResetEmail")) {
+            assertThat(meterRegistry.get(MailTemplateRenderer.RENDER_METER_NAME).tag("template", template).timer().count()).isPositive();
+        }
     }
 
     @Test
     void testSendEmail() throws Exception {
-        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false).block();
+        MimeMessage message = deliverOne();
         assertThat(message.getSubject()).isEqualTo("testSubject");
         assertThat(message.getAllRecipients()[0]).hasToString("john.doe@example.com");
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
         assertThat(message.getContent()).isInstanceOf(String.class);
-        assertThat(message.getContent()).hasToString("testContent");
-        assertThat(message.getDataHandler().getContentType()).isEqualTo("text/plain; charset=UTF-8");
+        assertThat(message.getContent().toString().trim()).isEqualTo("testContent");
+        assertContentType(message, "text/plain");
     }
 
     @Test
     void testSendHtmlEmail() throws Exception {
-        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, true);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, true).block();
+        MimeMessage message = deliverOne();
         assertThat(message.getSubject()).isEqualTo("testSubject");
         assertThat(message.getAllRecipients()[0]).hasToString("john.doe@example.com");
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
         assertThat(message.getContent()).isInstanceOf(String.class);
-        assertThat(message.getContent()).hasToString("testContent");
-        assertThat(message.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
+        assertThat(message.getContent().toString().trim()).isEqualTo("testContent");
+        assertContentType(message, "text/html");
     }
 
     @Test
     void testSendMultipartEmail() throws Exception {
-        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", true, false);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", true, false).block();
+        MimeMessage message = deliverOne();
         MimeMultipart mp = (MimeMultipart) message.getContent();
-        MimeBodyPart part = (MimeBodyPart) ((MimeMultipart) mp.getBodyPart(0).getContent()).getBodyPart(0);
-        ByteArrayOutputStream aos = new ByteArrayOutputStream();
-        part.writeTo(aos);
+        Part part = ((MimeMultipart) mp.getBodyPart(0).getContent()).getBodyPart(0);
         assertThat(message.getSubject()).isEqualTo("testSubject");
         assertThat(message.getAllRecipients()[0]).hasToString("john.doe@example.com");
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
         assertThat(message.getContent()).isInstanceOf(Multipart.class);
-        assertThat(aos).hasToString("\r\ntestContent");
-        assertThat(part.getDataHandler().getContentType()).isEqualTo("text/plain; charset=UTF-8");
+        assertThat(part.getContent().toString().trim()).isEqualTo("testContent");
+        assertContentType(part, "text/plain");
     }
 
     @Test
     void testSendMultipartHtmlEmail() throws Exception {
-        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", true, true);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", true, true).block();
+        MimeMessage message = deliverOne();
         MimeMultipart mp = (MimeMultipart) message.getContent();
-        MimeBodyPart part = (MimeBodyPart) ((MimeMultipart) mp.getBodyPart(0).getContent()).getBodyPart(0);
-        ByteArrayOutputStream aos = new ByteArrayOutputStream();
-        part.writeTo(aos);
+        Part part = ((MimeMultipart) mp.getBodyPart(0).getContent()).getBodyPart(0);
         assertThat(message.getSubject()).isEqualTo("testSubject");
         assertThat(message.getAllRecipients()[0]).hasToString("john.doe@example.com");
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
         assertThat(message.getContent()).isInstanceOf(Multipart.class);
-        assertThat(aos).hasToString("\r\ntestContent");
-        assertThat(part.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
+        assertThat(part.getContent().toString().trim()).isEqualTo("testContent");
+        assertContentType(part, "text/html");
     }
 
     @Test
@@ -136,14 +156,13 @@ class MailServiceIT {
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
         user.setLangKey("en");
-        mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title");
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title").block();
+        MimeMessage message = deliverOne();
         assertThat(message.getSubject()).isEqualTo("test title");
         assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
-        assertThat(message.getContent().toString()).isEqualToNormalizingNewlines("<html>test title, http://127.0.0.1:8080, john</html>\n");
-        assertThat(message.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
+        assertThat(message.getContent().toString().trim()).isEqualTo("<html>test title, http://127.0.0.1:8080, john</html>");
+        assertContentType(message, "text/html");
     }
 
     @Test
@@ -152,13 +171,12 @@ class MailServiceIT {
         user.setLangKey(Constants.DEFAULT_LANGUAGE);
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
-        mailService.sendActivationEmail(user);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendActivationEmail(user).block();
+        MimeMessage message = deliverOne();
         assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
         assertThat(message.getContent().toString()).isNotEmpty();
-        assertThat(message.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
+        assertContentType(message, "text/html");
     }
 
     @Test
@@ -167,13 +185,12 @@ class MailServiceIT {
         user.setLangKey(Constants.DEFAULT_LANGUAGE);
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
-        mailService.sendCreationEmail(user);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendCreationEmail(user).block();
+        MimeMessage message = deliverOne();
         assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
         assertThat(message.getContent().toString()).isNotEmpty();
-        assertThat(message.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
+        assertContentType(message, "text/html");
     }
 
     @Test
@@ -182,23 +199,52 @@ class MailServiceIT {
         user.setLangKey(Constants.DEFAULT_LANGUAGE);
         user.setLogin("john");
         user.setEmail("john.doe@example.com");
-        mailService.sendPasswordResetMail(user);
-        verify(javaMailSender).send(messageCaptor.capture());
-        MimeMessage message = messageCaptor.getValue();
+        mailService.sendPasswordResetMail(user).block();
+        MimeMessage message = deliverOne();
         assertThat(message.getAllRecipients()[0]).hasToString(user.getEmail());
         assertThat(message.getFrom()[0]).hasToString(jHipsterProperties.getMail().getFrom());
         assertThat(message.getContent().toString()).isNotEmpty();
-        assertThat(message.getDataHandler().getContentType()).isEqualTo("text/html;charset=UTF-8");
+        assertContentType(message, "text/html");
     }
 
     @Test
-    void testSendEmailWithException() {
-        doThrow(MailSendException.class).when(javaMailSender).send(any(MimeMessage.class));
+    void testSendEmailsFromTemplate() throws Exception {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User user = new User();
+            user.setLogin("john" + i);
+            user.setEmail("john" + i + "@example.com");
+            user.setLangKey("en");
+            users.add(user);
+        }
+        User userWithoutEmail = new User();
+        userWithoutEmail.setLogin("jane");
+        users.add(userWithoutEmail);
+
+        assertThat(mailService.sendEmailsFromTemplate(Flux.fromIterable(users), "mail/testEmail", "email.test.title").block())
+            .isEqualTo(5);
+
+        assertThat(mailDeliveryService.deliverBatch().block()).isEqualTo(5);
+        List<MimeMessage> messages = smtpServer.getMessages();
+        assertThat(messages).hasSize(5);
+        for (MimeMessage message : messages) {
+            String login = message.getAllRecipients()[0].toString().replace("@example.com", "");
+            assertThat(message.getSubject()).isEqualTo("test title");
+            assertThat(message.getContent().toString().trim()).isEqualTo("<html>test title, http://127.0.0.1:8080, " + login + "</html>");
+            assertContentType(message, "text/html");
+        }
+    }
+
+    @Test
+    void testSendEmailWithException() throws Exception {
+        smtpServer.close();
+        mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false).block();
         try {
-            mailService.sendEmail("john.doe@example.com", "testSubject", "testContent", false, false);
+            mailDeliveryService.deliverBatch().block();
         } catch (Exception e) {
             fail("Exception shouldn't have been thrown");
         }
+        assertThat(mailOutboxRepository.countPending(3).block()).isEqualTo(1L);
     }
 
     @Test
@@ -208,9 +254,10 @@ class MailServiceIT {
         user.setEmail("john.doe@example.com");
         for (String langKey : languages) {
             user.setLangKey(langKey);
-            mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title");
-            verify(javaMailSender, atLeastOnce()).send(messageCaptor.capture());
-            MimeMessage message = messageCaptor.getValue();
+            mailService.sendEmailFromTemplate(user, "mail/testEmail", "email.test.title").block();
+            mailDeliveryService.deliverBatch().block();
+            List<MimeMessage> messages = smtpServer.getMessages();
+            MimeMessage message = messages.get(messages.size() - 1);
 
             String propertyFilePath = "i18n/messages_" + getJavaLocale(langKey) + ".properties";
             URL resource = this.getClass().getClassLoader().getResource(propertyFilePath);
@@ -220,11 +267,24 @@ class MailServiceIT {
 
             String emailTitle = (String) properties.get("email.test.title");
             assertThat(message.getSubject()).isEqualTo(emailTitle);
-            assertThat(message.getContent().toString())
-                .isEqualToNormalizingNewlines("<html>" + emailTitle + ", http://127.0.0.1:8080, john</html>\n");
+            assertThat(message.getContent().toString().trim()).isEqualTo("<html>" + emailTitle + ", http://127.0.0.1:8080, john</html>");
         }
     }
 
+    private MimeMessage deliverOne() throws Exception {
+        assertThat(mailDeliveryService.deliverBatch().block()).isEqualTo(1);
+        List<MimeMessage> messages = smtpServer.getMessages();
+        assertThat(messages).hasSize(1);
+        assertThat(mailOutboxRepository.countPending(3).block()).isZero();
+        return messages.get(0);
+    }
+
+    private static void assertContentType(Part part, String baseType) throws Exception {
+        ContentType contentType = new ContentType(part.getContentType());
+        assertThat(contentType.getBaseType()).isEqualToIgnoringCase(baseType);
+        assertThat(contentType.getParameter("charset")).isEqualToIgnoringCase("UTF-8");
+    }
+
     /**
      * Convert a lang key to the Java locale.
      */
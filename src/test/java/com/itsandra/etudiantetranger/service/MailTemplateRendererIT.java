@@ -0,0 +1,80 @@
+package com.itsandra.etudiantetranger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.itsandra.etudiantetranger.IntegrationTest;
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import com.itsandra.etudiantetranger.domain.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import reactor.util.function.Tuple2;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Integration tests for {@link MailTemplateRenderer}.
+ */
+@IntegrationTest
+class MailTemplateRendererIT {
+
+    @Autowired
+    private JHipsterProperties jHipsterProperties;
+
+    @Autowired
+    private MessageSource messageSource;
+
+    @Autowired
+    private SpringTemplateEngine templateEngine;
+
+    private MeterRegistry meterRegistry;
+
+    private MailTemplateRenderer mailTemplateRenderer;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getMailRendering().setThreads(2);
+        mailTemplateRenderer =
+            new MailTemplateRenderer(jHipsterProperties, messageSource, templateEngine, meterRegistry, applicationProperties);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mailTemplateRenderer.shutdown();
+    }
+
+    @Test
+    void testRenderInTheLanguageOfTheUser() {
+        User user = new User();
+        user.setLogin("john");
+        user.setLangKey("en");
+
+        Tuple2<String, String> email = mailTemplateRenderer.render(user, "mail/testEmail", "email.test.title").block();
+
+        assertThat(email.getT1()).isEqualTo("test title");
+        assertThat(email.getT2()).isEqualTo("<html>test title, http://127.0.0.1:8080, john</html>\n");
+    }
+
+    @Test
+    void testRenderingsAreTimedByTemplate() {
+        User user = new User();
+        user.setLogin("john");
+        user.setLangKey("en");
+
+        mailTemplateRenderer.warmUp(List.of("mail/activationEmail")).block();
+        mailTemplateRenderer.render(user, "mail/testEmail", "email.test.title").block();
+        mailTemplateRenderer.render(user, "mail/testEmail", "email.test.title").block();
+
+        assertThat(meterRegistry.get(MailTemplateRenderer.RENDER_METER_NAME).tag("template", "mail/testEmail").timer().count())
+            .isEqualTo(2);
+        assertThat(meterRegistry.get(MailTemplateRenderer.RENDER_METER_NAME).tag("template", "mail/activationEmail").timer().count())
+            .isEqualTo(1);
+    }
+}
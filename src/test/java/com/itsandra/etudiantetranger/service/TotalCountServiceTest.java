@@ -0,0 +1,135 @@
+package com.itsandra.etudiantetranger.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.itsandra.etudiantetranger.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class TotalCountServiceTest {
+
+    private static final String METER_EXPECTED_NAME = "pagination.total-count";
+
+    private static final Pageable PAGEABLE = PageRequest.of(0, 2);
+
+    private MeterRegistry meterRegistry;
+
+    private AtomicInteger countQueries;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        countQueries = new AtomicInteger();
+    }
+
+    @Test
+    void testCachedCountIsMaintainedByWrites() {
+        TotalCountService totalCountService = new TotalCountService(meterRegistry, properties("cached", 60000));
+
+        assertThat(findPage(totalCountService, true).getTotalElements()).isEqualTo(10);
+        totalCountService.increment("test", 2);
+        assertThat(findPage(totalCountService, true).getTotalElements()).isEqualTo(12);
+        assertThat(countQueries.get()).isEqualTo(1);
+
+        totalCountService.invalidate("test");
+        assertThat(findPage(totalCountService, true).getTotalElements()).isEqualTo(10);
+        assertThat(countQueries.get()).isEqualTo(2);
+
+        assertThat(meterRegistry.get(METER_EXPECTED_NAME).tag("strategy", "count").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(METER_EXPECTED_NAME).tag("strategy", "cached").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testCachedCountIsCorrectedByTheLastPage() {
+        TotalCountService totalCountService = new TotalCountService(meterRegistry, properties("cached", 60000));
+
+        assertThat(findPage(totalCountService, PAGEABLE, List.of("a", "b")).getTotalElements()).isEqualTo(10);
+        // Etudiants deleted by another node: the last page ends before the cached total
+        assertThat(findPage(totalCountService, PageRequest.of(3, 2), List.of("g")).getTotalElements()).isEqualTo(7);
+        assertThat(findPage(totalCountService, PAGEABLE, List.of("a", "b")).getTotalElements()).isEqualTo(7);
+        // Etudiants created by another node: a full page ends after the cached total
+        assertThat(findPage(totalCountService, PageRequest.of(4, 2), List.of("i", "j")).getTotalElements()).isEqualTo(10);
+        assertThat(countQueries.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testExpiredCachedCountIsReloaded() {
+        TotalCountService totalCountService = new TotalCountService(meterRegistry, properties("cached", 0));
+
+        findPage(totalCountService, true);
+        findPage(totalCountService, true);
+
+        assertThat(countQueries.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testWindowCount() {
+        TotalCountService totalCountService = new TotalCountService(meterRegistry, properties("window", 60000));
+
+        assertThat(findPage(totalCountService, true).getTotalElements()).isEqualTo(42);
+        assertThat(countQueries.get()).isZero();
+        assertThat(meterRegistry.get(METER_EXPECTED_NAME).tag("entity", "test").tag("strategy", "window").counter().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void testSkippedCount() {
+        TotalCountService totalCountService = new TotalCountService(meterRegistry, properties("WINDOW", 60000));
+
+        assertThat(findPage(totalCountService, false).getContent()).containsExactly("a", "b");
+        assertThat(countQueries.get()).isZero();
+        assertThat(meterRegistry.get(METER_EXPECTED_NAME).tag("strategy", "none").counter().count()).isEqualTo(1);
+        assertThat(totalCountService.hasTotal(false)).isFalse();
+    }
+
+    @Test
+    void testNoTotalWithTheNoneStrategy() {
+        TotalCountService totalCountService = new TotalCountService(meterRegistry, properties("none", 60000));
+
+        assertThat(findPage(totalCountService, true).getContent()).containsExactly("a", "b");
+        assertThat(countQueries.get()).isZero();
+        assertThat(totalCountService.hasTotal(true)).isFalse();
+    }
+
+    private Page<String> findPage(TotalCountService totalCountService, boolean withTotal) {
+        return findPage(totalCountService, PAGEABLE, List.of("a", "b"), withTotal);
+    }
+
+    private Page<String> findPage(TotalCountService totalCountService, Pageable page, List<String> content) {
+        return findPage(totalCountService, page, content, true);
+    }
+
+    private Page<String> findPage(TotalCountService totalCountService, Pageable page, List<String> content, boolean withTotal) {
+        return totalCountService
+            .findPage(
+                "test",
+                page,
+                withTotal,
+                pageable -> Flux.fromIterable(content),
+                () ->
+                    Mono.fromSupplier(() -> {
+                        countQueries.incrementAndGet();
+                        return 10L;
+                    }),
+                pageable -> Mono.<Page<String>>just(new PageImpl<>(List.of("a", "b"), pageable, 42))
+            )
+            .block();
+    }
+
+    private static ApplicationProperties properties(String countStrategy, long countCacheTtlMs) {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getPagination().setCountStrategy(countStrategy);
+        applicationProperties.getPagination().setCountCacheTtlMs(countCacheTtlMs);
+        return applicationProperties;
+    }
+}
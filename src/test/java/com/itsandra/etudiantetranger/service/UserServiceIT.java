@@ -5,6 +5,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import com.itsandra.etudiantetranger.IntegrationTest;
 import com.itsandra.etudiantetranger.config.Constants;
 import com.itsandra.etudiantetranger.domain.User;
+import com.itsandra.etudiantetranger.repository.UserCache;
 import com.itsandra.etudiantetranger.repository.UserRepository;
 import com.itsandra.etudiantetranger.service.dto.AdminUserDTO;
 import java.time.Instant;
@@ -41,6 +42,9 @@ class UserServiceIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
     @Autowired
     private UserService userService;
 
@@ -48,6 +52,7 @@ class UserServiceIT {
 
     @BeforeEach
     public void init() {
+        userCache.clear();
         userRepository.deleteAllUserAuthorities().block();
         userRepository.deleteAll().block();
         user = new User();
@@ -167,4 +172,27 @@ class UserServiceIT {
         Optional<User> maybeDbUser = userRepository.findById(dbUser.getId()).blockOptional();
         assertThat(maybeDbUser).contains(dbUser);
     }
+
+    @Test
+    void assertThatUserWithAuthoritiesIsCachedUntilSaved() {
+        userRepository.save(user).block();
+        User cachedUser = userService.getUserWithAuthoritiesByLogin(DEFAULT_LOGIN).block();
+        assertThat(userService.getUserWithAuthoritiesByLogin(DEFAULT_LOGIN).block()).isSameAs(cachedUser);
+
+        User updatedUser = userRepository.findOneByLogin(DEFAULT_LOGIN).block();
+        updatedUser.setFirstName("updated");
+        userService.saveUser(updatedUser).block();
+
+        assertThat(userService.getUserWithAuthoritiesByLogin(DEFAULT_LOGIN).block().getFirstName()).isEqualTo("updated");
+    }
+
+    @Test
+    void assertThatDeletedUserIsEvicted() {
+        userRepository.save(user).block();
+        assertThat(userService.getUserWithAuthoritiesByLogin(DEFAULT_LOGIN).blockOptional()).isPresent();
+
+        userService.deleteUser(DEFAULT_LOGIN).block();
+
+        assertThat(userService.getUserWithAuthoritiesByLogin(DEFAULT_LOGIN).blockOptional()).isNotPresent();
+    }
 }
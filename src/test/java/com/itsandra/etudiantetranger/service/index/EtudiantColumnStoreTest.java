@@ -0,0 +1,174 @@
+package com.itsandra.etudiantetranger.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import com.itsandra.etudiantetranger.service.criteria.EtudiantCriteria;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+class EtudiantColumnStoreTest {
+
+    private MeterRegistry meterRegistry;
+
+    private EtudiantColumnStore columnStore;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        columnStore = new EtudiantColumnStore(meterRegistry);
+        columnStore.put(etudiant(1L, "Martin", "Paul", 100L, LocalDate.of(2021, 9, 1), 10L));
+        columnStore.put(etudiant(2L, "diallo", "Awa", 200L, LocalDate.of(2022, 9, 1), 11L));
+        columnStore.put(etudiant(3L, "Dupont", "Paul", null, null, 10L));
+    }
+
+    @Test
+    void testFindsAllEtudiantsById() {
+        Page<Etudiant> page = findPage(new EtudiantCriteria(), PageRequest.of(0, 2));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(Etudiant::getId).containsExactly(1L, 2L);
+        Etudiant etudiant = page.getContent().get(0);
+        assertThat(etudiant.getNom()).isEqualTo("Martin");
+        assertThat(etudiant.getPrenom()).isEqualTo("Paul");
+        assertThat(etudiant.getMatricule()).isEqualTo(100L);
+        assertThat(etudiant.getDate()).isEqualTo(LocalDate.of(2021, 9, 1));
+        assertThat(etudiant.getNomPaysId()).isEqualTo(10L);
+        assertThat(etudiant.getNomFiliereId()).isNull();
+    }
+
+    @Test
+    void testSortsByColumns() {
+        assertThat(findPage(new EtudiantCriteria(), PageRequest.of(0, 10, Sort.by("nom"))).getContent())
+            .extracting(Etudiant::getId)
+            .containsExactly(2L, 3L, 1L);
+        assertThat(findPage(new EtudiantCriteria(), PageRequest.of(0, 10, Sort.by(Sort.Order.desc("prenom"), Sort.Order.desc("date")))).getContent())
+            .extracting(Etudiant::getId)
+            .containsExactly(1L, 3L, 2L);
+        assertThat(findPage(new EtudiantCriteria(), PageRequest.of(0, 10, Sort.by("matricule"))).getContent())
+            .extracting(Etudiant::getId)
+            .containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    void testSortsNamesIgnoringCaseAndAccents() {
+        columnStore.put(etudiant(4L, "Écrivain", "Zoé", 400L, null, null));
+        Pageable byNom = PageRequest.of(0, 10, Sort.by("nom"));
+
+        assertThat(findPage(new EtudiantCriteria(), byNom).getContent()).extracting(Etudiant::getId).containsExactly(2L, 3L, 4L, 1L);
+
+        // The order is sorted again after a write
+        columnStore.put(etudiant(5L, "ecrivain", "Anne", 500L, null, null));
+        assertThat(findPage(new EtudiantCriteria(), byNom).getContent()).extracting(Etudiant::getId).containsExactly(2L, 3L, 4L, 5L, 1L);
+        assertThat(findPage(new EtudiantCriteria(), PageRequest.of(1, 2, Sort.by("nom"))).getContent())
+            .extracting(Etudiant::getId)
+            .containsExactly(4L, 5L);
+    }
+
+    @Test
+    void testLeavesUnknownSortToTheDatabase() {
+        assertThat(columnStore.findPage(new EtudiantCriteria(), PageRequest.of(0, 10, Sort.by("nomPays.nomPays")))).isEmpty();
+    }
+
+    @Test
+    void testFiltersByCriteria() {
+        EtudiantCriteria criteria = new EtudiantCriteria();
+        criteria.setNom("d");
+        assertThat(findPage(criteria, Pageable.unpaged()).getContent()).extracting(Etudiant::getId).containsExactly(2L, 3L);
+
+        criteria.setNomPaysId(10L);
+        assertThat(findPage(criteria, Pageable.unpaged()).getContent()).extracting(Etudiant::getId).containsExactly(3L);
+
+        criteria = new EtudiantCriteria();
+        criteria.setDateFrom(LocalDate.of(2022, 1, 1));
+        assertThat(findPage(criteria, Pageable.unpaged()).getContent()).extracting(Etudiant::getId).containsExactly(2L);
+
+        criteria = new EtudiantCriteria();
+        criteria.setPrenom("Paul");
+        criteria.setMatricule(100L);
+        assertThat(findPage(criteria, Pageable.unpaged()).getContent()).extracting(Etudiant::getId).containsExactly(1L);
+    }
+
+    @Test
+    void testWritesAreApplied() {
+        columnStore.put(etudiant(1L, "Martin", "Pierre", 100L, LocalDate.of(2021, 9, 1), 10L));
+        columnStore.remove(2L);
+        columnStore.put(etudiant(4L, "Zola", "Emile", 400L, LocalDate.of(2023, 9, 1), 12L));
+
+        Page<Etudiant> page = findPage(new EtudiantCriteria(), Pageable.unpaged());
+
+        assertThat(page.getContent()).extracting(Etudiant::getId).containsExactly(1L, 3L, 4L);
+        assertThat(page.getContent()).extracting(Etudiant::getPrenom).containsExactly("Pierre", "Paul", "Emile");
+    }
+
+    @Test
+    void testKeepsTheOrdersUpToDateAfterWrites() {
+        Pageable byNom = PageRequest.of(0, 10, Sort.by("nom"));
+        Pageable byMatriculeDesc = PageRequest.of(0, 10, Sort.by(Sort.Order.desc("matricule")));
+        assertThat(findPage(new EtudiantCriteria(), byNom).getContent()).extracting(Etudiant::getId).containsExactly(2L, 3L, 1L);
+        assertThat(findPage(new EtudiantCriteria(), byMatriculeDesc).getContent()).extracting(Etudiant::getId).containsExactly(2L, 1L, 3L);
+
+        columnStore.put(etudiant(1L, "Ba", "Paul", 50L, LocalDate.of(2021, 9, 1), 10L));
+        columnStore.remove(2L);
+        columnStore.put(etudiant(4L, "Camara", "Awa", 300L, null, null));
+
+        assertThat(findPage(new EtudiantCriteria(), byNom).getContent()).extracting(Etudiant::getId).containsExactly(1L, 4L, 3L);
+        assertThat(findPage(new EtudiantCriteria(), byMatriculeDesc).getContent()).extracting(Etudiant::getId).containsExactly(4L, 1L, 3L);
+    }
+
+    @Test
+    void testSortsManyEtudiants() {
+        columnStore.swap(columnStore.newContent());
+        for (long id = 1; id <= 1000; id++) {
+            columnStore.put(etudiant(id, "Nom", "Prenom", (id * 7919) % 1009, null, null));
+        }
+
+        List<Etudiant> sorted = findPage(new EtudiantCriteria(), PageRequest.of(0, 1000, Sort.by("matricule"))).getContent();
+
+        assertThat(sorted).hasSize(1000);
+        assertThat(sorted).extracting(Etudiant::getMatricule).isSorted();
+    }
+
+    @Test
+    void testFiltersNamesByPrefixIgnoringCaseAndAccents() {
+        columnStore.put(etudiant(4L, "Écrivain", "Zoé", 400L, null, null));
+        columnStore.put(etudiant(5L, "Œuvray", "Noël", 500L, null, null));
+        EtudiantCriteria criteria = new EtudiantCriteria();
+
+        criteria.setNom("ecri");
+        assertThat(findPage(criteria, Pageable.unpaged()).getContent()).extracting(Etudiant::getId).containsExactly(4L);
+        criteria.setNom("OEUV");
+        assertThat(findPage(criteria, Pageable.unpaged()).getContent()).extracting(Etudiant::getId).containsExactly(5L);
+        criteria.setNom("Écr");
+        assertThat(findPage(criteria, Pageable.unpaged()).getContent()).extracting(Etudiant::getId).containsExactly(4L);
+    }
+
+    @Test
+    void testReportsMemory() {
+        assertThat(meterRegistry.get(EtudiantColumnStore.SIZE_METER_NAME).gauge().value()).isEqualTo(3);
+        assertThat(meterRegistry.get(EtudiantColumnStore.MEMORY_METER_NAME).gauge().value()).isPositive();
+        assertThat(meterRegistry.get(EtudiantColumnStore.MEMORY_PER_ETUDIANT_METER_NAME).gauge().value()).isPositive();
+    }
+
+    private Page<Etudiant> findPage(EtudiantCriteria criteria, Pageable pageable) {
+        Optional<Page<Etudiant>> page = columnStore.findPage(criteria, pageable);
+        assertThat(page).isPresent();
+        return page.get();
+    }
+
+    private static Etudiant etudiant(Long id, String nom, String prenom, Long matricule, LocalDate date, Long paysId) {
+        Etudiant etudiant = new Etudiant().nom(nom).prenom(prenom).matricule(matricule).date(date);
+        etudiant.setId(id);
+        etudiant.setNomPaysId(paysId);
+        return etudiant;
+    }
+}
@@ -0,0 +1,94 @@
+package com.itsandra.etudiantetranger.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import com.itsandra.etudiantetranger.service.index.EtudiantFacetIndex.Counts;
+import com.itsandra.etudiantetranger.service.index.EtudiantFacetIndex.Facet;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EtudiantFacetIndexTest {
+
+    private EtudiantFacetIndex facetIndex;
+
+    @BeforeEach
+    public void setup() {
+        facetIndex = new EtudiantFacetIndex();
+        facetIndex.put(etudiant(1L, 10L, 20L, LocalDate.of(2021, 9, 1)));
+        facetIndex.put(etudiant(2L, 10L, 21L, LocalDate.of(2022, 9, 1)));
+        facetIndex.put(etudiant(3L, 11L, 20L, LocalDate.of(2022, 10, 1)));
+        facetIndex.put(etudiant(4L, null, null, null));
+    }
+
+    @Test
+    void testCountsAllFacets() {
+        Counts counts = facetIndex.count(Map.of(), EnumSet.allOf(Facet.class));
+
+        assertThat(counts.getTotal()).isEqualTo(4);
+        assertThat(counts.getFacets().get(Facet.PAYS)).containsExactly(Map.entry(10L, 2L), Map.entry(11L, 1L));
+        assertThat(counts.getFacets().get(Facet.FILIERE)).containsExactly(Map.entry(20L, 2L), Map.entry(21L, 1L));
+        assertThat(counts.getFacets().get(Facet.NIVEAU)).isEmpty();
+        assertThat(counts.getFacets().get(Facet.YEAR)).containsExactly(Map.entry(2021L, 1L), Map.entry(2022L, 2L));
+    }
+
+    @Test
+    void testCountsIntersectionOfFilters() {
+        Counts counts = facetIndex.count(Map.of(Facet.PAYS, Set.of(10L, 11L), Facet.YEAR, Set.of(2022L)), EnumSet.of(Facet.FILIERE));
+
+        assertThat(counts.getTotal()).isEqualTo(2);
+        assertThat(counts.getFacets()).containsOnlyKeys(Facet.FILIERE);
+        assertThat(counts.getFacets().get(Facet.FILIERE)).containsExactly(Map.entry(20L, 1L), Map.entry(21L, 1L));
+        assertThat(facetIndex.count(Map.of(Facet.PAYS, Set.of(12L)), EnumSet.of(Facet.PAYS)).getTotal()).isZero();
+    }
+
+    @Test
+    void testCountsDoNotDependOnThePreviousOnes() {
+        facetIndex.count(Map.of(Facet.PAYS, Set.of(11L)), EnumSet.of(Facet.FILIERE));
+
+        Counts counts = facetIndex.count(Map.of(Facet.YEAR, Set.of(2021L, 2022L)), EnumSet.of(Facet.PAYS));
+
+        assertThat(counts.getTotal()).isEqualTo(3);
+        assertThat(counts.getFacets().get(Facet.PAYS)).containsExactly(Map.entry(10L, 2L), Map.entry(11L, 1L));
+    }
+
+    @Test
+    void testWritesAreIndexed() {
+        facetIndex.put(etudiant(1L, 11L, 20L, LocalDate.of(2021, 9, 1)));
+        facetIndex.remove(3L);
+        facetIndex.put(etudiant(5L, 12L, 22L, LocalDate.of(2023, 9, 1)));
+
+        Counts counts = facetIndex.count(Map.of(), EnumSet.of(Facet.PAYS));
+
+        assertThat(counts.getTotal()).isEqualTo(4);
+        assertThat(counts.getFacets().get(Facet.PAYS)).containsExactly(Map.entry(10L, 1L), Map.entry(11L, 1L), Map.entry(12L, 1L));
+        assertThat(facetIndex.size()).isEqualTo(4);
+    }
+
+    @Test
+    void testSwapReplacesAllEtudiants() {
+        EtudiantIndex.Content content = facetIndex.newContent();
+        content.put(etudiant(5L, 12L, 22L, LocalDate.of(2023, 9, 1)));
+
+        // The new content isn't seen until it is swapped in
+        assertThat(facetIndex.size()).isEqualTo(4);
+        facetIndex.swap(content);
+
+        Counts counts = facetIndex.count(Map.of(), EnumSet.of(Facet.PAYS));
+        assertThat(counts.getTotal()).isEqualTo(1);
+        assertThat(counts.getFacets().get(Facet.PAYS)).containsExactly(Map.entry(12L, 1L));
+        assertThat(facetIndex.size()).isEqualTo(1);
+    }
+
+    private static Etudiant etudiant(Long id, Long paysId, Long filiereId, LocalDate date) {
+        Etudiant etudiant = new Etudiant().date(date);
+        etudiant.setId(id);
+        etudiant.setNomPaysId(paysId);
+        etudiant.setNomFiliereId(filiereId);
+        return etudiant;
+    }
+}
@@ -0,0 +1,82 @@
+package com.itsandra.etudiantetranger.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+class EtudiantSearchIndexTest {
+
+    private EtudiantSearchIndex searchIndex;
+
+    @BeforeEach
+    public void setup() {
+        searchIndex = new EtudiantSearchIndex();
+        searchIndex.put(etudiant(1L, "Dupré", "Hélène"));
+        searchIndex.put(etudiant(2L, "Lefèvre", "Hélènette"));
+        searchIndex.put(etudiant(3L, "Œuvray", "Noël"));
+        searchIndex.put(etudiant(4L, "Diallo", null));
+    }
+
+    @Test
+    void testSearchIgnoresCaseAndAccents() {
+        assertThat(searchIndex.search("HELENE dupre", PageRequest.of(0, 10)).getContent()).containsExactly(1L);
+        assertThat(searchIndex.search("oeuvray noel", PageRequest.of(0, 10)).getContent()).containsExactly(3L);
+        assertThat(searchIndex.search("diallo", PageRequest.of(0, 10)).getContent()).containsExactly(4L);
+    }
+
+    @Test
+    void testSearchRanksWholeWordsFirst() {
+        Page<Long> page = searchIndex.search("helene", PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).containsExactly(1L, 2L);
+        assertThat(searchIndex.search("lene", PageRequest.of(0, 10)).getContent()).containsExactly(1L, 2L);
+        assertThat(searchIndex.search("ene", PageRequest.of(0, 10)).getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void testSearchMatchesShortTerms() {
+        assertThat(searchIndex.search("dia d", PageRequest.of(0, 10)).getContent()).containsExactly(4L);
+        assertThat(searchIndex.search("hel x", PageRequest.of(0, 10)).getContent()).isEmpty();
+    }
+
+    @Test
+    void testQueryWithOnlyShortTermsMatchesNothing() {
+        assertThat(EtudiantSearchIndex.isSearchable("di")).isFalse();
+        assertThat(EtudiantSearchIndex.isSearchable("d hél")).isTrue();
+        assertThat(searchIndex.search("di", PageRequest.of(0, 10)).getContent()).isEmpty();
+    }
+
+    @Test
+    void testSearchIsPaginated() {
+        Page<Long> page = searchIndex.search("hel", PageRequest.of(1, 1));
+
+        assertThat(page.getContent()).containsExactly(2L);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void testWritesAreIndexed() {
+        searchIndex.put(etudiant(1L, "Martin", "Hélène"));
+        searchIndex.remove(2L);
+
+        assertThat(searchIndex.search("dupre", PageRequest.of(0, 10)).getContent()).isEmpty();
+        assertThat(searchIndex.search("martin", PageRequest.of(0, 10)).getContent()).containsExactly(1L);
+        assertThat(searchIndex.search("helene", PageRequest.of(0, 10)).getContent()).containsExactly(1L);
+        assertThat(searchIndex.size()).isEqualTo(3);
+    }
+
+    @Test
+    void testBlankQueryMatchesNothing() {
+        assertThat(searchIndex.search(" - ", PageRequest.of(0, 10)).getContent()).isEmpty();
+    }
+
+    private static Etudiant etudiant(Long id, String nom, String prenom) {
+        Etudiant etudiant = new Etudiant().nom(nom).prenom(prenom);
+        etudiant.setId(id);
+        return etudiant;
+    }
+}
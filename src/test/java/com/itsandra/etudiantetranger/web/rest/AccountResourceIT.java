@@ -7,6 +7,7 @@ import com.itsandra.etudiantetranger.IntegrationTest;
 import com.itsandra.etudiantetranger.config.Constants;
 import com.itsandra.etudiantetranger.domain.User;
 import com.itsandra.etudiantetranger.repository.AuthorityRepository;
+import com.itsandra.etudiantetranger.repository.UserCache;
 import com.itsandra.etudiantetranger.repository.UserRepository;
 import com.itsandra.etudiantetranger.security.AuthoritiesConstants;
 import com.itsandra.etudiantetranger.service.UserService;
@@ -18,6 +19,7 @@ import com.itsandra.etudiantetranger.web.rest.vm.ManagedUserVM;
 import java.time.Instant;
 import java.util.*;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
@@ -52,6 +54,14 @@ class AccountResourceIT {
     @Autowired
     private WebTestClient accountWebTestClient;
 
+    @Autowired
+    private UserCache userCache;
+
+    @BeforeEach
+    public void initTest() {
+        userCache.clear();
+    }
+
     @Test
     @WithUnauthenticatedMockUser
     void testNonAuthenticatedUser() {
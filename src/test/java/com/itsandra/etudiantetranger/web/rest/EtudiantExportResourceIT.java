@@ -0,0 +1,145 @@
+package com.itsandra.etudiantetranger.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.itsandra.etudiantetranger.IntegrationTest;
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import com.itsandra.etudiantetranger.domain.Pays;
+import com.itsandra.etudiantetranger.repository.EntityManager;
+import com.itsandra.etudiantetranger.repository.EtudiantRepository;
+import com.itsandra.etudiantetranger.repository.PaysRepository;
+import com.itsandra.etudiantetranger.repository.ReferenceDataCache;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Integration tests for the {@link EtudiantExportResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureWebTestClient(timeout = IntegrationTest.DEFAULT_ENTITY_TIMEOUT)
+@WithMockUser
+class EtudiantExportResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/etudiants/export";
+
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+
+    @Autowired
+    private PaysRepository paysRepository;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private Pays pays;
+
+    private Etudiant etudiant;
+
+    @AfterEach
+    public void cleanup() {
+        EtudiantResourceIT.deleteEntities(em);
+        PaysResourceIT.deleteEntities(em);
+    }
+
+    @BeforeEach
+    public void initTest() {
+        EtudiantResourceIT.deleteEntities(em);
+        PaysResourceIT.deleteEntities(em);
+        pays = paysRepository.save(new Pays().nomPays("Sénégal")).block();
+        referenceDataCache.invalidate().block();
+        etudiant = etudiantRepository
+            .save(new Etudiant().nom("Diop").prenom("Awa; \"Marie\"").matricule(1001L).date(LocalDate.of(2022, 9, 1)).nomPays(pays))
+            .block();
+        etudiantRepository.save(new Etudiant().nom("Fall").prenom("Ousmane").matricule(1002L)).block();
+    }
+
+    @Test
+    void exportEtudiantsAsCsv() throws Exception {
+        byte[] body = export("?format=csv&nomPaysId=" + pays.getId())
+            .expectHeader()
+            .contentTypeCompatibleWith("text/csv")
+            .expectBody(byte[].class)
+            .returnResult()
+            .getResponseBody();
+
+        String csv = new String(body, StandardCharsets.UTF_8);
+        assertThat(csv)
+            .isEqualTo(
+                "\uFEFFid;nom;prenom;matricule;date;pays;filiere;niveau\r\n" +
+                etudiant.getId() +
+                ";Diop;\"Awa; \"\"Marie\"\"\";1001;2022-09-01;Sénégal;;\r\n"
+            );
+    }
+
+    @Test
+    void exportEtudiantsAsCsvWithoutFormulas() throws Exception {
+        Etudiant formulas = etudiantRepository.save(new Etudiant().nom("=1+1").prenom("@SUM(A1); x").matricule(1003L)).block();
+
+        byte[] body = export("?format=csv&matricule=1003").expectBody(byte[].class).returnResult().getResponseBody();
+
+        assertThat(new String(body, StandardCharsets.UTF_8)).endsWith("\r\n" + formulas.getId() + ";'=1+1;\"'@SUM(A1); x\";1003;;;;\r\n");
+    }
+
+    @Test
+    void exportEtudiantsAsXlsx() throws Exception {
+        byte[] body = export("?format=xlsx&sort=matricule,desc").expectBody(byte[].class).returnResult().getResponseBody();
+
+        List<String> entries = new ArrayList<>();
+        String sheet = null;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(body))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.add(entry.getName());
+                if ("xl/worksheets/sheet1.xml".equals(entry.getName())) {
+                    sheet = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        assertThat(entries).contains("[Content_Types].xml", "xl/workbook.xml", "xl/worksheets/sheet1.xml");
+        assertThat(sheet).contains("<t xml:space=\"preserve\">Sénégal</t>").contains("<v>1001</v>").endsWith("</sheetData></worksheet>");
+        assertThat(sheet.indexOf("<v>1002</v>")).isLessThan(sheet.indexOf("<v>1001</v>"));
+    }
+
+    @Test
+    void exportEtudiantsAsXlsxWithoutCharactersNotAllowedInXml() throws Exception {
+        etudiantRepository.save(new Etudiant().nom("N\uFFFEd\uFFFFi\u0001ay").matricule(1003L)).block();
+
+        byte[] body = export("?format=xlsx&matricule=1003").expectBody(byte[].class).returnResult().getResponseBody();
+
+        String sheet = null;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(body))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                if ("xl/worksheets/sheet1.xml".equals(entry.getName())) {
+                    sheet = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        assertThat(sheet).contains("<t xml:space=\"preserve\">Ndiay</t>").doesNotContain("\uFFFE").doesNotContain("\uFFFF");
+    }
+
+    @Test
+    void exportEtudiantsWithUnknownFormat() throws Exception {
+        webTestClient.get().uri(ENTITY_API_URL + "?format=pdf").exchange().expectStatus().isBadRequest();
+    }
+
+    private WebTestClient.ResponseSpec export(String query) {
+        return webTestClient.get().uri(ENTITY_API_URL + query).exchange().expectStatus().isOk();
+    }
+}
@@ -0,0 +1,175 @@
+package com.itsandra.etudiantetranger.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.itsandra.etudiantetranger.IntegrationTest;
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import com.itsandra.etudiantetranger.domain.Pays;
+import com.itsandra.etudiantetranger.repository.EntityManager;
+import com.itsandra.etudiantetranger.repository.EtudiantRepository;
+import com.itsandra.etudiantetranger.repository.PaysRepository;
+import com.itsandra.etudiantetranger.repository.ReferenceDataCache;
+import com.itsandra.etudiantetranger.service.dto.EtudiantImportDTO;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+
+/**
+ * Integration tests for the {@link EtudiantImportResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureWebTestClient(timeout = IntegrationTest.DEFAULT_ENTITY_TIMEOUT)
+@WithMockUser
+class EtudiantImportResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/etudiants/import";
+
+    private static final String JOBS_API_URL = "/api/etudiants/imports";
+
+    @Autowired
+    private EtudiantRepository etudiantRepository;
+
+    @Autowired
+    private PaysRepository paysRepository;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private Pays pays;
+
+    @AfterEach
+    public void cleanup() {
+        EtudiantResourceIT.deleteEntities(em);
+        PaysResourceIT.deleteEntities(em);
+    }
+
+    @BeforeEach
+    public void initTest() {
+        EtudiantResourceIT.deleteEntities(em);
+        PaysResourceIT.deleteEntities(em);
+        pays = paysRepository.save(new Pays().nomPays("Sénégal")).block();
+        referenceDataCache.invalidate().block();
+    }
+
+    @Test
+    void importEtudiants() throws Exception {
+        String csv =
+            "id;nom;prenom;matricule;date;pays\r\n" +
+            "1;Diop;\"Awa; Marie\";1001;2022-09-01;sénégal\r\n" +
+            "2;Ndiaye;Moussa;abc;2022-09-01;Sénégal\r\n" +
+            "\r\n" +
+            "4;Fall;Ousmane;1003;2022-09-01;Atlantis\r\n" +
+            "5;Sow;Fatou;1004;;\r\n";
+
+        EtudiantImportDTO job = upload(csv).expectStatus().isCreated().expectBody(EtudiantImportDTO.class).returnResult().getResponseBody();
+
+        assertThat(job.getStatus()).isEqualTo(EtudiantImportDTO.Status.COMPLETED);
+        assertThat(job.getRowsImported()).isEqualTo(2);
+        assertThat(job.getRowsRejected()).isEqualTo(2);
+        assertThat(job.getRowErrors()).extracting(EtudiantImportDTO.RowError::getLine).containsExactly(3L, 5L);
+
+        List<Etudiant> etudiants = etudiantRepository.findAll().collectList().block();
+        assertThat(etudiants).extracting(Etudiant::getMatricule).containsExactlyInAnyOrder(1001L, 1004L);
+        Etudiant diop = etudiants.stream().filter(etudiant -> etudiant.getMatricule() == 1001L).findFirst().get();
+        assertThat(diop.getPrenom()).isEqualTo("Awa; Marie");
+        assertThat(diop.getDate()).isEqualTo(LocalDate.of(2022, 9, 1));
+        assertThat(diop.getNomPaysId()).isEqualTo(pays.getId());
+
+        webTestClient
+            .get()
+            .uri(JOBS_API_URL + "/{id}", job.getId())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.rowsImported")
+            .isEqualTo(2);
+    }
+
+    @Test
+    void importEtudiantsWithoutHeader() throws Exception {
+        upload("1001;2022-09-01\n")
+            .expectStatus()
+            .isBadRequest()
+            .expectBody()
+            .jsonPath("$.status")
+            .isEqualTo(EtudiantImportDTO.Status.FAILED.name());
+    }
+
+    @Test
+    void importEtudiantsWithJobId() throws Exception {
+        String csv = "nom;prenom;matricule\n" + "Diop;Awa;1001\n";
+
+        upload(csv, "my-import_1")
+            .expectStatus()
+            .isCreated()
+            .expectHeader()
+            .location(JOBS_API_URL + "/my-import_1")
+            .expectBody()
+            .jsonPath("$.id")
+            .isEqualTo("my-import_1")
+            .jsonPath("$.rowsImported")
+            .isEqualTo(1);
+
+        webTestClient.get().uri(JOBS_API_URL + "/{id}", "my-import_1").exchange().expectStatus().isOk();
+
+        upload(csv, "my-import_1").expectStatus().isBadRequest().expectBody().jsonPath("$.message").isEqualTo("error.idexists");
+        assertThat(etudiantRepository.count().block()).isEqualTo(1L);
+    }
+
+    @Test
+    void importEtudiantsWithInvalidJobId() throws Exception {
+        upload("nom;prenom;matricule\n", "../jobs").expectStatus().isBadRequest();
+    }
+
+    @Test
+    void importEtudiantsWithoutFile() throws Exception {
+        MultipartBodyBuilder builder = new MultipartBodyBuilder();
+        builder.part("other", "value");
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.MULTIPART_FORM_DATA)
+            .body(BodyInserters.fromMultipartData(builder.build()))
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    void getNonExistingImport() throws Exception {
+        webTestClient.get().uri(JOBS_API_URL + "/{id}", "unknown").exchange().expectStatus().isNotFound();
+    }
+
+    private WebTestClient.ResponseSpec upload(String csv) {
+        return upload(csv, null);
+    }
+
+    private WebTestClient.ResponseSpec upload(String csv, String jobId) {
+        MultipartBodyBuilder builder = new MultipartBodyBuilder();
+        builder.part("file", csv.getBytes(StandardCharsets.UTF_8)).filename("etudiants.csv").contentType(MediaType.parseMediaType("text/csv"));
+        return webTestClient
+            .post()
+            .uri(uriBuilder -> uriBuilder.path(ENTITY_API_URL).queryParamIfPresent("jobId", Optional.ofNullable(jobId)).build())
+            .contentType(MediaType.MULTIPART_FORM_DATA)
+            .body(BodyInserters.fromMultipartData(builder.build()))
+            .exchange();
+    }
+}
@@ -6,9 +6,20 @@ import static org.hamcrest.Matchers.is;
 
 import com.itsandra.etudiantetranger.IntegrationTest;
 import com.itsandra.etudiantetranger.domain.Etudiant;
+import com.itsandra.etudiantetranger.domain.Filiere;
+import com.itsandra.etudiantetranger.domain.Niveau;
+import com.itsandra.etudiantetranger.domain.Pays;
 import com.itsandra.etudiantetranger.repository.EntityManager;
 import com.itsandra.etudiantetranger.repository.EtudiantRepository;
+import com.itsandra.etudiantetranger.repository.FiliereRepository;
+import com.itsandra.etudiantetranger.repository.KeysetCursor;
+import com.itsandra.etudiantetranger.repository.NiveauRepository;
+import com.itsandra.etudiantetranger.repository.PaysRepository;
+import com.itsandra.etudiantetranger.repository.ReferenceDataCache;
+import com.itsandra.etudiantetranger.service.EtudiantService;
+import com.itsandra.etudiantetranger.service.dto.EtudiantChangeDTO;
 import com.itsandra.etudiantetranger.service.dto.EtudiantDTO;
+import com.itsandra.etudiantetranger.service.index.EtudiantIndexes;
 import com.itsandra.etudiantetranger.service.mapper.EtudiantMapper;
 import java.time.Duration;
 import java.time.LocalDate;
@@ -16,6 +27,8 @@ import java.time.ZoneId;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,8 +37,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.FluxExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
 /**
@@ -60,6 +78,24 @@ class EtudiantResourceIT {
     @Autowired
     private EtudiantMapper etudiantMapper;
 
+    @Autowired
+    private PaysRepository paysRepository;
+
+    @Autowired
+    private NiveauRepository niveauRepository;
+
+    @Autowired
+    private FiliereRepository filiereRepository;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private EtudiantIndexes etudiantIndexes;
+
+    @Autowired
+    private EtudiantService etudiantService;
+
     @Autowired
     private EntityManager em;
 
@@ -133,6 +169,68 @@ class EtudiantResourceIT {
         assertThat(testEtudiant.getDate()).isEqualTo(DEFAULT_DATE);
     }
 
+    @Test
+    void createEtudiantsInBulk() throws Exception {
+        int databaseSizeBeforeCreate = etudiantRepository.findAll().collectList().block().size();
+        EtudiantDTO first = etudiantMapper.toDto(etudiant);
+        EtudiantDTO second = etudiantMapper.toDto(createUpdatedEntity(em));
+        EtudiantDTO existing = etudiantMapper.toDto(createEntity(em));
+        existing.setId(1L);
+        EtudiantDTO invalid = etudiantMapper.toDto(createEntity(em));
+        invalid.setNom("N".repeat(256));
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(List.of(first, existing, second, invalid)))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(4)
+            .jsonPath("$.[0].index")
+            .isEqualTo(0)
+            .jsonPath("$.[0].id")
+            .isNotEmpty()
+            .jsonPath("$.[1].index")
+            .isEqualTo(1)
+            .jsonPath("$.[1].error")
+            .isEqualTo("error.idexists")
+            .jsonPath("$.[2].index")
+            .isEqualTo(2)
+            .jsonPath("$.[2].id")
+            .isNotEmpty()
+            .jsonPath("$.[3].index")
+            .isEqualTo(3)
+            .jsonPath("$.[3].error")
+            .isEqualTo("error.validation");
+
+        // Only the etudiants without an ID are created
+        List<Etudiant> etudiantList = etudiantRepository.findAll().collectList().block();
+        assertThat(etudiantList).hasSize(databaseSizeBeforeCreate + 2);
+        assertThat(etudiantList).extracting(Etudiant::getNom).contains(DEFAULT_NOM, UPDATED_NOM);
+    }
+
+    @Test
+    void createEtudiantWithTooLongNom() throws Exception {
+        etudiant.setNom("N".repeat(256));
+        EtudiantDTO etudiantDTO = etudiantMapper.toDto(etudiant);
+
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(etudiantDTO))
+            .exchange()
+            .expectStatus()
+            .isBadRequest()
+            .expectBody()
+            .jsonPath("$.message")
+            .isEqualTo("error.validation");
+    }
+
     @Test
     void createEtudiantWithExistingId() throws Exception {
         // Create the Etudiant with an existing ID
@@ -184,6 +282,359 @@ class EtudiantResourceIT {
             .value(hasItem(DEFAULT_DATE.toString()));
     }
 
+    @Test
+    void streamAllEtudiants() {
+        // Initialize the database
+        etudiantRepository.save(etudiant).block();
+
+        // Stream all the etudiants
+        List<EtudiantDTO> etudiants = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?unpaged=true&sort=id,desc")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .returnResult(EtudiantDTO.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+
+        assertThat(etudiants).extracting(EtudiantDTO::getId).contains(etudiant.getId());
+    }
+
+    @Test
+    void streamAllEtudiantsByCriteria() {
+        // Initialize the database
+        etudiantRepository.save(etudiant).block();
+        Etudiant updated = etudiantRepository.save(createUpdatedEntity(em)).block();
+
+        // Stream the etudiants with the updated matricule
+        List<EtudiantDTO> etudiants = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?unpaged=true&matricule=" + UPDATED_MATRICULE)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(EtudiantDTO.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+
+        assertThat(etudiants).extracting(EtudiantDTO::getId).contains(updated.getId()).doesNotContain(etudiant.getId());
+        assertThat(etudiants).extracting(EtudiantDTO::getMatricule).containsOnly(UPDATED_MATRICULE);
+    }
+
+    @Test
+    void getAllEtudiantsWithKeysetPaginationByCriteria() {
+        // Initialize the database
+        etudiantRepository.save(etudiant).block();
+        Etudiant first = etudiantRepository.save(createUpdatedEntity(em)).block();
+        Etudiant second = etudiantRepository.save(createUpdatedEntity(em)).block();
+
+        // Get the pages of the etudiants with the updated matricule after the etudiant
+        String uri = ENTITY_API_URL + "?matricule=" + UPDATED_MATRICULE + "&size=1&after=";
+        List<String> links = webTestClient
+            .get()
+            .uri(uri + new KeysetCursor("id", Sort.Direction.ASC, null, etudiant.getId()).encode())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[0].id")
+            .isEqualTo(first.getId().intValue())
+            .returnResult()
+            .getResponseHeaders()
+            .get(HttpHeaders.LINK);
+        assertThat(links).hasSize(1);
+        assertThat(links.get(0)).contains("matricule=" + UPDATED_MATRICULE);
+        Matcher cursor = Pattern.compile("after=([^&>]+)").matcher(links.get(0));
+        assertThat(cursor.find()).isTrue();
+
+        // The next page keeps the filter
+        webTestClient
+            .get()
+            .uri(uri + cursor.group(1))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[0].id")
+            .isEqualTo(second.getId().intValue());
+    }
+
+    @Test
+    void getAllEtudiantsWithKeysetPagination() {
+        // Initialize the database
+        etudiantRepository.save(etudiant).block();
+        etudiantRepository.save(createEntity(em)).block();
+        Etudiant last = etudiantRepository.save(createEntity(em)).block();
+
+        // Get the first page, which must link to the next one
+        List<String> links = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?after=&size=2&sort=id,asc")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(2)
+            .jsonPath("$.[0].id")
+            .isEqualTo(etudiant.getId().intValue())
+            .returnResult()
+            .getResponseHeaders()
+            .get(HttpHeaders.LINK);
+        assertThat(links).hasSize(1);
+        Matcher cursor = Pattern.compile("after=([^&>]+)").matcher(links.get(0));
+        assertThat(cursor.find()).isTrue();
+
+        // Get the next page
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?after=" + cursor.group(1) + "&size=2")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist(HttpHeaders.LINK)
+            .expectBody()
+            .jsonPath("$.length()")
+            .isEqualTo(1)
+            .jsonPath("$.[0].id")
+            .isEqualTo(last.getId().intValue());
+    }
+
+    @Test
+    void getAllEtudiantsWithInvalidCursor() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?after=not-a-cursor")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    void getAllEtudiantsByNomStartsWith() {
+        // Initialize the database
+        etudiantRepository.save(etudiant).block();
+
+        defaultEtudiantShouldBeFound("nom=" + DEFAULT_NOM.substring(0, 3));
+        defaultEtudiantShouldNotBeFound("nom=" + UPDATED_NOM);
+        // The LIKE wildcards of the prefix match literally
+        defaultEtudiantShouldNotBeFound("nom=A_");
+    }
+
+    @Test
+    void getAllEtudiantsByDateRange() {
+        // Initialize the database
+        etudiantRepository.save(etudiant).block();
+
+        defaultEtudiantShouldBeFound("dateFrom=" + DEFAULT_DATE + "&dateTo=" + DEFAULT_DATE);
+        defaultEtudiantShouldNotBeFound("dateFrom=" + DEFAULT_DATE.plusDays(1));
+        defaultEtudiantShouldNotBeFound("dateTo=" + DEFAULT_DATE.minusDays(1));
+    }
+
+    @Test
+    void getAllEtudiantsByNomPaysAndMatricule() {
+        // Initialize the database
+        Pays pays = paysRepository.save(PaysResourceIT.createEntity(em)).block();
+        etudiant.setNomPays(pays);
+        etudiantRepository.save(etudiant).block();
+
+        defaultEtudiantShouldBeFound("nomPaysId=" + pays.getId() + "&matricule=" + DEFAULT_MATRICULE);
+        defaultEtudiantShouldNotBeFound("nomPaysId=" + pays.getId() + "&matricule=" + UPDATED_MATRICULE);
+        defaultEtudiantShouldNotBeFound("nomPaysId=" + (pays.getId() + 1));
+    }
+
+    @Test
+    void searchEtudiantIgnoringCaseAndAccents() throws Exception {
+        // Drop the etudiants deleted directly in the database by the other tests
+        etudiantIndexes.reload().block();
+        EtudiantDTO etudiantDTO = etudiantMapper.toDto(etudiant.nom("Dupré").prenom("Hélène"));
+        EtudiantDTO created = webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(etudiantDTO))
+            .exchange()
+            .expectStatus()
+            .isCreated()
+            .expectBody(EtudiantDTO.class)
+            .returnResult()
+            .getResponseBody();
+
+        webTestClient
+            .get()
+            .uri("/api/_search/etudiants?q=HELENE dupr")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(created.getId().intValue()))
+            .jsonPath("$.[*].prenom")
+            .value(hasItem("Hélène"));
+
+        webTestClient
+            .get()
+            .uri("/api/_search/etudiants?q=helena")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "0");
+
+        // Deleted etudiants leave the index
+        webTestClient.delete().uri(ENTITY_API_URL_ID, created.getId()).exchange().expectStatus().isNoContent();
+        webTestClient
+            .get()
+            .uri("/api/_search/etudiants?q=helene")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "0");
+    }
+
+    @Test
+    void searchEtudiantWithOnlyShortTerms() throws Exception {
+        webTestClient
+            .get()
+            .uri("/api/_search/etudiants?q=he d")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest()
+            .expectBody()
+            .jsonPath("$.message")
+            .isEqualTo("error.querytooshort");
+    }
+
+    @Test
+    void getEtudiantFacets() throws Exception {
+        // Drop the etudiants deleted directly in the database by the other tests
+        etudiantIndexes.reload().block();
+        Pays pays = paysRepository.save(PaysResourceIT.createEntity(em)).block();
+        webTestClient
+            .post()
+            .uri(ENTITY_API_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(etudiantMapper.toDto(etudiant.nomPays(pays))))
+            .exchange()
+            .expectStatus()
+            .isCreated();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/facets?pays=" + pays.getId() + "&facets=pays,year")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.total")
+            .isEqualTo(1)
+            .jsonPath("$.facets.pays['" + pays.getId() + "']")
+            .isEqualTo(1)
+            .jsonPath("$.facets.year['" + DEFAULT_DATE.getYear() + "']")
+            .isEqualTo(1)
+            .jsonPath("$.facets.filiere")
+            .doesNotExist();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/facets?pays=" + pays.getId() + "&year=" + (DEFAULT_DATE.getYear() + 1))
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.total")
+            .isEqualTo(0);
+
+        webTestClient.get().uri(ENTITY_API_URL + "/facets?facets=ville").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void streamEtudiantChanges() throws Exception {
+        FluxExchangeResult<ServerSentEvent<EtudiantChangeDTO>> result = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/changes")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<EtudiantChangeDTO>>() {});
+
+        EtudiantDTO created = etudiantService.save(etudiantMapper.toDto(etudiant)).block();
+        etudiantService.delete(created.getId()).block();
+
+        List<ServerSentEvent<EtudiantChangeDTO>> events = result
+            .getResponseBody()
+            .filter(event -> event.event() != null)
+            .take(2)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("created", "deleted");
+        assertThat(events.get(0).data().getEtudiant().getNom()).isEqualTo(DEFAULT_NOM);
+        assertThat(events.get(1).data().getId()).isEqualTo(created.getId());
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is returned, with its total.
+     */
+    private void defaultEtudiantShouldBeFound(String filter) {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc&" + filter)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(etudiant.getId().intValue()))
+            .jsonPath("$.[*].nom")
+            .value(hasItem(DEFAULT_NOM));
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is not returned.
+     */
+    private void defaultEtudiantShouldNotBeFound(String filter) {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc&" + filter)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .valueEquals("X-Total-Count", "0")
+            .expectBody()
+            .jsonPath("$")
+            .isArray()
+            .jsonPath("$")
+            .isEmpty();
+    }
+
     @Test
     void getEtudiant() {
         // Initialize the database
@@ -212,6 +663,32 @@ class EtudiantResourceIT {
             .value(is(DEFAULT_DATE.toString()));
     }
 
+    @Test
+    void getEtudiantWithReferenceData() {
+        // Initialize the database
+        Pays pays = paysRepository.save(PaysResourceIT.createEntity(em)).block();
+        referenceDataCache.invalidate().block();
+        etudiant.setNomPays(pays);
+        etudiantRepository.save(etudiant).block();
+
+        // Get the etudiant, whose pays is hydrated from the reference data cache
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, etudiant.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.nomPays.id")
+            .value(is(pays.getId().intValue()))
+            .jsonPath("$.nomPays.nomPays")
+            .value(is(pays.getNomPays()));
+
+        etudiantRepository.deleteById(etudiant.getId()).block();
+        paysRepository.deleteById(pays.getId()).block();
+    }
+
     @Test
     void getNonExistingEtudiant() {
         // Get the etudiant
@@ -255,6 +732,36 @@ class EtudiantResourceIT {
         assertThat(testEtudiant.getDate()).isEqualTo(UPDATED_DATE);
     }
 
+    @Test
+    void putEtudiantWithReferenceData() throws Exception {
+        // Initialize the database
+        Pays pays = paysRepository.save(PaysResourceIT.createEntity(em)).block();
+        referenceDataCache.invalidate().block();
+        etudiantRepository.save(etudiant).block();
+
+        // Update the etudiant with the id of its pays only
+        EtudiantDTO etudiantDTO = etudiantMapper.toDto(etudiant.nom(UPDATED_NOM).nomPays(pays));
+        etudiantDTO.getNomPays().setNomPays(null);
+
+        // The pays of the updated etudiant is hydrated from the reference data cache
+        webTestClient
+            .put()
+            .uri(ENTITY_API_URL_ID, etudiantDTO.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(TestUtil.convertObjectToJsonBytes(etudiantDTO))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.nom")
+            .value(is(UPDATED_NOM))
+            .jsonPath("$.nomPays.nomPays")
+            .value(is(pays.getNomPays()));
+
+        etudiantRepository.deleteById(etudiant.getId()).block();
+        paysRepository.deleteById(pays.getId()).block();
+    }
+
     @Test
     void putNonExistingEtudiant() throws Exception {
         int databaseSizeBeforeUpdate = etudiantRepository.findAll().collectList().block().size();
@@ -263,7 +770,7 @@ class EtudiantResourceIT {
         // Create the Etudiant
         EtudiantDTO etudiantDTO = etudiantMapper.toDto(etudiant);
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // The update doesn't match any row, so it is a 404
         webTestClient
             .put()
             .uri(ENTITY_API_URL_ID, etudiantDTO.getId())
@@ -271,7 +778,7 @@ class EtudiantResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(etudiantDTO))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Etudiant in the database
         List<Etudiant> etudiantList = etudiantRepository.findAll().collectList().block();
@@ -388,6 +895,59 @@ class EtudiantResourceIT {
         assertThat(testEtudiant.getDate()).isEqualTo(UPDATED_DATE);
     }
 
+    @Test
+    void patchEtudiantWithAllFields() throws Exception {
+        // Initialize the database
+        Pays pays = paysRepository.save(PaysResourceIT.createEntity(em)).block();
+        Niveau niveau = niveauRepository.save(NiveauResourceIT.createEntity(em)).block();
+        Filiere filiere = filiereRepository.save(FiliereResourceIT.createEntity(em)).block();
+        referenceDataCache.invalidate().block();
+        etudiantRepository.save(etudiant).block();
+
+        // Patch all the fields, with the ids of the reference data only
+        EtudiantDTO etudiantDTO = etudiantMapper.toDto(
+            etudiant
+                .nom(UPDATED_NOM)
+                .prenom(UPDATED_PRENOM)
+                .matricule(UPDATED_MATRICULE)
+                .date(UPDATED_DATE)
+                .nomPays(pays)
+                .nomNiveau(niveau)
+                .nomFiliere(filiere)
+        );
+        etudiantDTO.getNomPays().setNomPays(null);
+        etudiantDTO.getNomNiveau().setNomNiveau(null);
+        etudiantDTO.getNomFiliere().setNomFiliere(null);
+
+        // The etudiant is not read back: its reference data is hydrated from the reference data cache
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL_ID, etudiantDTO.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue(TestUtil.convertObjectToJsonBytes(etudiantDTO))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.nom")
+            .value(is(UPDATED_NOM))
+            .jsonPath("$.nomPays.nomPays")
+            .value(is(pays.getNomPays()))
+            .jsonPath("$.nomNiveau.nomNiveau")
+            .value(is(niveau.getNomNiveau()))
+            .jsonPath("$.nomFiliere.nomFiliere")
+            .value(is(filiere.getNomFiliere()));
+
+        Etudiant testEtudiant = etudiantRepository.findById(etudiant.getId()).block();
+        assertThat(testEtudiant.getMatricule()).isEqualTo(UPDATED_MATRICULE);
+        assertThat(testEtudiant.getNomPaysId()).isEqualTo(pays.getId());
+
+        etudiantRepository.deleteById(etudiant.getId()).block();
+        paysRepository.deleteById(pays.getId()).block();
+        niveauRepository.deleteById(niveau.getId()).block();
+        filiereRepository.deleteById(filiere.getId()).block();
+    }
+
     @Test
     void patchNonExistingEtudiant() throws Exception {
         int databaseSizeBeforeUpdate = etudiantRepository.findAll().collectList().block().size();
@@ -396,7 +956,7 @@ class EtudiantResourceIT {
         // Create the Etudiant
         EtudiantDTO etudiantDTO = etudiantMapper.toDto(etudiant);
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // The update doesn't match any row, so it is a 404
         webTestClient
             .patch()
             .uri(ENTITY_API_URL_ID, etudiantDTO.getId())
@@ -404,7 +964,7 @@ class EtudiantResourceIT {
             .bodyValue(TestUtil.convertObjectToJsonBytes(etudiantDTO))
             .exchange()
             .expectStatus()
-            .isBadRequest();
+            .isNotFound();
 
         // Validate the Etudiant in the database
         List<Etudiant> etudiantList = etudiantRepository.findAll().collectList().block();
@@ -8,6 +8,7 @@ import com.itsandra.etudiantetranger.IntegrationTest;
 import com.itsandra.etudiantetranger.domain.Pays;
 import com.itsandra.etudiantetranger.repository.EntityManager;
 import com.itsandra.etudiantetranger.repository.PaysRepository;
+import com.itsandra.etudiantetranger.service.TotalCountService;
 import com.itsandra.etudiantetranger.service.dto.PaysDTO;
 import com.itsandra.etudiantetranger.service.mapper.PaysMapper;
 import java.time.Duration;
@@ -22,6 +23,10 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -164,6 +169,59 @@ class PaysResourceIT {
             .value(hasItem(DEFAULT_NOM_PAYS));
     }
 
+    @Test
+    void getAllPaysWithoutTotalCount() {
+        // Initialize the database
+        paysRepository.save(pays).block();
+
+        // Get all the paysList, without the total
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc")
+            .header(TotalCountService.SKIP_TOTAL_COUNT_HEADER, "true")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist("X-Total-Count")
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(pays.getId().intValue()));
+    }
+
+    @Test
+    void getAllPaysWithoutTotalCountLinksOnlyTheNextPage() {
+        // Initialize the database
+        paysRepository.save(pays).block();
+
+        // A full page has a next page, but without the total there is no last page
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc&size=1")
+            .header(TotalCountService.SKIP_TOTAL_COUNT_HEADER, "true")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist("X-Total-Count")
+            .expectHeader()
+            .value(HttpHeaders.LINK, link -> assertThat(link).contains("rel=\"next\"").doesNotContain("rel=\"last\""));
+    }
+
+    @Test
+    void getAllPaysWithWindowTotalCount() {
+        // Initialize the database
+        paysRepository.save(pays).block();
+        long count = paysRepository.count().block();
+
+        Page<Pays> page = paysRepository.findAllWithTotalBy(PageRequest.of(0, 1, Sort.by("id"))).block();
+
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getTotalElements()).isEqualTo(count);
+    }
+
     @Test
     void getPays() {
         // Initialize the database
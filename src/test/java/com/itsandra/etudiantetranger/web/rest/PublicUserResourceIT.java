@@ -6,6 +6,7 @@ import com.itsandra.etudiantetranger.IntegrationTest;
 import com.itsandra.etudiantetranger.config.Constants;
 import com.itsandra.etudiantetranger.domain.User;
 import com.itsandra.etudiantetranger.repository.EntityManager;
+import com.itsandra.etudiantetranger.repository.UserCache;
 import com.itsandra.etudiantetranger.repository.UserRepository;
 import com.itsandra.etudiantetranger.security.AuthoritiesConstants;
 import com.itsandra.etudiantetranger.service.dto.UserDTO;
@@ -30,6 +31,9 @@ class PublicUserResourceIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
     @Autowired
     private EntityManager em;
 
@@ -40,6 +44,7 @@ class PublicUserResourceIT {
 
     @BeforeEach
     public void initTest() {
+        userCache.clear();
         user = UserResourceIT.initTestUser(userRepository, em);
     }
 
@@ -0,0 +1,96 @@
+package com.itsandra.etudiantetranger.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.itsandra.etudiantetranger.IntegrationTest;
+import com.itsandra.etudiantetranger.domain.Etudiant;
+import com.itsandra.etudiantetranger.repository.EntityManager;
+import com.itsandra.etudiantetranger.service.EtudiantService;
+import com.itsandra.etudiantetranger.service.dto.EtudiantDTO;
+import com.itsandra.etudiantetranger.service.dto.SyncDTO;
+import com.itsandra.etudiantetranger.service.mapper.EtudiantMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Integration tests for the {@link SyncResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureWebTestClient(timeout = IntegrationTest.DEFAULT_ENTITY_TIMEOUT)
+@WithMockUser
+class SyncResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/sync";
+
+    @Autowired
+    private EtudiantService etudiantService;
+
+    @Autowired
+    private EtudiantMapper etudiantMapper;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private Etudiant etudiant;
+
+    @AfterEach
+    public void cleanup() {
+        EtudiantResourceIT.deleteEntities(em);
+    }
+
+    @BeforeEach
+    public void initTest() {
+        EtudiantResourceIT.deleteEntities(em);
+        etudiant = EtudiantResourceIT.createEntity(em);
+    }
+
+    @Test
+    void syncCreatesThenDeletes() throws Exception {
+        EtudiantDTO created = etudiantService.save(etudiantMapper.toDto(etudiant)).block();
+
+        SyncDTO full = sync(ENTITY_API_URL);
+        assertThat(full.isFull()).isTrue();
+        assertThat(full.getEtudiants()).extracting(EtudiantDTO::getId).contains(created.getId());
+        assertThat(full.getDeleted()).isEmpty();
+
+        SyncDTO unchanged = sync(ENTITY_API_URL + "?since=" + full.getVersion());
+        assertThat(unchanged.isFull()).isFalse();
+        assertThat(unchanged.getVersion()).isGreaterThanOrEqualTo(full.getVersion());
+        assertThat(unchanged.getEtudiants()).isEmpty();
+
+        etudiantService.delete(created.getId()).block();
+
+        SyncDTO delta = sync(ENTITY_API_URL + "?since=" + full.getVersion());
+        assertThat(delta.isFull()).isFalse();
+        assertThat(delta.getVersion()).isGreaterThan(full.getVersion());
+        assertThat(delta.getEtudiants()).isEmpty();
+        assertThat(delta.getDeleted().get("etudiant")).containsExactly(created.getId());
+    }
+
+    @Test
+    void syncSinceNegativeVersion() throws Exception {
+        webTestClient.get().uri(ENTITY_API_URL + "?since=-1").exchange().expectStatus().isBadRequest();
+    }
+
+    private SyncDTO sync(String uri) {
+        return webTestClient
+            .get()
+            .uri(uri)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(SyncDTO.class)
+            .returnResult()
+            .getResponseBody();
+    }
+}
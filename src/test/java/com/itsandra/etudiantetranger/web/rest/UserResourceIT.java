@@ -8,6 +8,7 @@ import com.itsandra.etudiantetranger.domain.Authority;
 import com.itsandra.etudiantetranger.domain.User;
 import com.itsandra.etudiantetranger.repository.AuthorityRepository;
 import com.itsandra.etudiantetranger.repository.EntityManager;
+import com.itsandra.etudiantetranger.repository.UserCache;
 import com.itsandra.etudiantetranger.repository.UserRepository;
 import com.itsandra.etudiantetranger.security.AuthoritiesConstants;
 import com.itsandra.etudiantetranger.service.dto.AdminUserDTO;
@@ -60,6 +61,9 @@ class UserResourceIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
     @Autowired
     private AuthorityRepository authorityRepository;
 
@@ -120,6 +124,7 @@ class UserResourceIT {
 
     @BeforeEach
     public void initTest() {
+        userCache.clear();
         user = initTestUser(userRepository, em);
     }
 
@@ -285,6 +290,35 @@ class UserResourceIT {
         assertThat(foundUser.getAuthorities()).containsExactly(AuthoritiesConstants.USER);
     }
 
+    @Test
+    void getAllUsersDoesNotSplitTheAuthoritiesOfAUser() {
+        // Initialize the database with two users having two authorities each
+        userRepository.save(user).block();
+        User otherUser = createEntity(em);
+        userRepository.save(otherUser).block();
+        for (User savedUser : List.of(user, otherUser)) {
+            userRepository.saveUserAuthority(savedUser.getId(), AuthoritiesConstants.USER).block();
+            userRepository.saveUserAuthority(savedUser.getId(), AuthoritiesConstants.ADMIN).block();
+        }
+
+        // Get the first page of one user
+        List<AdminUserDTO> foundUsers = webTestClient
+            .get()
+            .uri("/api/admin/users?sort=id,ASC&page=0&size=1")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(AdminUserDTO.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+
+        assertThat(foundUsers).hasSize(1);
+        assertThat(foundUsers.get(0).getLogin()).isEqualTo(DEFAULT_LOGIN);
+        assertThat(foundUsers.get(0).getAuthorities()).containsExactlyInAnyOrder(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN);
+    }
+
     @Test
     void getUser() {
         // Initialize the database